@@ -0,0 +1,66 @@
+package com.example.PaymentOptimizationAlgorithm.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Thread pools used by the routing engines.
+ */
+@Configuration
+public class RoutingExecutorConfig {
+
+    /**
+     * Pool on which batch routing runs its per-origin searches. With virtual threads enabled every search gets a
+     * virtual thread of its own, and the JVM's carrier threads bound how many run at once.
+     *
+     * @param parallelism    Number of worker threads; 0 uses one per available processor. Ignored with virtual threads.
+     * @param virtualThreads Whether requests are served on virtual threads ({@code spring.threads.virtual.enabled}).
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchRoutingExecutor(@Value("${payment.batch.parallelism:0}") int parallelism,
+                                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Scheduler on which the streaming API runs its searches, off the threads that read requests and write
+     * results. Its fixed number of threads bounds how many streamed searches run at once.
+     *
+     * @param parallelism Number of worker threads; 0 uses one per available processor.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler routingScheduler(@Value("${payment.reactive.parallelism:0}") int parallelism) {
+        return Schedulers.newParallel("routing", parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Pool for background preprocessing: contraction hierarchies and all-pairs route tables.
+     *
+     * @param parallelism Number of worker threads; 0 uses one per available processor.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool preprocessingPool(@Value("${payment.preprocessing.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Pool that grows full shortest-path trees; one tree uses all of its workers. The processor count seen by
+     * the JVM follows the container's CPU limit.
+     *
+     * @param parallelism Number of worker threads; 0 uses one per available processor.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool shortestPathTreePool(@Value("${payment.tree.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
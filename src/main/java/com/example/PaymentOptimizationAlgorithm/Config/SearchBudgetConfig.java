@@ -0,0 +1,59 @@
+package com.example.PaymentOptimizationAlgorithm.Config;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binds the deadline a client sends in the {@value #TIMEOUT_HEADER} header to the thread serving its request, so
+ * that every search the request runs stops once the deadline has passed. Engines still apply their own
+ * {@code payment.search.*} budget where it is stricter.
+ */
+@Configuration
+public class SearchBudgetConfig implements WebMvcConfigurer {
+
+    /**
+     * Request header with the number of milliseconds the request's searches may take.
+     */
+    public static final String TIMEOUT_HEADER = "X-Search-Timeout-Ms";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SearchBudgetInterceptor())
+                .addPathPatterns("/payment/process/**", "/payment/process", "/payment/tree");
+    }
+
+    private static final class SearchBudgetInterceptor implements AsyncHandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            String timeout = request.getHeader(TIMEOUT_HEADER);
+            if (timeout != null && !timeout.isBlank()) {
+                try {
+                    SearchBudget.enter(SearchBudget.of(Long.parseLong(timeout.strip()), 0));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid " + TIMEOUT_HEADER + " header: " + timeout);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            SearchBudget.exit(null);
+        }
+
+        /**
+         * A streamed response is written from other threads, so the serving thread lets go of the budget as soon as
+         * its handler returns; the streaming API applies the header to each search itself.
+         */
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            SearchBudget.exit(null);
+        }
+    }
+}
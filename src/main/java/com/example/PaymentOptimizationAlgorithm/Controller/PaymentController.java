@@ -1,57 +1,116 @@
 package com.example.PaymentOptimizationAlgorithm.Controller;
 
+import com.example.PaymentOptimizationAlgorithm.Config.SearchBudgetConfig;
 import com.example.PaymentOptimizationAlgorithm.CustomException.NoDefinedPathException;
+import com.example.PaymentOptimizationAlgorithm.Pojo.AlternativeRoute;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteResult;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteTree;
+import com.example.PaymentOptimizationAlgorithm.Pojo.TopologyEvent;
 import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.ReactiveRoutingService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.TenantRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * REST controller for handling payment-related operations.
+ * Every endpoint acts on the network of the tenant named in the {@value #TENANT_HEADER} header, or on the
+ * default network if the header is absent.
  */
 @RestController
 @RequestMapping("/payment")
 public class PaymentController {
 
+    /**
+     * Request header selecting the tenant whose payment network a request acts on.
+     */
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
     @Autowired
-    private PaymentService paymentService;
+    private TenantRegistry tenants;
+
+    @Autowired
+    private ReactiveRoutingService reactiveRouting;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
      * Adds a new branch with a specified cost.
      *
+     * @param tenant The tenant whose network is changed; the default network if absent.
      * @param branch The identifier of the branch to be added.
      * @param cost   The cost associated with the branch.
      * @return A response indicating the result of the operation.
      */
     @PostMapping("/branch")
-    public ResponseEntity<String> addBranch(@RequestParam String branch, @RequestParam int cost) {
-        return paymentService.addBranch(branch, cost);
+    public ResponseEntity<String> addBranch(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                            @RequestParam String branch, @RequestParam int cost) throws IOException {
+        return tenants.call(tenant, service -> service.addBranch(branch, cost));
+    }
+
+    /**
+     * Updates the costs of many existing branches in one step, e.g. for a scheduled fee update.
+     *
+     * @param tenant The tenant whose network is changed; the default network if absent.
+     * @param costs  The new cost of each branch, keyed by branch identifier.
+     * @return A response indicating the result of the operation.
+     */
+    @PutMapping("/branch/costs")
+    public ResponseEntity<String> updateBranchCosts(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                    @RequestBody Map<String, Integer> costs) throws IOException {
+        return tenants.call(tenant, service -> service.updateBranchCosts(costs));
     }
 
     /**
      * Adds a new edge (connection) between two branches.
      *
-     * @param from The identifier of the source branch.
-     * @param to   The identifier of the target branch.
+     * @param tenant The tenant whose network is changed; the default network if absent.
+     * @param from   The identifier of the source branch.
+     * @param to     The identifier of the target branch.
      * @return A response indicating the result of the operation.
      */
     @PostMapping("/edge")
-    public ResponseEntity<String> addEdge(@RequestParam String from, @RequestParam String to) {
-        return  paymentService.addConnections(from, to);
+    public ResponseEntity<String> addEdge(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                          @RequestParam String from, @RequestParam String to) throws IOException {
+        return  tenants.call(tenant, service -> service.addConnections(from, to));
     }
 
     /**
      * Processes a payment from an origin branch to a destination branch.
      * Uses the Bidirectional Dijkstra's algorithm to find the optimal path.
      *
+     * @param tenant The tenant whose network is searched; the default network if absent.
      * @param originBranch The starting branch for the payment.
      * @param destinationBranch The target branch for the payment.
      * @return A response containing the optimal path, or an error message if no path is found.
      * @throws NoDefinedPathException If no defined path exists between the origin and destination branches.
      */
     @GetMapping("/process")
-    public ResponseEntity<String> processPayment(@RequestParam String originBranch, @RequestParam String destinationBranch) {
-        String result = paymentService.processPayment(originBranch, destinationBranch);
+    public ResponseEntity<String> processPayment(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                 @RequestParam String originBranch, @RequestParam String destinationBranch)
+            throws IOException {
+        String result = tenants.call(tenant, service -> service.processPayment(originBranch, destinationBranch));
         if (result == null) {
             // If no path is found, throw a custom exception
             throw new NoDefinedPathException("No defined path between " + originBranch + " and " + destinationBranch);
@@ -60,4 +119,183 @@ public class PaymentController {
             return ResponseEntity.ok().body(result);
         }
     }
+
+    /**
+     * Routes a payment and reports the path cost and how many nodes the search settled.
+     *
+     * @param tenant The tenant whose network is searched; the default network if absent.
+     * @param originBranch The starting branch for the payment.
+     * @param destinationBranch The target branch for the payment.
+     * @return The route and its search statistics; the path is null if no path is found.
+     */
+    @GetMapping("/process/explain")
+    public ResponseEntity<RouteExplanation> explainPayment(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                           @RequestParam String originBranch,
+                                                           @RequestParam String destinationBranch) throws IOException {
+        return ResponseEntity.ok().body(
+                tenants.call(tenant, service -> service.explainPayment(originBranch, destinationBranch)));
+    }
+
+    /**
+     * Finds the k cheapest loopless routes for a payment, e.g. to fail over when a branch on the cheapest route
+     * is down. Excluded branches are avoided by the search itself.
+     *
+     * @param tenant            The tenant whose network is searched; the default network if absent.
+     * @param originBranch      The starting branch for the payment.
+     * @param destinationBranch The target branch for the payment.
+     * @param k                 The number of routes wanted.
+     * @param exclude           Branches no route may pass through.
+     * @return Up to k routes with their costs, cheapest first; empty if no path is found.
+     */
+    @GetMapping("/process/alternatives")
+    public ResponseEntity<List<AlternativeRoute>> alternativeRoutes(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                                    @RequestParam String originBranch,
+                                                                    @RequestParam String destinationBranch,
+                                                                    @RequestParam(defaultValue = "3") int k,
+                                                                    @RequestParam(required = false) List<String> exclude)
+            throws IOException {
+        return ResponseEntity.ok().body(tenants.call(tenant, service -> service.alternativeRoutes(originBranch,
+                destinationBranch, k, exclude == null ? Set.of() : new HashSet<>(exclude))));
+    }
+
+    /**
+     * Computes the cheapest paths from one origin to every branch it can reach, in parallel.
+     *
+     * @param tenant       The tenant whose network is searched; the default network if absent.
+     * @param originBranch The starting branch for the payments.
+     * @return The cost of and previous branch on the cheapest path to each reachable branch.
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<RouteTree> shortestPathTree(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                      @RequestParam String originBranch) throws IOException {
+        return ResponseEntity.ok().body(tenants.call(tenant, service -> service.shortestPathTree(originBranch)));
+    }
+
+    /**
+     * Processes many payments in one request. Pairs that share an origin are answered from a single
+     * shortest-path tree, and distinct origins are searched in parallel.
+     *
+     * @param tenant   The tenant whose network is searched; the default network if absent.
+     * @param requests The origin/destination pairs to route.
+     * @return One result per pair, in request order; the path is null where no path exists.
+     */
+    @PostMapping("/process/batch")
+    public ResponseEntity<List<RouteResult>> processPayments(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                             @RequestBody List<RouteRequest> requests) throws IOException {
+        List<String> paths = tenants.call(tenant, service -> service.processPayments(requests));
+        List<RouteResult> results = new ArrayList<>(paths.size());
+        for (int i = 0; i < paths.size(); i++) {
+            RouteRequest request = requests.get(i);
+            results.add(new RouteResult(request.originBranch(), request.destinationBranch(), paths.get(i)));
+        }
+        return ResponseEntity.ok().body(results);
+    }
+
+    /**
+     * Routes a stream of payments without holding a thread per request. Pairs are read from the request body
+     * one JSON object per line, only as fast as results are written back, and each result is written as soon
+     * as it and every result before it are known.
+     *
+     * @param tenant        The tenant whose network is searched; the default network if absent.
+     * @param timeoutMillis The time each search may take, rather than the whole stream; no limit if absent.
+     * @param body          The NDJSON route requests.
+     * @return One NDJSON result per pair, in request order; a pair that cannot be routed carries an error.
+     */
+    @PostMapping(value = "/process/stream", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public Flux<RouteResult> processPaymentStream(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                  @RequestHeader(value = SearchBudgetConfig.TIMEOUT_HEADER, required = false) Long timeoutMillis,
+                                                  InputStream body) {
+        return reactiveRouting.route(tenant, readRouteRequests(body), timeoutMillis == null ? 0 : timeoutMillis);
+    }
+
+    /**
+     * Streams the topology versions of a network as server-sent events, starting with the current one, so that
+     * a client can drop routes it cached at older versions.
+     *
+     * @param tenant The tenant whose network is watched; the default network if absent.
+     * @return The versions; a client that falls behind only receives the latest.
+     */
+    @GetMapping(value = "/topology/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<TopologyEvent> topologyChanges(@RequestHeader(value = TENANT_HEADER, required = false) String tenant) {
+        return reactiveRouting.topologyChanges(tenant);
+    }
+
+    /**
+     * Replaces the payment network with the branches and connections in the request body.
+     * The body is streamed row by row, one JSON object per line or one CSV row per line.
+     *
+     * @param tenant      The tenant whose network is replaced; the default network if absent.
+     * @param contentType The request content type, which selects the row format.
+     * @param body        The NDJSON or CSV rows to import.
+     * @return A summary of the import, including rejected rows.
+     * @throws IOException If the request body cannot be read.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ImportSummary> importTopology(@RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                                        @RequestHeader("Content-Type") String contentType,
+                                                        InputStream body) throws IOException {
+        ImportFormat format = contentType.startsWith("text/csv") ? ImportFormat.CSV : ImportFormat.NDJSON;
+        return ResponseEntity.ok().body(tenants.call(tenant,
+                service -> service.importTopology(new InputStreamReader(body, StandardCharsets.UTF_8), format)));
+    }
+
+    /**
+     * Reports the progress of the running import, or the outcome of the last one.
+     *
+     * @param tenant The tenant whose import is reported; the default network if absent.
+     * @return The import summary, or 204 if no import has been started.
+     */
+    @GetMapping("/import/progress")
+    public ResponseEntity<ImportSummary> getImportProgress(@RequestHeader(value = TENANT_HEADER, required = false) String tenant)
+            throws IOException {
+        ImportSummary progress = tenants.call(tenant, PaymentService::getImportProgress);
+        return progress == null ? ResponseEntity.noContent().build() : ResponseEntity.ok().body(progress);
+    }
+
+    /**
+     * Writes the current payment network to the configured snapshot file.
+     *
+     * @param tenant The tenant whose network is written; the default network if absent.
+     * @return A response indicating the result of the operation.
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<String> exportSnapshot(@RequestHeader(value = TENANT_HEADER, required = false) String tenant)
+            throws IOException {
+        return tenants.call(tenant, PaymentService::exportSnapshot);
+    }
+
+    /**
+     * Reads one route request per line, on a thread that may block, whenever more are requested downstream.
+     */
+    private Flux<RouteRequest> readRouteRequests(InputStream body) {
+        return Flux.using(() -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                reader -> Flux.<RouteRequest>generate(sink -> {
+                    String line;
+                    try {
+                        do {
+                            line = reader.readLine();
+                        } while (line != null && line.isBlank());
+                    } catch (IOException e) {
+                        sink.error(e);
+                        return;
+                    }
+                    if (line == null) {
+                        sink.complete();
+                        return;
+                    }
+                    try {
+                        sink.next(objectMapper.readValue(line, RouteRequest.class));
+                    } catch (IOException e) {
+                        sink.error(new IllegalArgumentException("Malformed route request: " + line));
+                    }
+                }),
+                reader -> {
+                    try {
+                        reader.close();
+                    } catch (IOException ignored) {
+                        // The request is over either way.
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.PaymentOptimizationAlgorithm.CustomException;
+
+/**
+ * Thrown when a search runs out of its deadline or settled-node budget before it can prove a path cheapest.
+ * Carries the cheapest path found so far, if any, which is valid but not necessarily the cheapest.
+ */
+public class SearchBudgetExceededException extends RuntimeException {
+
+    private final String bestPath;
+    private final int settledNodes;
+
+    public SearchBudgetExceededException(String bestPath, int settledNodes) {
+        super("Search budget exceeded after settling " + settledNodes + " nodes"
+                + (bestPath == null ? "; no path found so far." : "; best path found so far: " + bestPath));
+        this.bestPath = bestPath;
+        this.settledNodes = settledNodes;
+    }
+
+    /**
+     * The cheapest path found before the search stopped, or null.
+     */
+    public String getBestPath() {
+        return bestPath;
+    }
+
+    public int getSettledNodes() {
+        return settledNodes;
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The k cheapest loopless paths between two nodes, by Yen's algorithm with Lawler's refinement: each route
+ * found is only deviated from at or after the node where it left the route it was derived from.
+ * <p>
+ * The reverse shortest-path tree of the destination is grown once, without the excluded nodes, and then
+ * guides every deviation ("spur") search as an A* potential. A node settled in the tree has its exact
+ * remaining cost; any other node costs at least the radius the tree reached. Blocking nodes and connections
+ * can only make paths dearer, so the potential stays admissible and consistent, and spur searches mostly walk
+ * straight along the tree. The spur searches of one round are independent and run in parallel, each in a
+ * pooled {@link SearchContext}.
+ */
+public final class AlternativeRoutes {
+
+    /**
+     * The most routes one query may ask for.
+     */
+    public static final int MAX_ROUTES = 64;
+
+    private static final long UNREACHED = SearchContext.UNREACHED;
+
+    private AlternativeRoutes() {
+    }
+
+    /**
+     * Finds up to {@code k} cheapest loopless paths, cheapest first.
+     *
+     * @param contexts The pool the searches borrow their state from.
+     * @param executor The executor the spur searches of a round run on.
+     * @param excluded Nodes no path may pass through, sorted ascending; may be empty.
+     * @param budget   The budget of each spur search.
+     * @return The paths found; fewer than {@code k} if no more exist or the budget ran out.
+     */
+    public static Result find(GraphSnapshot g, SearchContextPool contexts, Executor executor, int source, int target,
+                              int k, int[] excluded, SearchBudget budget) {
+        if (ShortestPathTrees.contains(excluded, source) || ShortestPathTrees.contains(excluded, target)) {
+            return new Result(List.of(), 0, false);
+        }
+        SearchContext tree = contexts.acquire();
+        try {
+            ShortestPathTrees.growBackward(g, tree, target, new int[]{source}, excluded);
+            int settled = tree.settledCount();
+            if (tree.backwardDistance(source) == UNREACHED) {
+                return new Result(List.of(), settled, false);
+            }
+            Potential potential = new Potential(tree);
+
+            List<Route> routes = new ArrayList<>(k);
+            int[] deviations = new int[k];
+            routes.add(treePath(g, tree, source));
+            PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+            Set<Candidate> seen = new HashSet<>();
+            seen.add(new Candidate(routes.get(0), 0));
+            boolean exhausted = false;
+
+            while (routes.size() < k && !exhausted) {
+                int last = routes.size() - 1;
+                int[] nodes = routes.get(last).nodes();
+                List<CompletableFuture<Spur>> spurs = new ArrayList<>(nodes.length);
+                long rootCost = 0;
+                for (int i = 0; i < nodes.length - 1; i++) {
+                    if (i >= deviations[last]) {
+                        int spurIndex = i;
+                        long spurRootCost = rootCost;
+                        int[] blockedHops = blockedHops(routes, nodes, i);
+                        spurs.add(CompletableFuture.supplyAsync(() -> spur(g, contexts, potential, nodes, spurIndex,
+                                spurRootCost, blockedHops, target, excluded, budget), executor));
+                    }
+                    rootCost += g.cost(nodes[i]);
+                }
+                for (CompletableFuture<Spur> future : spurs) {
+                    Spur spur = future.join();
+                    settled += spur.settledNodes();
+                    exhausted |= spur.exhausted();
+                    if (spur.candidate() != null && seen.add(spur.candidate())) {
+                        candidates.add(spur.candidate());
+                    }
+                }
+                Candidate next = candidates.poll();
+                if (next == null) {
+                    break;
+                }
+                deviations[routes.size()] = next.deviation;
+                routes.add(next.route);
+            }
+            return new Result(routes, settled, exhausted);
+        } finally {
+            contexts.release(tree);
+        }
+    }
+
+    /**
+     * Follows the reverse tree from the source to the destination.
+     */
+    private static Route treePath(GraphSnapshot g, SearchContext tree, int source) {
+        int length = 0;
+        for (int at = source; at >= 0; at = tree.backwardParent(at)) {
+            length++;
+        }
+        int[] nodes = new int[length];
+        int i = 0;
+        for (int at = source; at >= 0; at = tree.backwardParent(at)) {
+            nodes[i++] = at;
+        }
+        return new Route(nodes, tree.backwardDistance(source));
+    }
+
+    /**
+     * The next hops taken from {@code nodes[i]} by routes already found that share its first {@code i + 1} nodes.
+     */
+    private static int[] blockedHops(List<Route> routes, int[] nodes, int i) {
+        int[] hops = new int[routes.size()];
+        int count = 0;
+        for (Route route : routes) {
+            int[] other = route.nodes();
+            if (other.length > i + 1 && Arrays.equals(other, 0, i + 1, nodes, 0, i + 1)) {
+                hops[count++] = other[i + 1];
+            }
+        }
+        return Arrays.copyOf(hops, count);
+    }
+
+    /**
+     * Searches from {@code nodes[i]} to the target with A*, avoiding the nodes before it, the hops in
+     * {@code blockedHops} and the excluded nodes.
+     */
+    private static Spur spur(GraphSnapshot g, SearchContextPool contexts, Potential potential, int[] nodes, int i,
+                             long rootCost, int[] blockedHops, int target, int[] excluded, SearchBudget budget) {
+        int[] root = Arrays.copyOf(nodes, i);
+        Arrays.sort(root);
+        int spur = nodes[i];
+        SearchContext context = contexts.acquire();
+        try {
+            context.reset(g.nodeCount());
+            NodeQueue queue = context.forwardQueue();
+            context.reachForward(spur, 0, -1);
+            queue.insertOrDecrease(spur, potential.of(spur));
+
+            while (!queue.isEmpty()) {
+                if (budget.isExhausted(context.settledCount())) {
+                    return new Spur(null, context.settledCount(), true);
+                }
+                int u = queue.poll();
+                context.countSettled();
+                if (u == target) {
+                    return new Spur(candidate(g, context, nodes, i, rootCost, target), context.settledCount(), false);
+                }
+                long nd = context.forwardDistance(u) + g.cost(u);
+                boolean atSpur = u == spur;
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    int v = g.outTarget(e);
+                    if (!(atSpur && contains(blockedHops, v))) {
+                        relax(context, queue, potential, u, v, nd, root, excluded);
+                    }
+                }
+                int[] delta = g.deltaOut(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        if (!(atSpur && contains(blockedHops, v))) {
+                            relax(context, queue, potential, u, v, nd, root, excluded);
+                        }
+                    }
+                }
+            }
+            return new Spur(null, context.settledCount(), false);
+        } finally {
+            contexts.release(context);
+        }
+    }
+
+    private static void relax(SearchContext context, NodeQueue queue, Potential potential, int u, int v, long nd,
+                              int[] root, int[] excluded) {
+        if (nd >= context.forwardDistance(v)) {
+            return;
+        }
+        long h = potential.of(v);
+        if (h == UNREACHED || ShortestPathTrees.contains(root, v) || ShortestPathTrees.contains(excluded, v)) {
+            return;
+        }
+        context.reachForward(v, nd, u);
+        queue.insertOrDecrease(v, nd + h);
+    }
+
+    private static boolean contains(int[] unsorted, int node) {
+        for (int value : unsorted) {
+            if (value == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Joins the root {@code nodes[0..i)} and the spur path found in the context.
+     */
+    private static Candidate candidate(GraphSnapshot g, SearchContext context, int[] nodes, int i, long rootCost,
+                                       int target) {
+        int length = 0;
+        for (int at = target; at >= 0; at = context.forwardParent(at)) {
+            length++;
+        }
+        int[] path = Arrays.copyOf(nodes, i + length);
+        for (int at = target, j = path.length - 1; at >= 0; at = context.forwardParent(at)) {
+            path[j--] = at;
+        }
+        return new Candidate(new Route(path, rootCost + context.forwardDistance(target)), i);
+    }
+
+    /**
+     * Lower bound on the cost from a node to the destination, read from the destination's reverse tree.
+     * The tree is only read while the spur searches run, so they can share it.
+     */
+    private static final class Potential {
+        private final SearchContext tree;
+        private final long radius;
+
+        Potential(SearchContext tree) {
+            this.tree = tree;
+            NodeQueue queue = tree.backwardQueue();
+            // An exhausted tree has settled every node that reaches the destination.
+            this.radius = queue.isEmpty() ? UNREACHED : queue.peekKey();
+        }
+
+        long of(int node) {
+            return tree.isSettledBackward(node) ? tree.backwardDistance(node) : radius;
+        }
+    }
+
+    /**
+     * One loopless path and its cost.
+     */
+    public record Route(int[] nodes, long cost) {
+    }
+
+    /**
+     * The routes found, cheapest first, and the work spent finding them.
+     *
+     * @param exhausted Whether a spur search ran out of budget, so that cheaper routes may have been missed.
+     */
+    public record Result(List<Route> routes, int settledNodes, boolean exhausted) {
+    }
+
+    private record Spur(Candidate candidate, int settledNodes, boolean exhausted) {
+    }
+
+    /**
+     * A route not yet taken, ordered by cost; equal when it visits the same nodes.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final Route route;
+        final int deviation;
+
+        Candidate(Route route, int deviation) {
+            this.route = route;
+            this.deviation = deviation;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int byCost = Long.compare(route.cost(), other.route.cost());
+            return byCost != 0 ? byCost : Arrays.compare(route.nodes(), other.route.nodes());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Candidate other && Arrays.equals(route.nodes(), other.route.nodes());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(route.nodes());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps branch ids to dense node indices and back. One dictionary is shared by every snapshot of a topology;
+ * it only ever grows, and entries at or beyond a snapshot's node count belong to newer versions.
+ * A dictionary loaded from a {@link SnapshotFile} keeps its branches in the mapped file: lookups probe the
+ * file's hash table and names are decoded the first time they are asked for. Branches added afterwards
+ * live on the heap.
+ */
+final class BranchDictionary {
+
+    private final Map<String, Integer> ids;
+    private volatile String[] names;
+
+    // Mapped part; all null for a dictionary built on the heap.
+    private final int mappedCount;
+    private final IntBuffer mappedHashes;
+    private final IntBuffer mappedSlots;
+    private final IntBuffer mappedNameOffsets;
+    private final ByteBuffer mappedNameBytes;
+
+    BranchDictionary() {
+        this(new String[16], new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Wraps names and ids that were built elsewhere; the dictionary takes ownership of both.
+     */
+    BranchDictionary(String[] names, Map<String, Integer> ids) {
+        this.names = names;
+        this.ids = ids;
+        this.mappedCount = 0;
+        this.mappedHashes = null;
+        this.mappedSlots = null;
+        this.mappedNameOffsets = null;
+        this.mappedNameBytes = null;
+    }
+
+    /**
+     * Creates a dictionary over the branch section of a mapped snapshot file.
+     *
+     * @param count       Number of branches in the file.
+     * @param hashes      {@link String#hashCode()} of each branch id.
+     * @param slots       Open-addressing table of node index + 1, 0 marking an empty slot; its length is a power of two.
+     * @param nameOffsets Start of each branch id in {@code nameBytes}, plus the end of the last one.
+     * @param nameBytes   UTF-8 encoded branch ids.
+     */
+    BranchDictionary(int count, IntBuffer hashes, IntBuffer slots, IntBuffer nameOffsets, ByteBuffer nameBytes) {
+        this.names = new String[Math.max(16, count)];
+        this.ids = new ConcurrentHashMap<>();
+        this.mappedCount = count;
+        this.mappedHashes = hashes;
+        this.mappedSlots = slots;
+        this.mappedNameOffsets = nameOffsets;
+        this.mappedNameBytes = nameBytes;
+    }
+
+    /**
+     * Returns the node index of a branch, or -1. The index may belong to a newer version than the caller's.
+     */
+    int indexOf(String branch) {
+        Integer id = ids.get(branch);
+        if (id != null) {
+            return id;
+        }
+        return mappedCount == 0 ? -1 : mappedIndexOf(branch);
+    }
+
+    String nameOf(int node) {
+        String[] current = names;
+        String name = current[node];
+        if (name == null && node < mappedCount) {
+            // Racing decoders store equal strings, so the unsynchronized write is harmless.
+            name = decode(node);
+            current[node] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Registers a new branch at the given index. Called by the single writer only.
+     */
+    void add(int node, String branch) {
+        String[] current = names;
+        if (node >= current.length) {
+            current = Arrays.copyOf(current, Math.max(16, node * 2));
+            names = current;
+        }
+        current[node] = branch;
+        ids.put(branch, node);
+    }
+
+    /**
+     * Forgets a branch registered by an abandoned batch. Branches from a mapped file are never removed.
+     */
+    void remove(String branch) {
+        ids.remove(branch);
+    }
+
+    /**
+     * Hash used to place a branch id in a mapped slot table.
+     */
+    static int slotHash(int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    private int mappedIndexOf(String branch) {
+        int hash = branch.hashCode();
+        int mask = mappedSlots.limit() - 1;
+        for (int slot = slotHash(hash) & mask; ; slot = (slot + 1) & mask) {
+            int node = mappedSlots.get(slot) - 1;
+            if (node < 0) {
+                return -1;
+            }
+            if (mappedHashes.get(node) == hash && branch.equals(nameOf(node))) {
+                return node;
+            }
+        }
+    }
+
+    private String decode(int node) {
+        int start = mappedNameOffsets.get(node);
+        byte[] bytes = new byte[mappedNameOffsets.get(node + 1) - start];
+        mappedNameBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+/**
+ * Dial's bucket queue: a ring of buckets, one per key, covering {@link #last} up to {@code last + maxStep}.
+ * Dijkstra keys stay in that window when no relaxation adds more than {@code maxStep}, e.g. the largest branch
+ * cost, so polling only walks the ring forward and costs O(1) amortised per distinct key.
+ */
+public final class BucketQueue extends MonotoneQueue {
+
+    private final int mask;
+    private final int maxStep;
+
+    /**
+     * @param maxStep The largest amount by which a key may exceed the last key polled.
+     */
+    public BucketQueue(int maxStep) {
+        super(ringSize(maxStep));
+        this.maxStep = maxStep;
+        this.mask = ringSize(maxStep) - 1;
+    }
+
+    /**
+     * The largest amount by which a key may exceed the last key polled.
+     */
+    public int maxStep() {
+        return maxStep;
+    }
+
+    private static int ringSize(int maxStep) {
+        if (maxStep < 0 || maxStep > MonotoneQueue.BUCKET_QUEUE_MAX_STEP) {
+            throw new IllegalArgumentException("Step of a bucket queue must be between 0 and "
+                    + MonotoneQueue.BUCKET_QUEUE_MAX_STEP + ": " + maxStep);
+        }
+        return Math.max(2, Integer.highestOneBit(maxStep) << 1);
+    }
+
+    @Override
+    int bucketOf(long key) {
+        if (key < last || key - last > mask) {
+            throw new IllegalArgumentException("Key " + key + " is outside the window of the bucket queue, "
+                    + last + " to " + (last + mask));
+        }
+        return (int) (key & mask);
+    }
+
+    @Override
+    int pull() {
+        int b = (int) (last & mask);
+        while (head(b) < 0) {
+            last++;
+            b = (b + 1) & mask;
+        }
+        return b;
+    }
+}
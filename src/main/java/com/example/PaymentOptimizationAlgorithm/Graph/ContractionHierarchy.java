@@ -0,0 +1,786 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Customizable contraction hierarchy over one {@link GraphSnapshot}.
+ * Preprocessing is split in two phases:
+ * <ul>
+ *     <li>{@link #contract} orders the branches by nested dissection, breaking ties by minimum degree, and
+ *     eliminates them in that order, adding a shortcut between every two remaining neighbours of an
+ *     eliminated branch. The order and the shortcuts depend only on which connections exist, never on
+ *     costs.</li>
+ *     <li>{@link #customize} computes the cost of every arc in both directions from the branch costs, pulling
+ *     each arc's cost from the triangles below it. Branches on the same level of the hierarchy are
+ *     independent, so each level is customized in parallel on a fork-join pool.</li>
+ * </ul>
+ * A branch-cost change therefore only repeats the customization; new branches or connections need a new
+ * contraction. Queries run a bidirectional search that only moves up the order, and arcs are unpacked
+ * back into the original connections through the middle branch recorded for each arc.
+ * Instances are immutable and safe to query from any number of threads.
+ */
+public final class ContractionHierarchy {
+
+    private static final int INFINITE = Integer.MAX_VALUE;
+    private static final int LEAF_SIZE = 64;
+    private static final int MAX_KEY_HEIGHT = 255;
+    private static final int MAX_KEY_DEGREE = (1 << 24) - 1;
+
+    private final Topology topology;
+    private final long version;
+    // Per arc, from its lower to its higher end ("up") and back ("down"), with the middle branch of the
+    // triangle the cost came from, or -1 if it is an original connection.
+    private final int[] upWeight;
+    private final int[] downWeight;
+    private final int[] upMiddle;
+    private final int[] downMiddle;
+
+    private ContractionHierarchy(Topology topology, long version, int[] upWeight, int[] downWeight,
+                                 int[] upMiddle, int[] downMiddle) {
+        this.topology = topology;
+        this.version = version;
+        this.upWeight = upWeight;
+        this.downWeight = downWeight;
+        this.upMiddle = upMiddle;
+        this.downMiddle = downMiddle;
+    }
+
+    /**
+     * Orders and contracts a snapshot, then customizes it with the snapshot's costs.
+     *
+     * @param g       The snapshot to preprocess.
+     * @param pool    The pool customization runs on.
+     * @param maxArcs Upper bound on arcs, original and shortcut; networks without small separators fill in
+     *                badly, and contraction gives up rather than exhaust memory.
+     * @return The hierarchy, or null if it would need more than {@code maxArcs} arcs.
+     */
+    public static ContractionHierarchy contract(GraphSnapshot g, ForkJoinPool pool, long maxArcs) {
+        Topology topology = Topology.build(g, pool, maxArcs);
+        return topology == null ? null : customize(topology, g, pool);
+    }
+
+    /**
+     * Recomputes arc costs for a snapshot with the same branches and connections, keeping the order and
+     * shortcuts.
+     *
+     * @param g    A snapshot for which {@link #hasTopologyOf} holds.
+     * @param pool The pool customization runs on.
+     * @return A hierarchy for the snapshot's version.
+     */
+    public ContractionHierarchy customize(GraphSnapshot g, ForkJoinPool pool) {
+        if (!hasTopologyOf(g)) {
+            throw new IllegalArgumentException("Snapshot " + g.version() + " has different connections; contract it instead.");
+        }
+        return customize(topology, g, pool);
+    }
+
+    /**
+     * Returns true if two snapshots have the same branches and connections. Branches and connections are
+     * only ever added to a dictionary's topology, and an import starts a new dictionary, so equal counts
+     * over the same dictionary mean equal topology.
+     */
+    public static boolean sameTopology(GraphSnapshot a, GraphSnapshot b) {
+        return a.dictionary == b.dictionary && a.nodeCount == b.nodeCount && a.edgeCount() == b.edgeCount();
+    }
+
+    public boolean hasTopologyOf(GraphSnapshot g) {
+        return g.dictionary == topology.dictionary && g.nodeCount == topology.nodeCount
+                && g.edgeCount() == topology.edgeCount;
+    }
+
+    /**
+     * Topology version whose costs the hierarchy was customized with.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Number of arcs, original connections and shortcuts, counting each pair of branches once.
+     */
+    public int arcCount() {
+        return topology.upHead.length;
+    }
+
+    /**
+     * Finds the cheapest path by searching upward from both ends, and unpacks it into branch ids.
+     *
+     * @param g       The snapshot the hierarchy was customized for; used to name branches.
+     * @param context A context from the pool; its settle count and statistics are left describing the search.
+     * @return The comma-separated path, or null if the destination cannot be reached.
+     */
+    public String route(GraphSnapshot g, SearchContext context, int source, int target) {
+        Topology t = topology;
+        // Shortcut weights are sums of costs, so the keys are only bounded by the radix heap's range.
+        context.resetForDistances(t.nodeCount, Long.MAX_VALUE);
+        NodeQueue forward = context.forwardQueue();
+        NodeQueue backward = context.backwardQueue();
+        SearchStatistics statistics = context.statistics();
+        context.reachForward(source, 0, -1);
+        context.reachBackward(target, 0, -1);
+        forward.insertOrDecrease(source, 0);
+        backward.insertOrDecrease(target, 0);
+
+        long best = SearchContext.UNREACHED;
+        int meetingPoint = -1;
+        while (true) {
+            boolean forwardOpen = !forward.isEmpty() && forward.peekKey() < best;
+            boolean backwardOpen = !backward.isEmpty() && backward.peekKey() < best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            if (forwardOpen && (!backwardOpen || forward.peekKey() <= backward.peekKey())) {
+                long d = forward.peekKey();
+                int u = forward.poll();
+                context.countSettled();
+                statistics.settled(true, t.upOffsets[u + 1] - t.upOffsets[u]);
+                for (int e = t.upOffsets[u], end = t.upOffsets[u + 1]; e < end; e++) {
+                    int w = upWeight[e];
+                    int v = t.upHead[e];
+                    if (w != INFINITE && d + w < context.forwardDistance(v)) {
+                        long nd = d + w;
+                        context.reachForward(v, nd, u);
+                        forward.insertOrDecrease(v, nd);
+                        statistics.pushed(true);
+                        long other = context.backwardDistance(v);
+                        if (other != SearchContext.UNREACHED && nd + other < best) {
+                            best = nd + other;
+                            meetingPoint = v;
+                        }
+                    }
+                }
+            } else {
+                long d = backward.peekKey();
+                int u = backward.poll();
+                context.countSettled();
+                statistics.settled(false, t.upOffsets[u + 1] - t.upOffsets[u]);
+                for (int e = t.upOffsets[u], end = t.upOffsets[u + 1]; e < end; e++) {
+                    int w = downWeight[e];
+                    int v = t.upHead[e];
+                    if (w != INFINITE && d + w < context.backwardDistance(v)) {
+                        long nd = d + w;
+                        context.reachBackward(v, nd, u);
+                        backward.insertOrDecrease(v, nd);
+                        statistics.pushed(false);
+                        long other = context.forwardDistance(v);
+                        if (other != SearchContext.UNREACHED && nd + other < best) {
+                            best = nd + other;
+                            meetingPoint = v;
+                        }
+                    }
+                }
+            }
+        }
+        if (meetingPoint < 0) {
+            return null;
+        }
+
+        // Upward chain from the source to the meeting point, then down to the target.
+        int[] chain = new int[16];
+        int length = 0;
+        for (int at = meetingPoint; at >= 0; at = context.forwardParent(at)) {
+            if (length == chain.length) {
+                chain = Arrays.copyOf(chain, length * 2);
+            }
+            chain[length++] = at;
+        }
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int swap = chain[i];
+            chain[i] = chain[j];
+            chain[j] = swap;
+        }
+        for (int at = context.backwardParent(meetingPoint); at >= 0; at = context.backwardParent(at)) {
+            if (length == chain.length) {
+                chain = Arrays.copyOf(chain, length * 2);
+            }
+            chain[length++] = at;
+        }
+
+        StringBuilder path = new StringBuilder(length * 8).append(g.nameOf(chain[0]));
+        int[] stack = new int[32];
+        for (int i = 0; i + 1 < length; i++) {
+            stack = unpack(chain[i], chain[i + 1], g, path, stack);
+        }
+        return path.toString();
+    }
+
+    /**
+     * Appends the original branches of the arc {@code from -> to}, excluding {@code from}, to the path.
+     */
+    private int[] unpack(int from, int to, GraphSnapshot g, StringBuilder path, int[] stack) {
+        int size = 0;
+        stack[size++] = from;
+        stack[size++] = to;
+        while (size > 0) {
+            int b = stack[--size];
+            int a = stack[--size];
+            int middle = middle(a, b);
+            if (middle < 0) {
+                path.append(',').append(g.nameOf(b));
+            } else {
+                if (size + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // Pushed in reverse, so the first half is unpacked first.
+                stack[size++] = middle;
+                stack[size++] = b;
+                stack[size++] = a;
+                stack[size++] = middle;
+            }
+        }
+        return stack;
+    }
+
+    private int middle(int from, int to) {
+        Topology t = topology;
+        if (t.rank[from] < t.rank[to]) {
+            return upMiddle[t.arcIndex(from, to)];
+        }
+        return downMiddle[t.arcIndex(to, from)];
+    }
+
+    private static ContractionHierarchy customize(Topology t, GraphSnapshot g, ForkJoinPool pool) {
+        int arcs = t.upHead.length;
+        int[] upWeight = new int[arcs];
+        int[] downWeight = new int[arcs];
+        int[] upMiddle = new int[arcs];
+        int[] downMiddle = new int[arcs];
+        pool.submit(() -> {
+            for (int level = 0; level + 1 < t.levelOffsets.length; level++) {
+                IntStream.range(t.levelOffsets[level], t.levelOffsets[level + 1]).parallel()
+                        .forEach(i -> customizeNode(t, g, t.levelNodes[i], upWeight, downWeight, upMiddle, downMiddle));
+            }
+        }).join();
+        return new ContractionHierarchy(t, g.version(), upWeight, downWeight, upMiddle, downMiddle);
+    }
+
+    /**
+     * Sets the cost of every arc from {@code x} to a higher branch {@code y}: the original connection, if
+     * any, or the cheapest detour through a lower branch adjacent to both. Those lower arcs sit on lower
+     * levels and are final by the time {@code x}'s level runs.
+     */
+    private static void customizeNode(Topology t, GraphSnapshot g, int x, int[] upWeight, int[] downWeight,
+                                      int[] upMiddle, int[] downMiddle) {
+        for (int e = t.upOffsets[x], end = t.upOffsets[x + 1]; e < end; e++) {
+            int y = t.upHead[e];
+            // A connection costs what its source branch costs.
+            long up = t.originalUp[e] ? g.cost(x) : INFINITE;
+            long down = t.originalDown[e] ? g.cost(y) : INFINITE;
+            int upVia = -1;
+            int downVia = -1;
+
+            int i = t.downOffsets[x];
+            int iEnd = t.downOffsets[x + 1];
+            int j = t.downOffsets[y];
+            int jEnd = t.downOffsets[y + 1];
+            while (i < iEnd && j < jEnd) {
+                int vx = t.downTail[i];
+                int vy = t.downTail[j];
+                if (vx < vy) {
+                    i++;
+                } else if (vx > vy) {
+                    j++;
+                } else {
+                    // Triangle v-x-y with v below both: arc a joins v and x, arc b joins v and y.
+                    int a = t.downArc[i];
+                    int b = t.downArc[j];
+                    long viaUp = sum(downWeight[a], upWeight[b]);
+                    if (viaUp < up) {
+                        up = viaUp;
+                        upVia = vx;
+                    }
+                    long viaDown = sum(downWeight[b], upWeight[a]);
+                    if (viaDown < down) {
+                        down = viaDown;
+                        downVia = vx;
+                    }
+                    i++;
+                    j++;
+                }
+            }
+            upWeight[e] = (int) Math.min(up, INFINITE);
+            downWeight[e] = (int) Math.min(down, INFINITE);
+            upMiddle[e] = upVia;
+            downMiddle[e] = downVia;
+        }
+    }
+
+    private static long sum(int a, int b) {
+        return a == INFINITE || b == INFINITE ? INFINITE : (long) a + b;
+    }
+
+    /**
+     * The cost-independent part of the hierarchy: the order, the arcs and the levels.
+     */
+    private static final class Topology {
+        final BranchDictionary dictionary;
+        final int nodeCount;
+        final int edgeCount;
+        final int[] rank;
+        // Arcs grouped by their lower end, higher ends ascending by node index.
+        final int[] upOffsets;
+        final int[] upHead;
+        final boolean[] originalUp;
+        final boolean[] originalDown;
+        // The same arcs grouped by their higher end, lower ends ascending by node index.
+        final int[] downOffsets;
+        final int[] downTail;
+        final int[] downArc;
+        // Branches grouped by level; a branch's lower neighbours are all on lower levels.
+        final int[] levelOffsets;
+        final int[] levelNodes;
+
+        private Topology(GraphSnapshot g, int[] rank, int[] upOffsets, int[] upHead, boolean[] originalUp,
+                         boolean[] originalDown, int[] downOffsets, int[] downTail, int[] downArc,
+                         int[] levelOffsets, int[] levelNodes) {
+            this.dictionary = g.dictionary;
+            this.nodeCount = g.nodeCount;
+            this.edgeCount = g.edgeCount();
+            this.rank = rank;
+            this.upOffsets = upOffsets;
+            this.upHead = upHead;
+            this.originalUp = originalUp;
+            this.originalDown = originalDown;
+            this.downOffsets = downOffsets;
+            this.downTail = downTail;
+            this.downArc = downArc;
+            this.levelOffsets = levelOffsets;
+            this.levelNodes = levelNodes;
+        }
+
+        static Topology build(GraphSnapshot g, ForkJoinPool pool, long maxArcs) {
+            int n = g.nodeCount;
+            int[][] adjacency = undirectedAdjacency(g, pool);
+            int[] degree = new int[n];
+            // Every live edge ends up as an arc, so arcs plus live edges only grows; checking it stops
+            // contraction as soon as the fill is hopeless rather than after it has been built.
+            long degreeSum = 0;
+            for (int v = 0; v < n; v++) {
+                degree[v] = adjacency[v].length;
+                degreeSum += degree[v];
+            }
+
+            // Nested dissection decides which separator a branch belongs to, and minimum degree orders the
+            // branches within a height. Entries are (height << 55 | degree << 31 | node) and go stale when a
+            // degree changes.
+            int[] height = separatorHeights(adjacency);
+            LongHeap queue = new LongHeap(n);
+            for (int v = 0; v < n; v++) {
+                queue.push(key(height[v], degree[v], v));
+            }
+            boolean[] eliminated = new boolean[n];
+            int[] rank = new int[n];
+            int[][] up = new int[n][];
+            int[] marker = new int[n];
+            int stamp = 0;
+            long arcs = 0;
+            int nextRank = 0;
+            while (!queue.isEmpty()) {
+                long entry = queue.pop();
+                int v = (int) (entry & Integer.MAX_VALUE);
+                if (eliminated[v] || entry != key(height[v], degree[v], v)) {
+                    continue;
+                }
+                int[] neighbours = live(adjacency[v], degree[v], eliminated);
+                Arrays.sort(neighbours);
+                up[v] = neighbours;
+                eliminated[v] = true;
+                rank[v] = nextRank++;
+                arcs += neighbours.length;
+                degreeSum -= 2L * neighbours.length;
+                adjacency[v] = null;
+
+                for (int a : neighbours) {
+                    int[] list = adjacency[a];
+                    int size = 0;
+                    stamp++;
+                    for (int k = 0; k < degree[a]; k++) {
+                        int b = list[k];
+                        if (!eliminated[b]) {
+                            list[size++] = b;
+                            marker[b] = stamp;
+                        }
+                    }
+                    for (int b : neighbours) {
+                        if (b != a && marker[b] != stamp) {
+                            if (size == list.length) {
+                                list = Arrays.copyOf(list, Math.max(4, size * 2));
+                            }
+                            list[size++] = b;
+                        }
+                    }
+                    adjacency[a] = list;
+                    // Removing v's edge is already counted above; what remains is the fill.
+                    degreeSum += size - (degree[a] - 1);
+                    degree[a] = size;
+                    queue.push(key(height[a], size, a));
+                }
+                if (arcs + degreeSum / 2 > maxArcs) {
+                    return null;
+                }
+            }
+
+            int[] upOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                upOffsets[v + 1] = upOffsets[v] + up[v].length;
+            }
+            int[] upHead = new int[upOffsets[n]];
+            int[] downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                System.arraycopy(up[v], 0, upHead, upOffsets[v], up[v].length);
+                for (int y : up[v]) {
+                    downOffsets[y + 1]++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                downOffsets[v + 1] += downOffsets[v];
+            }
+            int[] downTail = new int[upHead.length];
+            int[] downArc = new int[upHead.length];
+            int[] fill = Arrays.copyOf(downOffsets, n);
+            for (int x = 0; x < n; x++) {
+                for (int e = upOffsets[x]; e < upOffsets[x + 1]; e++) {
+                    int slot = fill[upHead[e]]++;
+                    downTail[slot] = x;
+                    downArc[slot] = e;
+                }
+            }
+
+            int[] level = new int[n];
+            int[] byRank = new int[n];
+            for (int v = 0; v < n; v++) {
+                byRank[rank[v]] = v;
+            }
+            int levels = 0;
+            for (int r = 0; r < n; r++) {
+                int x = byRank[r];
+                int l = 0;
+                for (int i = downOffsets[x]; i < downOffsets[x + 1]; i++) {
+                    l = Math.max(l, level[downTail[i]] + 1);
+                }
+                level[x] = l;
+                levels = Math.max(levels, l + 1);
+            }
+            int[] levelOffsets = new int[levels + 1];
+            for (int v = 0; v < n; v++) {
+                levelOffsets[level[v] + 1]++;
+            }
+            for (int l = 0; l < levels; l++) {
+                levelOffsets[l + 1] += levelOffsets[l];
+            }
+            int[] levelNodes = new int[n];
+            int[] levelFill = Arrays.copyOf(levelOffsets, levels);
+            for (int v = 0; v < n; v++) {
+                levelNodes[levelFill[level[v]]++] = v;
+            }
+
+            Topology topology = new Topology(g, rank, upOffsets, upHead, new boolean[upHead.length],
+                    new boolean[upHead.length], downOffsets, downTail, downArc, levelOffsets, levelNodes);
+            // Each flag is written by the connection's source only, so sources can be scanned in parallel.
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(u -> {
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    topology.markOriginal(u, g.outTarget(e));
+                }
+                int[] delta = g.deltaOut(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        topology.markOriginal(u, v);
+                    }
+                }
+            })).join();
+            return topology;
+        }
+
+        private static long key(int height, int degree, int node) {
+            return (long) height << 55 | (long) Math.min(degree, MAX_KEY_DEGREE) << 31 | node;
+        }
+
+        /**
+         * Splits the network recursively by breadth-first level sets: a search from a far-away branch
+         * numbers the levels, and the branches of the median level that touch the next level separate the
+         * levels below from those above. Disconnected parts are split without a separator, and parts of
+         * at most {@link #LEAF_SIZE} branches are left to minimum degree.
+         *
+         * @return Per branch, 0 for leaf branches, otherwise the height of its separator in the dissection
+         * tree, so every separator is above everything it separates.
+         */
+        private static int[] separatorHeights(int[][] adjacency) {
+            int n = adjacency.length;
+            int[] part = new int[n];
+            int[] level = new int[n];
+            int[] queue = new int[n];
+            List<int[]> separators = new ArrayList<>();
+            List<Integer> parents = new ArrayList<>();
+            List<int[]> pending = new ArrayList<>();
+            int[] all = new int[n];
+            for (int v = 0; v < n; v++) {
+                all[v] = v;
+            }
+            separators.add(null);
+            parents.add(-1);
+            pending.add(all);
+
+            while (!pending.isEmpty()) {
+                int[] nodes = pending.remove(pending.size() - 1);
+                int id = part[nodes[0]];
+                if (nodes.length <= LEAF_SIZE) {
+                    continue;
+                }
+                int reached = levels(adjacency, part, nodes, nodes[0], level, queue);
+                if (reached == nodes.length) {
+                    reached = levels(adjacency, part, nodes, queue[reached - 1], level, queue);
+                }
+                int[] separator;
+                int[] low;
+                int[] high;
+                if (reached < nodes.length) {
+                    for (int k = 0; k < reached; k++) {
+                        level[queue[k]] = 0;
+                    }
+                    for (int v : nodes) {
+                        if (level[v] < 0) {
+                            level[v] = 1;
+                        }
+                    }
+                    separator = new int[0];
+                    low = select(nodes, level, 0);
+                    high = select(nodes, level, 1);
+                } else {
+                    int median = level[queue[nodes.length / 2]];
+                    // Median-level branches without a neighbour above join the lower side.
+                    for (int k = 0; k < reached; k++) {
+                        int v = queue[k];
+                        if (level[v] == median) {
+                            boolean touchesAbove = false;
+                            for (int w : adjacency[v]) {
+                                if (part[w] == id && level[w] == median + 1) {
+                                    touchesAbove = true;
+                                    break;
+                                }
+                            }
+                            level[v] = touchesAbove ? 1 : 0;
+                        } else {
+                            level[v] = level[v] < median ? 0 : 2;
+                        }
+                    }
+                    separator = select(nodes, level, 1);
+                    low = select(nodes, level, 0);
+                    high = select(nodes, level, 2);
+                    if (low.length == 0 || high.length == 0) {
+                        continue;
+                    }
+                }
+                separators.set(id, separator);
+                for (int[] side : new int[][] {low, high}) {
+                    int child = separators.size();
+                    separators.add(null);
+                    parents.add(id);
+                    for (int v : side) {
+                        part[v] = child;
+                    }
+                    pending.add(side);
+                }
+            }
+
+            // Children are created after their parents, so one backward pass sees every subtree first.
+            int parts = separators.size();
+            int[] partHeight = new int[parts];
+            for (int id = parts - 1; id > 0; id--) {
+                int separatorSize = separators.get(id) == null ? 0 : separators.get(id).length;
+                int own = separatorSize > 0 ? partHeight[id] + 1 : partHeight[id];
+                int parent = parents.get(id);
+                partHeight[parent] = Math.max(partHeight[parent], own);
+            }
+            int[] height = new int[n];
+            for (int id = 0; id < parts; id++) {
+                int[] separator = separators.get(id);
+                if (separator != null) {
+                    int h = Math.min(partHeight[id] + 1, MAX_KEY_HEIGHT);
+                    for (int v : separator) {
+                        height[v] = h;
+                    }
+                }
+            }
+            return height;
+        }
+
+        /**
+         * Breadth-first search within one part, leaving the visit order in {@code queue} and the level of each
+         * reached branch in {@code level}; other branches of the part are left at -1.
+         *
+         * @return The number of branches reached.
+         */
+        private static int levels(int[][] adjacency, int[] part, int[] nodes, int start, int[] level, int[] queue) {
+            int id = part[start];
+            int size = 0;
+            for (int v : nodes) {
+                level[v] = -1;
+            }
+            level[start] = 0;
+            queue[size++] = start;
+            for (int head = 0; head < size; head++) {
+                int u = queue[head];
+                for (int w : adjacency[u]) {
+                    if (part[w] == id && level[w] < 0) {
+                        level[w] = level[u] + 1;
+                        queue[size++] = w;
+                    }
+                }
+            }
+            return size;
+        }
+
+        private static int[] select(int[] nodes, int[] label, int wanted) {
+            int count = 0;
+            for (int v : nodes) {
+                if (label[v] == wanted) {
+                    count++;
+                }
+            }
+            int[] selected = new int[count];
+            count = 0;
+            for (int v : nodes) {
+                if (label[v] == wanted) {
+                    selected[count++] = v;
+                }
+            }
+            return selected;
+        }
+
+        int arcIndex(int lower, int higher) {
+            return Arrays.binarySearch(upHead, upOffsets[lower], upOffsets[lower + 1], higher);
+        }
+
+        private void markOriginal(int from, int to) {
+            if (from == to) {
+                return;
+            }
+            if (rank[from] < rank[to]) {
+                originalUp[arcIndex(from, to)] = true;
+            } else {
+                originalDown[arcIndex(to, from)] = true;
+            }
+        }
+
+        /**
+         * Neighbours of each branch, ignoring direction, without duplicates or self-loops.
+         */
+        private static int[][] undirectedAdjacency(GraphSnapshot g, ForkJoinPool pool) {
+            int n = g.nodeCount;
+            int[] count = new int[n];
+            for (int u = 0; u < n; u++) {
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    count[u]++;
+                    count[g.outTarget(e)]++;
+                }
+                int[] delta = g.deltaOut(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        count[u]++;
+                        count[v]++;
+                    }
+                }
+            }
+            int[][] adjacency = new int[n][];
+            for (int v = 0; v < n; v++) {
+                adjacency[v] = new int[count[v]];
+            }
+            Arrays.fill(count, 0);
+            for (int u = 0; u < n; u++) {
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    int v = g.outTarget(e);
+                    adjacency[u][count[u]++] = v;
+                    adjacency[v][count[v]++] = u;
+                }
+                int[] delta = g.deltaOut(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        adjacency[u][count[u]++] = v;
+                        adjacency[v][count[v]++] = u;
+                    }
+                }
+            }
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(v -> {
+                int[] list = adjacency[v];
+                Arrays.sort(list);
+                int size = 0;
+                for (int k = 0; k < list.length; k++) {
+                    if (list[k] != v && (size == 0 || list[size - 1] != list[k])) {
+                        list[size++] = list[k];
+                    }
+                }
+                adjacency[v] = size == list.length ? list : Arrays.copyOf(list, size);
+            })).join();
+            return adjacency;
+        }
+
+        private static int[] live(int[] list, int size, boolean[] eliminated) {
+            int[] live = new int[size];
+            int count = 0;
+            for (int k = 0; k < size; k++) {
+                if (!eliminated[list[k]]) {
+                    live[count++] = list[k];
+                }
+            }
+            return count == size ? live : Arrays.copyOf(live, count);
+        }
+    }
+
+    /**
+     * Binary min-heap of primitive longs.
+     */
+    private static final class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(16, capacity)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long pop() {
+            long top = heap[0];
+            long last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            if (size > 0) {
+                heap[i] = last;
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, paged array of branch costs; the single source of truth for edge weights, since every edge
+ * costs what its source branch costs. Pages hold 1024 costs and are shared between versions, so repricing a
+ * branch copies one page and the page table rather than the whole array. The table also carries an upper bound
+ * on its costs, exact when the table is built from an array and only raised by edits.
+ */
+final class CostTable {
+
+    static final CostTable EMPTY = new CostTable(new int[0][], 0);
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int[][] pages;
+    private final int maxCost;
+
+    private CostTable(int[][] pages, int maxCost) {
+        this.pages = pages;
+        this.maxCost = maxCost;
+    }
+
+    /**
+     * Copies the first {@code count} costs of a plain array into a table.
+     */
+    static CostTable of(int[] costs, int count) {
+        int[][] pages = new int[(count + PAGE_MASK) >>> PAGE_SHIFT][];
+        for (int p = 0; p < pages.length; p++) {
+            pages[p] = Arrays.copyOfRange(costs, p << PAGE_SHIFT, (p + 1) << PAGE_SHIFT);
+        }
+        int maxCost = 0;
+        for (int i = 0; i < count; i++) {
+            maxCost = Math.max(maxCost, costs[i]);
+        }
+        return new CostTable(pages, maxCost);
+    }
+
+    int get(int node) {
+        return pages[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    /**
+     * No cost in the table is larger; repricing a branch down does not lower it.
+     */
+    int maxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Copies the first {@code count} costs into a plain array.
+     */
+    int[] toArray(int count) {
+        int[] costs = new int[count];
+        for (int p = 0; (p << PAGE_SHIFT) < count; p++) {
+            int start = p << PAGE_SHIFT;
+            System.arraycopy(pages[p], 0, costs, start, Math.min(PAGE_SIZE, count - start));
+        }
+        return costs;
+    }
+
+    Editor edit() {
+        return new Editor(pages, maxCost);
+    }
+
+    /**
+     * Copy-on-write view used by a single writer. The page table and each page are copied at most once,
+     * on their first change.
+     */
+    static final class Editor {
+
+        private int[][] pages;
+        private boolean[] owned;
+        private boolean changed;
+        private int maxCost;
+
+        private Editor(int[][] pages, int maxCost) {
+            this.pages = pages;
+            this.maxCost = maxCost;
+        }
+
+        int get(int node) {
+            return pages[node >>> PAGE_SHIFT][node & PAGE_MASK];
+        }
+
+        void set(int node, int cost) {
+            int p = node >>> PAGE_SHIFT;
+            if (!changed) {
+                pages = pages.clone();
+                owned = new boolean[pages.length];
+                changed = true;
+            }
+            if (p >= pages.length) {
+                int capacity = Math.max(p + 1, pages.length * 2);
+                pages = Arrays.copyOf(pages, capacity);
+                owned = Arrays.copyOf(owned, capacity);
+            }
+            if (!owned[p]) {
+                pages[p] = pages[p] == null ? new int[PAGE_SIZE] : pages[p].clone();
+                owned[p] = true;
+            }
+            pages[p][node & PAGE_MASK] = cost;
+            maxCost = Math.max(maxCost, cost);
+        }
+
+        CostTable build(CostTable base) {
+            return changed ? new CostTable(pages, maxCost) : base;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable open-addressing map from node index to the edges written since the last compaction.
+ * Each row lists the node's neighbors, {@code [neighbor0, neighbor1, ...]}. Changes are made through a
+ * {@link Builder}, which copies the slot arrays once and never mutates rows shared with published snapshots.
+ */
+final class DeltaAdjacency {
+
+    static final DeltaAdjacency EMPTY = new DeltaAdjacency(new int[0], new int[0][], 0);
+
+    private static final int FREE = -1;
+
+    private final int[] keys;
+    private final int[][] rows;
+    private final int edgeCount;
+
+    private DeltaAdjacency(int[] keys, int[][] rows, int edgeCount) {
+        this.keys = keys;
+        this.rows = rows;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * Returns the neighbors of a node, or null if the node has no delta edges.
+     */
+    int[] row(int node) {
+        if (edgeCount == 0) {
+            return null;
+        }
+        int slot = find(keys, node);
+        return keys[slot] == node ? rows[slot] : null;
+    }
+
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    boolean isEmpty() {
+        return edgeCount == 0;
+    }
+
+    Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    private static int find(int[] keys, int node) {
+        int mask = keys.length - 1;
+        int h = node * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != FREE && keys[slot] != node) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Mutable staging copy of a {@link DeltaAdjacency}. Rows inherited from the source are copied before
+     * their first change; rows created here grow geometrically and are trimmed by {@link #build()}.
+     */
+    static final class Builder {
+
+        private int[] keys;
+        private int[][] rows;
+        private int[] lengths;
+        private boolean[] owned;
+        private int size;
+        private int edgeCount;
+
+        private Builder(DeltaAdjacency source) {
+            int capacity = Math.max(16, source.keys.length);
+            keys = new int[capacity];
+            rows = new int[capacity][];
+            lengths = new int[capacity];
+            owned = new boolean[capacity];
+            Arrays.fill(keys, FREE);
+            for (int slot = 0; slot < source.keys.length; slot++) {
+                if (source.keys[slot] != FREE) {
+                    int at = find(keys, source.keys[slot]);
+                    keys[at] = source.keys[slot];
+                    rows[at] = source.rows[slot];
+                    lengths[at] = source.rows[slot].length;
+                    size++;
+                }
+            }
+            edgeCount = source.edgeCount;
+        }
+
+        int edgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * Returns whether {@code node -> neighbor} is staged.
+         */
+        boolean contains(int node, int neighbor) {
+            int slot = find(keys, node);
+            if (keys[slot] != node) {
+                return false;
+            }
+            int[] row = rows[slot];
+            for (int i = 0; i < lengths[slot]; i++) {
+                if (row[i] == neighbor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Stages {@code node -> neighbor}; the caller makes sure it is not staged yet.
+         */
+        void add(int node, int neighbor) {
+            int slot = find(keys, node);
+            if (keys[slot] != node) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = find(keys, node);
+                }
+                keys[slot] = node;
+                rows[slot] = new int[2];
+                owned[slot] = true;
+                size++;
+            }
+            int[] row = rows[slot];
+            int length = lengths[slot];
+            if (!owned[slot] || length == row.length) {
+                row = rows[slot] = Arrays.copyOf(row, Math.max(2, length * 2));
+                owned[slot] = true;
+            }
+            row[length] = neighbor;
+            lengths[slot] = length + 1;
+            edgeCount++;
+        }
+
+        DeltaAdjacency build() {
+            if (edgeCount == 0) {
+                return EMPTY;
+            }
+            int[][] built = new int[keys.length][];
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != FREE) {
+                    int[] row = rows[slot];
+                    built[slot] = row.length == lengths[slot] ? row : Arrays.copyOf(row, lengths[slot]);
+                }
+            }
+            return new DeltaAdjacency(keys.clone(), built, edgeCount);
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[][] oldRows = rows;
+            int[] oldLengths = lengths;
+            boolean[] oldOwned = owned;
+            int capacity = oldKeys.length * 2;
+            keys = new int[capacity];
+            rows = new int[capacity][];
+            lengths = new int[capacity];
+            owned = new boolean[capacity];
+            Arrays.fill(keys, FREE);
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != FREE) {
+                    int at = find(keys, oldKeys[slot]);
+                    keys[at] = oldKeys[slot];
+                    rows[at] = oldRows[slot];
+                    lengths[at] = oldLengths[slot];
+                    owned[at] = oldOwned[slot];
+                }
+            }
+        }
+    }
+}
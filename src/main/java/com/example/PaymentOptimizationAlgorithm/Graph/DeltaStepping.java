@@ -0,0 +1,357 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Full single-source shortest-path trees computed in parallel by delta-stepping (Meyer and Sanders), for bulk
+ * routing and precomputation over large networks.
+ * <p>
+ * Tentative distances are grouped in buckets of width {@code delta}. All nodes of the lowest non-empty bucket
+ * are expanded together, in chunks that the workers of a {@link ForkJoinPool} steal from each other, and the
+ * bucket is expanded again until no relaxation refills it. Distances are lowered by compare-and-set, so
+ * relaxations take no locks; each chunk files the nodes it improved into buckets of its own, which are merged
+ * between rounds. Every connection of a branch costs the same, so a node's connections are all light or all
+ * heavy; like the GAP benchmark's variant, all of them are relaxed when the node is expanded.
+ * <p>
+ * Parents are derived from the final distances once the distances are settled, so the tree does not depend on
+ * the order in which relaxations raced.
+ */
+public final class DeltaStepping {
+
+    private static final long UNREACHED = SearchContext.UNREACHED;
+    private static final VarHandle DISTANCE = MethodHandles.arrayElementVarHandle(long[].class);
+    // Nodes expanded or parented by one task; smaller ranges are not worth a fork.
+    private static final int CHUNK = 512;
+    // Buckets a chunk can file into; bounds delta from below on networks with very uneven costs.
+    private static final int MAX_SPAN = 1 << 10;
+    private static final int NO_PARENT = -1;
+    private static final int ZERO_COST_PARENT = -2;
+
+    private DeltaStepping() {
+    }
+
+    /**
+     * A bucket width suited to the network: the largest connection cost divided by the average out-degree, so
+     * that a bucket holds about one relaxation's worth of distances per neighbour.
+     */
+    public static long defaultDelta(GraphSnapshot g) {
+        long degree = Math.max(1, (long) g.edgeCount() / Math.max(1, g.nodeCount()));
+        return Math.max(1, g.maxCost() / degree);
+    }
+
+    /**
+     * Grows the full shortest-path tree of {@code source}.
+     *
+     * @param delta  The bucket width; raised where needed to keep the buckets a chunk files into bounded.
+     * @param pool   The pool the rounds run on.
+     * @param budget Checked between rounds against the number of nodes expanded.
+     * @return The tree, or an exhausted result without distances if the budget ran out.
+     */
+    public static Tree grow(GraphSnapshot g, int source, long delta, ForkJoinPool pool, SearchBudget budget) {
+        int n = g.nodeCount();
+        long width = Math.max(Math.max(1, delta), g.maxCost() / (MAX_SPAN - 2) + 1);
+        int span = (int) (g.maxCost() / width) + 2;
+        long[] dist = new long[n];
+        Arrays.fill(dist, UNREACHED);
+        dist[source] = 0;
+
+        TreeMap<Long, List<int[]>> pending = new TreeMap<>();
+        long bucket = 0;
+        int[] frontier = {source};
+        long expanded = 0;
+        while (true) {
+            Bins bins = pool.invoke(new Expand(g, dist, width, span, bucket, frontier, 0, frontier.length));
+            expanded += frontier.length;
+            if (budget.isExhaustedNow(expanded)) {
+                return new Tree(null, null, expanded, true);
+            }
+            bins.drainTo(pending);
+            Map.Entry<Long, List<int[]>> next = pending.pollFirstEntry();
+            if (next == null) {
+                break;
+            }
+            bucket = next.getKey();
+            frontier = concat(next.getValue());
+        }
+
+        int[] parents = new int[n];
+        boolean zeroCost = pool.invoke(new Parent(g, dist, parents, source, 0, n));
+        if (zeroCost) {
+            resolveZeroCostParents(g, dist, parents);
+        }
+        return new Tree(dist, parents, expanded, false);
+    }
+
+    private static int[] concat(List<int[]> chunks) {
+        int size = 0;
+        for (int[] chunk : chunks) {
+            size += chunk.length;
+        }
+        int[] nodes = new int[size];
+        int at = 0;
+        for (int[] chunk : chunks) {
+            System.arraycopy(chunk, 0, nodes, at, chunk.length);
+            at += chunk.length;
+        }
+        return nodes;
+    }
+
+    /**
+     * Lowers the distance of {@code v} to {@code nd} unless another relaxation got it lower.
+     *
+     * @return true if this relaxation lowered it.
+     */
+    private static boolean relax(long[] dist, int v, long nd) {
+        long current = (long) DISTANCE.getVolatile(dist, v);
+        while (nd < current) {
+            long witness = (long) DISTANCE.compareAndExchange(dist, v, current, nd);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Gives parents to the nodes whose only tight predecessors are at the same distance, behind zero-cost
+     * branches: a breadth-first walk from parented zero-cost branches, so that no cycle of zero-cost branches
+     * can parent itself.
+     */
+    private static void resolveZeroCostParents(GraphSnapshot g, long[] dist, int[] parents) {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int u = 0; u < parents.length; u++) {
+            if (parents[u] != ZERO_COST_PARENT && dist[u] != UNREACHED && g.cost(u) == 0) {
+                queue.add(u);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                adopt(g, dist, parents, queue, u, g.outTarget(e));
+            }
+            int[] delta = g.deltaOut(u);
+            if (delta != null) {
+                for (int v : delta) {
+                    adopt(g, dist, parents, queue, u, v);
+                }
+            }
+        }
+    }
+
+    private static void adopt(GraphSnapshot g, long[] dist, int[] parents, ArrayDeque<Integer> queue, int u, int v) {
+        if (parents[v] == ZERO_COST_PARENT && dist[v] == dist[u]) {
+            parents[v] = u;
+            if (g.cost(v) == 0) {
+                queue.add(v);
+            }
+        }
+    }
+
+    /**
+     * The cost of the cheapest path from the source to every node and the predecessor on it.
+     *
+     * @param distances     Distance of each node, {@link SearchContext#UNREACHED} where unreachable; null if exhausted.
+     * @param parents       Predecessor of each node, -1 for the source and unreachable nodes; null if exhausted.
+     * @param expandedNodes Node expansions performed, counting a node once per time it was expanded.
+     * @param exhausted     Whether the budget ran out before the tree was complete.
+     */
+    public record Tree(long[] distances, int[] parents, long expandedNodes, boolean exhausted) {
+    }
+
+    /**
+     * Expands a range of the frontier and returns the nodes it improved, by bucket.
+     */
+    private static final class Expand extends RecursiveTask<Bins> {
+        private final GraphSnapshot g;
+        private final long[] dist;
+        private final long width;
+        private final int span;
+        private final long bucket;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+
+        Expand(GraphSnapshot g, long[] dist, long width, int span, long bucket, int[] frontier, int from, int to) {
+            this.g = g;
+            this.dist = dist;
+            this.width = width;
+            this.span = span;
+            this.bucket = bucket;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Bins compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                Expand left = new Expand(g, dist, width, span, bucket, frontier, from, middle);
+                left.fork();
+                Bins right = new Expand(g, dist, width, span, bucket, frontier, middle, to).compute();
+                return left.join().merge(right);
+            }
+            Bins bins = new Bins(bucket, span);
+            for (int i = from; i < to; i++) {
+                int u = frontier[i];
+                long d = (long) DISTANCE.getVolatile(dist, u);
+                // Lowered into this bucket again since it was filed; another copy of it expands it.
+                if (d / width != bucket) {
+                    continue;
+                }
+                long nd = d + g.cost(u);
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    int v = g.outTarget(e);
+                    if (relax(dist, v, nd)) {
+                        bins.add(nd / width, v);
+                    }
+                }
+                int[] delta = g.deltaOut(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        if (relax(dist, v, nd)) {
+                            bins.add(nd / width, v);
+                        }
+                    }
+                }
+            }
+            return bins.close();
+        }
+    }
+
+    /**
+     * Nodes filed by bucket, relative to the bucket being expanded. A leaf task fills one buffer per bucket;
+     * merging only concatenates the lists of filled buffers.
+     */
+    private static final class Bins {
+        private final long base;
+        private final List<int[]>[] chunks;
+        private final int[][] buffers;
+        private final int[] sizes;
+
+        @SuppressWarnings("unchecked")
+        Bins(long base, int span) {
+            this.base = base;
+            this.chunks = (List<int[]>[]) new List<?>[span];
+            this.buffers = new int[span][];
+            this.sizes = new int[span];
+        }
+
+        void add(long bucket, int node) {
+            int b = (int) (bucket - base);
+            int[] buffer = buffers[b];
+            if (buffer == null) {
+                buffer = buffers[b] = new int[16];
+            } else if (sizes[b] == buffer.length) {
+                buffer = buffers[b] = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[sizes[b]++] = node;
+        }
+
+        /**
+         * Moves the filled buffers to the chunk lists.
+         */
+        Bins close() {
+            for (int b = 0; b < buffers.length; b++) {
+                if (sizes[b] > 0) {
+                    list(b).add(sizes[b] == buffers[b].length ? buffers[b] : Arrays.copyOf(buffers[b], sizes[b]));
+                }
+                buffers[b] = null;
+                sizes[b] = 0;
+            }
+            return this;
+        }
+
+        private List<int[]> list(int b) {
+            if (chunks[b] == null) {
+                chunks[b] = new ArrayList<>();
+            }
+            return chunks[b];
+        }
+
+        Bins merge(Bins other) {
+            for (int b = 0; b < chunks.length; b++) {
+                if (other.chunks[b] != null) {
+                    list(b).addAll(other.chunks[b]);
+                }
+            }
+            return this;
+        }
+
+        void drainTo(TreeMap<Long, List<int[]>> pending) {
+            for (int b = 0; b < chunks.length; b++) {
+                if (chunks[b] != null) {
+                    pending.computeIfAbsent(base + b, key -> new ArrayList<>()).addAll(chunks[b]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks, for a range of nodes, a predecessor whose distance plus cost gives the node's distance. Returns
+     * whether some node only has such predecessors at its own distance, which the sequential pass resolves.
+     */
+    private static final class Parent extends RecursiveTask<Boolean> {
+        private final GraphSnapshot g;
+        private final long[] dist;
+        private final int[] parents;
+        private final int source;
+        private final int from;
+        private final int to;
+
+        Parent(GraphSnapshot g, long[] dist, int[] parents, int source, int from, int to) {
+            this.g = g;
+            this.dist = dist;
+            this.parents = parents;
+            this.source = source;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (to - from > CHUNK * 8) {
+                int middle = (from + to) >>> 1;
+                Parent left = new Parent(g, dist, parents, source, from, middle);
+                left.fork();
+                boolean right = new Parent(g, dist, parents, source, middle, to).compute();
+                return left.join() | right;
+            }
+            boolean zeroCost = false;
+            for (int v = from; v < to; v++) {
+                parents[v] = v == source || dist[v] == UNREACHED ? NO_PARENT : parent(v);
+                zeroCost |= parents[v] == ZERO_COST_PARENT;
+            }
+            return zeroCost;
+        }
+
+        private int parent(int v) {
+            long d = dist[v];
+            for (int e = g.inBegin(v), end = g.inEnd(v); e < end; e++) {
+                int u = g.inSource(e);
+                if (dist[u] < d && dist[u] + g.cost(u) == d) {
+                    return u;
+                }
+            }
+            int[] delta = g.deltaIn(v);
+            if (delta != null) {
+                for (int u : delta) {
+                    if (dist[u] < d && dist[u] + g.cost(u) == d) {
+                        return u;
+                    }
+                }
+            }
+            return ZERO_COST_PARENT;
+        }
+    }
+}
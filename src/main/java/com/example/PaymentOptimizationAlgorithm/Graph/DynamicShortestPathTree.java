@@ -0,0 +1,306 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Shortest-path tree of one origin branch that is repaired as the topology changes instead of being grown
+ * again, in the style of Ramalingam and Reps' dynamic single-source algorithm:
+ * <ul>
+ *     <li>A new connection or a cheaper branch seeds a Dijkstra with the heads it now reaches more cheaply.
+ *     The search only runs while labels keep improving, so it stays within the part of the tree that
+ *     actually gets closer.</li>
+ *     <li>A dearer branch invalidates the subtree below it. Each invalidated branch is re-labelled from its
+ *     cheapest intact predecessor, and the same search settles the subtree again.</li>
+ * </ul>
+ * Routing from the origin is then a walk up the parent pointers. The tree is brought up to date lazily, by
+ * the first query that sees a newer snapshot, using the changes {@link GraphStore} keeps for recent versions;
+ * if those are gone, for example after an import, the tree is grown from scratch.
+ */
+public final class DynamicShortestPathTree {
+
+    private final String originBranch;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IndexedMinHeap queue = new IndexedMinHeap();
+    // Guarded by lock.
+    private GraphSnapshot snapshot;
+    private long[] distance = new long[0];
+    private int[] parent = new int[0];
+    private int lastRepairSize;
+
+    /**
+     * Grows the tree of an origin on a snapshot.
+     *
+     * @param originBranch The origin branch; it need not exist yet.
+     * @param g            The snapshot to grow the tree on.
+     */
+    public DynamicShortestPathTree(String originBranch, GraphSnapshot g) {
+        this.originBranch = originBranch;
+        lock.writeLock().lock();
+        try {
+            rebuild(g);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public String originBranch() {
+        return originBranch;
+    }
+
+    /**
+     * Topology version the tree currently reflects.
+     */
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return snapshot.version();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of branches whose labels the last repair touched, or the branch count after a rebuild.
+     */
+    public int lastRepairSize() {
+        lock.readLock().lock();
+        try {
+            return lastRepairSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the cheapest path from the origin, first bringing the tree up to the given snapshot if it is
+     * older.
+     *
+     * @param store             The store the snapshot came from, for the changes since the tree's version.
+     * @param g                 A snapshot at least as new as the caller's view of the topology.
+     * @param destinationBranch The target branch.
+     * @return The comma-separated path, or null if the destination is unknown or cannot be reached.
+     */
+    public String route(GraphStore store, GraphSnapshot g, String destinationBranch) {
+        lock.readLock().lock();
+        try {
+            if (snapshot.version() >= g.version()) {
+                return path(destinationBranch);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (snapshot.version() < g.version()) {
+                advance(store, g);
+            }
+            return path(destinationBranch);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private String path(String destinationBranch) {
+        int target = snapshot.indexOf(destinationBranch);
+        if (target < 0 || target >= distance.length || distance[target] == SearchContext.UNREACHED) {
+            return null;
+        }
+        int[] nodes = new int[16];
+        int length = 0;
+        for (int at = target; at >= 0; at = parent[at]) {
+            if (length == nodes.length) {
+                nodes = Arrays.copyOf(nodes, length * 2);
+            }
+            nodes[length++] = at;
+        }
+        StringBuilder path = new StringBuilder(length * 8);
+        for (int i = length - 1; i >= 0; i--) {
+            path.append(snapshot.nameOf(nodes[i]));
+            if (i > 0) {
+                path.append(',');
+            }
+        }
+        return path.toString();
+    }
+
+    private void advance(GraphStore store, GraphSnapshot g) {
+        List<TopologyChange> changes = store.changesBetween(snapshot.version(), g.version());
+        if (changes == null || g.dictionary != snapshot.dictionary || snapshot.indexOf(originBranch) < 0) {
+            rebuild(g);
+        } else {
+            repair(g, changes);
+        }
+    }
+
+    private void rebuild(GraphSnapshot g) {
+        int n = g.nodeCount();
+        snapshot = g;
+        distance = new long[n];
+        parent = new int[n];
+        Arrays.fill(distance, SearchContext.UNREACHED);
+        Arrays.fill(parent, -1);
+        lastRepairSize = n;
+        int source = g.indexOf(originBranch);
+        if (source < 0) {
+            return;
+        }
+        queue.ensureCapacity(n);
+        queue.clear();
+        distance[source] = 0;
+        queue.insertOrDecrease(source, 0);
+        settle(g);
+    }
+
+    /**
+     * Repairs the tree from the snapshot it reflects to a later one of the same network.
+     */
+    private void repair(GraphSnapshot g, List<TopologyChange> changes) {
+        GraphSnapshot old = snapshot;
+        int oldCount = old.nodeCount();
+        int n = g.nodeCount();
+        if (n > distance.length) {
+            int grown = distance.length;
+            distance = Arrays.copyOf(distance, n);
+            parent = Arrays.copyOf(parent, n);
+            Arrays.fill(distance, grown, n, SearchContext.UNREACHED);
+            Arrays.fill(parent, grown, n, -1);
+        }
+        queue.ensureCapacity(n);
+        queue.clear();
+        snapshot = g;
+        lastRepairSize = 0;
+
+        // Dearer branches invalidate everything hanging below them in the old tree, including the whole tree
+        // when the origin itself got dearer.
+        boolean[] invalid = null;
+        int[] stack = null;
+        int invalidCount = 0;
+        for (TopologyChange change : changes) {
+            for (int u : change.repricedBranches()) {
+                if (u >= oldCount || g.cost(u) <= old.cost(u) || distance[u] == SearchContext.UNREACHED) {
+                    continue;
+                }
+                if (invalid == null) {
+                    invalid = new boolean[n];
+                    stack = new int[16];
+                }
+                int size = 0;
+                stack[size++] = u;
+                while (size > 0) {
+                    int x = stack[--size];
+                    for (int e = old.outBegin(x), end = old.outEnd(x); e < end; e++) {
+                        int w = old.outTarget(e);
+                        if (parent[w] == x && !invalid[w]) {
+                            invalid[w] = true;
+                            invalidCount++;
+                            if (size == stack.length) {
+                                stack = Arrays.copyOf(stack, size * 2);
+                            }
+                            stack[size++] = w;
+                        }
+                    }
+                    int[] delta = old.deltaOut(x);
+                    if (delta != null) {
+                        for (int w : delta) {
+                            if (parent[w] == x && !invalid[w]) {
+                                invalid[w] = true;
+                                invalidCount++;
+                                if (size == stack.length) {
+                                    stack = Arrays.copyOf(stack, size * 2);
+                                }
+                                stack[size++] = w;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (invalidCount > 0) {
+            for (int x = 0; x < oldCount; x++) {
+                if (invalid[x]) {
+                    distance[x] = SearchContext.UNREACHED;
+                    parent[x] = -1;
+                }
+            }
+            // Re-label every invalidated branch from its cheapest predecessor outside the invalidated part.
+            for (int x = 0; x < oldCount; x++) {
+                if (invalid[x]) {
+                    for (int e = g.inBegin(x), end = g.inEnd(x); e < end; e++) {
+                        relaxFromIntact(g, g.inSource(e), x, invalid);
+                    }
+                    int[] delta = g.deltaIn(x);
+                    if (delta != null) {
+                        for (int p : delta) {
+                            relaxFromIntact(g, p, x, invalid);
+                        }
+                    }
+                }
+            }
+            lastRepairSize += invalidCount;
+        }
+
+        // New connections and cheaper branches seed the search with every head they now reach more cheaply.
+        for (TopologyChange change : changes) {
+            for (int u : change.repricedBranches()) {
+                if (u < oldCount && g.cost(u) < old.cost(u)) {
+                    relaxOut(g, u);
+                }
+            }
+            for (int i = 0; i < change.connectionCount(); i++) {
+                int u = change.connectionSource(i);
+                if (distance[u] != SearchContext.UNREACHED) {
+                    relax(u, change.connectionTarget(i), distance[u] + g.cost(u));
+                }
+            }
+        }
+        lastRepairSize += settle(g);
+    }
+
+    private void relaxFromIntact(GraphSnapshot g, int p, int x, boolean[] invalid) {
+        if (!invalid[p] && distance[p] != SearchContext.UNREACHED) {
+            relax(p, x, distance[p] + g.cost(p));
+        }
+    }
+
+    private void relaxOut(GraphSnapshot g, int u) {
+        if (distance[u] == SearchContext.UNREACHED) {
+            return;
+        }
+        long through = distance[u] + g.cost(u);
+        for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+            relax(u, g.outTarget(e), through);
+        }
+        int[] delta = g.deltaOut(u);
+        if (delta != null) {
+            for (int v : delta) {
+                relax(u, v, through);
+            }
+        }
+    }
+
+    private void relax(int u, int v, long through) {
+        if (through < distance[v]) {
+            distance[v] = through;
+            parent[v] = u;
+            queue.insertOrDecrease(v, through);
+        }
+    }
+
+    /**
+     * Runs Dijkstra from whatever the queue holds.
+     *
+     * @return The number of branches settled.
+     */
+    private int settle(GraphSnapshot g) {
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            settled++;
+            relaxOut(g, u);
+        }
+        return settled;
+    }
+}
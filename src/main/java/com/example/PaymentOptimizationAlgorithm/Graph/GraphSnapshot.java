@@ -0,0 +1,173 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.nio.IntBuffer;
+
+/**
+ * Immutable, versioned view of the branch network.
+ * Branch ids are interned to dense ints. Forward and reverse adjacency are held in compressed-sparse-row
+ * int buffers, which wrap heap arrays or, for a snapshot loaded from a file, view the mapping directly, and
+ * edges written since the last compaction are held in a small delta overlay. Edges carry no
+ * weight of their own: moving along {@code u -> v} costs {@code cost(u)}, so repricing a branch reprices
+ * all of its outgoing connections at once.
+ * Searches iterate a node's CSR range first and then its delta row:
+ * <pre>
+ *     int w = g.cost(u);
+ *     for (int e = g.outBegin(u), end = g.outEnd(u); e &lt; end; e++) { g.outTarget(e); }
+ *     int[] delta = g.deltaOut(u); // [target, target, ...] or null
+ * </pre>
+ */
+public final class GraphSnapshot {
+
+    private static final IntBuffer NO_OFFSETS = IntBuffer.wrap(new int[] {0});
+    private static final IntBuffer NO_EDGES = IntBuffer.wrap(new int[0]);
+
+    final long version;
+    final int nodeCount;
+    // Shared with later snapshots; entries at or beyond nodeCount belong to newer versions.
+    final BranchDictionary dictionary;
+    final CostTable costs;
+
+    final int baseNodeCount;
+    final IntBuffer outOffsets;
+    final IntBuffer outTargets;
+    final IntBuffer inOffsets;
+    final IntBuffer inSources;
+
+    final DeltaAdjacency deltaOut;
+    final DeltaAdjacency deltaIn;
+
+    GraphSnapshot(long version, int nodeCount, BranchDictionary dictionary, CostTable costs,
+                  int baseNodeCount, int[] outOffsets, int[] outTargets, int[] inOffsets, int[] inSources,
+                  DeltaAdjacency deltaOut, DeltaAdjacency deltaIn) {
+        this(version, nodeCount, dictionary, costs, baseNodeCount, IntBuffer.wrap(outOffsets),
+                IntBuffer.wrap(outTargets), IntBuffer.wrap(inOffsets), IntBuffer.wrap(inSources), deltaOut, deltaIn);
+    }
+
+    GraphSnapshot(long version, int nodeCount, BranchDictionary dictionary, CostTable costs,
+                  int baseNodeCount, IntBuffer outOffsets, IntBuffer outTargets, IntBuffer inOffsets,
+                  IntBuffer inSources, DeltaAdjacency deltaOut, DeltaAdjacency deltaIn) {
+        this.version = version;
+        this.nodeCount = nodeCount;
+        this.dictionary = dictionary;
+        this.costs = costs;
+        this.baseNodeCount = baseNodeCount;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.deltaOut = deltaOut;
+        this.deltaIn = deltaIn;
+    }
+
+    static GraphSnapshot empty() {
+        return new GraphSnapshot(0, 0, new BranchDictionary(), CostTable.EMPTY,
+                0, NO_OFFSETS, NO_EDGES, NO_OFFSETS, NO_EDGES,
+                DeltaAdjacency.EMPTY, DeltaAdjacency.EMPTY);
+    }
+
+    /**
+     * Copies this snapshot with a different version, node table and delta overlay, keeping the compacted base.
+     */
+    GraphSnapshot withDelta(long newVersion, int newNodeCount, CostTable newCosts,
+                            DeltaAdjacency newDeltaOut, DeltaAdjacency newDeltaIn) {
+        return new GraphSnapshot(newVersion, newNodeCount, dictionary, newCosts,
+                baseNodeCount, outOffsets, outTargets, inOffsets, inSources,
+                newDeltaOut, newDeltaIn);
+    }
+
+    /**
+     * Copies this snapshot under a different version.
+     */
+    GraphSnapshot withVersion(long newVersion) {
+        return new GraphSnapshot(newVersion, nodeCount, dictionary, costs,
+                baseNodeCount, outOffsets, outTargets, inOffsets, inSources,
+                deltaOut, deltaIn);
+    }
+
+    /**
+     * Topology version; incremented by every mutation that changes routing results.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return outTargets.limit() + deltaOut.edgeCount();
+    }
+
+    /**
+     * Returns the dense index of a branch, or -1 if the branch is not part of this snapshot.
+     */
+    public int indexOf(String branch) {
+        int id = dictionary.indexOf(branch);
+        return id >= nodeCount ? -1 : id;
+    }
+
+    public String nameOf(int node) {
+        return dictionary.nameOf(node);
+    }
+
+    /**
+     * Cost of a branch, which is also the weight of each of its outgoing connections.
+     */
+    public int cost(int node) {
+        return costs.get(node);
+    }
+
+    /**
+     * An upper bound on the branch costs, and so on the cost of any connection; used to pick the queue of a
+     * search.
+     */
+    public int maxCost() {
+        return costs.maxCost();
+    }
+
+    public int outBegin(int node) {
+        return node < baseNodeCount ? outOffsets.get(node) : 0;
+    }
+
+    public int outEnd(int node) {
+        return node < baseNodeCount ? outOffsets.get(node + 1) : 0;
+    }
+
+    public int outTarget(int edge) {
+        return outTargets.get(edge);
+    }
+
+    /**
+     * Returns the targets of outgoing edges added since the last compaction, or null.
+     */
+    public int[] deltaOut(int node) {
+        return deltaOut.row(node);
+    }
+
+    public int inBegin(int node) {
+        return node < baseNodeCount ? inOffsets.get(node) : 0;
+    }
+
+    public int inEnd(int node) {
+        return node < baseNodeCount ? inOffsets.get(node + 1) : 0;
+    }
+
+    public int inSource(int edge) {
+        return inSources.get(edge);
+    }
+
+    /**
+     * Returns the sources of incoming edges added since the last compaction, or null.
+     */
+    public int[] deltaIn(int node) {
+        return deltaIn.row(node);
+    }
+
+    /**
+     * Number of edges waiting in the delta overlay.
+     */
+    public int deltaEdgeCount() {
+        return deltaOut.edgeCount();
+    }
+}
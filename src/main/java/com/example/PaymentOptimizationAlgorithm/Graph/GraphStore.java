@@ -0,0 +1,413 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Owns the current {@link GraphSnapshot} and applies topology writes.
+ * Readers take the published snapshot without locking. Writers stage mutations in a {@link TopologyWriter}
+ * and publish each batch as one new version through an atomic reference. Single writes arriving while
+ * another batch is being applied are group-committed with the next one. Once the delta overlay grows past
+ * the compaction threshold, or when {@link #compact()} is called, it is merged into a fresh
+ * compressed-sparse-row base.
+ * With a {@link MutationLog} attached through {@link #recover}, every published version is appended to the
+ * log before readers can see it.
+ */
+public class GraphStore {
+
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 4096;
+    private static final int CHANGE_HISTORY = 256;
+
+    private final AtomicReference<GraphSnapshot> current = new AtomicReference<>(GraphSnapshot.empty());
+    private final Lock writeLock = new ReentrantLock();
+    // Writer lock acquisitions of this store and the time spent waiting for them.
+    private final LongAdder writeLockAcquisitions = new LongAdder();
+    private final LongAdder writeLockWaitNanos = new LongAdder();
+    private final Queue<PendingMutation> pending = new ConcurrentLinkedQueue<>();
+    private final int compactionThreshold;
+    private volatile MutationLog mutationLog;
+    // Changes of the most recent consecutive versions, oldest first; replaced whole on every publish.
+    private volatile TopologyChange[] history = new TopologyChange[0];
+
+    public GraphStore() {
+        this(DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public GraphStore(int compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Compaction threshold must be positive.");
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Returns the latest published snapshot.
+     */
+    public GraphSnapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Returns the changes that lead from one version to another, oldest first.
+     *
+     * @param fromVersion The version the caller has state for.
+     * @param toVersion   The version the caller wants to reach, usually that of a snapshot it holds.
+     * @return The changes, empty if the versions are equal, or null if they are no longer all known, for
+     * example after an import; the caller must then recompute from the snapshot.
+     */
+    public List<TopologyChange> changesBetween(long fromVersion, long toVersion) {
+        if (fromVersion == toVersion) {
+            return List.of();
+        }
+        TopologyChange[] changes = history;
+        if (fromVersion > toVersion || changes.length == 0) {
+            return null;
+        }
+        long oldest = changes[0].version();
+        if (fromVersion + 1 < oldest || toVersion > changes[changes.length - 1].version()) {
+            return null;
+        }
+        return Arrays.asList(changes).subList((int) (fromVersion + 1 - oldest), (int) (toVersion + 1 - oldest));
+    }
+
+    /**
+     * Adds a branch or updates the cost of an existing one.
+     *
+     * @param branch The branch identifier.
+     * @param cost   The cost associated with the branch.
+     * @throws IllegalArgumentException If the branch id is missing or contains a comma, or the cost is negative.
+     */
+    public void addBranch(String branch, int cost) {
+        submit(writer -> {
+            writer.addBranch(branch, cost);
+            return true;
+        });
+    }
+
+    /**
+     * Adds a directed connection. Moving along it costs whatever the source branch costs at query time.
+     *
+     * @param from The source branch.
+     * @param to   The target branch.
+     * @return false if either branch does not exist.
+     */
+    public boolean addConnection(String from, String to) {
+        return submit(writer -> writer.addConnection(from, to));
+    }
+
+    /**
+     * Applies a batch of mutations and publishes them as a single new version. If the batch throws, none of
+     * its mutations are published.
+     *
+     * @param batch The mutations to apply.
+     * @return The value returned by the batch.
+     */
+    public <T> T update(Function<TopologyWriter, T> batch) {
+        lockForWrite();
+        try {
+            TopologyWriter writer = newWriter();
+            T result;
+            try {
+                result = batch.apply(writer);
+            } catch (RuntimeException e) {
+                writer.rollback();
+                throw e;
+            }
+            commit(writer);
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole topology with the graph collected by an importer. The graph is built without
+     * holding the writer lock and published as one new version; writes applied in the meantime are
+     * superseded by the import.
+     *
+     * @param importer An importer that has read its whole payload.
+     * @return The published snapshot.
+     */
+    public GraphSnapshot replace(TopologyImporter importer) {
+        return replace(importer.build(0), 0);
+    }
+
+    /**
+     * Writes the current topology to a binary snapshot file; see {@link SnapshotFile}.
+     *
+     * @param path The target file.
+     * @return The snapshot that was written.
+     */
+    public GraphSnapshot export(Path path) throws IOException {
+        GraphSnapshot g = current.get();
+        SnapshotFile.write(g, path);
+        return g;
+    }
+
+    /**
+     * Replaces the whole topology with a memory-mapped snapshot file. The file's version is kept unless the
+     * store has already moved past it, so versions never go backwards.
+     *
+     * @param path A file written by {@link #export}.
+     * @return The published snapshot.
+     */
+    public GraphSnapshot restore(Path path) throws IOException {
+        GraphSnapshot loaded = SnapshotFile.map(path);
+        return replace(loaded, loaded.version);
+    }
+
+    /**
+     * Restores the snapshot the log checkpoints to, if it exists, replays the log records newer than it and
+     * attaches the log so that later writes are appended to it.
+     *
+     * @param log The mutation log to recover from and write to.
+     * @return The recovered snapshot.
+     */
+    public GraphSnapshot recover(MutationLog log) throws IOException {
+        if (Files.exists(log.getSnapshotPath())) {
+            restore(log.getSnapshotPath());
+        }
+        lockForWrite();
+        try {
+            log.replay(current.get().version, (version, mutations) -> {
+                GraphSnapshot g = current.get();
+                if (version != g.version + 1) {
+                    throw new IOException("Mutation log continues at version " + version + " but the topology is at version "
+                            + g.version + "; the snapshot it was checkpointed to is missing.");
+                }
+                TopologyWriter writer = new TopologyWriter(g, null);
+                mutations.applyTo(writer);
+                GraphSnapshot next = writer.build(compactionThreshold);
+                if (next != null) {
+                    publish(next, writer.change(version));
+                } else {
+                    publish(g.withVersion(version), TopologyChange.none(version, g.nodeCount));
+                }
+            });
+            mutationLog = log;
+            return current.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private GraphSnapshot replace(GraphSnapshot built, long minimumVersion) {
+        lockForWrite();
+        try {
+            GraphSnapshot next = built.withVersion(Math.max(minimumVersion, current.get().version + 1));
+            MutationLog log = mutationLog;
+            if (log != null) {
+                // A replacement cannot be expressed as log records, so it becomes the new checkpoint instead.
+                try {
+                    log.checkpoint(next);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to checkpoint replaced topology", e);
+                }
+            }
+            history = new TopologyChange[0];
+            publish(next);
+            return next;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Merges the delta overlay into a new compressed-sparse-row base. The version is unchanged since the
+     * topology is not.
+     */
+    public void compact() {
+        lockForWrite();
+        try {
+            GraphSnapshot g = current.get();
+            if (!g.deltaOut.isEmpty() || g.baseNodeCount != g.nodeCount) {
+                publish(compacted(g));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Queues a single mutation and makes sure it is published before returning. Whichever writer holds the
+     * lock drains every queued mutation into one batch.
+     */
+    private boolean submit(Predicate<TopologyWriter> mutation) {
+        PendingMutation entry = new PendingMutation(mutation);
+        pending.add(entry);
+        lockForWrite();
+        try {
+            if (!entry.done) {
+                TopologyWriter writer = newWriter();
+                List<PendingMutation> batch = new ArrayList<>();
+                PendingMutation next;
+                while ((next = pending.poll()) != null) {
+                    next.apply(writer);
+                    batch.add(next);
+                }
+                try {
+                    commit(writer);
+                } catch (RuntimeException e) {
+                    for (PendingMutation drained : batch) {
+                        drained.failure = e;
+                    }
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (entry.failure != null) {
+            throw entry.failure;
+        }
+        return entry.result;
+    }
+
+    /**
+     * Returns how many times the writer lock of this store has been taken.
+     */
+    public long writeLockAcquisitions() {
+        return writeLockAcquisitions.sum();
+    }
+
+    /**
+     * Returns the total time writers of this store have waited for its writer lock, in nanoseconds.
+     */
+    public long writeLockWaitNanos() {
+        return writeLockWaitNanos.sum();
+    }
+
+    /**
+     * Takes the writer lock, timing the wait only when the lock is contended.
+     */
+    private void lockForWrite() {
+        writeLockAcquisitions.increment();
+        if (writeLock.tryLock()) {
+            return;
+        }
+        long started = System.nanoTime();
+        writeLock.lock();
+        writeLockWaitNanos.add(System.nanoTime() - started);
+    }
+
+    private TopologyWriter newWriter() {
+        return new TopologyWriter(current.get(), mutationLog == null ? null : new MutationLog.Batch());
+    }
+
+    /**
+     * Builds the writer's batch, appends it to the mutation log if there is one, and publishes it.
+     * If the log cannot be written the batch is abandoned.
+     */
+    private void commit(TopologyWriter writer) {
+        GraphSnapshot next = writer.build(compactionThreshold);
+        MutationLog log = mutationLog;
+        if (next != null && log != null) {
+            try {
+                log.append(next.version, writer.journal());
+            } catch (IOException e) {
+                writer.rollback();
+                throw new UncheckedIOException("Failed to append to mutation log", e);
+            }
+        }
+        if (next != null) {
+            publish(next, writer.change(next.version));
+        }
+    }
+
+    private void publish(GraphSnapshot snapshot) {
+        if (snapshot != null) {
+            current.set(snapshot);
+        }
+    }
+
+    /**
+     * Records a version's change before publishing it, so that every visible version's change is known.
+     */
+    private void publish(GraphSnapshot snapshot, TopologyChange change) {
+        TopologyChange[] changes = history;
+        if (changes.length > 0 && changes[changes.length - 1].version() != change.version() - 1) {
+            changes = new TopologyChange[0];
+        }
+        int keep = Math.min(changes.length, CHANGE_HISTORY - 1);
+        TopologyChange[] next = Arrays.copyOfRange(changes, changes.length - keep, changes.length + 1);
+        next[keep] = change;
+        history = next;
+        publish(snapshot);
+    }
+
+    static GraphSnapshot compacted(GraphSnapshot g) {
+        int n = g.nodeCount;
+        // Delta edges never repeat a base edge, so a row is simply its base range followed by its delta row.
+        int[] outOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            int[] row = g.deltaOut.row(u);
+            outOffsets[u + 1] = outOffsets[u] + g.outEnd(u) - g.outBegin(u) + (row == null ? 0 : row.length);
+        }
+
+        int edges = outOffsets[n];
+        int[] outTargets = new int[edges];
+        int[] inOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) {
+            int at = outOffsets[u];
+            int begin = g.outBegin(u);
+            int length = g.outEnd(u) - begin;
+            g.outTargets.get(begin, outTargets, at, length);
+            at += length;
+            int[] row = g.deltaOut.row(u);
+            if (row != null) {
+                System.arraycopy(row, 0, outTargets, at, row.length);
+            }
+        }
+        for (int v : outTargets) {
+            inOffsets[v + 1]++;
+        }
+
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] inSources = new int[edges];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                inSources[fill[outTargets[e]]++] = u;
+            }
+        }
+
+        return new GraphSnapshot(g.version, n, g.dictionary, g.costs,
+                n, outOffsets, outTargets, inOffsets, inSources,
+                DeltaAdjacency.EMPTY, DeltaAdjacency.EMPTY);
+    }
+
+    private static final class PendingMutation {
+        private final Predicate<TopologyWriter> mutation;
+        // Written by the draining writer before it releases the lock, read by the submitter after acquiring it.
+        private boolean done;
+        private boolean result;
+        private RuntimeException failure;
+
+        private PendingMutation(Predicate<TopologyWriter> mutation) {
+            this.mutation = mutation;
+        }
+
+        private void apply(TopologyWriter writer) {
+            try {
+                result = mutation.test(writer);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap over node indices with {@code long} keys and decrease-key.
+ * Each node is in the heap at most once, so no entry objects or stale duplicates are created.
+ * Heap positions are epoch-stamped, which makes {@link #clear()} O(1).
+ */
+public final class IndexedMinHeap implements NodeQueue {
+
+    private int[] heap = new int[0];
+    private long[] keys = new long[0];
+    private int[] position = new int[0];
+    private int[] stamp = new int[0];
+    private int epoch = 1;
+    private int size;
+
+    /**
+     * Grows the backing arrays so that node indices below {@code nodeCount} can be stored.
+     */
+    public void ensureCapacity(int nodeCount) {
+        if (nodeCount > heap.length) {
+            int capacity = Math.max(nodeCount, heap.length * 2);
+            heap = Arrays.copyOf(heap, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            position = Arrays.copyOf(position, capacity);
+            stamp = Arrays.copyOf(stamp, capacity);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return stamp[node] == epoch && position[node] >= 0;
+    }
+
+    /**
+     * Inserts a node, or lowers its key if it is already queued with a larger one.
+     *
+     * @return true if the node was inserted or its key decreased.
+     */
+    public boolean insertOrDecrease(int node, long key) {
+        if (stamp[node] != epoch) {
+            stamp[node] = epoch;
+            keys[node] = key;
+            int i = size++;
+            heap[i] = node;
+            position[node] = i;
+            siftUp(i);
+            return true;
+        }
+        int i = position[node];
+        if (i < 0 || key >= keys[node]) {
+            return false;
+        }
+        keys[node] = key;
+        siftUp(i);
+        return true;
+    }
+
+    public long peekKey() {
+        return keys[heap[0]];
+    }
+
+    public int peekNode() {
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the node with the smallest key. A polled node is not re-inserted until the
+     * next {@link #clear()}.
+     */
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        long key = keys[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int parentNode = heap[parent];
+            if (keys[parentNode] <= key) {
+                break;
+            }
+            heap[i] = parentNode;
+            position[parentNode] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        long key = keys[node];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            int childNode = heap[child];
+            if (key <= keys[childNode]) {
+                break;
+            }
+            heap[i] = childNode;
+            position[childNode] = i;
+            i = child;
+        }
+        heap[i] = node;
+        position[node] = i;
+    }
+}
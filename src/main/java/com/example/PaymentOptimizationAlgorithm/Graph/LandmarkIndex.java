@@ -0,0 +1,194 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed distances to and from a few landmark branches of one topology version, used as A* potentials
+ * by goal-directed bidirectional search (ALT). By the triangle inequality
+ * <pre>
+ *     dist(v, t) &gt;= max over landmarks L of  d(L, t) - d(L, v)  and  d(v, L) - d(t, L)
+ * </pre>
+ * and these bounds are consistent, so searching on them never settles a node too early. Landmarks are
+ * picked farthest-first, which places them on the edges of the network where the bounds are tightest.
+ * The index is only valid for the version it was built from; any write may shorten or lengthen distances.
+ */
+public final class LandmarkIndex {
+
+    private final long version;
+    private final int landmarkCount;
+    private final int[] landmarks;
+    // Row-major by node, landmarkCount entries per node: d(L, v) and d(v, L). Unreachable pairs hold the
+    // same value, larger than every real distance, which keeps the bounds consistent.
+    private final int[] fromLandmark;
+    private final int[] toLandmark;
+
+    private LandmarkIndex(long version, int[] landmarks, int[] fromLandmark, int[] toLandmark) {
+        this.version = version;
+        this.landmarkCount = landmarks.length;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Picks landmarks and computes their distances with one forward and one backward Dijkstra each.
+     *
+     * @param g     The snapshot to index.
+     * @param count The number of landmarks; fewer are used if the network has fewer branches.
+     * @return The index, or null if the network is empty or its distances do not fit in an int.
+     */
+    public static LandmarkIndex build(GraphSnapshot g, int count) {
+        int n = g.nodeCount();
+        int k = Math.min(count, n);
+        if (k <= 0) {
+            return null;
+        }
+        if ((long) n * k > Integer.MAX_VALUE) {
+            return null;
+        }
+        NodeQueue queue = MonotoneQueue.forMaxStep(g.maxCost());
+        queue.ensureCapacity(n);
+        long[] dist = new long[n];
+        int[] forward = new int[n * k];
+        int[] backward = new int[n * k];
+
+        int[] landmarks = new int[k];
+        // Round-trip distance of each node to its nearest landmark so far; unreachable directions count as 0.
+        long[] separation = new long[n];
+        Arrays.fill(separation, Long.MAX_VALUE);
+        shortestDistances(g, 0, true, queue, dist);
+        int next = farthest(dist);
+        long longest = 0;
+        for (int i = 0; i < k; i++) {
+            landmarks[i] = next;
+            shortestDistances(g, next, true, queue, dist);
+            for (int v = 0; v < n; v++) {
+                longest = Math.max(longest, finite(dist[v]));
+                forward[v * k + i] = dist[v] == SearchContext.UNREACHED ? -1 : (int) Math.min(dist[v], Integer.MAX_VALUE);
+            }
+            shortestDistances(g, next, false, queue, dist);
+            for (int v = 0; v < n; v++) {
+                longest = Math.max(longest, finite(dist[v]));
+                backward[v * k + i] = dist[v] == SearchContext.UNREACHED ? -1 : (int) Math.min(dist[v], Integer.MAX_VALUE);
+                separation[v] = Math.min(separation[v], finite(forward[v * k + i]) + finite(dist[v]));
+            }
+            next = farthest(separation);
+        }
+
+        // Potentials are differences of two entries and are doubled by the search, so leave headroom.
+        if (longest >= Integer.MAX_VALUE / 4) {
+            return null;
+        }
+        int unreachable = (int) longest + 1;
+        replaceUnreachable(forward, unreachable);
+        replaceUnreachable(backward, unreachable);
+        return new LandmarkIndex(g.version(), landmarks, forward, backward);
+    }
+
+    /**
+     * Topology version the distances were computed on.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int landmarkCount() {
+        return landmarkCount;
+    }
+
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Returns twice the forward potential of a node for a query, {@code pi_t(v) - pi_s(v)}, where {@code pi_t}
+     * bounds the distance from the node to the target and {@code pi_s} the distance from the source to it.
+     * The forward search keys a node by {@code 2 * d(s, v) + p(v)} and the backward search by
+     * {@code 2 * d(v, t) - p(v)}; averaging the two bounds keeps both directions consistent, so the usual
+     * bidirectional stopping rule still holds on the doubled keys.
+     */
+    public long potential(int node, int source, int target) {
+        int k = landmarkCount;
+        int v = node * k;
+        int s = source * k;
+        int t = target * k;
+        long toTarget = 0;
+        long fromSource = 0;
+        for (int i = 0; i < k; i++) {
+            int fromV = fromLandmark[v + i];
+            int toV = toLandmark[v + i];
+            toTarget = Math.max(toTarget, Math.max(fromLandmark[t + i] - fromV, toV - toLandmark[t + i]));
+            fromSource = Math.max(fromSource, Math.max(fromV - fromLandmark[s + i], toLandmark[s + i] - toV));
+        }
+        return toTarget - fromSource;
+    }
+
+    /**
+     * Full single-source Dijkstra along outgoing ({@code forward}) or incoming connections.
+     */
+    private static void shortestDistances(GraphSnapshot g, int origin, boolean forward, NodeQueue queue, long[] dist) {
+        Arrays.fill(dist, SearchContext.UNREACHED);
+        queue.clear();
+        dist[origin] = 0;
+        queue.insertOrDecrease(origin, 0);
+        while (!queue.isEmpty()) {
+            long d = queue.peekKey();
+            int u = queue.poll();
+            if (forward) {
+                long nd = d + g.cost(u);
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    relax(g.outTarget(e), nd, queue, dist);
+                }
+                int[] delta = g.deltaOut(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        relax(v, nd, queue, dist);
+                    }
+                }
+            } else {
+                for (int e = g.inBegin(u), end = g.inEnd(u); e < end; e++) {
+                    int v = g.inSource(e);
+                    relax(v, d + g.cost(v), queue, dist);
+                }
+                int[] delta = g.deltaIn(u);
+                if (delta != null) {
+                    for (int v : delta) {
+                        relax(v, d + g.cost(v), queue, dist);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void relax(int node, long distance, NodeQueue queue, long[] dist) {
+        if (distance < dist[node]) {
+            dist[node] = distance;
+            queue.insertOrDecrease(node, distance);
+        }
+    }
+
+    /**
+     * Returns the node with the largest reachable value.
+     */
+    private static int farthest(long[] values) {
+        int best = 0;
+        for (int v = 1; v < values.length; v++) {
+            if (values[v] != SearchContext.UNREACHED && (values[best] == SearchContext.UNREACHED || values[v] > values[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private static long finite(long distance) {
+        return distance == SearchContext.UNREACHED || distance < 0 ? 0 : distance;
+    }
+
+    private static void replaceUnreachable(int[] distances, int unreachable) {
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] < 0) {
+                distances[i] = unreachable;
+            }
+        }
+    }
+}
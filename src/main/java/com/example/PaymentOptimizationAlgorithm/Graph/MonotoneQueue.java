@@ -0,0 +1,218 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Base of the integer priority queues used by Dijkstra searches, whose keys are distances: no key is
+ * inserted below the key last polled or peeked. Until then, e.g. while the sources are queued, keys may come
+ * in any order. Queued nodes sit in doubly linked bucket lists threaded
+ * through per-node arrays, so inserting and decreasing a key are O(1) and allocate nothing; subclasses decide
+ * which bucket a key belongs to and how the smallest key is found. Node state is epoch-stamped, which makes
+ * {@link #clear()} independent of the number of nodes.
+ */
+public abstract class MonotoneQueue implements NodeQueue {
+
+    /**
+     * The largest key step for which {@link #forMaxStep} picks a {@link BucketQueue}.
+     */
+    public static final long BUCKET_QUEUE_MAX_STEP = 1 << 12;
+
+    private static final int POLLED = -1;
+
+    private final int[] heads;
+    private long[] keys = new long[0];
+    private int[] bucket = new int[0];
+    private int[] next = new int[0];
+    private int[] previous = new int[0];
+    private int[] stamp = new int[0];
+    private int epoch = 1;
+    private int size;
+    private boolean pulled;
+
+    /**
+     * The smallest key that may still be queued; the key of every node in the bucket
+     * {@link #pull()} returns.
+     */
+    long last;
+
+    MonotoneQueue(int bucketCount) {
+        heads = new int[bucketCount];
+        Arrays.fill(heads, -1);
+    }
+
+    /**
+     * Returns the queue best suited to keys that grow by at most {@code maxStep} per relaxation: a bucket queue
+     * when the step is small, a radix heap otherwise.
+     */
+    public static MonotoneQueue forMaxStep(long maxStep) {
+        return maxStep <= BUCKET_QUEUE_MAX_STEP ? new BucketQueue((int) maxStep) : new RadixHeap();
+    }
+
+    /**
+     * The bucket a key belongs to, given {@link #last}.
+     *
+     * @throws IllegalArgumentException If the key is outside the range the queue can hold.
+     */
+    abstract int bucketOf(long key);
+
+    /**
+     * Moves {@link #last} up to the smallest queued key and returns the non-empty bucket holding it.
+     * Only called on a non-empty queue.
+     */
+    abstract int pull();
+
+    @Override
+    public void ensureCapacity(int nodeCount) {
+        if (nodeCount > keys.length) {
+            int capacity = Math.max(nodeCount, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            bucket = Arrays.copyOf(bucket, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            stamp = Arrays.copyOf(stamp, capacity);
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(heads, -1);
+            size = 0;
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        pulled = false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return stamp[node] == epoch && bucket[node] != POLLED;
+    }
+
+    @Override
+    public boolean insertOrDecrease(int node, long key) {
+        if (!pulled && (size == 0 || key < last)) {
+            rebase(key);
+        }
+        if (stamp[node] != epoch) {
+            int b = bucketOf(key);
+            stamp[node] = epoch;
+            keys[node] = key;
+            link(node, b);
+            size++;
+            return true;
+        }
+        if (bucket[node] == POLLED || key >= keys[node]) {
+            return false;
+        }
+        int b = bucketOf(key);
+        unlink(node);
+        keys[node] = key;
+        link(node, b);
+        return true;
+    }
+
+    @Override
+    public long peekKey() {
+        top();
+        return last;
+    }
+
+    @Override
+    public int peekNode() {
+        return top();
+    }
+
+    @Override
+    public int poll() {
+        int top = top();
+        unlink(top);
+        bucket[top] = POLLED;
+        size--;
+        return top;
+    }
+
+    private int top() {
+        if (size == 0) {
+            throw new NoSuchElementException("Queue is empty");
+        }
+        pulled = true;
+        return heads[pull()];
+    }
+
+    /**
+     * Lowers {@link #last} to a key queued before the first poll, and files the queued nodes again.
+     */
+    private void rebase(long key) {
+        last = key;
+        if (size == 0) {
+            return;
+        }
+        for (int b = 0; b < heads.length; b++) {
+            for (int node = take(b); node >= 0; ) {
+                int following = next[node];
+                link(node, bucketOf(keys[node]));
+                node = following;
+            }
+        }
+    }
+
+    long key(int node) {
+        return keys[node];
+    }
+
+    int head(int b) {
+        return heads[b];
+    }
+
+    int next(int node) {
+        return next[node];
+    }
+
+    /**
+     * Detaches the whole list of a bucket and returns its first node; the nodes stay chained by
+     * {@link #next(int)} until they are linked again.
+     */
+    int take(int b) {
+        int first = heads[b];
+        heads[b] = -1;
+        return first;
+    }
+
+    void link(int node, int b) {
+        int head = heads[b];
+        bucket[node] = b;
+        previous[node] = -1;
+        next[node] = head;
+        if (head >= 0) {
+            previous[head] = node;
+        }
+        heads[b] = node;
+    }
+
+    private void unlink(int node) {
+        int before = previous[node];
+        int after = next[node];
+        if (before >= 0) {
+            next[before] = after;
+        } else {
+            heads[bucket[node]] = after;
+        }
+        if (after >= 0) {
+            previous[after] = before;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of topology mutations, paired with the {@link SnapshotFile} it checkpoints to.
+ * {@link GraphStore} appends one record per published version, while it still holds the writer lock, so all
+ * mutations group-committed into that version share a single write and a single fsync. Each record is
+ * <pre>
+ *     payload length, CRC-32 of payload, payload = [version (long), mutation count, mutations...]
+ * </pre>
+ * A record torn by a crash fails its length or checksum and is cut off when the log is opened.
+ * Recovery maps the snapshot and replays the records newer than it; a checkpoint writes a fresh snapshot
+ * and drops the records it covers.
+ */
+public final class MutationLog implements AutoCloseable {
+
+    /**
+     * When appended records are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /** Before the version they belong to is published; a returned write survives power loss. */
+        ALWAYS,
+        /** By {@link #sync()}, called periodically; a crash loses at most one interval of writes. */
+        INTERVAL,
+        /** Never explicitly; writes survive a process crash but not an operating system crash. */
+        NEVER
+    }
+
+    private static final byte BRANCH = 1;
+    private static final byte CONNECTION = 2;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path logPath;
+    private final Path snapshotPath;
+    private final FsyncPolicy fsyncPolicy;
+    private FileChannel channel;
+    private long size;
+    private boolean dirty;
+    private final Object checkpointLock = new Object();
+    private long checkpointedVersion = -1;
+
+    /**
+     * Opens or creates the log, cutting off a torn final record if the last run crashed mid-write.
+     *
+     * @param logPath      The log file.
+     * @param snapshotPath The snapshot file checkpoints are written to and recovery starts from.
+     * @param fsyncPolicy  When appended records are forced to disk.
+     */
+    public MutationLog(Path logPath, Path snapshotPath, FsyncPolicy fsyncPolicy) throws IOException {
+        this.logPath = logPath;
+        this.snapshotPath = snapshotPath;
+        this.fsyncPolicy = fsyncPolicy;
+        Path parent = logPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        this.channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = validLength(channel);
+        if (size < channel.size()) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+        channel.position(size);
+    }
+
+    public Path getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Size of the log in bytes.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Appends the mutations that produced one topology version, forcing them to disk under {@link FsyncPolicy#ALWAYS}.
+     */
+    synchronized void append(long version, Batch batch) throws IOException {
+        byte[] payload = batch.toPayload(version);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        size += RECORD_HEADER_BYTES + payload.length;
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            channel.force(false);
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Forces appended records to disk. A no-op if nothing was appended since the last call.
+     */
+    public synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    /**
+     * Applies every record newer than {@code afterVersion}, in log order.
+     */
+    synchronized void replay(long afterVersion, RecordVisitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath), 1 << 16))) {
+            for (long position = 0; position < size; ) {
+                int length = in.readInt();
+                in.readInt();
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                position += RECORD_HEADER_BYTES + length;
+
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                long version = record.readLong();
+                int count = record.readInt();
+                if (version > afterVersion) {
+                    visitor.visit(version, new RecordReader(record, count));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot file and drops every record it covers. Records newer than the snapshot, appended while
+     * it was being written, are kept. A snapshot older than the last checkpoint is ignored, so concurrent
+     * checkpoints cannot move the file backwards.
+     *
+     * @param g The snapshot to persist.
+     * @return false if a newer checkpoint had already been written.
+     */
+    public boolean checkpoint(GraphSnapshot g) throws IOException {
+        synchronized (checkpointLock) {
+            if (g.version() <= checkpointedVersion) {
+                return false;
+            }
+            SnapshotFile.write(g, snapshotPath);
+            truncateThrough(g.version());
+            checkpointedVersion = g.version();
+            return true;
+        }
+    }
+
+    private synchronized void truncateThrough(long version) throws IOException {
+        long keepFrom = size;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES + Long.BYTES);
+        for (long position = 0; position < size; ) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            if (header.getLong(RECORD_HEADER_BYTES) > version) {
+                keepFrom = position;
+                break;
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+        if (keepFrom == 0) {
+            return;
+        }
+
+        Path temp = Files.createTempFile(logPath.toAbsolutePath().getParent(), logPath.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long copied = 0;
+                while (copied < size - keepFrom) {
+                    copied += channel.transferTo(keepFrom + copied, size - keepFrom - copied, target);
+                }
+                target.force(true);
+            }
+            channel.close();
+            Files.move(temp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            size -= keepFrom;
+            dirty = false;
+        } finally {
+            Files.deleteIfExists(temp);
+            if (!channel.isOpen()) {
+                channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(size);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                sync();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the length of the log up to the end of its last intact record.
+     */
+    private static long validLength(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (position + RECORD_HEADER_BYTES <= fileSize) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            if (length < Long.BYTES + Integer.BYTES || position + RECORD_HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(payload.flip());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of mutation log.");
+            }
+        }
+    }
+
+    /**
+     * Mutations staged by one {@link TopologyWriter}, encoded as they are applied.
+     */
+    static final class Batch {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int count;
+
+        void branch(String branch, int cost) {
+            try {
+                out.writeByte(BRANCH);
+                out.writeUTF(branch);
+                out.writeInt(cost);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void connection(String from, String to) {
+            try {
+                out.writeByte(CONNECTION);
+                out.writeUTF(from);
+                out.writeUTF(to);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        private byte[] toPayload(long version) {
+            byte[] mutations = bytes.toByteArray();
+            return ByteBuffer.allocate(Long.BYTES + Integer.BYTES + mutations.length)
+                    .putLong(version).putInt(count).put(mutations).array();
+        }
+    }
+
+    /**
+     * Receives the records found by {@link #replay}.
+     */
+    interface RecordVisitor {
+        void visit(long version, RecordReader mutations) throws IOException;
+    }
+
+    /**
+     * Streams the mutations of one record into a writer.
+     */
+    static final class RecordReader {
+        private final DataInputStream in;
+        private final int count;
+
+        private RecordReader(DataInputStream in, int count) {
+            this.in = in;
+            this.count = count;
+        }
+
+        void applyTo(TopologyWriter writer) throws IOException {
+            for (int i = 0; i < count; i++) {
+                byte type = in.readByte();
+                if (type == BRANCH) {
+                    writer.addBranch(in.readUTF(), in.readInt());
+                } else if (type == CONNECTION) {
+                    writer.addConnection(in.readUTF(), in.readUTF());
+                } else {
+                    throw new IOException("Unknown mutation type " + type + " in mutation log.");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+/**
+ * Priority queue of node indices with {@code long} keys and decrease-key, as used by the searches.
+ * Each node is queued at most once between two {@link #clear()} calls: a polled node is not re-inserted.
+ * {@link IndexedMinHeap} takes any keys; the {@link MonotoneQueue} implementations are faster on integer
+ * costs but require keys never to fall below the last key polled.
+ */
+public interface NodeQueue {
+
+    /**
+     * Grows the backing arrays so that node indices below {@code nodeCount} can be stored.
+     */
+    void ensureCapacity(int nodeCount);
+
+    void clear();
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * Whether the node is queued; false once it has been polled.
+     */
+    boolean contains(int node);
+
+    /**
+     * Inserts a node, or lowers its key if it is already queued with a larger one.
+     *
+     * @return true if the node was inserted or its key decreased.
+     */
+    boolean insertOrDecrease(int node, long key);
+
+    long peekKey();
+
+    int peekNode();
+
+    /**
+     * Removes and returns the node with the smallest key.
+     */
+    int poll();
+}
@@ -0,0 +1,227 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import com.example.PaymentOptimizationAlgorithm.Pojo.RegionOverlay;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top level of a multi-level Dijkstra over a partitioned network. Its nodes are the boundary branches of every
+ * region, numbered region by region. Two kinds of arcs join them: within a region, every boundary branch
+ * reaches every other at their cheapest in-region cost; between regions, the cross-region connections keep
+ * their own cost. A payment is routed by searching the origin's region up to its boundary, this overlay across
+ * the other regions, and the destination's region from its boundary, see {@link #search}.
+ */
+public final class OverlayGraph {
+
+    private static final long UNREACHED = SearchContext.UNREACHED;
+
+    private final long version;
+    private final String[] names;
+    private final Map<String, Integer> ids;
+    private final int[] regionOf;
+    private final String[] regions;
+    private final Map<String, Integer> regionIds;
+    private final int[] regionBegin;
+    private final long[][] distances;
+    private final List<String>[] boundaries;
+    private final int[] crossOffsets;
+    private final int[] crossTargets;
+    private final long[] crossCosts;
+
+    private OverlayGraph(long version, Collection<RegionOverlay> overlays) {
+        this.version = version;
+        int regionCount = overlays.size();
+        regions = new String[regionCount];
+        regionIds = new HashMap<>(regionCount * 2);
+        regionBegin = new int[regionCount + 1];
+        distances = new long[regionCount][];
+        @SuppressWarnings("unchecked")
+        List<String>[] boundaryLists = (List<String>[]) new List<?>[regionCount];
+        boundaries = boundaryLists;
+        int r = 0;
+        for (RegionOverlay overlay : overlays) {
+            regions[r] = overlay.region();
+            regionIds.put(overlay.region(), r);
+            distances[r] = overlay.distances();
+            boundaries[r] = overlay.boundary();
+            regionBegin[r + 1] = regionBegin[r] + overlay.boundary().size();
+            r++;
+        }
+
+        int n = regionBegin[regionCount];
+        names = new String[n];
+        regionOf = new int[n];
+        ids = new HashMap<>(n * 2);
+        for (r = 0; r < regionCount; r++) {
+            for (int i = 0; i < boundaries[r].size(); i++) {
+                int node = regionBegin[r] + i;
+                names[node] = boundaries[r].get(i);
+                regionOf[node] = r;
+                ids.putIfAbsent(names[node], node);
+            }
+        }
+
+        // Exits whose target is not a boundary branch of any region yet are dropped until the next build.
+        crossOffsets = new int[n + 1];
+        int edges = 0;
+        for (RegionOverlay overlay : overlays) {
+            for (RegionOverlay.Exit exit : overlay.exits()) {
+                Integer from = ids.get(exit.from());
+                if (from != null && ids.containsKey(exit.to())) {
+                    crossOffsets[from + 1]++;
+                    edges++;
+                }
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            crossOffsets[u + 1] += crossOffsets[u];
+        }
+        crossTargets = new int[edges];
+        crossCosts = new long[edges];
+        int[] fill = Arrays.copyOf(crossOffsets, n);
+        for (RegionOverlay overlay : overlays) {
+            for (RegionOverlay.Exit exit : overlay.exits()) {
+                Integer from = ids.get(exit.from());
+                Integer to = ids.get(exit.to());
+                if (from != null && to != null) {
+                    int e = fill[from]++;
+                    crossTargets[e] = to;
+                    crossCosts[e] = exit.cost();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the overlay of a set of regions.
+     *
+     * @param version  The version of the partitioned network the overlays belong to.
+     * @param overlays The overlay of every region.
+     */
+    public static OverlayGraph build(long version, Collection<RegionOverlay> overlays) {
+        return new OverlayGraph(version, overlays);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int nodeCount() {
+        return names.length;
+    }
+
+    public String nameOf(int node) {
+        return names[node];
+    }
+
+    public String regionOf(int node) {
+        return regions[regionOf[node]];
+    }
+
+    /**
+     * Returns the boundary branches of a region, in overlay order, or an empty list for an unknown region.
+     */
+    public List<String> boundary(String region) {
+        Integer r = regionIds.get(region);
+        return r == null ? List.of() : boundaries[r];
+    }
+
+    /**
+     * Searches the overlay for the cheapest way from the origin's region boundary to the destination's.
+     *
+     * @param context      Search state, sized to the overlay by this call.
+     * @param sourceRegion The region of the origin.
+     * @param fromSource   The in-region cost from the origin to each of its region's boundary branches.
+     * @param targetRegion The region of the destination.
+     * @param toTarget     The in-region cost from each of the destination region's boundary branches to it.
+     * @param bound        The cost of a path already known, e.g. within a shared region, or
+     *                     {@link SearchContext#UNREACHED}.
+     * @return The cheapest route through the overlay, or null if none is cheaper than the bound.
+     */
+    public Route search(SearchContext context, String sourceRegion, long[] fromSource, String targetRegion,
+                        long[] toTarget, long bound) {
+        context.reset(nodeCount());
+        Integer s = regionIds.get(sourceRegion);
+        Integer t = regionIds.get(targetRegion);
+        if (s == null || t == null) {
+            return null;
+        }
+        NodeQueue queue = context.forwardQueue();
+        for (int i = 0; i < fromSource.length; i++) {
+            if (fromSource[i] != UNREACHED) {
+                context.reachForward(regionBegin[s] + i, fromSource[i], -1);
+                queue.insertOrDecrease(regionBegin[s] + i, fromSource[i]);
+            }
+        }
+
+        long best = bound;
+        int meetingPoint = -1;
+        int targetBegin = regionBegin[t];
+        int targetEnd = regionBegin[t + 1];
+        while (!queue.isEmpty()) {
+            if (best != UNREACHED && queue.peekKey() >= best) {
+                break;
+            }
+            long d = queue.peekKey();
+            int u = queue.poll();
+            context.countSettled();
+            if (u >= targetBegin && u < targetEnd) {
+                long rest = toTarget[u - targetBegin];
+                if (rest != UNREACHED && d + rest < best) {
+                    best = d + rest;
+                    meetingPoint = u;
+                }
+            }
+
+            int r = regionOf[u];
+            int k = regionBegin[r + 1] - regionBegin[r];
+            int row = (u - regionBegin[r]) * k;
+            long[] matrix = distances[r];
+            for (int j = 0; j < k; j++) {
+                long w = matrix[row + j];
+                int v = regionBegin[r] + j;
+                if (w != UNREACHED && v != u && d + w < context.forwardDistance(v)) {
+                    context.reachForward(v, d + w, u);
+                    queue.insertOrDecrease(v, d + w);
+                }
+            }
+            for (int e = crossOffsets[u]; e < crossOffsets[u + 1]; e++) {
+                int v = crossTargets[e];
+                long nd = d + crossCosts[e];
+                if (nd < context.forwardDistance(v)) {
+                    context.reachForward(v, nd, u);
+                    queue.insertOrDecrease(v, nd);
+                }
+            }
+        }
+        if (meetingPoint < 0) {
+            return null;
+        }
+
+        int length = 0;
+        for (int at = meetingPoint; at >= 0; at = context.forwardParent(at)) {
+            length++;
+        }
+        int[] nodes = new int[length];
+        for (int at = meetingPoint; at >= 0; at = context.forwardParent(at)) {
+            nodes[--length] = at;
+        }
+        return new Route(best, nodes, context.settledCount());
+    }
+
+    /**
+     * A route through the overlay. Consecutive nodes of the same region are joined by an in-region path and
+     * nodes of different regions by a cross-region connection.
+     *
+     * @param cost         The cost from the origin to the destination along the route.
+     * @param nodes        The overlay nodes along the route; the first is entered from the origin and the last
+     *                     leads to the destination.
+     * @param settledNodes The number of overlay nodes the search settled.
+     */
+    public record Route(long cost, int[] nodes, int settledNodes) {
+    }
+}
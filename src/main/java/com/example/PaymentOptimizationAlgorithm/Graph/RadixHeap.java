@@ -0,0 +1,47 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+/**
+ * Radix heap over {@code long} keys (Ahuja, Mehlhorn, Orlin and Tarjan). A node is kept in the bucket of the
+ * highest bit in which its key differs from {@link #last}, bucket 0 holding the keys equal to it. When bucket
+ * 0 runs empty, the lowest non-empty bucket is scanned for its smallest key, which becomes {@code last}, and
+ * its nodes are spread over lower buckets; every node moves down at most 64 times in total, whatever the
+ * spread of the keys, so it suits costs of any size.
+ */
+public final class RadixHeap extends MonotoneQueue {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+
+    public RadixHeap() {
+        super(BUCKETS);
+    }
+
+    @Override
+    int bucketOf(long key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " is below the last key polled, " + last);
+        }
+        return Long.SIZE - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    @Override
+    int pull() {
+        if (head(0) >= 0) {
+            return 0;
+        }
+        int b = 1;
+        while (head(b) < 0) {
+            b++;
+        }
+        long min = Long.MAX_VALUE;
+        for (int node = head(b); node >= 0; node = next(node)) {
+            min = Math.min(min, key(node));
+        }
+        last = min;
+        for (int node = take(b); node >= 0; ) {
+            int following = next(node);
+            link(node, bucketOf(key(node)));
+            node = following;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,515 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rules out origin/destination pairs that have no path at all, in constant time, so that such queries are
+ * answered before any search starts. Three facts are kept per branch:
+ * <ul>
+ *     <li>its region, the weakly connected part of the network it belongs to; no path leaves a region;</li>
+ *     <li>its strongly connected component, whose branches all reach each other;</li>
+ *     <li>the rank of that component in a topological order of the condensation; no path leads from a
+ *     component to one of lower rank.</li>
+ * </ul>
+ * A pair is excluded if its branches lie in different regions, or in different components with the origin
+ * ranked above the destination. Other pairs may or may not be connected and are left to the search.
+ * <p>
+ * Branches and connections are only ever added, so the index is brought forward rather than rebuilt, using
+ * the changes {@link GraphStore} keeps for recent versions. Regions are merged by relabelling the smaller
+ * one. A connection against the topological order is placed with Pearce and Kelly's dynamic topological
+ * sort, which only reorders the components ranked between its ends; if it closes a cycle, the components on
+ * the cycle are merged into one. An index that has moved past a snapshot still answers for it, since a pair
+ * without a path in the later network has none in the earlier one either.
+ */
+public final class ReachabilityIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Written under the write lock; read without it to tell whether the index answers for a snapshot.
+    private volatile GraphSnapshot snapshot;
+    // Guarded by lock.
+    private int nodeCount;
+    private final Partition regions;
+    private final Partition components;
+    // Topological rank of each component, by component label.
+    private int[] rank;
+    private int nextRank;
+    // Epoch stamps of the components reached from either end of a connection being placed.
+    private int[] forwardSeen = new int[0];
+    private int[] backwardSeen = new int[0];
+    private int epoch;
+    private int reorderedComponents;
+
+    private ReachabilityIndex(GraphSnapshot g, Partition regions, Partition components, int[] rank, int nextRank) {
+        this.snapshot = g;
+        this.nodeCount = g.nodeCount();
+        this.regions = regions;
+        this.components = components;
+        this.rank = rank;
+        this.nextRank = nextRank;
+    }
+
+    /**
+     * Indexes a snapshot from scratch: components with Tarjan's algorithm, which finishes them in reverse
+     * topological order, and regions with a union-find over the connections.
+     */
+    public static ReachabilityIndex build(GraphSnapshot g) {
+        int n = g.nodeCount();
+        int capacity = n + n / 8 + 16;
+        Partition components = new Partition(capacity);
+        int[] finished = new int[n];
+        int componentCount = 0;
+
+        int[] index = new int[n];
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int sp = 0;
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = 0;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int x = callNode[depth];
+                int p = callEdge[depth];
+                if (p < outDegree(g, x)) {
+                    callEdge[depth] = p + 1;
+                    int y = outNeighbour(g, x, p);
+                    if (index[y] < 0) {
+                        index[y] = low[y] = counter++;
+                        stack[sp++] = y;
+                        onStack[y] = true;
+                        depth++;
+                        callNode[depth] = y;
+                        callEdge[depth] = 0;
+                    } else if (onStack[y]) {
+                        low[x] = Math.min(low[x], index[y]);
+                    }
+                    continue;
+                }
+                if (low[x] == index[x]) {
+                    int size = 0;
+                    int y;
+                    components.next[x] = -1;
+                    do {
+                        y = stack[--sp];
+                        onStack[y] = false;
+                        components.label[y] = x;
+                        if (y != x) {
+                            components.next[y] = components.next[x];
+                            components.next[x] = y;
+                        }
+                        size++;
+                    } while (y != x);
+                    components.size[x] = size;
+                    finished[componentCount++] = x;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[x]);
+                }
+            }
+        }
+        int[] rank = new int[capacity];
+        for (int c = 0; c < componentCount; c++) {
+            rank[finished[c]] = componentCount - 1 - c;
+        }
+
+        int[] parent = new int[n];
+        for (int x = 0; x < n; x++) {
+            parent[x] = x;
+        }
+        for (int x = 0; x < n; x++) {
+            for (int p = 0, degree = outDegree(g, x); p < degree; p++) {
+                int a = find(parent, x);
+                int b = find(parent, outNeighbour(g, x, p));
+                if (a != b) {
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+        Partition regions = new Partition(capacity);
+        for (int x = 0; x < n; x++) {
+            int root = find(parent, x);
+            regions.label[x] = root;
+            if (root == x) {
+                regions.next[x] = -1;
+                regions.size[x] = 1;
+            } else {
+                regions.next[x] = regions.next[root];
+                regions.next[root] = x;
+                regions.size[root]++;
+            }
+        }
+        return new ReachabilityIndex(g, regions, components, rank, componentCount);
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /**
+     * Topology version the index reflects.
+     */
+    public long version() {
+        return snapshot.version();
+    }
+
+    /**
+     * Number of components whose rank changed while placing the connections of the last update, counting
+     * components merged into a cycle.
+     */
+    public int lastReorderSize() {
+        lock.readLock().lock();
+        try {
+            return reorderedComponents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Makes sure the index answers for a snapshot, first bringing it forward if it is older.
+     *
+     * @param store The store the snapshot came from, for the changes since the index's version.
+     * @param g     The snapshot queries are about to route on.
+     * @return false if the index cannot answer for the snapshot, because the network was replaced by an import
+     * or the changes since are no longer known, in which case it must be built again.
+     */
+    public boolean covers(GraphStore store, GraphSnapshot g) {
+        GraphSnapshot current = snapshot;
+        if (current.dictionary != g.dictionary) {
+            return false;
+        }
+        if (current.version() >= g.version()) {
+            return true;
+        }
+        lock.writeLock().lock();
+        try {
+            current = snapshot;
+            if (current.version() < g.version()) {
+                List<TopologyChange> changes = store.changesBetween(current.version(), g.version());
+                if (changes == null) {
+                    return false;
+                }
+                advance(g, changes);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tells whether a pair is known to have no path. Only meaningful for a snapshot the index
+     * {@link #covers}.
+     *
+     * @return true if the destination cannot be reached from the origin; false if it may be.
+     */
+    public boolean excludes(int source, int target) {
+        lock.readLock().lock();
+        try {
+            if (source >= nodeCount || target >= nodeCount) {
+                return false;
+            }
+            if (regions.label[source] != regions.label[target]) {
+                return true;
+            }
+            int a = components.label[source];
+            int b = components.label[target];
+            return a != b && rank[a] > rank[b];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the branches and connections of the changes leading to {@code g}. Connections of the same update
+     * are placed one at a time, and the searches placing one skip those not placed yet, so that every
+     * placement sees an order that is valid for the connections it traverses.
+     */
+    private void advance(GraphSnapshot g, List<TopologyChange> changes) {
+        int n = g.nodeCount();
+        regions.ensureCapacity(n);
+        components.ensureCapacity(n);
+        if (n > rank.length) {
+            rank = Arrays.copyOf(rank, components.label.length);
+        }
+        for (int x = nodeCount; x < n; x++) {
+            regions.add(x);
+            components.add(x);
+            rank[x] = nextRank++;
+        }
+        nodeCount = n;
+
+        int connections = 0;
+        for (TopologyChange change : changes) {
+            connections += change.connectionCount();
+        }
+        Set<Long> pending = null;
+        if (connections > 1) {
+            pending = new HashSet<>();
+            for (TopologyChange change : changes) {
+                for (int i = 0; i < change.connectionCount(); i++) {
+                    pending.add(edge(change.connectionSource(i), change.connectionTarget(i)));
+                }
+            }
+        }
+        reorderedComponents = 0;
+        for (TopologyChange change : changes) {
+            for (int i = 0; i < change.connectionCount(); i++) {
+                int u = change.connectionSource(i);
+                int v = change.connectionTarget(i);
+                if (pending != null) {
+                    pending.remove(edge(u, v));
+                }
+                place(g, u, v, pending);
+            }
+        }
+        snapshot = g;
+    }
+
+    /**
+     * Places a connection {@code u -> v}. If the component of {@code u} is ranked below that of {@code v}
+     * the order already holds. Otherwise the components reachable from {@code v} ranked up to {@code u}'s
+     * and those reaching {@code u} ranked down to {@code v}'s are collected; the latter are moved ahead of
+     * the former within the ranks they held, and components found from both sides lie on a new cycle and are
+     * merged, ranked between the two groups.
+     */
+    private void place(GraphSnapshot g, int u, int v, Set<Long> pending) {
+        regions.union(u, v);
+        int cu = components.label[u];
+        int cv = components.label[v];
+        if (cu == cv || rank[cu] < rank[cv]) {
+            return;
+        }
+        int lower = rank[cv];
+        int upper = rank[cu];
+        if (forwardSeen.length < components.label.length) {
+            forwardSeen = Arrays.copyOf(forwardSeen, components.label.length);
+            backwardSeen = Arrays.copyOf(backwardSeen, components.label.length);
+        }
+        epoch++;
+        IntList forward = collect(g, cv, cu, lower, upper, true, pending);
+        IntList backward = collect(g, cu, cv, lower, upper, false, pending);
+        boolean cycle = forwardSeen[cu] == epoch;
+
+        IntList ranks = new IntList(forward.size + backward.size);
+        IntList ahead = new IntList(backward.size);
+        IntList behind = new IntList(forward.size);
+        IntList cyclic = new IntList(cycle ? 2 : 0);
+        for (int i = 0; i < backward.size; i++) {
+            int c = backward.items[i];
+            ranks.add(rank[c]);
+            if (forwardSeen[c] == epoch) {
+                cyclic.add(c);
+            } else {
+                ahead.add(c);
+            }
+        }
+        for (int i = 0; i < forward.size; i++) {
+            int c = forward.items[i];
+            if (backwardSeen[c] != epoch) {
+                ranks.add(rank[c]);
+                behind.add(c);
+            }
+        }
+        ranks.sort();
+        ahead.sortBy(rank);
+        behind.sortBy(rank);
+
+        int at = 0;
+        for (int i = 0; i < ahead.size; i++) {
+            rank[ahead.items[i]] = ranks.items[at++];
+        }
+        if (cycle) {
+            int merged = cyclic.items[0];
+            for (int i = 1; i < cyclic.size; i++) {
+                merged = components.union(merged, cyclic.items[i]);
+            }
+            rank[merged] = ranks.items[at];
+        }
+        at = ranks.size - behind.size;
+        for (int i = 0; i < behind.size; i++) {
+            rank[behind.items[i]] = ranks.items[at++];
+        }
+        reorderedComponents += ranks.size;
+    }
+
+    /**
+     * Collects the components reachable from {@code start} (forward) or reaching it (backward) whose ranks
+     * lie between {@code lower} and {@code upper}. Every branch of a collected component is expanded, as they
+     * all reach each other. The component at the other end of the connection is marked when met but not
+     * expanded, since nothing beyond it lies within the bounds.
+     */
+    private IntList collect(GraphSnapshot g, int start, int end, int lower, int upper, boolean forward,
+                            Set<Long> pending) {
+        int[] seen = forward ? forwardSeen : backwardSeen;
+        IntList found = new IntList(4);
+        IntList stack = new IntList(16);
+        seen[start] = epoch;
+        found.add(start);
+        pushMembers(stack, start);
+        while (stack.size > 0) {
+            int x = stack.items[--stack.size];
+            int degree = forward ? outDegree(g, x) : inDegree(g, x);
+            for (int p = 0; p < degree; p++) {
+                int y = forward ? outNeighbour(g, x, p) : inNeighbour(g, x, p);
+                if (pending != null && !pending.isEmpty() && pending.contains(forward ? edge(x, y) : edge(y, x))) {
+                    continue;
+                }
+                int c = components.label[y];
+                if (seen[c] == epoch || rank[c] < lower || rank[c] > upper) {
+                    continue;
+                }
+                seen[c] = epoch;
+                found.add(c);
+                if (c != end) {
+                    pushMembers(stack, c);
+                }
+            }
+        }
+        return found;
+    }
+
+    private void pushMembers(IntList stack, int component) {
+        for (int x = component; x >= 0; x = components.next[x]) {
+            stack.add(x);
+        }
+    }
+
+    private static long edge(int from, int to) {
+        return (long) from << 32 | (to & 0xffffffffL);
+    }
+
+    private static int outDegree(GraphSnapshot g, int x) {
+        int[] delta = g.deltaOut(x);
+        return g.outEnd(x) - g.outBegin(x) + (delta == null ? 0 : delta.length);
+    }
+
+    private static int outNeighbour(GraphSnapshot g, int x, int p) {
+        int base = g.outEnd(x) - g.outBegin(x);
+        return p < base ? g.outTarget(g.outBegin(x) + p) : g.deltaOut(x)[p - base];
+    }
+
+    private static int inDegree(GraphSnapshot g, int x) {
+        int[] delta = g.deltaIn(x);
+        return g.inEnd(x) - g.inBegin(x) + (delta == null ? 0 : delta.length);
+    }
+
+    private static int inNeighbour(GraphSnapshot g, int x, int p) {
+        int base = g.inEnd(x) - g.inBegin(x);
+        return p < base ? g.inSource(g.inBegin(x) + p) : g.deltaIn(x)[p - base];
+    }
+
+    /**
+     * Disjoint sets of branches, each labelled by one of its members, with the members of a set chained from
+     * its label so that merging can relabel the smaller set.
+     */
+    private static final class Partition {
+        int[] label;
+        int[] next;
+        int[] size;
+
+        Partition(int capacity) {
+            label = new int[capacity];
+            next = new int[capacity];
+            size = new int[capacity];
+        }
+
+        void ensureCapacity(int n) {
+            if (n > label.length) {
+                int capacity = Math.max(n, label.length + label.length / 2 + 16);
+                label = Arrays.copyOf(label, capacity);
+                next = Arrays.copyOf(next, capacity);
+                size = Arrays.copyOf(size, capacity);
+            }
+        }
+
+        void add(int x) {
+            label[x] = x;
+            next[x] = -1;
+            size[x] = 1;
+        }
+
+        /**
+         * Merges the sets of two branches.
+         *
+         * @return The label of the merged set, that of the larger one.
+         */
+        int union(int a, int b) {
+            int keep = label[a];
+            int absorb = label[b];
+            if (keep == absorb) {
+                return keep;
+            }
+            if (size[keep] < size[absorb]) {
+                int swap = keep;
+                keep = absorb;
+                absorb = swap;
+            }
+            int last = absorb;
+            for (int x = absorb; x >= 0; x = next[x]) {
+                label[x] = keep;
+                last = x;
+            }
+            next[last] = next[keep];
+            next[keep] = absorb;
+            size[keep] += size[absorb];
+            return keep;
+        }
+    }
+
+    private static final class IntList {
+        int[] items;
+        int size;
+
+        IntList(int capacity) {
+            items = new int[Math.max(1, capacity)];
+        }
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        void sort() {
+            Arrays.sort(items, 0, size);
+        }
+
+        /**
+         * Sorts the items by a key per item; keys are distinct.
+         */
+        void sortBy(int[] key) {
+            long[] keyed = new long[size];
+            for (int i = 0; i < size; i++) {
+                keyed[i] = (long) key[items[i]] << 32 | items[i];
+            }
+            Arrays.sort(keyed);
+            for (int i = 0; i < size; i++) {
+                items[i] = (int) keyed[i];
+            }
+        }
+    }
+}
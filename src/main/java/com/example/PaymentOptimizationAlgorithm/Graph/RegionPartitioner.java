@@ -0,0 +1,88 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Splits a network into regions of bounded size by growing each region breadth-first, ignoring connection
+ * direction, from the lowest-indexed branch not yet assigned. Neighbouring branches thus tend to share a
+ * region, which keeps the number of boundary branches, and with it the overlay, small.
+ */
+public final class RegionPartitioner {
+
+    private RegionPartitioner() {
+    }
+
+    /**
+     * Assigns every branch that has no region yet to a new one.
+     *
+     * @param g          The network.
+     * @param assigned   The region of each branch by node index, or -1 where it is to be chosen; regions
+     *                   given here are kept and never grown.
+     * @param regionSize The most branches a new region may hold.
+     * @return The region of every branch; new regions are numbered after the largest one given.
+     */
+    public static int[] partition(GraphSnapshot g, int[] assigned, int regionSize) {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size must be positive.");
+        }
+        int n = g.nodeCount();
+        int[] region = Arrays.copyOf(assigned, n);
+        int next = 0;
+        for (int i = 0; i < n; i++) {
+            if (i >= assigned.length) {
+                region[i] = -1;
+            }
+            next = Math.max(next, region[i] + 1);
+        }
+
+        int[] queue = new int[n];
+        for (int seed = 0; seed < n; seed++) {
+            if (region[seed] >= 0) {
+                continue;
+            }
+            int current = next++;
+            int head = 0;
+            int tail = 0;
+            int size = 1;
+            region[seed] = current;
+            queue[tail++] = seed;
+            while (head < tail && size < regionSize) {
+                int u = queue[head++];
+                int[] delta = g.deltaOut(u);
+                int[] deltaIn = g.deltaIn(u);
+                int degree = g.outEnd(u) - g.outBegin(u) + g.inEnd(u) - g.inBegin(u)
+                        + (delta == null ? 0 : delta.length) + (deltaIn == null ? 0 : deltaIn.length);
+                for (int i = 0; i < degree && size < regionSize; i++) {
+                    int v = neighbour(g, u, i, delta, deltaIn);
+                    if (region[v] < 0) {
+                        region[v] = current;
+                        queue[tail++] = v;
+                        size++;
+                    }
+                }
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Returns the {@code i}-th neighbour of a node, counting outgoing CSR edges, incoming CSR edges, outgoing
+     * delta edges and incoming delta edges in that order.
+     */
+    private static int neighbour(GraphSnapshot g, int u, int i, int[] deltaOut, int[] deltaIn) {
+        int out = g.outEnd(u) - g.outBegin(u);
+        if (i < out) {
+            return g.outTarget(g.outBegin(u) + i);
+        }
+        i -= out;
+        int in = g.inEnd(u) - g.inBegin(u);
+        if (i < in) {
+            return g.inSource(g.inBegin(u) + i);
+        }
+        i -= in;
+        if (deltaOut != null && i < deltaOut.length) {
+            return deltaOut[i];
+        }
+        return deltaIn[i - (deltaOut == null ? 0 : deltaOut.length)];
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed shortest paths between every pair of branches of one {@link GraphSnapshot}, for networks small
+ * enough that a query should be a handful of array reads rather than a search. Row {@code s} holds the
+ * shortest-path tree of source {@code s} as one predecessor per branch, so a path is read backwards from the
+ * destination without touching any other row. Entries are shorts, which caps the table at
+ * {@link #MAX_BRANCHES} branches; matrices beyond a few megabytes are allocated off-heap.
+ * <p>
+ * Because every row is self-contained, a topology change only recomputes the rows whose trees it can
+ * change: a source whose tree runs through a branch that got more expensive, or that reaches the tail of a
+ * new connection or of a cheaper branch's connections more cheaply than the head was reached before.
+ * Instances are immutable and safe to query from any number of threads.
+ */
+public final class RouteTable {
+
+    /**
+     * Largest network a table can hold, as predecessors are stored in shorts.
+     */
+    public static final int MAX_BRANCHES = Short.MAX_VALUE;
+
+    private static final short UNREACHED = -1;
+    private static final long HEAP_ENTRIES = 1L << 22;
+
+    private final GraphSnapshot snapshot;
+    // Row stride; larger than the branch count so that new branches can be added without a rebuild.
+    private final int capacity;
+    private final ShortBuffer predecessors;
+    private final int recomputedRows;
+
+    private RouteTable(GraphSnapshot snapshot, int capacity, ShortBuffer predecessors, int recomputedRows) {
+        this.snapshot = snapshot;
+        this.capacity = capacity;
+        this.predecessors = predecessors;
+        this.recomputedRows = recomputedRows;
+    }
+
+    /**
+     * Computes the table with one full Dijkstra per source, run in parallel.
+     *
+     * @param g        The snapshot to precompute; must have at most {@link #MAX_BRANCHES} branches.
+     * @param pool     The pool the searches run on.
+     * @param contexts The search contexts the searches borrow.
+     * @return The table for the snapshot's version.
+     */
+    public static RouteTable build(GraphSnapshot g, ForkJoinPool pool, SearchContextPool contexts) {
+        int n = g.nodeCount();
+        if (n > MAX_BRANCHES) {
+            throw new IllegalArgumentException("Route tables hold at most " + MAX_BRANCHES + " branches, not " + n);
+        }
+        int capacity = (int) Math.min(MAX_BRANCHES, n + n / 8L + 16);
+        ShortBuffer predecessors = allocate((long) capacity * capacity);
+        RouteTable table = new RouteTable(g, capacity, predecessors, n);
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(s -> table.computeRow(g, contexts, s))).join();
+        return table;
+    }
+
+    /**
+     * Brings the table up to a later snapshot of the same network, recomputing only the rows the changes
+     * can affect.
+     *
+     * @param g        A later snapshot.
+     * @param pool     The pool the searches run on.
+     * @param contexts The search contexts the searches borrow.
+     * @return The table for the snapshot's version, or null if the network was replaced by an import or has
+     * outgrown the table, in which case it must be built again.
+     */
+    public RouteTable update(GraphSnapshot g, ForkJoinPool pool, SearchContextPool contexts) {
+        GraphSnapshot old = snapshot;
+        int n = g.nodeCount();
+        if (g.dictionary != old.dictionary || n > capacity) {
+            return null;
+        }
+        int oldCount = old.nodeCount();
+        boolean[] dearer = new boolean[oldCount];
+        int[] improvedTails = improvedTails(old, g, dearer);
+
+        ShortBuffer copy = allocate((long) capacity * capacity);
+        copy.put(predecessors.duplicate().clear());
+        RouteTable table = new RouteTable(g, capacity, copy, 0);
+        AtomicInteger recomputed = new AtomicInteger();
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(s -> {
+            if (s >= oldCount || affected(old, g, s, dearer, improvedTails)) {
+                table.computeRow(g, contexts, s);
+                recomputed.incrementAndGet();
+            }
+        })).join();
+        return new RouteTable(g, capacity, copy, recomputed.get());
+    }
+
+    /**
+     * Topology version the table answers for.
+     */
+    public long version() {
+        return snapshot.version();
+    }
+
+    public int branchCount() {
+        return snapshot.nodeCount();
+    }
+
+    /**
+     * Number of rows computed when this table was built or updated.
+     */
+    public int recomputedRows() {
+        return recomputedRows;
+    }
+
+    /**
+     * Reads the cheapest path between two branches.
+     *
+     * @param originBranch      The starting branch.
+     * @param destinationBranch The target branch.
+     * @return The comma-separated path, or null if either branch is unknown or the destination cannot be reached.
+     */
+    public String route(String originBranch, String destinationBranch) {
+        int source = snapshot.indexOf(originBranch);
+        int target = snapshot.indexOf(destinationBranch);
+        if (source < 0 || target < 0) {
+            return null;
+        }
+        if (source == target) {
+            return originBranch;
+        }
+        int row = source * capacity;
+        if (predecessors.get(row + target) == UNREACHED) {
+            return null;
+        }
+        int[] path = new int[16];
+        int length = 0;
+        for (int at = target; at != source; at = predecessors.get(row + at)) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = at;
+        }
+        StringBuilder route = new StringBuilder(length * 8 + 8).append(originBranch);
+        for (int i = length - 1; i >= 0; i--) {
+            route.append(',').append(snapshot.nameOf(path[i]));
+        }
+        return route.toString();
+    }
+
+    private void computeRow(GraphSnapshot g, SearchContextPool contexts, int source) {
+        int n = g.nodeCount();
+        short[] row = new short[capacity];
+        Arrays.fill(row, UNREACHED);
+        SearchContext context = contexts.acquire();
+        try {
+            ShortestPathTrees.grow(g, context, source, null);
+            for (int v = 0; v < n; v++) {
+                if (context.forwardDistance(v) != SearchContext.UNREACHED) {
+                    row[v] = (short) (v == source ? source : context.forwardParent(v));
+                }
+            }
+        } finally {
+            contexts.release(context);
+        }
+        predecessors.put(source * capacity, row);
+    }
+
+    /**
+     * Marks the branches whose cost went up and collects the branches that may now start a cheaper path:
+     * the tails of new connections and branches whose cost went down.
+     */
+    private static int[] improvedTails(GraphSnapshot old, GraphSnapshot g, boolean[] dearer) {
+        int n = g.nodeCount();
+        int oldCount = old.nodeCount();
+        int[] tails = new int[16];
+        int count = 0;
+        int[] marker = new int[n];
+        int stamp = 0;
+        for (int u = 0; u < n; u++) {
+            boolean improved = false;
+            if (u < oldCount) {
+                int before = old.cost(u);
+                int after = g.cost(u);
+                dearer[u] = after > before;
+                improved = after < before;
+                if (!improved && outDegree(g, u) != outDegree(old, u)) {
+                    stamp++;
+                    for (int e = old.outBegin(u), end = old.outEnd(u); e < end; e++) {
+                        marker[old.outTarget(e)] = stamp;
+                    }
+                    int[] delta = old.deltaOut(u);
+                    if (delta != null) {
+                        for (int v : delta) {
+                            marker[v] = stamp;
+                        }
+                    }
+                    improved = hasUnmarkedTarget(g, u, marker, stamp);
+                }
+            }
+            // Connections out of new branches are only reached through a new connection into them.
+            if (improved) {
+                if (count == tails.length) {
+                    tails = Arrays.copyOf(tails, count * 2);
+                }
+                tails[count++] = u;
+            }
+        }
+        return Arrays.copyOf(tails, count);
+    }
+
+    /**
+     * Returns true if the tree of {@code s} may no longer be a shortest-path tree: it passes through a branch
+     * that got more expensive, or some connection out of an improved tail now reaches its head more cheaply
+     * than the tree does. A change in the source's own cost shifts all its paths alike and is ignored.
+     */
+    private boolean affected(GraphSnapshot old, GraphSnapshot g, int s, boolean[] dearer, int[] improvedTails) {
+        int oldCount = old.nodeCount();
+        int row = s * capacity;
+        long[] distance = new long[oldCount];
+        Arrays.fill(distance, -1);
+        distance[s] = 0;
+        int[] stack = new int[16];
+        for (int v = 0; v < oldCount; v++) {
+            short parent = predecessors.get(row + v);
+            if (parent == UNREACHED) {
+                distance[v] = SearchContext.UNREACHED;
+            } else if (parent != v && parent != s && dearer[parent]) {
+                return true;
+            }
+        }
+        for (int u : improvedTails) {
+            if (treeDistance(old, row, u, distance, stack) == SearchContext.UNREACHED) {
+                continue;
+            }
+            // The source's own cost shifts every path alike, so its connections compare at the old cost.
+            long through = distance[u] + (u == s ? old.cost(u) : g.cost(u));
+            for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                if (cheaper(old, row, through, g.outTarget(e), distance, stack)) {
+                    return true;
+                }
+            }
+            int[] delta = g.deltaOut(u);
+            if (delta != null) {
+                for (int v : delta) {
+                    if (cheaper(old, row, through, v, distance, stack)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean cheaper(GraphSnapshot old, int row, long through, int head, long[] distance, int[] stack) {
+        return head >= distance.length || through < treeDistance(old, row, head, distance, stack);
+    }
+
+    /**
+     * Distance of a branch along the tree of one row at the old costs, filling in every distance on the way.
+     */
+    private long treeDistance(GraphSnapshot old, int row, int v, long[] distance, int[] stack) {
+        int size = 0;
+        int at = v;
+        while (distance[at] < 0) {
+            if (size == stack.length) {
+                stack = Arrays.copyOf(stack, size * 2);
+            }
+            stack[size++] = at;
+            at = predecessors.get(row + at);
+        }
+        long d = distance[at];
+        while (size > 0) {
+            int w = stack[--size];
+            d += old.cost(predecessors.get(row + w));
+            distance[w] = d;
+        }
+        return distance[v];
+    }
+
+    private static boolean hasUnmarkedTarget(GraphSnapshot g, int u, int[] marker, int stamp) {
+        for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+            if (marker[g.outTarget(e)] != stamp) {
+                return true;
+            }
+        }
+        int[] delta = g.deltaOut(u);
+        if (delta != null) {
+            for (int v : delta) {
+                if (marker[v] != stamp) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int outDegree(GraphSnapshot g, int u) {
+        int[] delta = g.deltaOut(u);
+        return g.outEnd(u) - g.outBegin(u) + (delta == null ? 0 : delta.length);
+    }
+
+    private static ShortBuffer allocate(long entries) {
+        ShortBuffer buffer = entries <= HEAP_ENTRIES
+                ? ShortBuffer.allocate((int) entries)
+                : ByteBuffer.allocateDirect((int) (entries * Short.BYTES)).order(ByteOrder.nativeOrder()).asShortBuffer();
+        short[] unreached = new short[(int) Math.min(entries, 1 << 16)];
+        Arrays.fill(unreached, UNREACHED);
+        for (long i = 0; i < entries; i += unreached.length) {
+            buffer.put((int) i, unreached, 0, (int) Math.min(unreached.length, entries - i));
+        }
+        return buffer;
+    }
+}
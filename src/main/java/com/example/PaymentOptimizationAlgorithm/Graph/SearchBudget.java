@@ -0,0 +1,103 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+/**
+ * Deadline and settled-node limit of one request's searches, checked cooperatively by the search loops.
+ * The budget of the request being served is bound to its thread with {@link #enter}; engines combine it with
+ * their configured defaults through {@link #within}. The deadline is compared with {@link System#nanoTime()}
+ * only every {@value #CLOCK_INTERVAL} settled nodes, so checking the budget costs next to nothing.
+ */
+public final class SearchBudget {
+
+    public static final SearchBudget UNLIMITED = new SearchBudget(Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    private static final int CLOCK_INTERVAL = 256;
+    private static final ThreadLocal<SearchBudget> REQUEST = new ThreadLocal<>();
+
+    private final long deadline;
+    private final int maxSettledNodes;
+
+    private SearchBudget(long deadline, int maxSettledNodes) {
+        this.deadline = deadline;
+        this.maxSettledNodes = maxSettledNodes;
+    }
+
+    /**
+     * Creates a budget starting now.
+     *
+     * @param timeoutMillis   Time the searches may take; 0 or less for no deadline.
+     * @param maxSettledNodes Nodes a single search may settle; 0 or less for no limit.
+     */
+    public static SearchBudget of(long timeoutMillis, int maxSettledNodes) {
+        return UNLIMITED.within(timeoutMillis, maxSettledNodes);
+    }
+
+    /**
+     * Returns the budget bound to the current thread, or {@link #UNLIMITED}.
+     */
+    public static SearchBudget current() {
+        SearchBudget budget = REQUEST.get();
+        return budget == null ? UNLIMITED : budget;
+    }
+
+    /**
+     * Binds a budget to the current thread until {@link #exit} is called with the returned value.
+     *
+     * @return The budget bound before, to be restored by {@link #exit}.
+     */
+    public static SearchBudget enter(SearchBudget budget) {
+        SearchBudget previous = REQUEST.get();
+        REQUEST.set(budget);
+        return previous;
+    }
+
+    /**
+     * Restores the budget that was bound before the matching {@link #enter}.
+     */
+    public static void exit(SearchBudget previous) {
+        if (previous == null) {
+            REQUEST.remove();
+        } else {
+            REQUEST.set(previous);
+        }
+    }
+
+    /**
+     * Returns this budget, tightened to a timeout starting now and a settled-node limit where those are stricter.
+     *
+     * @param timeoutMillis   Time the searches may take; 0 or less for no deadline.
+     * @param maxSettledNodes Nodes a single search may settle; 0 or less for no limit.
+     */
+    public SearchBudget within(long timeoutMillis, int maxSettledNodes) {
+        long newDeadline = deadline;
+        if (timeoutMillis > 0) {
+            long now = System.nanoTime();
+            newDeadline = Math.min(deadline, now + Math.min(timeoutMillis, (Long.MAX_VALUE - now) / 1_000_000) * 1_000_000);
+        }
+        int newMax = maxSettledNodes > 0 ? Math.min(this.maxSettledNodes, maxSettledNodes) : this.maxSettledNodes;
+        return newDeadline == deadline && newMax == this.maxSettledNodes ? this : new SearchBudget(newDeadline, newMax);
+    }
+
+    /**
+     * Returns the time left until the deadline in nanoseconds, 0 once it has passed, or {@link Long#MAX_VALUE}
+     * without a deadline; for callers that wait on another search instead of running their own.
+     */
+    public long remainingNanos() {
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * Returns true once a search that has settled this many nodes must stop.
+     */
+    public boolean isExhausted(int settledNodes) {
+        return settledNodes >= maxSettledNodes
+                || ((settledNodes & (CLOCK_INTERVAL - 1)) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0);
+    }
+
+    /**
+     * Like {@link #isExhausted(int)}, but always reads the clock; for searches that check once per round of
+     * many nodes.
+     */
+    public boolean isExhaustedNow(long settledNodes) {
+        return settledNodes >= maxSettledNodes || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0);
+    }
+}
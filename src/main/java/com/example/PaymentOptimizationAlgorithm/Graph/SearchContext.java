@@ -0,0 +1,195 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Reusable per-query state for searches over a {@link GraphSnapshot}.
+ * Distances and parents are epoch-stamped, so {@link #reset(int)} starts a new query without clearing the
+ * arrays; they are only reallocated when the graph outgrows them. A node is settled in a direction once it
+ * has been reached and is no longer queued. Contexts are not thread-safe; borrow them from a
+ * {@link SearchContextPool}.
+ * <p>
+ * {@link #reset(int)} queues nodes in binary heaps, which take any keys. Plain Dijkstra searches use
+ * {@link #resetForDistances(int, long)} instead, which picks a {@link MonotoneQueue} from the largest
+ * connection cost: a bucket queue when costs are small, as branch costs usually are, a radix heap otherwise.
+ */
+public final class SearchContext {
+
+    public static final long UNREACHED = Long.MAX_VALUE;
+
+    private final IndexedMinHeap forwardHeap = new IndexedMinHeap();
+    private final IndexedMinHeap backwardHeap = new IndexedMinHeap();
+    private MonotoneQueue forwardMonotone;
+    private MonotoneQueue backwardMonotone;
+    private NodeQueue forwardQueue = forwardHeap;
+    private NodeQueue backwardQueue = backwardHeap;
+    private final StringBuilder text = new StringBuilder(64);
+    private final SearchStatistics statistics = new SearchStatistics();
+
+    private int epoch;
+    private int[] forwardStamp = new int[0];
+    private int[] backwardStamp = new int[0];
+    private long[] forwardDist = new long[0];
+    private long[] backwardDist = new long[0];
+    private int[] forwardParent = new int[0];
+    private int[] backwardParent = new int[0];
+    private int[] path = new int[16];
+    private int settledCount;
+
+    /**
+     * Prepares the context for a new query over a graph with {@code nodeCount} nodes, queued in binary heaps.
+     */
+    public void reset(int nodeCount) {
+        prepare(nodeCount, forwardHeap, backwardHeap);
+    }
+
+    /**
+     * Prepares the context for a Dijkstra query whose keys are distances, so that no key is queued below the
+     * last one polled, nor more than {@code maxStep} above it.
+     *
+     * @param maxStep The largest cost a single relaxation adds, e.g. {@link GraphSnapshot#maxCost()};
+     *                {@link Long#MAX_VALUE} if unbounded.
+     */
+    public void resetForDistances(int nodeCount, long maxStep) {
+        if (!fits(forwardMonotone, maxStep)) {
+            forwardMonotone = MonotoneQueue.forMaxStep(maxStep);
+            backwardMonotone = MonotoneQueue.forMaxStep(maxStep);
+        }
+        prepare(nodeCount, forwardMonotone, backwardMonotone);
+    }
+
+    /**
+     * Whether a queue holds keys up to {@code maxStep} apart and is still the kind
+     * {@link MonotoneQueue#forMaxStep} would pick.
+     */
+    private static boolean fits(MonotoneQueue queue, long maxStep) {
+        if (queue instanceof BucketQueue buckets) {
+            return maxStep <= buckets.maxStep();
+        }
+        return queue != null && maxStep > MonotoneQueue.BUCKET_QUEUE_MAX_STEP;
+    }
+
+    private void prepare(int nodeCount, NodeQueue forward, NodeQueue backward) {
+        if (nodeCount > forwardStamp.length) {
+            int capacity = Math.max(nodeCount, forwardStamp.length + (forwardStamp.length >> 1));
+            forwardStamp = new int[capacity];
+            backwardStamp = new int[capacity];
+            forwardDist = new long[capacity];
+            backwardDist = new long[capacity];
+            forwardParent = new int[capacity];
+            backwardParent = new int[capacity];
+            epoch = 0;
+        }
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(forwardStamp, 0);
+            Arrays.fill(backwardStamp, 0);
+            epoch = 1;
+        }
+        forwardQueue = forward;
+        backwardQueue = backward;
+        forwardQueue.ensureCapacity(nodeCount);
+        backwardQueue.ensureCapacity(nodeCount);
+        forwardQueue.clear();
+        backwardQueue.clear();
+        settledCount = 0;
+        statistics.reset();
+    }
+
+    /**
+     * Per-direction work of the current query, for searches that report it.
+     */
+    public SearchStatistics statistics() {
+        return statistics;
+    }
+
+    public NodeQueue forwardQueue() {
+        return forwardQueue;
+    }
+
+    public NodeQueue backwardQueue() {
+        return backwardQueue;
+    }
+
+    public long forwardDistance(int node) {
+        return forwardStamp[node] == epoch ? forwardDist[node] : UNREACHED;
+    }
+
+    public long backwardDistance(int node) {
+        return backwardStamp[node] == epoch ? backwardDist[node] : UNREACHED;
+    }
+
+    /**
+     * Records a forward distance and the predecessor it was reached from (-1 for the origin).
+     */
+    public void reachForward(int node, long distance, int parent) {
+        forwardStamp[node] = epoch;
+        forwardDist[node] = distance;
+        forwardParent[node] = parent;
+    }
+
+    /**
+     * Records a backward distance and the successor towards the destination (-1 for the destination).
+     */
+    public void reachBackward(int node, long distance, int parent) {
+        backwardStamp[node] = epoch;
+        backwardDist[node] = distance;
+        backwardParent[node] = parent;
+    }
+
+    public int forwardParent(int node) {
+        return forwardParent[node];
+    }
+
+    public int backwardParent(int node) {
+        return backwardParent[node];
+    }
+
+    /**
+     * Counts one node settled by the current query, in either direction.
+     */
+    public void countSettled() {
+        settledCount++;
+    }
+
+    /**
+     * Number of nodes settled by the current query; a node settled from both sides counts twice.
+     */
+    public int settledCount() {
+        return settledCount;
+    }
+
+    public boolean isSettledForward(int node) {
+        return forwardStamp[node] == epoch && !forwardQueue.contains(node);
+    }
+
+    public boolean isSettledBackward(int node) {
+        return backwardStamp[node] == epoch && !backwardQueue.contains(node);
+    }
+
+    /**
+     * Joins the forward predecessor chain and backward successor chain through {@code meetingPoint} into a
+     * comma-separated branch path. The returned string is the only allocation.
+     */
+    public String buildPath(GraphSnapshot g, int meetingPoint) {
+        int length = 0;
+        for (int at = meetingPoint; at >= 0; at = forwardParent[at]) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length++] = at;
+        }
+        text.setLength(0);
+        for (int i = length - 1; i >= 0; i--) {
+            text.append(g.nameOf(path[i]));
+            if (i > 0) {
+                text.append(',');
+            }
+        }
+        if (backwardStamp[meetingPoint] == epoch) {
+            for (int at = backwardParent[meetingPoint]; at >= 0; at = backwardParent[at]) {
+                text.append(',').append(g.nameOf(at));
+            }
+        }
+        return text.toString();
+    }
+}
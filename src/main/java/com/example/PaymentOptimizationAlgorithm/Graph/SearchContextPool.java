@@ -0,0 +1,44 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, allocation-free pool of {@link SearchContext}s.
+ * Contexts are parked in a fixed array of slots claimed by compare-and-set, so borrowing works the same on
+ * platform and virtual threads. When every slot is empty a fresh context is created, and on release it is
+ * kept only if a slot is free.
+ */
+public final class SearchContextPool {
+
+    private final AtomicReferenceArray<SearchContext> slots;
+
+    public SearchContextPool() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public SearchContextPool(int size) {
+        slots = new AtomicReferenceArray<>(Math.max(1, size));
+    }
+
+    public SearchContext acquire() {
+        int start = (int) (Thread.currentThread().threadId() % slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            SearchContext context = slots.get(slot);
+            if (context != null && slots.compareAndSet(slot, context, null)) {
+                return context;
+            }
+        }
+        return new SearchContext();
+    }
+
+    public void release(SearchContext context) {
+        int start = (int) (Thread.currentThread().threadId() % slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, context)) {
+                return;
+            }
+        }
+    }
+}
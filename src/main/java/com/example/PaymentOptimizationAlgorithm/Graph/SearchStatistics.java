@@ -0,0 +1,79 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+/**
+ * Work done by one query, per direction: nodes settled, connections scanned and queue pushes. Searches count
+ * into plain fields, one settled node at a time, and hand the totals to the metrics once the query is over,
+ * so counting allocates nothing and touches no shared state.
+ */
+public final class SearchStatistics {
+
+    private int settledForward;
+    private int settledBackward;
+    private long relaxedForward;
+    private long relaxedBackward;
+    private int pushedForward;
+    private int pushedBackward;
+
+    public void reset() {
+        settledForward = 0;
+        settledBackward = 0;
+        relaxedForward = 0;
+        relaxedBackward = 0;
+        pushedForward = 0;
+        pushedBackward = 0;
+    }
+
+    /**
+     * Counts one node settled, whose {@code connections} connections are then scanned.
+     */
+    public void settled(boolean forward, int connections) {
+        if (forward) {
+            settledForward++;
+            relaxedForward += connections;
+        } else {
+            settledBackward++;
+            relaxedBackward += connections;
+        }
+    }
+
+    /**
+     * Counts one node queued, or requeued at a lower key.
+     */
+    public void pushed(boolean forward) {
+        if (forward) {
+            pushedForward++;
+        } else {
+            pushedBackward++;
+        }
+    }
+
+    public int settledForward() {
+        return settledForward;
+    }
+
+    public int settledBackward() {
+        return settledBackward;
+    }
+
+    public long relaxedForward() {
+        return relaxedForward;
+    }
+
+    public long relaxedBackward() {
+        return relaxedBackward;
+    }
+
+    public int pushedForward() {
+        return pushedForward;
+    }
+
+    public int pushedBackward() {
+        return pushedBackward;
+    }
+
+    @Override
+    public String toString() {
+        return "settled " + settledForward + "/" + settledBackward + ", relaxed " + relaxedForward + "/"
+                + relaxedBackward + ", pushed " + pushedForward + "/" + pushedBackward + " (forward/backward)";
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Single-source Dijkstra over a {@link GraphSnapshot}, using the forward half of a {@link SearchContext}.
+ * After {@link #grow} returns, settled distances are read with {@link SearchContext#forwardDistance} and
+ * paths with {@link SearchContext#buildPath}. {@link #growBackward} grows the reverse tree of a destination
+ * in the backward half instead.
+ */
+public final class ShortestPathTrees {
+
+    private ShortestPathTrees() {
+    }
+
+    /**
+     * Grows the shortest-path tree of {@code source} until every target is settled or no reachable node
+     * is left.
+     *
+     * @param targets Nodes whose paths are needed, sorted ascending; null grows the full tree.
+     */
+    public static void grow(GraphSnapshot g, SearchContext context, int source, int[] targets) {
+        grow(g, context, source, targets, SearchBudget.UNLIMITED);
+    }
+
+    /**
+     * Grows the shortest-path tree of {@code source} like {@link #grow(GraphSnapshot, SearchContext, int, int[])},
+     * stopping early once the budget is exhausted.
+     *
+     * @return false if the budget ran out before every target was settled.
+     */
+    public static boolean grow(GraphSnapshot g, SearchContext context, int source, int[] targets, SearchBudget budget) {
+        context.resetForDistances(g.nodeCount(), g.maxCost());
+        NodeQueue queue = context.forwardQueue();
+        context.reachForward(source, 0, -1);
+        queue.insertOrDecrease(source, 0);
+
+        int remaining = targets == null ? -1 : targets.length;
+        while (!queue.isEmpty() && remaining != 0) {
+            if (budget.isExhausted(context.settledCount())) {
+                return false;
+            }
+            long d = queue.peekKey();
+            int u = queue.poll();
+            context.countSettled();
+            if (remaining > 0 && Arrays.binarySearch(targets, u) >= 0) {
+                remaining--;
+            }
+            long nd = d + g.cost(u);
+            for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                int v = g.outTarget(e);
+                if (nd < context.forwardDistance(v)) {
+                    context.reachForward(v, nd, u);
+                    queue.insertOrDecrease(v, nd);
+                }
+            }
+            int[] delta = g.deltaOut(u);
+            if (delta != null) {
+                for (int v : delta) {
+                    if (nd < context.forwardDistance(v)) {
+                        context.reachForward(v, nd, u);
+                        queue.insertOrDecrease(v, nd);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Grows the reverse shortest-path tree of {@code target}, i.e. the cheapest paths into it, until every
+     * source is settled or no node that reaches it is left. Distances are read with
+     * {@link SearchContext#backwardDistance}.
+     *
+     * @param sources Nodes whose paths are needed, sorted ascending; null grows the full tree.
+     */
+    public static void growBackward(GraphSnapshot g, SearchContext context, int target, int[] sources) {
+        growBackward(g, context, target, sources, null);
+    }
+
+    /**
+     * Grows the reverse shortest-path tree of {@code target} like {@link #growBackward(GraphSnapshot, SearchContext,
+     * int, int[])}, as if some nodes were not in the graph. Excluded nodes are never reached.
+     *
+     * @param excluded Nodes to leave out, sorted ascending; null leaves out none.
+     */
+    public static void growBackward(GraphSnapshot g, SearchContext context, int target, int[] sources, int[] excluded) {
+        context.resetForDistances(g.nodeCount(), g.maxCost());
+        NodeQueue queue = context.backwardQueue();
+        context.reachBackward(target, 0, -1);
+        queue.insertOrDecrease(target, 0);
+
+        int remaining = sources == null ? -1 : sources.length;
+        while (!queue.isEmpty() && remaining != 0) {
+            long d = queue.peekKey();
+            int u = queue.poll();
+            context.countSettled();
+            if (remaining > 0 && Arrays.binarySearch(sources, u) >= 0) {
+                remaining--;
+            }
+            for (int e = g.inBegin(u), end = g.inEnd(u); e < end; e++) {
+                int v = g.inSource(e);
+                long nd = d + g.cost(v);
+                if (nd < context.backwardDistance(v) && !contains(excluded, v)) {
+                    context.reachBackward(v, nd, u);
+                    queue.insertOrDecrease(v, nd);
+                }
+            }
+            int[] delta = g.deltaIn(u);
+            if (delta != null) {
+                for (int v : delta) {
+                    long nd = d + g.cost(v);
+                    if (nd < context.backwardDistance(v) && !contains(excluded, v)) {
+                        context.reachBackward(v, nd, u);
+                        queue.insertOrDecrease(v, nd);
+                    }
+                }
+            }
+        }
+    }
+
+    static boolean contains(int[] sorted, int node) {
+        return sorted != null && sorted.length > 0 && Arrays.binarySearch(sorted, node) >= 0;
+    }
+}
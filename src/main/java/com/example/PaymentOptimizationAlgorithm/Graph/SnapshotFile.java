@@ -0,0 +1,200 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary image of a compacted {@link GraphSnapshot}, written once and loaded with {@code mmap}.
+ * All values are little-endian ints unless noted:
+ * <pre>
+ *     header      magic "PAYG", format version, topology version (long), node count, edge count,
+ *                 slot count, name byte count, padded to 64 bytes
+ *     costs       [nodeCount]
+ *     forward     offsets [nodeCount + 1], targets [edgeCount]
+ *     reverse     offsets [nodeCount + 1], sources [edgeCount]
+ *     branches    id hashes [nodeCount], slot table [slotCount], name offsets [nodeCount + 1],
+ *                 UTF-8 names [name byte count]
+ * </pre>
+ * Loading maps the file and copies only the costs, into the paged table that repricing edits. The adjacency is
+ * read straight from the mapping until the next compaction, and branch ids are resolved through the mapped
+ * hash table, so loading takes neither heap nor time in proportion to the network.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x47594150; // "PAYG" read little-endian
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 64;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes a snapshot, merging its delta overlay first. The file is written next to the target and moved
+     * into place, so a crash never leaves a partial image and a file that is currently mapped is not touched.
+     *
+     * @param g    The snapshot to write.
+     * @param path The target file.
+     */
+    public static void write(GraphSnapshot g, Path path) throws IOException {
+        if (!g.deltaOut.isEmpty() || g.baseNodeCount != g.nodeCount) {
+            g = GraphStore.compacted(g);
+        }
+        int n = g.nodeCount;
+        int m = g.outTargets.limit();
+
+        byte[][] encoded = new byte[n][];
+        int[] hashes = new int[n];
+        int[] nameOffsets = new int[n + 1];
+        long nameBytes = 0;
+        for (int u = 0; u < n; u++) {
+            String name = g.nameOf(u);
+            encoded[u] = name.getBytes(StandardCharsets.UTF_8);
+            hashes[u] = name.hashCode();
+            nameBytes += encoded[u].length;
+            if (nameBytes > Integer.MAX_VALUE) {
+                throw new IOException("Branch ids are too large for the snapshot format.");
+            }
+            nameOffsets[u + 1] = (int) nameBytes;
+        }
+        int slotCount = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+        int[] slots = new int[slotCount];
+        for (int u = 0; u < n; u++) {
+            int slot = BranchDictionary.slotHash(hashes[u]) & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = u + 1;
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(g.version)
+                        .putInt(n).putInt(m).putInt(slotCount).putInt((int) nameBytes);
+                buffer.position(HEADER_BYTES);
+                writeInts(channel, buffer, IntBuffer.wrap(g.costs.toArray(n)), n);
+                writeInts(channel, buffer, g.outOffsets, n + 1);
+                writeInts(channel, buffer, g.outTargets, m);
+                writeInts(channel, buffer, g.inOffsets, n + 1);
+                writeInts(channel, buffer, g.inSources, m);
+                writeInts(channel, buffer, IntBuffer.wrap(hashes), n);
+                writeInts(channel, buffer, IntBuffer.wrap(slots), slotCount);
+                writeInts(channel, buffer, IntBuffer.wrap(nameOffsets), n + 1);
+                for (byte[] name : encoded) {
+                    if (buffer.remaining() < name.length) {
+                        flush(channel, buffer);
+                    }
+                    if (name.length > buffer.capacity()) {
+                        channel.write(ByteBuffer.wrap(name));
+                    } else {
+                        buffer.put(name);
+                    }
+                }
+                flush(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps a snapshot file. The returned snapshot keeps the mapping alive for as long as it, or any snapshot
+     * derived from it, is reachable.
+     *
+     * @param path The file written by {@link #write}.
+     * @return A compacted snapshot carrying the version stored in the file.
+     */
+    public static GraphSnapshot map(Path path) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " is too large to map.");
+            }
+            // The mapping stays valid after the channel is closed.
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        if (file.limit() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a topology snapshot.");
+        }
+        if (file.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + file.getInt(4) + " in " + path + ".");
+        }
+        long version = file.getLong(8);
+        int n = file.getInt(16);
+        int m = file.getInt(20);
+        int slotCount = file.getInt(24);
+        int nameBytes = file.getInt(28);
+        long expected = HEADER_BYTES + 4L * (n + 2L * (n + 1) + 2L * m + n + slotCount + n + 1) + nameBytes;
+        if (n < 0 || m < 0 || Integer.bitCount(slotCount) != 1 || slotCount <= n || expected != file.limit()) {
+            throw new IOException("Snapshot " + path + " is truncated or corrupt.");
+        }
+
+        int[] position = {HEADER_BYTES};
+        int[] costs = readInts(file, position, n);
+        IntBuffer outOffsets = intSection(file, position, n + 1);
+        IntBuffer outTargets = intSection(file, position, m);
+        IntBuffer inOffsets = intSection(file, position, n + 1);
+        IntBuffer inSources = intSection(file, position, m);
+        if (outOffsets.get(n) != m || inOffsets.get(n) != m) {
+            throw new IOException("Snapshot " + path + " is truncated or corrupt.");
+        }
+        IntBuffer hashes = intSection(file, position, n);
+        IntBuffer slots = intSection(file, position, slotCount);
+        IntBuffer nameOffsets = intSection(file, position, n + 1);
+        ByteBuffer names = file.slice(position[0], nameBytes);
+
+        BranchDictionary dictionary = new BranchDictionary(n, hashes, slots, nameOffsets, names);
+        return new GraphSnapshot(version, n, dictionary, CostTable.of(costs, n),
+                n, outOffsets, outTargets, inOffsets, inSources,
+                DeltaAdjacency.EMPTY, DeltaAdjacency.EMPTY);
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, IntBuffer values, int length) throws IOException {
+        int written = 0;
+        while (written < length) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(channel, buffer);
+            }
+            int chunk = Math.min(length - written, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(0, values, written, chunk);
+            buffer.position(buffer.position() + chunk * Integer.BYTES);
+            written += chunk;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int[] readInts(MappedByteBuffer file, int[] position, int length) {
+        int[] values = new int[length];
+        intSection(file, position, length).get(values);
+        return values;
+    }
+
+    private static IntBuffer intSection(MappedByteBuffer file, int[] position, int length) {
+        IntBuffer section = file.slice(position[0], length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        position[0] += length * Integer.BYTES;
+        return section;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+/**
+ * What one published version changed relative to the version before it: the existing branches whose cost
+ * changed and the connections that were added. Branches at or beyond {@link #previousNodeCount()} were added
+ * by the version. {@link GraphStore} keeps the changes of recent versions so that consumers holding state
+ * for an older version can repair it instead of recomputing it.
+ */
+public final class TopologyChange {
+
+    private static final int[] NONE = new int[0];
+
+    private final long version;
+    private final int previousNodeCount;
+    private final int[] repricedBranches;
+    private final int[] connectionSources;
+    private final int[] connectionTargets;
+
+    TopologyChange(long version, int previousNodeCount, int[] repricedBranches,
+                   int[] connectionSources, int[] connectionTargets) {
+        this.version = version;
+        this.previousNodeCount = previousNodeCount;
+        this.repricedBranches = repricedBranches;
+        this.connectionSources = connectionSources;
+        this.connectionTargets = connectionTargets;
+    }
+
+    /**
+     * A version that changed nothing routing can observe, such as a replayed no-op batch.
+     */
+    static TopologyChange none(long version, int nodeCount) {
+        return new TopologyChange(version, nodeCount, NONE, NONE, NONE);
+    }
+
+    /**
+     * The version this change produced.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int previousNodeCount() {
+        return previousNodeCount;
+    }
+
+    /**
+     * Existing branches whose cost changed, each listed once; compare the two snapshots for the direction.
+     */
+    public int[] repricedBranches() {
+        return repricedBranches;
+    }
+
+    public int connectionCount() {
+        return connectionSources.length;
+    }
+
+    public int connectionSource(int i) {
+        return connectionSources[i];
+    }
+
+    public int connectionTarget(int i) {
+        return connectionTargets[i];
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams a full topology from NDJSON or CSV rows into a standalone graph, off to the side of the live one.
+ * Rows are parsed one line at a time, so the payload is never buffered. Branch and edge rows may appear
+ * in any order; edges whose endpoints are never defined are rejected when the graph is built.
+ * <pre>
+ *     NDJSON: {"type":"branch","branch":"A","cost":5}    {"type":"edge","from":"A","to":"B"}
+ *     CSV:    branch,A,5                                  edge,A,B
+ * </pre>
+ * The {@code type} field may be omitted from NDJSON rows; it is inferred from the other fields. Blank lines,
+ * CSV lines starting with {@code #} and a CSV header starting with {@code type} are skipped.
+ */
+public final class TopologyImporter {
+
+    private static final int MAX_REPORTED_REJECTIONS = 20;
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+
+    private final ImportFormat format;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[1024];
+    private int[] costs = new int[1024];
+    private boolean[] defined = new boolean[1024];
+    private int nodeCount;
+
+    private int[] edgeFrom = new int[1 << 16];
+    private int[] edgeTo = new int[1 << 16];
+    private long[] edgeLine = new long[1 << 16];
+    private int edgeCount;
+
+    private volatile long rowsRead;
+    private volatile long rejectedRows;
+    private final List<String> rejections = new ArrayList<>();
+
+    // Fields of the row being parsed; reused to keep the per-row cost low.
+    private String type;
+    private String branch;
+    private String from;
+    private String to;
+    private long cost;
+    private boolean hasCost;
+
+    public TopologyImporter(ImportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Reads every row of the payload. Progress can be polled from another thread while this runs.
+     */
+    public void read(Reader payload) throws IOException {
+        BufferedReader reader = payload instanceof BufferedReader buffered ? buffered : new BufferedReader(payload, 1 << 16);
+        long lineNumber = 0;
+        long rows = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (accept(line, lineNumber) && (++rows & (PROGRESS_INTERVAL - 1)) == 0) {
+                rowsRead = rows;
+            }
+        }
+        rowsRead = rows;
+    }
+
+    /**
+     * Number of non-blank rows read so far.
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Number of edge rows accepted so far, before undefined endpoints and repeats are dropped.
+     */
+    public int getEdgeRowCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Number of rows rejected so far, including edges rejected by {@link #build}.
+     */
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    /**
+     * The first few rejection reasons, with line numbers.
+     */
+    public List<String> getRejections() {
+        synchronized (rejections) {
+            return new ArrayList<>(rejections);
+        }
+    }
+
+    /**
+     * Number of distinct branches defined so far.
+     */
+    public int getBranchCount() {
+        int count = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (defined[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses one row. Returns false for lines that are skipped rather than counted.
+     */
+    private boolean accept(String line, long lineNumber) {
+        if (line.isBlank()) {
+            return false;
+        }
+        type = branch = from = to = null;
+        hasCost = false;
+        if (format == ImportFormat.CSV) {
+            String trimmed = line.strip();
+            if (trimmed.startsWith("#") || trimmed.startsWith("type,")) {
+                return false;
+            }
+            if (!parseCsv(trimmed)) {
+                reject(lineNumber, "malformed CSV row");
+                return true;
+            }
+        } else if (!parseJson(line)) {
+            reject(lineNumber, "malformed JSON row");
+            return true;
+        }
+
+        if (type == null) {
+            type = branch != null ? "branch" : from != null || to != null ? "edge" : null;
+        }
+        if ("branch".equals(type)) {
+            if (!validId(branch) || !hasCost) {
+                reject(lineNumber, "branch rows need a branch id and a cost");
+            } else if (cost < 0 || cost > Integer.MAX_VALUE) {
+                reject(lineNumber, "cost of branch " + branch + " is out of range");
+            } else {
+                int id = intern(branch);
+                costs[id] = (int) cost;
+                defined[id] = true;
+            }
+        } else if ("edge".equals(type)) {
+            if (!validId(from) || !validId(to)) {
+                reject(lineNumber, "edge rows need from and to branch ids");
+            } else {
+                addEdge(intern(from), intern(to), lineNumber);
+            }
+        } else {
+            reject(lineNumber, "unknown row type");
+        }
+        return true;
+    }
+
+    /**
+     * Builds the imported graph as a fully compacted snapshot. Repeated edges are kept once.
+     */
+    GraphSnapshot build(long version) {
+        // Only branches with a branch row get an index; names seen solely in edges are dropped.
+        int[] remap = new int[nodeCount];
+        int n = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            remap[i] = defined[i] ? n++ : -1;
+        }
+        String[] newNames = new String[Math.max(16, n)];
+        int[] newCosts = new int[newNames.length];
+        Map<String, Integer> newIds = new ConcurrentHashMap<>(Math.max(16, n * 2));
+        for (int i = 0; i < nodeCount; i++) {
+            if (remap[i] >= 0) {
+                newNames[remap[i]] = names[i];
+                newCosts[remap[i]] = costs[i];
+                newIds.put(names[i], remap[i]);
+            }
+        }
+
+        int[] outOffsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            int u = remap[edgeFrom[e]];
+            int v = remap[edgeTo[e]];
+            if (u < 0 || v < 0) {
+                reject(edgeLine[e], "edge " + names[edgeFrom[e]] + " -> " + names[edgeTo[e]]
+                        + " references an undefined branch");
+                edgeFrom[e] = -1;
+            } else {
+                edgeFrom[e] = u;
+                edgeTo[e] = v;
+                outOffsets[u + 1]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            outOffsets[u + 1] += outOffsets[u];
+        }
+        int[] fill = Arrays.copyOf(outOffsets, n);
+        int[] sortedTargets = new int[outOffsets[n]];
+        for (int e = 0; e < edgeCount; e++) {
+            if (edgeFrom[e] >= 0) {
+                sortedTargets[fill[edgeFrom[e]]++] = edgeTo[e];
+            }
+        }
+
+        // Drop repeated edges row by row, using the row's source as the "seen" stamp.
+        int[] seenBy = new int[n];
+        Arrays.fill(seenBy, -1);
+        int[] compactOffsets = new int[n + 1];
+        int at = 0;
+        for (int u = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                int v = sortedTargets[e];
+                if (seenBy[v] != u) {
+                    seenBy[v] = u;
+                    sortedTargets[at++] = v;
+                }
+            }
+            compactOffsets[u + 1] = at;
+        }
+        int[] outTargets = Arrays.copyOf(sortedTargets, at);
+
+        GraphSnapshot staged = new GraphSnapshot(version, n, new BranchDictionary(newNames, newIds),
+                CostTable.of(newCosts, n), n, compactOffsets, outTargets, new int[n + 1], new int[0],
+                DeltaAdjacency.EMPTY, DeltaAdjacency.EMPTY);
+        // Recompacting an overlay-free snapshot only derives the reverse adjacency.
+        return GraphStore.compacted(staged);
+    }
+
+    private int intern(String id) {
+        Integer existing = ids.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        int node = nodeCount++;
+        if (node == names.length) {
+            int capacity = node * 2;
+            names = Arrays.copyOf(names, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            defined = Arrays.copyOf(defined, capacity);
+        }
+        names[node] = id;
+        ids.put(id, node);
+        return node;
+    }
+
+    private void addEdge(int u, int v, long lineNumber) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeLine = Arrays.copyOf(edgeLine, capacity);
+        }
+        edgeFrom[edgeCount] = u;
+        edgeTo[edgeCount] = v;
+        edgeLine[edgeCount++] = lineNumber;
+    }
+
+    private void reject(long lineNumber, String reason) {
+        rejectedRows++;
+        synchronized (rejections) {
+            if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                rejections.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+
+    private static boolean validId(String id) {
+        // Paths are rendered comma-separated, so ids containing a comma could not be told apart.
+        return id != null && !id.isEmpty() && id.indexOf(',') < 0;
+    }
+
+    private boolean parseCsv(String line) {
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        if (second < 0 || line.indexOf(',', second + 1) >= 0) {
+            return false;
+        }
+        type = line.substring(0, first).strip();
+        String a = line.substring(first + 1, second).strip();
+        String b = line.substring(second + 1).strip();
+        if ("branch".equals(type)) {
+            branch = a;
+            try {
+                cost = Long.parseLong(b);
+                hasCost = true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        } else {
+            from = a;
+            to = b;
+        }
+        return true;
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings or integers. Unknown keys are ignored.
+     */
+    private boolean parseJson(String line) {
+        int[] cursor = {skipWhitespace(line, 0)};
+        if (cursor[0] >= line.length() || line.charAt(cursor[0]) != '{') {
+            return false;
+        }
+        cursor[0] = skipWhitespace(line, cursor[0] + 1);
+        if (cursor[0] < line.length() && line.charAt(cursor[0]) == '}') {
+            return skipWhitespace(line, cursor[0] + 1) == line.length();
+        }
+        while (true) {
+            String key = parseString(line, cursor);
+            if (key == null) {
+                return false;
+            }
+            cursor[0] = skipWhitespace(line, cursor[0]);
+            if (cursor[0] >= line.length() || line.charAt(cursor[0]) != ':') {
+                return false;
+            }
+            cursor[0] = skipWhitespace(line, cursor[0] + 1);
+            if (cursor[0] >= line.length()) {
+                return false;
+            }
+            char c = line.charAt(cursor[0]);
+            if (c == '"') {
+                String value = parseString(line, cursor);
+                if (value == null) {
+                    return false;
+                }
+                switch (key) {
+                    case "type" -> type = value;
+                    case "branch" -> branch = value;
+                    case "from" -> from = value;
+                    case "to" -> to = value;
+                    case "cost" -> {
+                        return false;
+                    }
+                    default -> { }
+                }
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                int start = cursor[0]++;
+                while (cursor[0] < line.length() && Character.isDigit(line.charAt(cursor[0]))) {
+                    cursor[0]++;
+                }
+                if ("cost".equals(key)) {
+                    if (cursor[0] - start > 12) {
+                        return false;
+                    }
+                    try {
+                        cost = Long.parseLong(line, start, cursor[0], 10);
+                        hasCost = true;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            } else {
+                return false;
+            }
+            cursor[0] = skipWhitespace(line, cursor[0]);
+            if (cursor[0] >= line.length()) {
+                return false;
+            }
+            c = line.charAt(cursor[0]++);
+            if (c == '}') {
+                return skipWhitespace(line, cursor[0]) == line.length();
+            }
+            if (c != ',') {
+                return false;
+            }
+            cursor[0] = skipWhitespace(line, cursor[0]);
+        }
+    }
+
+    private static String parseString(String line, int[] cursor) {
+        int i = cursor[0];
+        if (i >= line.length() || line.charAt(i) != '"') {
+            return null;
+        }
+        int start = ++i;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                cursor[0] = i + 1;
+                return line.substring(start, i);
+            }
+            if (c == '\\') {
+                return parseEscapedString(line, start, cursor);
+            }
+            i++;
+        }
+        return null;
+    }
+
+    private static String parseEscapedString(String line, int start, int[] cursor) {
+        StringBuilder value = new StringBuilder();
+        int i = start;
+        while (i < line.length()) {
+            char c = line.charAt(i++);
+            if (c == '"') {
+                cursor[0] = i;
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i >= line.length()) {
+                return null;
+            }
+            char escaped = line.charAt(i++);
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (i + 4 > line.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(line, i, i + 4, 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int skipWhitespace(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
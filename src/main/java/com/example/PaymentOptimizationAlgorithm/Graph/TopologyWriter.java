@@ -0,0 +1,177 @@
+package com.example.PaymentOptimizationAlgorithm.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stages a batch of topology mutations on top of a published {@link GraphSnapshot}.
+ * Nothing is visible to readers until {@link GraphStore} publishes the batch as one new version.
+ * Instances are handed out by {@link GraphStore#update} and must not escape the callback.
+ */
+public final class TopologyWriter {
+
+    private final GraphSnapshot base;
+    private final DeltaAdjacency.Builder out;
+    private final DeltaAdjacency.Builder in;
+    private final List<String> addedBranches = new ArrayList<>();
+    // Null unless the store keeps a mutation log.
+    private final MutationLog.Batch journal;
+
+    private final CostTable.Editor costs;
+    private int nodeCount;
+    private boolean changed;
+    // What the batch changed, for incremental consumers; see TopologyChange.
+    private int[] repriced = new int[4];
+    private int repricedCount;
+    private int[] connections = new int[8];
+    private int connectionCount;
+
+    TopologyWriter(GraphSnapshot base, MutationLog.Batch journal) {
+        this.base = base;
+        this.journal = journal;
+        this.out = base.deltaOut.toBuilder();
+        this.in = base.deltaIn.toBuilder();
+        this.nodeCount = base.nodeCount;
+        this.costs = base.costs.edit();
+    }
+
+    /**
+     * Returns the index of a branch including branches added earlier in this batch, or -1.
+     */
+    public int indexOf(String branch) {
+        int id = base.dictionary.indexOf(branch);
+        return id >= nodeCount ? -1 : id;
+    }
+
+    /**
+     * Adds a branch or updates the cost of an existing one. A new cost applies to every connection leaving
+     * the branch, including existing ones.
+     *
+     * @param branch The branch identifier.
+     * @param cost   The cost associated with the branch.
+     * @throws IllegalArgumentException If the branch id is missing or contains a comma, or the cost is negative.
+     */
+    public void addBranch(String branch, int cost) {
+        // Paths are rendered comma-separated, so ids containing a comma could not be told apart.
+        if (branch == null || branch.isEmpty() || branch.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Invalid branch id: " + branch);
+        }
+        // Costs are the only edge weights, and every search assumes they are not negative.
+        if (cost < 0) {
+            throw new IllegalArgumentException("Cost of branch " + branch + " must not be negative.");
+        }
+        int id = indexOf(branch);
+        if (id >= 0) {
+            if (costs.get(id) == cost) {
+                return;
+            }
+            costs.set(id, cost);
+            changed = true;
+            if (id < base.nodeCount) {
+                if (repricedCount == repriced.length) {
+                    repriced = Arrays.copyOf(repriced, repricedCount * 2);
+                }
+                repriced[repricedCount++] = id;
+            }
+            logBranch(branch, cost);
+            return;
+        }
+
+        int node = nodeCount;
+        costs.set(node, cost);
+        base.dictionary.add(node, branch);
+        addedBranches.add(branch);
+        nodeCount = node + 1;
+        changed = true;
+        logBranch(branch, cost);
+    }
+
+    /**
+     * Adds a directed connection. Adding a connection that already exists changes nothing.
+     *
+     * @param from The source branch.
+     * @param to   The target branch.
+     * @return false if either branch does not exist.
+     */
+    public boolean addConnection(String from, String to) {
+        int u = indexOf(from);
+        int v = indexOf(to);
+        if (u < 0 || v < 0) {
+            return false;
+        }
+        if (out.contains(u, v)) {
+            return true;
+        }
+        for (int e = base.outBegin(u), end = base.outEnd(u); e < end; e++) {
+            if (base.outTarget(e) == v) {
+                return true;
+            }
+        }
+        out.add(u, v);
+        in.add(v, u);
+        changed = true;
+        if (2 * connectionCount + 2 > connections.length) {
+            connections = Arrays.copyOf(connections, connections.length * 2);
+        }
+        connections[2 * connectionCount] = u;
+        connections[2 * connectionCount + 1] = v;
+        connectionCount++;
+        if (journal != null) {
+            journal.connection(from, to);
+        }
+        return true;
+    }
+
+    private void logBranch(String branch, int cost) {
+        if (journal != null) {
+            journal.branch(branch, cost);
+        }
+    }
+
+    /**
+     * Builds the snapshot for this batch, compacting when the overlay has grown past the threshold.
+     *
+     * @return the new snapshot, or null if the batch changed nothing.
+     */
+    GraphSnapshot build(int compactionThreshold) {
+        if (!changed) {
+            return null;
+        }
+        GraphSnapshot next = base.withDelta(base.version + 1, nodeCount, costs.build(base.costs), out.build(), in.build());
+        if (out.edgeCount() >= compactionThreshold) {
+            next = GraphStore.compacted(next);
+        }
+        return next;
+    }
+
+    /**
+     * Describes the batch as the change producing {@code version}.
+     */
+    TopologyChange change(long version) {
+        int[] branches = Arrays.stream(repriced, 0, repricedCount).sorted().distinct().toArray();
+        int[] sources = new int[connectionCount];
+        int[] targets = new int[connectionCount];
+        for (int i = 0; i < connectionCount; i++) {
+            sources[i] = connections[2 * i];
+            targets[i] = connections[2 * i + 1];
+        }
+        return new TopologyChange(version, base.nodeCount, branches, sources, targets);
+    }
+
+    /**
+     * Mutations applied so far, encoded for the mutation log; null if the store keeps no log.
+     */
+    MutationLog.Batch journal() {
+        return journal;
+    }
+
+    /**
+     * Forgets branch ids registered by an abandoned batch so their indices can be reused.
+     */
+    void rollback() {
+        for (String branch : addedBranches) {
+            base.dictionary.remove(branch);
+        }
+    }
+}
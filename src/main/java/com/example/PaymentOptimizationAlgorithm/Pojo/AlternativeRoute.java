@@ -0,0 +1,10 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+/**
+ * One of the k cheapest loopless paths between two branches.
+ *
+ * @param path The comma-separated branch path.
+ * @param cost The total cost of the path.
+ */
+public record AlternativeRoute(String path, long cost) {
+}
@@ -0,0 +1,11 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+/**
+ * Row formats accepted by the bulk topology import.
+ */
+public enum ImportFormat {
+    /** One JSON object per line, e.g. {@code {"type":"edge","from":"A","to":"B"}}. */
+    NDJSON,
+    /** One {@code branch,<id>,<cost>} or {@code edge,<from>,<to>} row per line. */
+    CSV
+}
@@ -0,0 +1,19 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+import java.util.List;
+
+/**
+ * Progress or outcome of a bulk topology import.
+ *
+ * @param running       True while rows are still being read or the graph is being built.
+ * @param rowsRead      Non-blank rows read so far.
+ * @param branches      Branches defined by the import.
+ * @param edges         Edges in the imported graph; while running, edge rows accepted so far.
+ * @param rejectedRows  Rows rejected as malformed or referring to undefined branches.
+ * @param rejections    The first few rejection reasons, with line numbers.
+ * @param version       Topology version published by the import, or -1 while running.
+ * @param elapsedMillis Time spent so far.
+ */
+public record ImportSummary(boolean running, long rowsRead, long branches, long edges, long rejectedRows,
+                            List<String> rejections, long version, long elapsedMillis) {
+}
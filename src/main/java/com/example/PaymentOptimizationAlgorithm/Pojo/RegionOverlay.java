@@ -0,0 +1,27 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+import java.util.List;
+
+/**
+ * What one region of a partitioned network contributes to the overlay searched across regions: the cheapest
+ * in-region cost between every pair of its boundary branches and the connections leaving the region.
+ *
+ * @param region    The region.
+ * @param version   The region's version the overlay was computed at.
+ * @param boundary  The branches of the region with a connection to or from another region.
+ * @param distances The cheapest in-region cost from {@code boundary[i]} to {@code boundary[j]} at
+ *                  {@code i * boundary.size() + j}, or {@link Long#MAX_VALUE} if there is no in-region path.
+ * @param exits     The connections from branches of the region to branches of other regions.
+ */
+public record RegionOverlay(String region, long version, List<String> boundary, long[] distances, List<Exit> exits) {
+
+    /**
+     * A connection leaving the region.
+     *
+     * @param from The branch of the region the connection starts at.
+     * @param to   The branch of another region the connection ends at.
+     * @param cost The cost of moving along the connection, i.e. the cost of {@code from}.
+     */
+    public record Exit(String from, String to, long cost) {
+    }
+}
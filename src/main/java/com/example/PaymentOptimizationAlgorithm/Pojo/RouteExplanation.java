@@ -0,0 +1,14 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+/**
+ * One routed payment together with the work the search did for it.
+ *
+ * @param path            The cheapest path, or null when no path exists.
+ * @param cost            The total cost of the path, or null when no path exists.
+ * @param settledNodes    The number of nodes the search settled, counting both directions.
+ * @param goalDirected    Whether the search was guided by landmark potentials (ALT).
+ * @param topologyVersion The topology version the payment was routed on.
+ */
+public record RouteExplanation(String originBranch, String destinationBranch, String path, Long cost,
+                               int settledNodes, boolean goalDirected, long topologyVersion) {
+}
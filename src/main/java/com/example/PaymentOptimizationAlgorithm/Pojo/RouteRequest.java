@@ -0,0 +1,7 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+/**
+ * One origin/destination pair of a batch routing request.
+ */
+public record RouteRequest(String originBranch, String destinationBranch) {
+}
@@ -0,0 +1,16 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The cheapest path for one pair of a batch routing request; {@code path} is null when no path exists.
+ * {@code error} is set instead when a streamed pair could not be routed, e.g. because its search ran out of
+ * budget, and is left out of the JSON otherwise.
+ */
+public record RouteResult(String originBranch, String destinationBranch, String path,
+                          @JsonInclude(JsonInclude.Include.NON_NULL) String error) {
+
+    public RouteResult(String originBranch, String destinationBranch, String path) {
+        this(originBranch, destinationBranch, path, null);
+    }
+}
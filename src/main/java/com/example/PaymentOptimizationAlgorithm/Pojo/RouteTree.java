@@ -0,0 +1,15 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+import java.util.Map;
+
+/**
+ * The cheapest paths from one origin branch to every branch it can reach.
+ *
+ * @param costs            The cost of the cheapest path to each reachable branch, 0 for the origin.
+ * @param previousBranches The branch before each reachable branch on its cheapest path; the origin has none.
+ *                         Following them back from a branch gives its path in reverse.
+ * @param topologyVersion  The topology version the tree was computed on.
+ */
+public record RouteTree(String originBranch, Map<String, Long> costs, Map<String, String> previousBranches,
+                        long topologyVersion) {
+}
@@ -0,0 +1,8 @@
+package com.example.PaymentOptimizationAlgorithm.Pojo;
+
+/**
+ * Notice that a tenant's payment network reached a new topology version; routes computed at older versions
+ * may be stale.
+ */
+public record TopologyEvent(String tenant, long version) {
+}
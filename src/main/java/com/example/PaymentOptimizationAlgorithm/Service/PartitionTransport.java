@@ -0,0 +1,16 @@
+package com.example.PaymentOptimizationAlgorithm.Service;
+
+/**
+ * Connects the coordinator of a partitioned payment network to the services holding its regions, which may
+ * live in this process or on other nodes.
+ */
+public interface PartitionTransport {
+
+    /**
+     * Returns the service holding a region, creating an empty region if it does not exist yet.
+     *
+     * @param region The region.
+     * @return The region's service.
+     */
+    RegionService connect(String region);
+}
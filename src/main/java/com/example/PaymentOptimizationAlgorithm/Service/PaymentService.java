@@ -1,7 +1,19 @@
 package com.example.PaymentOptimizationAlgorithm.Service;
 
+import com.example.PaymentOptimizationAlgorithm.Pojo.AlternativeRoute;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteTree;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Service interface for handling payment-related operations.
  * Provides methods to add branches and connections to the payment network
@@ -20,6 +32,53 @@ public interface PaymentService {
      */
     String processPayment(String originBranch, String destinationBranch);
 
+    /**
+     * Processes many payments in one call. Pairs sharing an origin are answered from a single
+     * shortest-path tree, and all pairs are answered against the same topology version.
+     *
+     * @param requests The origin/destination pairs to route.
+     * @return The path for each pair in request order, with null entries where no valid path exists.
+     * @throws IllegalArgumentException If any origin or destination branch is null or empty.
+     */
+    List<String> processPayments(List<RouteRequest> requests);
+
+    /**
+     * Routes one payment like {@link #processPayment} and reports the path cost and the number of nodes
+     * the search settled, e.g. to compare plain and goal-directed search.
+     *
+     * @param originBranch      The ID of the origin branch from which the payment is to be sent.
+     * @param destinationBranch The ID of the destination branch to which the payment is to be received.
+     * @return The route and its search statistics; the path is null if no valid path exists.
+     * @throws IllegalArgumentException If the origin or destination branch is null or empty.
+     */
+    RouteExplanation explainPayment(String originBranch, String destinationBranch);
+
+    /**
+     * Finds the k cheapest loopless paths for a payment, e.g. to fail over when a branch on the cheapest path
+     * is down. Excluded branches are left out of the search itself, so the routes returned are the cheapest
+     * ones avoiding them, not the cheapest ones filtered afterwards.
+     *
+     * @param originBranch      The ID of the origin branch from which the payment is to be sent.
+     * @param destinationBranch The ID of the destination branch to which the payment is to be received.
+     * @param k                 The number of routes wanted.
+     * @param excludedBranches  Branches no route may pass through; unknown IDs are ignored.
+     * @return Up to k routes, cheapest first; empty if no path exists.
+     * @throws IllegalArgumentException If the origin or destination branch is null or empty, or k is out of range.
+     */
+    List<AlternativeRoute> alternativeRoutes(String originBranch, String destinationBranch, int k,
+                                             Set<String> excludedBranches);
+
+    /**
+     * Computes the cheapest path from one origin to every branch it can reach, e.g. for batch routing or to
+     * warm a cache. The tree is grown in parallel, using the cores of the configured pool.
+     *
+     * @param originBranch The ID of the origin branch.
+     * @return The cost of and previous branch on the cheapest path to each reachable branch; empty if the
+     *         origin is unknown.
+     * @throws IllegalArgumentException If the origin branch is null or empty.
+     */
+    RouteTree shortestPathTree(String originBranch);
+
     /**
      * Adds a new branch to the payment network with a specified processing cost.
      *
@@ -30,6 +89,16 @@ public interface PaymentService {
      */
     ResponseEntity<String> addBranch(String branch, int cost);
 
+    /**
+     * Sets the costs of many existing branches at once. All new costs become visible to queries together,
+     * in a single topology version, and apply to every connection leaving each branch.
+     *
+     * @param costs The new cost of each branch, keyed by branch ID.
+     * @return A response indicating the result of the operation; nothing is changed if any branch is
+     *         unknown or any cost is negative.
+     */
+    ResponseEntity<String> updateBranchCosts(Map<String, Integer> costs);
+
     /**
      * Adds a connection (edge) between two branches in the payment network.
      *
@@ -39,4 +108,39 @@ public interface PaymentService {
      * @throws IllegalArgumentException If either branch ID is null, empty, or does not exist in the network.
      */
     ResponseEntity<String> addConnections(String from, String to);
+
+    /**
+     * Returns the current topology version. Every mutation that can change a routing result increments it,
+     * so results computed at an older version must not be reused.
+     *
+     * @return The version of the topology that new queries will run against.
+     */
+    long getTopologyVersion();
+
+    /**
+     * Replaces the whole payment network with the branches and connections streamed from a payload.
+     * Rows are read one at a time, and the new network becomes visible to queries in one step once
+     * the payload has been read completely; malformed rows are skipped and reported.
+     *
+     * @param payload The rows to import.
+     * @param format  The format of the rows.
+     * @return A summary of the import, including the topology version it published.
+     * @throws IOException If the payload cannot be read; the current network is then left unchanged.
+     */
+    ImportSummary importTopology(Reader payload, ImportFormat format) throws IOException;
+
+    /**
+     * Returns the progress of the import currently running, or the outcome of the last one.
+     *
+     * @return The import summary, or null if no import has been started.
+     */
+    ImportSummary getImportProgress();
+
+    /**
+     * Writes the current payment network to the configured binary snapshot file, from which it is
+     * memory-mapped on the next startup.
+     *
+     * @return A response indicating the result of the operation.
+     */
+    ResponseEntity<String> exportSnapshot();
 }
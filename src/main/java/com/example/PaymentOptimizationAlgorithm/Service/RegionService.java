@@ -0,0 +1,86 @@
+package com.example.PaymentOptimizationAlgorithm.Service;
+
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RegionOverlay;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One region of a partitioned payment network, as seen by the coordinator that routes across regions.
+ * A region holds its branches and the connections between them; connections to other regions are only
+ * recorded at their ends. Implementations may run in another process behind a {@link PartitionTransport},
+ * so every argument and result is plain data.
+ */
+public interface RegionService {
+
+    /**
+     * Returns the region's version. Every change to its branches, connections or cross-region connections
+     * increments it.
+     */
+    long getVersion();
+
+    /**
+     * Returns the region's boundary-to-boundary costs and outgoing cross-region connections at its current
+     * version.
+     */
+    RegionOverlay getOverlay();
+
+    /**
+     * Computes the cheapest in-region cost from one branch to each of several others.
+     *
+     * @param originBranch The branch to start from.
+     * @param destinations The branches to reach.
+     * @return The cost of each destination in order, or {@link Long#MAX_VALUE} where it cannot be reached
+     *         without leaving the region.
+     */
+    long[] distancesFrom(String originBranch, List<String> destinations);
+
+    /**
+     * Computes the cheapest in-region cost from each of several branches to one other.
+     *
+     * @param destinationBranch The branch to reach.
+     * @param origins           The branches to start from.
+     * @return The cost of each origin in order, or {@link Long#MAX_VALUE} where it cannot reach the
+     *         destination without leaving the region.
+     */
+    long[] distancesTo(String destinationBranch, List<String> origins);
+
+    /**
+     * Routes a payment between two branches of the region without leaving it.
+     *
+     * @return The comma-separated path, or null if there is no in-region path.
+     */
+    String route(String originBranch, String destinationBranch);
+
+    /**
+     * Adds a branch to the region or updates its cost.
+     */
+    ResponseEntity<String> addBranch(String branch, int cost);
+
+    /**
+     * Reprices branches of the region in one step.
+     */
+    ResponseEntity<String> updateBranchCosts(Map<String, Integer> costs);
+
+    /**
+     * Adds a connection between two branches of the region.
+     */
+    ResponseEntity<String> addConnection(String from, String to);
+
+    /**
+     * Records a connection between a branch of the region and a branch of another region. Called on both
+     * regions: the source region keeps it as an exit, and both make their end a boundary branch.
+     */
+    void addCrossConnection(String from, String to);
+
+    /**
+     * Replaces the region's branches and connections with the rows of a payload and forgets its cross-region
+     * connections.
+     */
+    ImportSummary importTopology(Reader payload, ImportFormat format) throws IOException;
+}
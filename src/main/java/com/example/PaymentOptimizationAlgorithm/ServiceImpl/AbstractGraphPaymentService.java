@@ -0,0 +1,911 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Graph.AlternativeRoutes;
+import com.example.PaymentOptimizationAlgorithm.Graph.DeltaStepping;
+import com.example.PaymentOptimizationAlgorithm.Graph.DynamicShortestPathTree;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.LandmarkIndex;
+import com.example.PaymentOptimizationAlgorithm.Graph.MutationLog;
+import com.example.PaymentOptimizationAlgorithm.Graph.ReachabilityIndex;
+import com.example.PaymentOptimizationAlgorithm.Graph.RouteTable;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContextPool;
+import com.example.PaymentOptimizationAlgorithm.Graph.ShortestPathTrees;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.AlternativeRoute;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteTree;
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Base class for payment services that route over the snapshots of a {@link GraphStore}.
+ * Topology writes are shared by every engine; subclasses only provide the search.
+ */
+public abstract class AbstractGraphPaymentService implements PaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractGraphPaymentService.class);
+
+    protected final GraphStore graphStore;
+    private final int compactionThreshold;
+    protected final SearchContextPool searchContexts = new SearchContextPool();
+    private Executor batchExecutor = ForkJoinPool.commonPool();
+    protected ForkJoinPool preprocessingPool = ForkJoinPool.commonPool();
+    private ForkJoinPool treePool = ForkJoinPool.commonPool();
+    private long treeDelta;
+    private final AtomicReference<ImportRun> lastImport = new AtomicReference<>();
+    private Path snapshotPath;
+    private Path mutationLogPath;
+    private MutationLog.FsyncPolicy fsyncPolicy = MutationLog.FsyncPolicy.ALWAYS;
+    private MutationLog mutationLog;
+    private int landmarkCount;
+    private final BackgroundIndex<LandmarkIndex> landmarks =
+            new BackgroundIndex<>("building landmarks", LandmarkIndex::version);
+    private int routeTableMaxBranches;
+    private final BackgroundIndex<RouteTable> routeTable =
+            new BackgroundIndex<>("computing route table", RouteTable::version);
+    private final ReachabilityFilter reachability;
+    private int maxCoalescedSearches = 10_000;
+    private final InFlightSearches inFlightSearches = new InFlightSearches();
+    private int hotOriginCount;
+    private long hotOriginMinQueries = 1;
+    private final HotOrigins hotOrigins = new HotOrigins();
+    private long searchTimeoutMillis;
+    private int maxSettledNodes;
+    protected RoutingMetrics routingMetrics = new RoutingMetrics("", 0, 0);
+    // Version last restored from or written to disk, so that an unchanged topology is not written again.
+    private long persistedVersion = -1;
+
+    protected AbstractGraphPaymentService(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+        this.graphStore = new GraphStore(compactionThreshold);
+        this.reachability = new ReachabilityFilter(graphStore);
+    }
+
+    /**
+     * Creates an empty engine of the same kind, for {@link #newInstance()}.
+     */
+    protected abstract AbstractGraphPaymentService createEngine(int compactionThreshold);
+
+    /**
+     * Creates an empty engine of the same kind and with the same routing settings and pools, but with a topology,
+     * snapshot file and mutation log of its own, e.g. for another tenant. The new engine is not initialized.
+     *
+     * @return The new engine.
+     */
+    public AbstractGraphPaymentService newInstance() {
+        AbstractGraphPaymentService engine = createEngine(compactionThreshold);
+        engine.batchExecutor = batchExecutor;
+        engine.preprocessingPool = preprocessingPool;
+        engine.treePool = treePool;
+        engine.treeDelta = treeDelta;
+        engine.landmarkCount = landmarkCount;
+        engine.routeTableMaxBranches = routeTableMaxBranches;
+        engine.reachability.setEnabled(reachability.isEnabled());
+        engine.maxCoalescedSearches = maxCoalescedSearches;
+        engine.hotOriginCount = hotOriginCount;
+        engine.hotOriginMinQueries = hotOriginMinQueries;
+        engine.searchTimeoutMillis = searchTimeoutMillis;
+        engine.maxSettledNodes = maxSettledNodes;
+        engine.routingMetrics = routingMetrics;
+        return engine;
+    }
+
+    /**
+     * Sets the pool on which batch routing runs its per-origin searches.
+     */
+    @Autowired(required = false)
+    public void setBatchExecutor(@Qualifier("batchRoutingExecutor") Executor batchExecutor) {
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * Sets the metrics that queries and searches are recorded in; engines made by {@link #newInstance()} share them.
+     */
+    @Autowired(required = false)
+    public void setRoutingMetrics(RoutingMetrics routingMetrics) {
+        this.routingMetrics = routingMetrics;
+    }
+
+    /**
+     * Publishes the size of this engine's network as {@code payment.graph.*} gauges, and the wait for its
+     * topology writer lock, tagged as the default tenant.
+     */
+    @Autowired(required = false)
+    public void bindGraphMetrics(MeterRegistry registry) {
+        bindGraphMetrics(registry, TenantRegistry.DEFAULT_TENANT);
+    }
+
+    /**
+     * Publishes this engine's network metrics tagged with the tenant it serves.
+     *
+     * @return The meters, for removing them once the tenant is dropped.
+     */
+    public List<Meter> bindGraphMetrics(MeterRegistry registry, String tenant) {
+        return List.of(
+                Gauge.builder("payment.graph.branches", graphStore, store -> store.snapshot().nodeCount())
+                        .description("Branches in the payment network").tag("tenant", tenant).register(registry),
+                Gauge.builder("payment.graph.connections", graphStore, store -> store.snapshot().edgeCount())
+                        .description("Connections in the payment network").tag("tenant", tenant).register(registry),
+                Gauge.builder("payment.graph.delta.connections", graphStore, store -> store.snapshot().deltaEdgeCount())
+                        .description("Connections in the delta overlay, not yet compacted").tag("tenant", tenant)
+                        .register(registry),
+                Gauge.builder("payment.graph.version", graphStore, store -> store.snapshot().version())
+                        .description("Current topology version").tag("tenant", tenant).register(registry),
+                Gauge.builder("payment.search.in-flight", inFlightSearches, InFlightSearches::size)
+                        .description("Searches that identical queries can currently join").tag("tenant", tenant)
+                        .register(registry),
+                FunctionTimer.builder("payment.lock.wait", graphStore, GraphStore::writeLockAcquisitions,
+                                GraphStore::writeLockWaitNanos, TimeUnit.NANOSECONDS)
+                        .description("Time spent waiting for locks; count is every acquisition")
+                        .tag("lock", "topology-write").tag("tenant", tenant).register(registry));
+    }
+
+    /**
+     * Sets the pool on which background preprocessing, such as route tables, runs.
+     */
+    @Autowired(required = false)
+    public void setPreprocessingPool(@Qualifier("preprocessingPool") ForkJoinPool preprocessingPool) {
+        this.preprocessingPool = preprocessingPool;
+    }
+
+    /**
+     * Sets the pool on which full shortest-path trees are grown.
+     */
+    @Autowired(required = false)
+    public void setTreePool(@Qualifier("shortestPathTreePool") ForkJoinPool treePool) {
+        this.treePool = treePool;
+    }
+
+    /**
+     * Sets the bucket width of parallel shortest-path trees; 0 derives it from the network.
+     */
+    @Value("${payment.tree.delta:0}")
+    public void setTreeDelta(long treeDelta) {
+        this.treeDelta = Math.max(0, treeDelta);
+    }
+
+    /**
+     * Sets the size up to which every pair of branches is precomputed in a route table; 0 disables it.
+     */
+    @Value("${payment.route-table.max-branches:0}")
+    public void setRouteTableMaxBranches(int routeTableMaxBranches) {
+        this.routeTableMaxBranches = Math.max(0, Math.min(routeTableMaxBranches, RouteTable.MAX_BRANCHES));
+    }
+
+    /**
+     * Enables the index that rejects origin/destination pairs without any path before searching.
+     */
+    @Value("${payment.reachability.enabled:true}")
+    public void setReachabilityIndexEnabled(boolean reachabilityIndexEnabled) {
+        reachability.setEnabled(reachabilityIndexEnabled);
+    }
+
+    /**
+     * Sets how many distinct searches identical concurrent queries can join at a time; 0 disables coalescing.
+     */
+    @Value("${payment.coalescing.max-in-flight:10000}")
+    public void setMaxCoalescedSearches(int maxCoalescedSearches) {
+        this.maxCoalescedSearches = Math.max(0, maxCoalescedSearches);
+    }
+
+    /**
+     * Sets how many of the most queried origins keep an incrementally repaired shortest-path tree; 0 disables it.
+     *
+     * @param count      The number of hot origins.
+     * @param minQueries The decayed number of queries an origin needs before it is considered.
+     */
+    @Autowired
+    public void configureHotOrigins(@Value("${payment.hot-origins.count:0}") int count,
+                                    @Value("${payment.hot-origins.min-queries:1}") long minQueries) {
+        this.hotOriginCount = Math.max(0, count);
+        this.hotOriginMinQueries = Math.max(1, minQueries);
+        if (hotOriginCount == 0) {
+            hotOrigins.clear();
+        }
+    }
+
+    /**
+     * Sets the default budget of each search; a request may tighten it with a {@link SearchBudget} of its own.
+     *
+     * @param timeoutMillis   How long one payment's search may run; 0 for no deadline.
+     * @param maxSettledNodes How many nodes one search may settle; 0 for no limit.
+     */
+    @Autowired
+    public void configureSearchBudget(@Value("${payment.search.timeout-ms:0}") long timeoutMillis,
+                                      @Value("${payment.search.max-settled-nodes:0}") int maxSettledNodes) {
+        this.searchTimeoutMillis = Math.max(0, timeoutMillis);
+        this.maxSettledNodes = Math.max(0, maxSettledNodes);
+    }
+
+    /**
+     * Sets the file the topology is exported to and restored from at startup; blank disables snapshots.
+     */
+    @Value("${payment.snapshot.path:}")
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Sets the number of landmarks for goal-directed (ALT) search; 0 disables it.
+     */
+    @Value("${payment.alt.landmarks:0}")
+    public void setLandmarkCount(int landmarkCount) {
+        this.landmarkCount = Math.max(0, landmarkCount);
+    }
+
+    /**
+     * Configures the write-ahead log of topology mutations; a blank path disables it.
+     *
+     * @param path  The log file.
+     * @param fsync When appended mutations are forced to disk: always, interval or never.
+     */
+    @Autowired
+    public void configureMutationLog(@Value("${payment.wal.path:}") String path,
+                                     @Value("${payment.wal.fsync:always}") String fsync) {
+        this.mutationLogPath = path == null || path.isBlank() ? null : Path.of(path);
+        this.fsyncPolicy = MutationLog.FsyncPolicy.valueOf(fsync.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Initializes the service from the mutation log or the snapshot file if either is configured and holds a
+     * topology, and with default branches and connections otherwise.
+     * This method is called after the bean has been initialized.
+     */
+    @PostConstruct
+    public void initialize() {
+        if (restoreTopology()) {
+            return;
+        }
+
+        // Adding default branches
+        addBranch("A", 5);
+        addBranch("B", 50);
+        addBranch("C", 10);
+        addBranch("D", 10);
+        addBranch("E", 20);
+        addBranch("F", 5);
+
+        // Adding default connections
+        addConnections("A", "B");
+        addConnections("A", "C");
+        addConnections("C", "B");
+        addConnections("B", "D");
+        addConnections("C", "E");
+        addConnections("D", "E");
+        addConnections("E", "D");
+        addConnections("D", "F");
+        addConnections("E", "F");
+    }
+
+    /**
+     * Restores the topology from the mutation log or the snapshot file, if either is configured.
+     *
+     * @return True if a non-empty topology was restored.
+     */
+    public boolean restoreTopology() {
+        try {
+            long started = System.nanoTime();
+            GraphSnapshot restored = null;
+            if (mutationLogPath != null && mutationLog == null) {
+                if (snapshotPath == null) {
+                    snapshotPath = Path.of(mutationLogPath + ".snapshot");
+                }
+                mutationLog = new MutationLog(mutationLogPath, snapshotPath, fsyncPolicy);
+                restored = graphStore.recover(mutationLog);
+            } else if (snapshotPath != null && Files.exists(snapshotPath)) {
+                restored = graphStore.restore(snapshotPath);
+            }
+            persistedVersion = graphStore.snapshot().version();
+            if (restored != null && restored.version() > 0) {
+                log.info("Restored {} branches and {} connections in {} ms, topology version {}",
+                        restored.nodeCount(), restored.edgeCount(), (System.nanoTime() - started) / 1_000_000,
+                        restored.version());
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("Error while restoring topology: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Persists the topology where {@link #restoreTopology()} finds it again and closes the mutation log. With a
+     * log the snapshot is checkpointed; without one it is exported, unless it has not changed since it was
+     * restored. Nothing is written if neither a log nor a snapshot file is configured.
+     */
+    public void unload() throws IOException {
+        if (mutationLog != null) {
+            checkpoint();
+            mutationLog.close();
+            mutationLog = null;
+        } else if (snapshotPath != null && graphStore.snapshot().version() != persistedVersion) {
+            persistedVersion = graphStore.export(snapshotPath).version();
+        }
+    }
+
+    /**
+     * Adds a branch with a specified cost.
+     *
+     * @param branch The branch identifier.
+     * @param cost   The cost associated with the branch.
+     * @return A response indicating the result of the operation.
+     */
+    @Override
+    public ResponseEntity<String> addBranch(String branch, int cost) {
+        try {
+            graphStore.addBranch(branch, cost);
+            reachability.advance();
+            return ResponseEntity.ok("Branch added successfully.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to add branch: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reprices many branches in one batch, published as a single topology version.
+     *
+     * @param costs The new cost of each branch, keyed by branch identifier.
+     * @return A response indicating the result of the operation.
+     */
+    @Override
+    public ResponseEntity<String> updateBranchCosts(Map<String, Integer> costs) {
+        try {
+            graphStore.update(writer -> {
+                for (Map.Entry<String, Integer> entry : costs.entrySet()) {
+                    if (entry.getValue() == null || entry.getValue() < 0) {
+                        throw new IllegalArgumentException("Cost of branch " + entry.getKey() + " must not be negative.");
+                    }
+                    if (writer.indexOf(entry.getKey()) < 0) {
+                        throw new IllegalArgumentException("Branch " + entry.getKey() + " does not exist.");
+                    }
+                    writer.addBranch(entry.getKey(), entry.getValue());
+                }
+                return null;
+            });
+            return ResponseEntity.ok("Costs of " + costs.size() + " branches updated successfully.");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to update branch costs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a connection between two branches.
+     *
+     * @param from The source branch.
+     * @param to   The target branch.
+     * @return A response indicating the result of the operation.
+     */
+    @Override
+    public ResponseEntity<String> addConnections(String from, String to) {
+        try {
+            if (!graphStore.addConnection(from, to)) {
+                return ResponseEntity.badRequest()
+                        .body("Both branches must be added before adding edges.");
+            }
+            reachability.advance();
+            return ResponseEntity.ok("Connection added successfully.");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to add edge: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Groups the pairs by origin and answers every destination of a group from one shortest-path tree.
+     * Groups run in parallel on the batch executor; every group reads the same snapshot.
+     *
+     * @param requests The origin/destination pairs to route.
+     * @return The path for each pair in request order, or null where no path exists.
+     */
+    @Override
+    public List<String> processPayments(List<RouteRequest> requests) {
+        String[] results = new String[requests.size()];
+        Map<String, List<Integer>> byOrigin = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RouteRequest request = requests.get(i);
+            String origin = request == null ? null : request.originBranch();
+            String destination = request == null ? null : request.destinationBranch();
+            if (origin == null || origin.isEmpty() || destination == null || destination.isEmpty()) {
+                throw new IllegalArgumentException("Origin and destination branches must be specified.");
+            }
+            if (origin.equals(destination)) {
+                results[i] = origin;
+            } else {
+                byOrigin.computeIfAbsent(origin, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        GraphSnapshot g = graphStore.snapshot();
+        SearchBudget budget = searchBudget();
+        RouteTable table = routeTableFor(g);
+        if (table != null) {
+            for (List<Integer> indices : byOrigin.values()) {
+                for (int i : indices) {
+                    results[i] = table.route(requests.get(i).originBranch(), requests.get(i).destinationBranch());
+                }
+            }
+            return Arrays.asList(results);
+        }
+        List<CompletableFuture<Void>> groups = new ArrayList<>(byOrigin.size());
+        for (Map.Entry<String, List<Integer>> group : byOrigin.entrySet()) {
+            groups.add(CompletableFuture.runAsync(
+                    () -> routeFromOrigin(g, group.getKey(), group.getValue(), requests, results, budget), batchExecutor));
+        }
+        try {
+            CompletableFuture.allOf(groups.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SearchBudgetExceededException exceeded) {
+                throw exceeded;
+            }
+            throw new RuntimeException("Error while processing payments: " + e.getCause().getMessage(), e.getCause());
+        }
+        return Arrays.asList(results);
+    }
+
+    private void routeFromOrigin(GraphSnapshot g, String originBranch, List<Integer> indices,
+                                 List<RouteRequest> requests, String[] results, SearchBudget budget) {
+        int source = g.indexOf(originBranch);
+        if (source < 0) {
+            return;
+        }
+        int[] targets = indices.stream()
+                .mapToInt(i -> g.indexOf(requests.get(i).destinationBranch()))
+                .filter(node -> node >= 0 && !provablyUnreachable(g, source, node))
+                .sorted()
+                .distinct()
+                .toArray();
+        if (targets.length == 0) {
+            return;
+        }
+
+        SearchContext context = searchContexts.acquire();
+        try {
+            if (!ShortestPathTrees.grow(g, context, source, targets, budget)) {
+                throw new SearchBudgetExceededException(null, context.settledCount());
+            }
+            for (int i : indices) {
+                int target = g.indexOf(requests.get(i).destinationBranch());
+                if (target >= 0 && context.forwardDistance(target) != SearchContext.UNREACHED) {
+                    results[i] = context.buildPath(g, target);
+                }
+            }
+        } finally {
+            searchContexts.release(context);
+        }
+    }
+
+    /**
+     * Finds the k cheapest loopless paths with {@link AlternativeRoutes}, on one snapshot, running the deviation
+     * searches of each round in parallel on the batch executor.
+     */
+    @Override
+    public List<AlternativeRoute> alternativeRoutes(String originBranch, String destinationBranch, int k,
+                                                    Set<String> excludedBranches) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        if (k < 1 || k > AlternativeRoutes.MAX_ROUTES) {
+            throw new IllegalArgumentException("Number of routes must be between 1 and " + AlternativeRoutes.MAX_ROUTES + ".");
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        int source = g.indexOf(originBranch);
+        int target = g.indexOf(destinationBranch);
+        Set<String> excluded = excludedBranches == null ? Set.of() : excludedBranches;
+        if (source < 0 || target < 0 || excluded.contains(originBranch) || excluded.contains(destinationBranch)) {
+            return List.of();
+        }
+        if (source == target) {
+            return List.of(new AlternativeRoute(originBranch, 0));
+        }
+        if (provablyUnreachable(g, source, target)) {
+            return List.of();
+        }
+
+        int[] excludedNodes = excluded.stream().mapToInt(g::indexOf).filter(node -> node >= 0).sorted().distinct().toArray();
+        AlternativeRoutes.Result result = AlternativeRoutes.find(g, searchContexts, batchExecutor, source, target, k,
+                excludedNodes, searchBudget());
+        List<AlternativeRoute> routes = new ArrayList<>(result.routes().size());
+        for (AlternativeRoutes.Route route : result.routes()) {
+            StringBuilder path = new StringBuilder();
+            for (int node : route.nodes()) {
+                path.append(path.isEmpty() ? "" : ",").append(g.nameOf(node));
+            }
+            routes.add(new AlternativeRoute(path.toString(), route.cost()));
+        }
+        if (result.exhausted()) {
+            throw new SearchBudgetExceededException(routes.isEmpty() ? null : routes.get(0).path(), result.settledNodes());
+        }
+        return routes;
+    }
+
+    /**
+     * Grows the tree with {@link DeltaStepping} on the tree pool, against one snapshot.
+     */
+    @Override
+    public RouteTree shortestPathTree(String originBranch) {
+        if (originBranch == null || originBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin branch must be specified.");
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        int source = g.indexOf(originBranch);
+        if (source < 0) {
+            return new RouteTree(originBranch, Map.of(), Map.of(), g.version());
+        }
+        DeltaStepping.Tree tree = DeltaStepping.grow(g, source, treeDelta > 0 ? treeDelta : DeltaStepping.defaultDelta(g),
+                treePool, searchBudget());
+        if (tree.exhausted()) {
+            throw new SearchBudgetExceededException(null, (int) Math.min(tree.expandedNodes(), Integer.MAX_VALUE));
+        }
+        Map<String, Long> costs = new LinkedHashMap<>();
+        Map<String, String> previousBranches = new LinkedHashMap<>();
+        long[] distances = tree.distances();
+        int[] parents = tree.parents();
+        for (int v = 0; v < g.nodeCount(); v++) {
+            if (distances[v] != SearchContext.UNREACHED) {
+                costs.put(g.nameOf(v), distances[v]);
+                if (parents[v] >= 0) {
+                    previousBranches.put(g.nameOf(v), g.nameOf(parents[v]));
+                }
+            }
+        }
+        return new RouteTree(originBranch, costs, previousBranches, g.version());
+    }
+
+    /**
+     * Streams the payload into a standalone graph and swaps it in as one new topology version.
+     * Queries keep running against the previous network until the swap.
+     *
+     * @param payload The rows to import.
+     * @param format  The format of the rows.
+     * @return A summary of the import.
+     */
+    @Override
+    public ImportSummary importTopology(Reader payload, ImportFormat format) throws IOException {
+        ImportRun run = new ImportRun(new TopologyImporter(format), System.nanoTime());
+        lastImport.set(run);
+        try {
+            run.importer.read(payload);
+            GraphSnapshot imported = graphStore.replace(run.importer);
+            run.finish(imported);
+        } catch (IOException | RuntimeException e) {
+            run.fail();
+            throw e;
+        }
+        ImportSummary summary = run.summary();
+        log.info("Imported {} branches and {} connections in {} ms ({} rows rejected), topology version {}",
+                summary.branches(), summary.edges(), summary.elapsedMillis(), summary.rejectedRows(), summary.version());
+        return summary;
+    }
+
+    /**
+     * Writes the current topology to the configured snapshot file.
+     *
+     * @return A response indicating the result of the operation.
+     */
+    @Override
+    public ResponseEntity<String> exportSnapshot() {
+        if (snapshotPath == null) {
+            return ResponseEntity.badRequest().body("No snapshot path is configured (payment.snapshot.path).");
+        }
+        try {
+            GraphSnapshot exported;
+            if (mutationLog != null) {
+                // With a log the snapshot is its checkpoint, so the records it covers can be dropped.
+                exported = graphStore.snapshot();
+                mutationLog.checkpoint(exported);
+            } else {
+                exported = graphStore.export(snapshotPath);
+            }
+            return ResponseEntity.ok("Snapshot of version " + exported.version() + " written to " + snapshotPath + ".");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to write snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ImportSummary getImportProgress() {
+        ImportRun run = lastImport.get();
+        return run == null ? null : run.summary();
+    }
+
+    /**
+     * Merges pending delta edges into a fresh compressed-sparse-row snapshot.
+     */
+    @Scheduled(fixedDelayString = "${payment.graph.compaction-interval-ms:5000}")
+    public void compact() {
+        graphStore.compact();
+    }
+
+    /**
+     * Forces logged mutations to disk when the log is configured with the interval fsync policy.
+     */
+    @Scheduled(fixedDelayString = "${payment.wal.fsync-interval-ms:100}")
+    public void syncMutationLog() throws IOException {
+        if (mutationLog != null && fsyncPolicy == MutationLog.FsyncPolicy.INTERVAL) {
+            mutationLog.sync();
+        }
+    }
+
+    /**
+     * Writes a snapshot and truncates the mutation log behind it, if anything has been logged since the
+     * last checkpoint.
+     */
+    @Scheduled(fixedDelayString = "${payment.wal.checkpoint-interval-ms:60000}")
+    public void checkpoint() throws IOException {
+        if (mutationLog != null && mutationLog.size() > 0) {
+            mutationLog.checkpoint(graphStore.snapshot());
+        }
+    }
+
+    /**
+     * Flushes and closes the mutation log.
+     */
+    @PreDestroy
+    public void closeMutationLog() throws IOException {
+        if (mutationLog != null) {
+            mutationLog.close();
+        }
+    }
+
+    /**
+     * Returns the budget of a search starting now: the current request's budget, tightened to the configured
+     * timeout and settled-node limit.
+     */
+    protected SearchBudget searchBudget() {
+        return SearchBudget.current().within(searchTimeoutMillis, maxSettledNodes);
+    }
+
+    /**
+     * Returns the landmark index for a snapshot, or null if goal-directed search is disabled or the index
+     * is not current. A stale index starts a rebuild in the background; queries fall back to plain
+     * bidirectional search until it is published, so frequent writes keep ALT mostly idle.
+     */
+    protected LandmarkIndex landmarksFor(GraphSnapshot g) {
+        if (landmarkCount == 0) {
+            return null;
+        }
+        LandmarkIndex index = landmarks.get();
+        if (index != null && index.version() == g.version()) {
+            return index;
+        }
+        landmarks.refreshInBackground(batchExecutor, this::refreshLandmarks);
+        return null;
+    }
+
+    /**
+     * Builds and publishes the landmark index for the current topology version.
+     *
+     * @return The index, or null if goal-directed search is disabled or the network cannot be indexed.
+     */
+    public LandmarkIndex refreshLandmarks() {
+        if (landmarkCount == 0) {
+            return null;
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        LandmarkIndex current = landmarks.get();
+        if (current != null && current.version() == g.version()) {
+            return current;
+        }
+        long started = System.nanoTime();
+        LandmarkIndex index = LandmarkIndex.build(g, landmarkCount);
+        if (index != null) {
+            landmarks.publish(index);
+            log.debug("Built {} landmarks for topology version {} in {} ms",
+                    index.landmarkCount(), index.version(), (System.nanoTime() - started) / 1_000_000);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the route table for a snapshot, or null if the network is above the size threshold or the
+     * table is not current. A stale table is brought up to date in the background, and queries are routed by
+     * the engine's own search until then.
+     */
+    protected RouteTable routeTableFor(GraphSnapshot g) {
+        if (g.nodeCount() > routeTableMaxBranches) {
+            return null;
+        }
+        RouteTable table = routeTable.get();
+        if (table != null && table.version() == g.version()) {
+            return table;
+        }
+        routeTable.refreshInBackground(preprocessingPool, this::refreshRouteTable);
+        return null;
+    }
+
+    /**
+     * Brings the route table up to the current topology version, recomputing only the rows the changes since
+     * the last table affect, or every row after an import.
+     *
+     * @return The table, or null if the network is above the size threshold.
+     */
+    public RouteTable refreshRouteTable() {
+        GraphSnapshot g = graphStore.snapshot();
+        if (g.nodeCount() > routeTableMaxBranches) {
+            routeTable.set(null);
+            return null;
+        }
+        RouteTable current = routeTable.get();
+        if (current != null && current.version() == g.version()) {
+            return current;
+        }
+        long started = System.nanoTime();
+        RouteTable table = current == null || current.version() > g.version()
+                ? null : current.update(g, preprocessingPool, searchContexts);
+        if (table == null) {
+            table = RouteTable.build(g, preprocessingPool, searchContexts);
+        }
+        routeTable.publish(table);
+        log.debug("Computed {} of {} route table rows for topology version {} in {} ms", table.recomputedRows(),
+                table.branchCount(), table.version(), (System.nanoTime() - started) / 1_000_000);
+        return table;
+    }
+
+    /**
+     * Runs one payment's search, or waits for the identical search another query is running on the same
+     * topology version and returns its result.
+     *
+     * @param g      The snapshot the search runs on.
+     * @param search The search, run on the calling thread unless an identical one is in flight.
+     * @return The comma-separated path, or null if no path exists.
+     */
+    protected String coalesced(GraphSnapshot g, String originBranch, String destinationBranch, Supplier<String> search) {
+        return inFlightSearches.route(g.version(), originBranch, destinationBranch, maxCoalescedSearches,
+                searchBudget(), routingMetrics, search);
+    }
+
+    /**
+     * Tells whether the reachability index rules out any path between two branches of a snapshot, in which case
+     * the caller answers without searching.
+     */
+    protected boolean provablyUnreachable(GraphSnapshot g, int source, int target) {
+        if (!reachability.excludes(g, source, target, preprocessingPool)) {
+            return false;
+        }
+        routingMetrics.recordUnreachable();
+        return true;
+    }
+
+    /**
+     * Brings the reachability index up to the current topology version, building it from scratch if there is
+     * none yet or the network was replaced.
+     *
+     * @return The index, or null if it is disabled.
+     */
+    public ReachabilityIndex refreshReachability() {
+        return reachability.refresh();
+    }
+
+    /**
+     * Counts a query from an origin and returns the origin's maintained shortest-path tree if it is one of the
+     * hot origins, or null otherwise.
+     */
+    protected DynamicShortestPathTree hotOriginTree(String originBranch) {
+        return hotOriginCount == 0 ? null : hotOrigins.record(originBranch);
+    }
+
+    /**
+     * Re-selects the hot origins from the query counts since the last selection; trees of origins that stay
+     * hot are kept, and trees for newly hot origins are grown on the current snapshot.
+     *
+     * @return The hot origins, most queried first.
+     */
+    @Scheduled(fixedDelayString = "${payment.hot-origins.interval-ms:10000}")
+    public List<String> selectHotOrigins() {
+        if (hotOriginCount == 0) {
+            return List.of();
+        }
+        List<String> selected = hotOrigins.select(hotOriginCount, hotOriginMinQueries, graphStore.snapshot());
+        log.debug("Selected hot origins {}", selected);
+        return selected;
+    }
+
+    /**
+     * Describes a routed payment, pricing the path on the snapshot it was found in.
+     */
+    protected RouteExplanation explanation(GraphSnapshot g, String originBranch, String destinationBranch, String path,
+                                           int settledNodes, boolean goalDirected) {
+        Long cost = null;
+        if (path != null) {
+            String[] branches = path.split(",");
+            long total = 0;
+            for (int i = 0; i < branches.length - 1; i++) {
+                total += g.cost(g.indexOf(branches[i]));
+            }
+            cost = total;
+        }
+        return new RouteExplanation(originBranch, destinationBranch, path, cost, settledNodes, goalDirected, g.version());
+    }
+
+    @Override
+    public long getTopologyVersion() {
+        return graphStore.snapshot().version();
+    }
+
+    /**
+     * Returns the store holding this service's topology.
+     */
+    public GraphStore getGraphStore() {
+        return graphStore;
+    }
+
+    /**
+     * Book-keeping for one import, readable from other threads while it runs.
+     */
+    private static final class ImportRun {
+        final TopologyImporter importer;
+        final long startedAt;
+        volatile boolean running = true;
+        volatile long finishedAt;
+        volatile long version = -1;
+        volatile long branches;
+        volatile long edges;
+
+        ImportRun(TopologyImporter importer, long startedAt) {
+            this.importer = importer;
+            this.startedAt = startedAt;
+        }
+
+        void finish(GraphSnapshot imported) {
+            branches = imported.nodeCount();
+            edges = imported.edgeCount();
+            version = imported.version();
+            finishedAt = System.nanoTime();
+            running = false;
+        }
+
+        void fail() {
+            finishedAt = System.nanoTime();
+            running = false;
+        }
+
+        ImportSummary summary() {
+            boolean active = running;
+            long end = active ? System.nanoTime() : finishedAt;
+            long branchCount = active || version < 0 ? importer.getBranchCount() : branches;
+            long edgeCount = active || version < 0 ? importer.getEdgeRowCount() : edges;
+            return new ImportSummary(active, importer.getRowsRead(), branchCount, edgeCount,
+                    importer.getRejectedRows(), importer.getRejections(), version, (end - startedAt) / 1_000_000);
+        }
+    }
+}
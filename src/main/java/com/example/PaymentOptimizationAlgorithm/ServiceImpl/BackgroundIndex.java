@@ -0,0 +1,78 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToLongFunction;
+
+/**
+ * The published version of an index over the topology that queries read without waiting, such as the landmarks,
+ * the route table or the reachability index. A query that finds the index stale starts a rebuild in the
+ * background and goes on without it; at most one rebuild runs at a time.
+ *
+ * @param <T> The kind of index.
+ */
+final class BackgroundIndex<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundIndex.class);
+
+    private final String task;
+    private final ToLongFunction<T> versionOf;
+    private final AtomicReference<T> current = new AtomicReference<>();
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    /**
+     * @param task      What a rebuild does, for the log, e.g. "building landmarks".
+     * @param versionOf The topology version an index was built for.
+     */
+    BackgroundIndex(String task, ToLongFunction<T> versionOf) {
+        this.task = task;
+        this.versionOf = versionOf;
+    }
+
+    /**
+     * Returns the published index, or null if there is none.
+     */
+    T get() {
+        return current.get();
+    }
+
+    /**
+     * Replaces the published index; null drops it.
+     */
+    void set(T index) {
+        current.set(index);
+    }
+
+    /**
+     * Publishes a built index unless an index of a later version was published while it was built.
+     *
+     * @return The index now published.
+     */
+    T publish(T built) {
+        return current.accumulateAndGet(built,
+                (old, next) -> old != null && versionOf.applyAsLong(old) > versionOf.applyAsLong(next) ? old : next);
+    }
+
+    /**
+     * Runs a rebuild on an executor unless one is already running. A failed rebuild is logged, and the next
+     * query that finds the index stale tries again.
+     */
+    void refreshInBackground(Executor executor, Runnable refresh) {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                refresh.run();
+            } catch (RuntimeException e) {
+                log.warn("Error while {}: {}", task, e.getMessage(), e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+}
@@ -1,103 +1,49 @@
 package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
 
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Graph.DynamicShortestPathTree;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.LandmarkIndex;
+import com.example.PaymentOptimizationAlgorithm.Graph.RouteTable;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchStatistics;
 import com.example.PaymentOptimizationAlgorithm.Pojo.Node;
-import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
-import jakarta.annotation.PostConstruct;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Service implementation for handling payment optimization using Bidirectional Dijkstra's algorithm.
+ * This is the default engine; it is active unless {@code payment.engine} selects another one.
+ * Each query reads one immutable topology snapshot, so no locks are taken while searching.
  */
 @Service
-public class BidirectionalDijkstraPaymentService implements PaymentService {
-    private final Map<String, Map<String, Integer>> graph = new ConcurrentHashMap<>();
-    private final Map<String, Integer> branchCosts = new ConcurrentHashMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Lock readLock = lock.readLock();
-    private final Lock writeLock = lock.writeLock();
+@ConditionalOnProperty(name = "payment.engine", havingValue = "bidirectional", matchIfMissing = true)
+public class BidirectionalDijkstraPaymentService extends AbstractGraphPaymentService {
 
-    /**
-     * Initializes the service with default branches and connections.
-     * This method is called after the bean has been initialized.
-     */
-    @PostConstruct
-    public void initialize() {
-        // Adding default branches
-        addBranch("A", 5);
-        addBranch("B", 50);
-        addBranch("C", 10);
-        addBranch("D", 10);
-        addBranch("E", 20);
-        addBranch("F", 5);
-
-        // Adding default connections
-        addConnections("A", "B");
-        addConnections("A", "C");
-        addConnections("C", "B");
-        addConnections("B", "D");
-        addConnections("C", "E");
-        addConnections("D", "E");
-        addConnections("E", "D");
-        addConnections("D", "F");
-        addConnections("E", "F");
+    public BidirectionalDijkstraPaymentService() {
+        this(GraphStore.DEFAULT_COMPACTION_THRESHOLD);
     }
 
-    /**
-     * Adds a branch with a specified cost.
-     *
-     * @param branch The branch identifier.
-     * @param cost   The cost associated with the branch.
-     * @return
-     */
-    @Override
-    public ResponseEntity<String> addBranch(String branch, int cost) {
-        writeLock.lock();
-        try {
-            branchCosts.put(branch, cost);
-            return ResponseEntity.ok("Branch added successfully.");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to add branch: " + e.getMessage());
-        } finally {
-            writeLock.unlock();
-        }
+    @Autowired
+    public BidirectionalDijkstraPaymentService(@Value("${payment.graph.compaction-threshold:4096}") int compactionThreshold) {
+        super(compactionThreshold);
     }
 
-    /**
-     * Adds a connection between two branches.
-     *
-     * @param from The source branch.
-     * @param to   The target branch.
-     * @return
-     */
     @Override
-    public ResponseEntity<String> addConnections(String from, String to) {
-        writeLock.lock();
-        try {
-            if (!branchCosts.containsKey(from) || !branchCosts.containsKey(to)) {
-                return ResponseEntity.badRequest()
-                        .body("Both branches must be added before adding edges.");
-            }
-            graph.computeIfAbsent(from, k -> new ConcurrentHashMap<>()).put(to, branchCosts.get(from));
-            return ResponseEntity.ok("Connection added successfully.");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Failed to add edge: " + e.getMessage());
-        } finally {
-            writeLock.unlock();
-        }
+    protected AbstractGraphPaymentService createEngine(int compactionThreshold) {
+        return new BidirectionalDijkstraPaymentService(compactionThreshold);
     }
 
     /**
-     * Processes a payment from an origin branch to a destination branch using Bidirectional Dijkstra's algorithm.
+     * Processes a payment from an origin branch to a destination branch using Bidirectional Dijkstra's algorithm,
+     * goal-directed by landmark potentials when {@code payment.alt.landmarks} is set and the landmarks are
+     * current. Identical queries running at the same time share one search.
      *
      * @param originBranch The starting branch.
      * @param destinationBranch The target branch.
@@ -109,132 +55,178 @@ public class BidirectionalDijkstraPaymentService implements PaymentService {
             throw new IllegalArgumentException("Origin and destination branches must be specified.");
         }
 
-        readLock.lock();
+        if (originBranch.equals(destinationBranch)) {
+            return originBranch;
+        }
+        long started = System.nanoTime();
         try {
-            if (originBranch.equals(destinationBranch)) {
-                return originBranch;
+            GraphSnapshot g = graphStore.snapshot();
+            RouteTable table = routeTableFor(g);
+            if (table != null) {
+                return table.route(originBranch, destinationBranch);
             }
-            if (!graph.containsKey(originBranch)) {
-                return null;
+            DynamicShortestPathTree tree = hotOriginTree(originBranch);
+            if (tree != null) {
+                return tree.route(graphStore, g, destinationBranch);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Error while checking branches: " + e.getMessage(), e);
+            return coalesced(g, originBranch, destinationBranch, () -> {
+                Search search = search(g, originBranch, destinationBranch, landmarksFor(g));
+                return search == null ? null : search.path;
+            });
         } finally {
-            readLock.unlock();
+            routingMetrics.recordQuery(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Routes one payment like {@link #processPayment} and reports how much of the network the search settled.
+     */
+    @Override
+    public RouteExplanation explainPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        if (originBranch.equals(destinationBranch)) {
+            return explanation(g, originBranch, destinationBranch, originBranch, 0, false);
         }
+        LandmarkIndex landmarks = landmarksFor(g);
+        Search search = search(g, originBranch, destinationBranch, landmarks);
+        return search == null
+                ? explanation(g, originBranch, destinationBranch, null, 0, landmarks != null)
+                : explanation(g, originBranch, destinationBranch, search.path, search.settled, landmarks != null);
+    }
 
-        Map<String, Integer> distFromSource = new HashMap<>();
-        Map<String, Integer> distFromTarget = new HashMap<>();
-        Map<String, String> prevFromSource = new HashMap<>();
-        Map<String, String> prevFromTarget = new HashMap<>();
-        PriorityQueue<Node> pqFromSource = new PriorityQueue<>();
-        PriorityQueue<Node> pqFromTarget = new PriorityQueue<>();
+    /**
+     * Runs the two searches, always advancing the one whose queue head is smaller, until the two heads
+     * together reach the cheapest meeting cost found so far. Only then is that meeting point known to lie on
+     * a cheapest path; the first node settled from both sides need not. A search that exhausts its budget
+     * first throws, carrying the best path met so far.
+     *
+     * @return The finished search, or null if either branch is unknown, the origin has no connections or the
+     * reachability index rules out a path.
+     */
+    private Search search(GraphSnapshot g, String originBranch, String destinationBranch, LandmarkIndex landmarks) {
+        int origin = g.indexOf(originBranch);
+        int destination = g.indexOf(destinationBranch);
+        if (origin < 0 || destination < 0
+                || (g.outBegin(origin) == g.outEnd(origin) && g.deltaOut(origin) == null)
+                || provablyUnreachable(g, origin, destination)) {
+            return null;
+        }
 
+        Search search = new Search(g, origin, destination, landmarks);
+        SearchBudget budget = searchBudget();
+        long started = System.nanoTime();
         try {
-            distFromSource.put(originBranch, 0);
-            distFromTarget.put(destinationBranch, 0);
-            pqFromSource.add(new Node(originBranch, 0));
-            pqFromTarget.add(new Node(destinationBranch, 0));
+            search.distFromSource.put(originBranch, 0);
+            search.distFromTarget.put(destinationBranch, 0);
+            search.pqFromSource.add(new Node(originBranch, search.key(origin, 0, true)));
+            search.pqFromTarget.add(new Node(destinationBranch, search.key(destination, 0, false)));
 
             Set<String> visitedFromSource = new HashSet<>();
             Set<String> visitedFromTarget = new HashSet<>();
+            int scale = landmarks == null ? 1 : 2;
 
-            while (!pqFromSource.isEmpty() && !pqFromTarget.isEmpty()) {
-                if (!pqFromSource.isEmpty()) {
-                    Node nodeFromSource = pqFromSource.poll();
-                    if (visitedFromSource.contains(nodeFromSource.id)) {
-                        continue;
-                    }
-                    visitedFromSource.add(nodeFromSource.id);
-
-                    if (visitedFromTarget.contains(nodeFromSource.id)) {
-                        return buildPath(prevFromSource, prevFromTarget, nodeFromSource.id, originBranch, destinationBranch);
-                    }
-
-                    processNeighbors(nodeFromSource.id, distFromSource, prevFromSource, pqFromSource, true);
+            while (!search.pqFromSource.isEmpty() && !search.pqFromTarget.isEmpty()) {
+                int topFromSource = search.pqFromSource.peek().cost;
+                int topFromTarget = search.pqFromTarget.peek().cost;
+                if (search.meetingPoint != null && (long) topFromSource + topFromTarget >= (long) scale * search.best) {
+                    break;
                 }
-
-                if (!pqFromTarget.isEmpty()) {
-                    Node nodeFromTarget = pqFromTarget.poll();
-                    if (visitedFromTarget.contains(nodeFromTarget.id)) {
-                        continue;
+                if (budget.isExhausted(search.settled)) {
+                    throw new SearchBudgetExceededException(search.meetingPoint == null ? null
+                            : buildPath(search.prevFromSource, search.prevFromTarget, search.meetingPoint,
+                            originBranch, destinationBranch), search.settled);
+                }
+                if (topFromSource <= topFromTarget) {
+                    Node nodeFromSource = search.pqFromSource.poll();
+                    // Entries superseded by a cheaper one are skipped without starving the other side.
+                    if (visitedFromSource.add(nodeFromSource.id)) {
+                        search.settled++;
+                        processNeighbors(search, nodeFromSource.id, true);
                     }
-                    visitedFromTarget.add(nodeFromTarget.id);
-
-                    if (visitedFromSource.contains(nodeFromTarget.id)) {
-                        return buildPath(prevFromSource, prevFromTarget, nodeFromTarget.id, originBranch, destinationBranch);
+                } else {
+                    Node nodeFromTarget = search.pqFromTarget.poll();
+                    if (visitedFromTarget.add(nodeFromTarget.id)) {
+                        search.settled++;
+                        processNeighbors(search, nodeFromTarget.id, false);
                     }
-
-                    processNeighbors(nodeFromTarget.id, distFromTarget, prevFromTarget, pqFromTarget, false);
                 }
             }
+
+            if (search.meetingPoint != null) {
+                search.path = buildPath(search.prevFromSource, search.prevFromTarget, search.meetingPoint,
+                        originBranch, destinationBranch);
+            }
+        } catch (SearchBudgetExceededException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Error while processing payment: " + e.getMessage(), e);
+        } finally {
+            routingMetrics.recordSearch(originBranch, destinationBranch, search.statistics, System.nanoTime() - started);
         }
-
-        return null;
+        return search;
     }
 
     /**
-     * Processes neighbors of the current node, updating distances and priority queues.
+     * Processes neighbors of the current node, updating distances, priority queues and the best meeting point.
      *
+     * @param search The state of the query.
      * @param currentNode The current node being processed.
-     * @param distMap The distance map from the source or target.
-     * @param prevMap The previous node map from the source or target.
-     * @param pq The priority queue for processing nodes.
      * @param forward True if processing from the source, false if from the target.
      */
-    private void processNeighbors(String currentNode, Map<String, Integer> distMap, Map<String, String> prevMap,
-                                  PriorityQueue<Node> pq, boolean forward) {
-        readLock.lock();
+    private void processNeighbors(Search search, String currentNode, boolean forward) {
         try {
-            Map<String, Integer> neighbors = forward ? graph.getOrDefault(currentNode, Collections.emptyMap())
-                    : getReverseNeighbors(currentNode);
-
-            for (Map.Entry<String, Integer> entry : neighbors.entrySet()) {
-                String neighbor = entry.getKey();
-                Integer weight = entry.getValue();
-
-                int newDist = distMap.get(currentNode) + weight;
-
-                if (newDist < distMap.getOrDefault(neighbor, Integer.MAX_VALUE)) {
-                    distMap.put(neighbor, newDist);
-                    prevMap.put(neighbor, currentNode);
-                    pq.add(new Node(neighbor, newDist));
+            GraphSnapshot g = search.g;
+            int node = g.indexOf(currentNode);
+            // A connection costs what its source branch costs.
+            if (forward) {
+                int newDist = search.distFromSource.get(currentNode) + g.cost(node);
+                int[] delta = g.deltaOut(node);
+                search.statistics.settled(true, g.outEnd(node) - g.outBegin(node) + (delta == null ? 0 : delta.length));
+                for (int e = g.outBegin(node), end = g.outEnd(node); e < end; e++) {
+                    relax(search, g.outTarget(e), newDist, currentNode, true);
+                }
+                if (delta != null) {
+                    for (int v : delta) {
+                        relax(search, v, newDist, currentNode, true);
+                    }
+                }
+            } else {
+                int currentDist = search.distFromTarget.get(currentNode);
+                int[] delta = g.deltaIn(node);
+                search.statistics.settled(false, g.inEnd(node) - g.inBegin(node) + (delta == null ? 0 : delta.length));
+                for (int e = g.inBegin(node), end = g.inEnd(node); e < end; e++) {
+                    int v = g.inSource(e);
+                    relax(search, v, currentDist + g.cost(v), currentNode, false);
+                }
+                if (delta != null) {
+                    for (int v : delta) {
+                        relax(search, v, currentDist + g.cost(v), currentNode, false);
+                    }
                 }
             }
         } catch (Exception e) {
             throw new RuntimeException("Error while processing neighbors: " + e.getMessage(), e);
-        } finally {
-            readLock.unlock();
         }
     }
 
-    /**
-     * Retrieves reverse neighbors for a given node.
-     *
-     * @param node The node for which to find reverse neighbors.
-     * @return A map of reverse neighbors and their costs.
-     */
-    private Map<String, Integer> getReverseNeighbors(String node) {
-        readLock.lock();
-        Map<String, Integer> reverseNeighbors = new HashMap<>();
-        try {
-            for (Map.Entry<String, Map<String, Integer>> entry : graph.entrySet()) {
-                String neighbor = entry.getKey();
-                Map<String, Integer> neighbors = entry.getValue();
-                if (neighbors.containsKey(node)) {
-                    reverseNeighbors.put(neighbor, neighbors.get(node));
-                }
+    private void relax(Search search, int neighborIndex, int newDist, String currentNode, boolean forward) {
+        String neighbor = search.g.nameOf(neighborIndex);
+        Map<String, Integer> distMap = forward ? search.distFromSource : search.distFromTarget;
+        if (newDist < distMap.getOrDefault(neighbor, Integer.MAX_VALUE)) {
+            distMap.put(neighbor, newDist);
+            (forward ? search.prevFromSource : search.prevFromTarget).put(neighbor, currentNode);
+            (forward ? search.pqFromSource : search.pqFromTarget).add(new Node(neighbor, search.key(neighborIndex, newDist, forward)));
+            search.statistics.pushed(forward);
+            Integer other = (forward ? search.distFromTarget : search.distFromSource).get(neighbor);
+            if (other != null && newDist + other < search.best) {
+                search.best = newDist + other;
+                search.meetingPoint = neighbor;
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Error while getting reverse neighbors: " + e.getMessage(), e);
-        }finally {
-            readLock.unlock();
         }
-        return reverseNeighbors;
     }
-
     /**
      * Constructs the path from the source to the destination branch using the maps of previous nodes.
      *
@@ -265,4 +257,44 @@ public class BidirectionalDijkstraPaymentService implements PaymentService {
 
         return String.join(",", path);
     }
+
+    /**
+     * State of one query: both searches, the cheapest meeting point found so far and the search statistics.
+     */
+    private static final class Search {
+        final GraphSnapshot g;
+        final int origin;
+        final int destination;
+        final LandmarkIndex landmarks;
+        final Map<String, Integer> distFromSource = new HashMap<>();
+        final Map<String, Integer> distFromTarget = new HashMap<>();
+        final Map<String, String> prevFromSource = new HashMap<>();
+        final Map<String, String> prevFromTarget = new HashMap<>();
+        final PriorityQueue<Node> pqFromSource = new PriorityQueue<>();
+        final PriorityQueue<Node> pqFromTarget = new PriorityQueue<>();
+        final SearchStatistics statistics = new SearchStatistics();
+        int best = Integer.MAX_VALUE;
+        String meetingPoint;
+        int settled;
+        String path;
+
+        Search(GraphSnapshot g, int origin, int destination, LandmarkIndex landmarks) {
+            this.g = g;
+            this.origin = origin;
+            this.destination = destination;
+            this.landmarks = landmarks;
+        }
+
+        /**
+         * Queue key of a node: its distance, or with landmarks twice its distance plus (forward) or minus
+         * (backward) its potential.
+         */
+        int key(int node, int distance, boolean forward) {
+            if (landmarks == null) {
+                return distance;
+            }
+            long potential = landmarks.potential(node, origin, destination);
+            return (int) (2L * distance + (forward ? potential : -potential));
+        }
+    }
 }
@@ -0,0 +1,167 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Pojo.AlternativeRoute;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteTree;
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded route cache in front of the active routing engine.
+ * Entries are keyed by topology version as well as origin and destination, so once {@code addBranch},
+ * {@code updateBranchCosts} or {@code addConnections} bumps the version no stale path can be served;
+ * superseded entries are simply never read again and age out under the size and time limits. Hit, miss
+ * and eviction counts are published to the actuator as the {@code routes} cache.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("${payment.cache.enabled:true} and !${payment.partitions.enabled:false}")
+public class CachingPaymentService implements PaymentService {
+
+    private final PaymentService delegate;
+    private final Cache<RouteKey, CachedRoute> cache;
+
+    @Autowired
+    public CachingPaymentService(AbstractGraphPaymentService delegate,
+                                 @Value("${payment.cache.maximum-size:100000}") long maximumSize,
+                                 @Value("${payment.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                 MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, expireAfterWrite);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "routes");
+    }
+
+    public CachingPaymentService(PaymentService delegate, long maximumSize, Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached path for the current topology version, computing and caching it on a miss.
+     * "No path" results are cached as well.
+     *
+     * @param originBranch The starting branch.
+     * @param destinationBranch The target branch.
+     * @return A string representing the optimal path, or null if no path exists.
+     */
+    @Override
+    public String processPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty()
+                || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        // Read before searching: if the topology moves on mid-search the entry is filed under the older
+        // version and can never be served for the newer one.
+        RouteKey key = new RouteKey(delegate.getTopologyVersion(), originBranch, destinationBranch);
+        CachedRoute cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.path();
+        }
+        String path = delegate.processPayment(originBranch, destinationBranch);
+        cache.put(key, new CachedRoute(path));
+        return path;
+    }
+
+    /**
+     * Explanations go straight to the engine, so that they describe a real search.
+     */
+    @Override
+    public RouteExplanation explainPayment(String originBranch, String destinationBranch) {
+        return delegate.explainPayment(originBranch, destinationBranch);
+    }
+
+    /**
+     * Batches go straight to the engine, which answers them from shared shortest-path trees.
+     */
+    @Override
+    public List<String> processPayments(List<RouteRequest> requests) {
+        return delegate.processPayments(requests);
+    }
+
+    /**
+     * Alternative routes are asked for when a route has failed, so they go straight to the engine as well.
+     */
+    @Override
+    public List<AlternativeRoute> alternativeRoutes(String originBranch, String destinationBranch, int k,
+                                                    Set<String> excludedBranches) {
+        return delegate.alternativeRoutes(originBranch, destinationBranch, k, excludedBranches);
+    }
+
+    /**
+     * Whole trees are too large to cache next to single routes; they go straight to the engine.
+     */
+    @Override
+    public RouteTree shortestPathTree(String originBranch) {
+        return delegate.shortestPathTree(originBranch);
+    }
+
+    @Override
+    public ResponseEntity<String> addBranch(String branch, int cost) {
+        return delegate.addBranch(branch, cost);
+    }
+
+    @Override
+    public ResponseEntity<String> updateBranchCosts(Map<String, Integer> costs) {
+        return delegate.updateBranchCosts(costs);
+    }
+
+    @Override
+    public ResponseEntity<String> addConnections(String from, String to) {
+        return delegate.addConnections(from, to);
+    }
+
+    @Override
+    public ImportSummary importTopology(Reader payload, ImportFormat format) throws IOException {
+        return delegate.importTopology(payload, format);
+    }
+
+    @Override
+    public ImportSummary getImportProgress() {
+        return delegate.getImportProgress();
+    }
+
+    @Override
+    public ResponseEntity<String> exportSnapshot() {
+        return delegate.exportSnapshot();
+    }
+
+    @Override
+    public long getTopologyVersion() {
+        return delegate.getTopologyVersion();
+    }
+
+    /**
+     * Exposes the underlying cache, mainly for statistics.
+     */
+    public Cache<?, ?> getCache() {
+        return cache;
+    }
+
+    private record RouteKey(long version, String origin, String destination) {
+    }
+
+    private record CachedRoute(String path) {
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.ContractionHierarchy;
+import com.example.PaymentOptimizationAlgorithm.Graph.DynamicShortestPathTree;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.RouteTable;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Payment service that answers queries from a customizable {@link ContractionHierarchy}.
+ * The hierarchy is prepared in the background on a fork-join pool whenever the topology version moves on;
+ * until it is ready, queries are answered by the CSR engine's bidirectional Dijkstra search. Branch-cost
+ * changes only re-customize the existing hierarchy, while new branches or connections contract it again,
+ * so the engine suits networks whose connections change rarely. Enabled with {@code payment.engine=ch}.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.engine", havingValue = "ch")
+public class ContractionHierarchyPaymentService extends CsrPaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractionHierarchyPaymentService.class);
+
+    private final BackgroundIndex<ContractionHierarchy> hierarchy =
+            new BackgroundIndex<>("preparing contraction hierarchy", ContractionHierarchy::version);
+    private int maxArcsPerConnection = 8;
+    // Last snapshot whose topology could not be contracted within the arc limit; not retried until it changes.
+    private volatile GraphSnapshot abandoned;
+
+    public ContractionHierarchyPaymentService() {
+        this(GraphStore.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    @Autowired
+    public ContractionHierarchyPaymentService(@Value("${payment.graph.compaction-threshold:4096}") int compactionThreshold) {
+        super(compactionThreshold);
+    }
+
+    /**
+     * Sets how many arcs, original and shortcut, the hierarchy may have per connection before contraction gives
+     * up and the plain search keeps serving queries.
+     */
+    @Value("${payment.ch.max-arcs-per-connection:8}")
+    public void setMaxArcsPerConnection(int maxArcsPerConnection) {
+        this.maxArcsPerConnection = maxArcsPerConnection;
+    }
+
+    @Override
+    protected AbstractGraphPaymentService createEngine(int compactionThreshold) {
+        ContractionHierarchyPaymentService engine = new ContractionHierarchyPaymentService(compactionThreshold);
+        engine.setMaxArcsPerConnection(maxArcsPerConnection);
+        return engine;
+    }
+
+    /**
+     * Processes a payment from an origin branch to a destination branch with an upward search in the
+     * contraction hierarchy, or with bidirectional Dijkstra while the hierarchy is being prepared. Identical queries
+     * running at the same time share one search.
+     *
+     * @param originBranch The starting branch.
+     * @param destinationBranch The target branch.
+     * @return A string representing the optimal path, or null if no path exists.
+     */
+    @Override
+    public String processPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        if (originBranch.equals(destinationBranch)) {
+            return originBranch;
+        }
+
+        long started = System.nanoTime();
+        try {
+            GraphSnapshot g = graphStore.snapshot();
+            RouteTable table = routeTableFor(g);
+            if (table != null) {
+                return table.route(originBranch, destinationBranch);
+            }
+            DynamicShortestPathTree tree = hotOriginTree(originBranch);
+            if (tree != null) {
+                return tree.route(graphStore, g, destinationBranch);
+            }
+            ContractionHierarchy ch = hierarchyFor(g);
+            if (ch == null) {
+                return coalesced(g, originBranch, destinationBranch, () -> searchPayment(g, originBranch, destinationBranch));
+            }
+            int source = g.indexOf(originBranch);
+            int target = g.indexOf(destinationBranch);
+            if (source < 0 || target < 0 || provablyUnreachable(g, source, target)) {
+                return null;
+            }
+            return coalesced(g, originBranch, destinationBranch,
+                    () -> upwardSearch(g, ch, source, target, originBranch, destinationBranch));
+        } finally {
+            routingMetrics.recordQuery(System.nanoTime() - started);
+        }
+    }
+
+    private String upwardSearch(GraphSnapshot g, ContractionHierarchy ch, int source, int target, String originBranch,
+                                String destinationBranch) {
+        SearchContext context = searchContexts.acquire();
+        long started = System.nanoTime();
+        try {
+            return ch.route(g, context, source, target);
+        } catch (Exception e) {
+            throw new RuntimeException("Error while processing payment: " + e.getMessage(), e);
+        } finally {
+            routingMetrics.recordSearch(originBranch, destinationBranch, context.statistics(), System.nanoTime() - started);
+            searchContexts.release(context);
+        }
+    }
+
+    /**
+     * Routes one payment like {@link #processPayment} and reports how many nodes the upward search settled.
+     */
+    @Override
+    public RouteExplanation explainPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        ContractionHierarchy ch = hierarchyFor(g);
+        int source = g.indexOf(originBranch);
+        int target = g.indexOf(destinationBranch);
+        if (ch == null || originBranch.equals(destinationBranch) || source < 0 || target < 0) {
+            return super.explainPayment(originBranch, destinationBranch);
+        }
+
+        SearchContext context = searchContexts.acquire();
+        try {
+            String path = ch.route(g, context, source, target);
+            return explanation(g, originBranch, destinationBranch, path, context.settledCount(), false);
+        } catch (Exception e) {
+            throw new RuntimeException("Error while processing payment: " + e.getMessage(), e);
+        } finally {
+            searchContexts.release(context);
+        }
+    }
+
+    /**
+     * Returns the hierarchy for a snapshot, or null if it is not ready; a missing or stale hierarchy starts
+     * its preparation in the background.
+     */
+    private ContractionHierarchy hierarchyFor(GraphSnapshot g) {
+        ContractionHierarchy ch = hierarchy.get();
+        if (ch != null && ch.version() == g.version()) {
+            return ch;
+        }
+        GraphSnapshot failed = abandoned;
+        if (failed != null && ContractionHierarchy.sameTopology(failed, g)) {
+            return null;
+        }
+        hierarchy.refreshInBackground(preprocessingPool, this::prepareHierarchy);
+        return null;
+    }
+
+    /**
+     * Brings the hierarchy up to the current topology version, re-customizing it if only costs changed and
+     * contracting it again otherwise. Runs until the hierarchy matches the latest version.
+     *
+     * @return The current hierarchy, or null if the network cannot be contracted within the arc limit.
+     */
+    public ContractionHierarchy prepareHierarchy() {
+        while (true) {
+            GraphSnapshot g = graphStore.snapshot();
+            ContractionHierarchy current = hierarchy.get();
+            if (current != null && current.version() == g.version()) {
+                return current;
+            }
+            GraphSnapshot failed = abandoned;
+            if (failed != null && ContractionHierarchy.sameTopology(failed, g)) {
+                return null;
+            }
+
+            long started = System.nanoTime();
+            ContractionHierarchy next;
+            if (current != null && current.hasTopologyOf(g)) {
+                next = current.customize(g, preprocessingPool);
+                log.debug("Customized contraction hierarchy for topology version {} in {} ms",
+                        g.version(), (System.nanoTime() - started) / 1_000_000);
+            } else {
+                long maxArcs = (long) maxArcsPerConnection * Math.max(g.edgeCount(), g.nodeCount());
+                next = ContractionHierarchy.contract(g, preprocessingPool, maxArcs);
+                if (next == null) {
+                    abandoned = g;
+                    log.warn("Contraction of {} branches exceeded {} arcs; routing with Dijkstra instead",
+                            g.nodeCount(), maxArcs);
+                    return null;
+                }
+                log.info("Contracted {} branches and {} connections into {} arcs in {} ms, topology version {}",
+                        g.nodeCount(), g.edgeCount(), next.arcCount(), (System.nanoTime() - started) / 1_000_000,
+                        g.version());
+            }
+            hierarchy.set(next);
+        }
+    }
+}
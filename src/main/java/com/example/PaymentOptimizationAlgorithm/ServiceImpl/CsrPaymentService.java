@@ -0,0 +1,247 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Graph.DynamicShortestPathTree;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.LandmarkIndex;
+import com.example.PaymentOptimizationAlgorithm.Graph.NodeQueue;
+import com.example.PaymentOptimizationAlgorithm.Graph.RouteTable;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchStatistics;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Payment service backed by an integer-indexed compressed-sparse-row graph.
+ * Branch ids are interned to dense ints and the bidirectional search runs over primitive distance and
+ * predecessor arrays held in a pooled {@link SearchContext}, so a steady-state query allocates only its
+ * result. Enabled with {@code payment.engine=csr}.
+ */
+@Service
+@ConditionalOnProperty(name = "payment.engine", havingValue = "csr")
+public class CsrPaymentService extends AbstractGraphPaymentService {
+
+    private static final long UNREACHED = SearchContext.UNREACHED;
+
+    public CsrPaymentService() {
+        this(GraphStore.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    @Autowired
+    public CsrPaymentService(@Value("${payment.graph.compaction-threshold:4096}") int compactionThreshold) {
+        super(compactionThreshold);
+    }
+
+    @Override
+    protected AbstractGraphPaymentService createEngine(int compactionThreshold) {
+        return new CsrPaymentService(compactionThreshold);
+    }
+
+    /**
+     * Processes a payment from an origin branch to a destination branch using Bidirectional Dijkstra's algorithm,
+     * goal-directed by landmark potentials when {@code payment.alt.landmarks} is set and the landmarks are
+     * current. Identical queries running at the same time share one search.
+     *
+     * @param originBranch The starting branch.
+     * @param destinationBranch The target branch.
+     * @return A string representing the optimal path, or null if no path exists.
+     */
+    @Override
+    public String processPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        if (originBranch.equals(destinationBranch)) {
+            return originBranch;
+        }
+
+        long started = System.nanoTime();
+        try {
+            GraphSnapshot g = graphStore.snapshot();
+            RouteTable table = routeTableFor(g);
+            if (table != null) {
+                return table.route(originBranch, destinationBranch);
+            }
+            DynamicShortestPathTree tree = hotOriginTree(originBranch);
+            if (tree != null) {
+                return tree.route(graphStore, g, destinationBranch);
+            }
+            return coalesced(g, originBranch, destinationBranch, () -> searchPayment(g, originBranch, destinationBranch));
+        } finally {
+            routingMetrics.recordQuery(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Routes one payment on a snapshot with bidirectional Dijkstra, goal-directed if landmarks are current.
+     *
+     * @return The comma-separated path, or null if either branch is unknown or no path exists.
+     */
+    protected String searchPayment(GraphSnapshot g, String originBranch, String destinationBranch) {
+        int source = g.indexOf(originBranch);
+        int target = g.indexOf(destinationBranch);
+        if (source < 0 || target < 0 || provablyUnreachable(g, source, target)) {
+            return null;
+        }
+
+        SearchContext context = searchContexts.acquire();
+        long started = System.nanoTime();
+        try {
+            return search(g, context, source, target, landmarksFor(g), searchBudget());
+        } catch (SearchBudgetExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error while processing payment: " + e.getMessage(), e);
+        } finally {
+            routingMetrics.recordSearch(originBranch, destinationBranch, context.statistics(), System.nanoTime() - started);
+            searchContexts.release(context);
+        }
+    }
+
+    /**
+     * Routes one payment like {@link #processPayment} and reports how much of the network the search settled.
+     */
+    @Override
+    public RouteExplanation explainPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        int source = g.indexOf(originBranch);
+        int target = g.indexOf(destinationBranch);
+        if (originBranch.equals(destinationBranch) || source < 0 || target < 0) {
+            return explanation(g, originBranch, destinationBranch, source < 0 || target < 0 ? null : originBranch, 0, false);
+        }
+        if (provablyUnreachable(g, source, target)) {
+            return explanation(g, originBranch, destinationBranch, null, 0, false);
+        }
+
+        LandmarkIndex landmarks = landmarksFor(g);
+        SearchContext context = searchContexts.acquire();
+        long started = System.nanoTime();
+        try {
+            String path = search(g, context, source, target, landmarks, searchBudget());
+            return explanation(g, originBranch, destinationBranch, path, context.settledCount(), landmarks != null);
+        } catch (SearchBudgetExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error while processing payment: " + e.getMessage(), e);
+        } finally {
+            routingMetrics.recordSearch(originBranch, destinationBranch, context.statistics(), System.nanoTime() - started);
+            searchContexts.release(context);
+        }
+    }
+
+    /**
+     * Runs a bidirectional search that stops once the two queue heads together reach the best meeting cost
+     * found so far. Without landmarks the queues are keyed by distance, and are integer queues chosen from the
+     * largest branch cost; with them the forward queue is keyed
+     * by {@code 2 * d(s, v) + p(v)} and the backward queue by {@code 2 * d(v, t) - p(v)}, whose sum is still
+     * twice the length of the path through {@code v}, so the same rule applies to twice the best cost.
+     * A search that exhausts its budget first throws, carrying the best path met so far.
+     */
+    private String search(GraphSnapshot g, SearchContext context, int source, int target, LandmarkIndex landmarks,
+                          SearchBudget budget) {
+        if (landmarks == null) {
+            context.resetForDistances(g.nodeCount(), g.maxCost());
+        } else {
+            context.reset(g.nodeCount());
+        }
+        NodeQueue forward = context.forwardQueue();
+        NodeQueue backward = context.backwardQueue();
+        SearchStatistics statistics = context.statistics();
+        int scale = landmarks == null ? 1 : 2;
+        context.reachForward(source, 0, -1);
+        context.reachBackward(target, 0, -1);
+        forward.insertOrDecrease(source, landmarks == null ? 0 : landmarks.potential(source, source, target));
+        backward.insertOrDecrease(target, landmarks == null ? 0 : -landmarks.potential(target, source, target));
+
+        long best = UNREACHED;
+        int meetingPoint = -1;
+        while (!forward.isEmpty() && !backward.isEmpty()) {
+            if (best != UNREACHED && forward.peekKey() + backward.peekKey() >= scale * best) {
+                break;
+            }
+            if (budget.isExhausted(context.settledCount())) {
+                throw new SearchBudgetExceededException(meetingPoint < 0 ? null : context.buildPath(g, meetingPoint),
+                        context.settledCount());
+            }
+            if (forward.peekKey() <= backward.peekKey()) {
+                int u = forward.poll();
+                context.countSettled();
+                int[] delta = g.deltaOut(u);
+                statistics.settled(true, g.outEnd(u) - g.outBegin(u) + (delta == null ? 0 : delta.length));
+                long nd = context.forwardDistance(u) + g.cost(u);
+                for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                    int v = g.outTarget(e);
+                    if (nd < context.forwardDistance(v)) {
+                        context.reachForward(v, nd, u);
+                        forward.insertOrDecrease(v, landmarks == null ? nd : 2 * nd + landmarks.potential(v, source, target));
+                        statistics.pushed(true);
+                        long other = context.backwardDistance(v);
+                        if (other != UNREACHED && nd + other < best) {
+                            best = nd + other;
+                            meetingPoint = v;
+                        }
+                    }
+                }
+                if (delta != null) {
+                    for (int v : delta) {
+                        if (nd < context.forwardDistance(v)) {
+                            context.reachForward(v, nd, u);
+                            forward.insertOrDecrease(v, landmarks == null ? nd : 2 * nd + landmarks.potential(v, source, target));
+                            statistics.pushed(true);
+                            long other = context.backwardDistance(v);
+                            if (other != UNREACHED && nd + other < best) {
+                                best = nd + other;
+                                meetingPoint = v;
+                            }
+                        }
+                    }
+                }
+            } else {
+                int u = backward.poll();
+                context.countSettled();
+                int[] delta = g.deltaIn(u);
+                statistics.settled(false, g.inEnd(u) - g.inBegin(u) + (delta == null ? 0 : delta.length));
+                long d = context.backwardDistance(u);
+                for (int e = g.inBegin(u), end = g.inEnd(u); e < end; e++) {
+                    int v = g.inSource(e);
+                    long nd = d + g.cost(v);
+                    if (nd < context.backwardDistance(v)) {
+                        context.reachBackward(v, nd, u);
+                        backward.insertOrDecrease(v, landmarks == null ? nd : 2 * nd - landmarks.potential(v, source, target));
+                        statistics.pushed(false);
+                        long other = context.forwardDistance(v);
+                        if (other != UNREACHED && nd + other < best) {
+                            best = nd + other;
+                            meetingPoint = v;
+                        }
+                    }
+                }
+                if (delta != null) {
+                    for (int v : delta) {
+                        long nd = d + g.cost(v);
+                        if (nd < context.backwardDistance(v)) {
+                            context.reachBackward(v, nd, u);
+                            backward.insertOrDecrease(v, landmarks == null ? nd : 2 * nd - landmarks.potential(v, source, target));
+                            statistics.pushed(false);
+                            long other = context.forwardDistance(v);
+                            if (other != UNREACHED && nd + other < best) {
+                                best = nd + other;
+                                meetingPoint = v;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return meetingPoint < 0 ? null : context.buildPath(g, meetingPoint);
+    }
+}
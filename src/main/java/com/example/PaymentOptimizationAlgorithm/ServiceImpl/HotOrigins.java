@@ -0,0 +1,79 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.DynamicShortestPathTree;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts queries per origin branch and keeps a {@link DynamicShortestPathTree} for the most frequent ones.
+ * Counts are halved at every selection, so the set follows shifts in traffic within a few intervals.
+ */
+final class HotOrigins {
+
+    // Beyond this many distinct origins per interval, new origins are not counted until the next selection.
+    private static final int MAX_TRACKED = 65_536;
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private volatile Map<String, DynamicShortestPathTree> trees = Map.of();
+
+    /**
+     * Counts a query and returns the tree of its origin, or null if the origin is not hot.
+     */
+    DynamicShortestPathTree record(String originBranch) {
+        LongAdder count = counts.get(originBranch);
+        if (count == null && counts.size() < MAX_TRACKED) {
+            count = counts.computeIfAbsent(originBranch, k -> new LongAdder());
+        }
+        if (count != null) {
+            count.increment();
+        }
+        return trees.get(originBranch);
+    }
+
+    /**
+     * Picks the most queried origins, keeping the trees of those that stay hot and growing trees for new ones.
+     *
+     * @param limit      The number of hot origins.
+     * @param minQueries The decayed query count an origin needs to qualify.
+     * @param g          The snapshot new trees are grown on.
+     * @return The selected origins, most queried first.
+     */
+    List<String> select(int limit, long minQueries, GraphSnapshot g) {
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count >= minQueries) {
+                ranked.add(Map.entry(entry.getKey(), count));
+            }
+            if (count / 2 > 0) {
+                entry.getValue().add(count / 2);
+            } else {
+                counts.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        ranked.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+
+        Map<String, DynamicShortestPathTree> current = trees;
+        Map<String, DynamicShortestPathTree> selected = new ConcurrentHashMap<>();
+        List<String> origins = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            String origin = entry.getKey();
+            DynamicShortestPathTree tree = current.get(origin);
+            selected.put(origin, tree != null ? tree : new DynamicShortestPathTree(origin, g));
+            origins.add(origin);
+        }
+        trees = selected;
+        return origins;
+    }
+
+    void clear() {
+        counts.clear();
+        trees = Map.of();
+    }
+}
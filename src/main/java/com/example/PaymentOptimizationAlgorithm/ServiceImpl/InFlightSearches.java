@@ -0,0 +1,108 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of payment searches. The first query for an origin, destination and topology
+ * version runs the search; identical queries arriving while it runs wait for its result instead of searching
+ * again. The version is that of the snapshot the search runs on, so a query that sees a newer topology never
+ * joins a search of an older one. An entry lives only as long as its search, and at most about
+ * {@code maxInFlight} searches are open for joining at a time; beyond that, queries search on their own.
+ */
+final class InFlightSearches {
+
+    private final Map<FlightKey, CompletableFuture<String>> flights = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Runs a search or joins the identical one in flight.
+     *
+     * @param version     The version of the snapshot the search runs on.
+     * @param maxInFlight How many searches may be open for joining; 0 disables coalescing.
+     * @param budget      The caller's budget, which bounds how long it waits for another caller's search.
+     * @param metrics     Counts the searches saved.
+     * @param search      The search; runs on the calling thread if it leads.
+     * @return The path, or null if there is none.
+     */
+    String route(long version, String originBranch, String destinationBranch, int maxInFlight, SearchBudget budget,
+                 RoutingMetrics metrics, Supplier<String> search) {
+        if (maxInFlight == 0) {
+            return search.get();
+        }
+        FlightKey key = new FlightKey(version, originBranch, destinationBranch);
+        CompletableFuture<String> flight = flights.get(key);
+        if (flight == null) {
+            if (size.get() >= maxInFlight) {
+                return search.get();
+            }
+            CompletableFuture<String> own = new CompletableFuture<>();
+            flight = flights.putIfAbsent(key, own);
+            if (flight == null) {
+                return lead(key, own, search);
+            }
+        }
+        return follow(flight, budget, metrics, search);
+    }
+
+    /**
+     * Number of searches currently open for joining.
+     */
+    int size() {
+        return size.get();
+    }
+
+    private String lead(FlightKey key, CompletableFuture<String> own, Supplier<String> search) {
+        size.incrementAndGet();
+        try {
+            String path = search.get();
+            own.complete(path);
+            return path;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, own);
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits for the leading search within the caller's own deadline. If the leader ran out of its budget,
+     * which may be tighter than the caller's, the caller searches on its own instead.
+     */
+    private String follow(CompletableFuture<String> flight, SearchBudget budget, RoutingMetrics metrics,
+                          Supplier<String> search) {
+        String path;
+        try {
+            path = flight.get(budget.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new SearchBudgetExceededException(null, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an identical search", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SearchBudgetExceededException) {
+                return search.get();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Error while processing payment: " + e.getCause().getMessage(), e.getCause());
+        }
+        metrics.recordCoalesced();
+        return path;
+    }
+
+    private record FlightKey(long version, String origin, String destination) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PartitionTransport;
+import com.example.PaymentOptimizationAlgorithm.Service.RegionService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every region in this process, each on an engine of its own copied from a template, and calls them
+ * directly.
+ */
+public class InProcessPartitionTransport implements PartitionTransport {
+
+    private final AbstractGraphPaymentService engineTemplate;
+    private final Map<String, RegionPartition> regions = new ConcurrentHashMap<>();
+
+    /**
+     * @param engineTemplate The engine whose kind and settings each region's engine copies.
+     */
+    public InProcessPartitionTransport(AbstractGraphPaymentService engineTemplate) {
+        this.engineTemplate = engineTemplate;
+    }
+
+    @Override
+    public RegionService connect(String region) {
+        return regions.computeIfAbsent(region, r -> new RegionPartition(r, engineTemplate.newInstance()));
+    }
+
+    /**
+     * Returns the regions created so far, keyed by name.
+     */
+    public Map<String, RegionPartition> getRegions() {
+        return regions;
+    }
+}
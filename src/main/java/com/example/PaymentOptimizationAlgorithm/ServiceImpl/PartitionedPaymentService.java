@@ -0,0 +1,512 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.OverlayGraph;
+import com.example.PaymentOptimizationAlgorithm.Graph.RegionPartitioner;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContextPool;
+import com.example.PaymentOptimizationAlgorithm.Pojo.AlternativeRoute;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RegionOverlay;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteTree;
+import com.example.PaymentOptimizationAlgorithm.Service.PartitionTransport;
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.Service.RegionService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Payment service over a network split into regions, in the style of multi-level Dijkstra. Each region is held
+ * by a {@link RegionService} reached through a {@link PartitionTransport}, and publishes an overlay of the
+ * cheapest in-region costs between its boundary branches. A payment is routed by searching the origin's region
+ * up to its boundary, the {@link OverlayGraph} of all regions, and the destination's region from its boundary;
+ * the overlay route is then expanded leg by leg by the regions it passes through.
+ * <p>
+ * Regions come from {@code payment.partitions.region-file} (CSV rows of {@code branch,region}) where it names
+ * one, and from {@link RegionPartitioner} for every other branch. New branches join the smallest region.
+ * Writes go through this service, which keeps the branch-to-region directory and rebuilds the overlay of
+ * changed regions on the next query. A cost update spanning several regions is applied region by region.
+ * Enabled with {@code payment.partitions.enabled=true}, seeded from the selected engine's network.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "payment.partitions.enabled", havingValue = "true")
+public class PartitionedPaymentService implements PaymentService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionedPaymentService.class);
+    private static final long UNREACHED = SearchContext.UNREACHED;
+
+    private final PartitionTransport transport;
+    private final AbstractGraphPaymentService engineTemplate;
+    private final int regionSize;
+    private AbstractGraphPaymentService seed;
+    private Map<String, String> regionAttribute = Map.of();
+    private final Map<String, String> regionOf = new ConcurrentHashMap<>();
+    private final Map<String, Integer> regionSizes = new ConcurrentHashMap<>();
+    private final Set<String> changedRegions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private final SearchContextPool searchContexts = new SearchContextPool();
+    private final AtomicReference<ImportSummary> lastImport = new AtomicReference<>();
+    // Guarded by the lock; the overlay of every region as of its last rebuild.
+    private final Map<String, RegionOverlay> overlays = new HashMap<>();
+    private final Object overlayLock = new Object();
+    private volatile OverlayGraph overlay = OverlayGraph.build(0, List.of());
+
+    @Autowired
+    public PartitionedPaymentService(AbstractGraphPaymentService engine,
+                                     @Value("${payment.partitions.region-size:10000}") int regionSize,
+                                     @Value("${payment.partitions.region-file:}") String regionFile) throws IOException {
+        this(new InProcessPartitionTransport(engine), engine, regionSize);
+        this.seed = engine;
+        if (regionFile != null && !regionFile.isBlank()) {
+            this.regionAttribute = readRegions(Path.of(regionFile));
+        }
+    }
+
+    /**
+     * Creates an empty partitioned network.
+     *
+     * @param transport      The transport to the regions.
+     * @param engineTemplate The engine whose kind and settings are used to read imported networks.
+     * @param regionSize     The most branches {@link RegionPartitioner} puts in one region.
+     */
+    public PartitionedPaymentService(PartitionTransport transport, AbstractGraphPaymentService engineTemplate,
+                                     int regionSize) {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size must be positive.");
+        }
+        this.transport = transport;
+        this.engineTemplate = engineTemplate;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Splits the selected engine's network into regions.
+     * This method is called after the bean has been initialized.
+     */
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (seed != null) {
+            partition(seed.getGraphStore().snapshot(), regionAttribute);
+        }
+    }
+
+    /**
+     * Replaces the whole partitioned network with a network split into regions.
+     *
+     * @param g       The network.
+     * @param regions The region of each branch that has one assigned; the others are partitioned.
+     */
+    public void partition(GraphSnapshot g, Map<String, String> regions) throws IOException {
+        long started = System.nanoTime();
+        int n = g.nodeCount();
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        int[] assigned = new int[n];
+        for (int node = 0; node < n; node++) {
+            String region = regions.get(g.nameOf(node));
+            assigned[node] = region == null ? -1 : ids.computeIfAbsent(region, r -> {
+                names.add(r);
+                return names.size() - 1;
+            });
+        }
+        int[] region = RegionPartitioner.partition(g, assigned, regionSize);
+        for (int node = 0; node < n; node++) {
+            while (region[node] >= names.size()) {
+                String name = "region-" + names.size();
+                while (ids.containsKey(name)) {
+                    name += "_";
+                }
+                ids.put(name, names.size());
+                names.add(name);
+            }
+        }
+
+        StringBuilder[] rows = new StringBuilder[names.size()];
+        Arrays.setAll(rows, r -> new StringBuilder());
+        List<int[]> crossConnections = new ArrayList<>();
+        for (int u = 0; u < n; u++) {
+            rows[region[u]].append("branch,").append(g.nameOf(u)).append(',').append(g.cost(u)).append('\n');
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                addRow(g, region, rows, crossConnections, u, g.outTarget(e));
+            }
+            int[] delta = g.deltaOut(u);
+            if (delta != null) {
+                for (int v : delta) {
+                    addRow(g, region, rows, crossConnections, u, v);
+                }
+            }
+        }
+
+        synchronized (overlayLock) {
+            for (String stale : overlays.keySet()) {
+                if (!ids.containsKey(stale)) {
+                    transport.connect(stale).importTopology(new StringReader(""), ImportFormat.CSV);
+                }
+            }
+            for (int r = 0; r < names.size(); r++) {
+                transport.connect(names.get(r)).importTopology(new StringReader(rows[r].toString()), ImportFormat.CSV);
+            }
+            for (int[] connection : crossConnections) {
+                String from = g.nameOf(connection[0]);
+                String to = g.nameOf(connection[1]);
+                transport.connect(names.get(region[connection[0]])).addCrossConnection(from, to);
+                transport.connect(names.get(region[connection[1]])).addCrossConnection(from, to);
+            }
+            regionOf.clear();
+            regionSizes.clear();
+            for (int node = 0; node < n; node++) {
+                regionOf.put(g.nameOf(node), names.get(region[node]));
+                regionSizes.merge(names.get(region[node]), 1, Integer::sum);
+            }
+            overlays.clear();
+            for (String name : names) {
+                overlays.put(name, transport.connect(name).getOverlay());
+            }
+            changedRegions.clear();
+            overlay = OverlayGraph.build(version.incrementAndGet(), overlays.values());
+        }
+        log.info("Partitioned {} branches into {} regions with {} boundary branches and {} cross-region connections in {} ms",
+                n, names.size(), overlay.nodeCount(), crossConnections.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static void addRow(GraphSnapshot g, int[] region, StringBuilder[] rows, List<int[]> crossConnections,
+                               int u, int v) {
+        if (region[u] == region[v]) {
+            rows[region[u]].append("edge,").append(g.nameOf(u)).append(',').append(g.nameOf(v)).append('\n');
+        } else {
+            crossConnections.add(new int[]{u, v});
+        }
+    }
+
+    /**
+     * Processes a payment from an origin branch to a destination branch through the regions it crosses.
+     *
+     * @param originBranch The starting branch.
+     * @param destinationBranch The target branch.
+     * @return A string representing the optimal path, or null if no path exists.
+     */
+    @Override
+    public String processPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        if (originBranch.equals(destinationBranch)) {
+            return originBranch;
+        }
+        Routed routed = route(originBranch, destinationBranch);
+        return routed == null ? null : routed.path();
+    }
+
+    /**
+     * Routes each pair in turn.
+     *
+     * @param requests The origin/destination pairs to route.
+     * @return The path for each pair in request order, or null where no path exists.
+     */
+    @Override
+    public List<String> processPayments(List<RouteRequest> requests) {
+        for (RouteRequest request : requests) {
+            if (request == null || request.originBranch() == null || request.originBranch().isEmpty()
+                    || request.destinationBranch() == null || request.destinationBranch().isEmpty()) {
+                throw new IllegalArgumentException("Origin and destination branches must be specified.");
+            }
+        }
+        List<String> results = new ArrayList<>(requests.size());
+        for (RouteRequest request : requests) {
+            results.add(processPayment(request.originBranch(), request.destinationBranch()));
+        }
+        return results;
+    }
+
+    /**
+     * Routes one payment like {@link #processPayment} and reports how many overlay nodes the search settled.
+     */
+    @Override
+    public RouteExplanation explainPayment(String originBranch, String destinationBranch) {
+        if (originBranch == null || originBranch.isEmpty() || destinationBranch == null || destinationBranch.isEmpty()) {
+            throw new IllegalArgumentException("Origin and destination branches must be specified.");
+        }
+        long at = version.get();
+        if (originBranch.equals(destinationBranch)) {
+            boolean known = regionOf.containsKey(originBranch);
+            return new RouteExplanation(originBranch, destinationBranch, known ? originBranch : null,
+                    known ? 0L : null, 0, false, at);
+        }
+        Routed routed = route(originBranch, destinationBranch);
+        return new RouteExplanation(originBranch, destinationBranch, routed == null ? null : routed.path(),
+                routed == null ? null : routed.cost(), routed == null ? 0 : routed.settledNodes(), false, at);
+    }
+
+    /**
+     * Not available yet: deviating from an overlay route would need spur searches that cross regions.
+     */
+    @Override
+    public List<AlternativeRoute> alternativeRoutes(String originBranch, String destinationBranch, int k,
+                                                    Set<String> excludedBranches) {
+        throw new UnsupportedOperationException("Alternative routes are not available for a partitioned network.");
+    }
+
+    /**
+     * Not available: a full tree spans every region, which is what partitioning avoids holding in one place.
+     */
+    @Override
+    public RouteTree shortestPathTree(String originBranch) {
+        throw new UnsupportedOperationException("Shortest-path trees are not available for a partitioned network.");
+    }
+
+    private Routed route(String originBranch, String destinationBranch) {
+        OverlayGraph current = currentOverlay();
+        String sourceRegion = regionOf.get(originBranch);
+        String targetRegion = regionOf.get(destinationBranch);
+        if (sourceRegion == null || targetRegion == null) {
+            return null;
+        }
+        RegionService source = transport.connect(sourceRegion);
+        RegionService target = transport.connect(targetRegion);
+        boolean sameRegion = sourceRegion.equals(targetRegion);
+
+        List<String> exits = current.boundary(sourceRegion);
+        List<String> destinations = exits;
+        if (sameRegion) {
+            destinations = new ArrayList<>(exits);
+            destinations.add(destinationBranch);
+        }
+        long[] fromSource = source.distancesFrom(originBranch, destinations);
+        long bound = sameRegion ? fromSource[exits.size()] : UNREACHED;
+        long[] toTarget = target.distancesTo(destinationBranch, current.boundary(targetRegion));
+
+        OverlayGraph.Route route;
+        SearchContext context = searchContexts.acquire();
+        try {
+            route = current.search(context, sourceRegion, Arrays.copyOf(fromSource, exits.size()), targetRegion,
+                    toTarget, bound);
+        } finally {
+            searchContexts.release(context);
+        }
+        if (route == null) {
+            return bound == UNREACHED ? null : new Routed(leg(source, originBranch, destinationBranch), bound, 0);
+        }
+
+        StringBuilder path = new StringBuilder(originBranch);
+        String at = originBranch;
+        String atRegion = sourceRegion;
+        for (int node : route.nodes()) {
+            String next = current.nameOf(node);
+            String nextRegion = current.regionOf(node);
+            if (nextRegion.equals(atRegion)) {
+                appendLeg(path, leg(transport.connect(atRegion), at, next));
+            } else {
+                path.append(',').append(next);
+            }
+            at = next;
+            atRegion = nextRegion;
+        }
+        appendLeg(path, leg(target, at, destinationBranch));
+        return new Routed(path.toString(), route.cost(), route.settledNodes());
+    }
+
+    private static String leg(RegionService region, String from, String to) {
+        if (from.equals(to)) {
+            return from;
+        }
+        String leg = region.route(from, to);
+        if (leg == null) {
+            throw new IllegalStateException("Error while processing payment: no path from " + from + " to " + to
+                    + " in its region; the region changed during the query.");
+        }
+        return leg;
+    }
+
+    private static void appendLeg(StringBuilder path, String leg) {
+        int comma = leg.indexOf(',');
+        if (comma >= 0) {
+            path.append(leg, comma, leg.length());
+        }
+    }
+
+    /**
+     * Returns the overlay for the current version, first fetching the overlays of the regions changed since
+     * the last one.
+     */
+    private OverlayGraph currentOverlay() {
+        OverlayGraph current = overlay;
+        if (current.version() == version.get()) {
+            return current;
+        }
+        synchronized (overlayLock) {
+            // Writers mark their region before bumping the version, so every change counted here is drained.
+            long at = version.get();
+            current = overlay;
+            if (current.version() == at) {
+                return current;
+            }
+            for (Iterator<String> changed = changedRegions.iterator(); changed.hasNext(); ) {
+                String region = changed.next();
+                changed.remove();
+                overlays.put(region, transport.connect(region).getOverlay());
+            }
+            current = OverlayGraph.build(at, overlays.values());
+            overlay = current;
+            return current;
+        }
+    }
+
+    @Override
+    public ResponseEntity<String> addBranch(String branch, int cost) {
+        return addBranch(branch, null, cost);
+    }
+
+    /**
+     * Adds a branch to a given region, or updates the cost of an existing branch.
+     *
+     * @param branch The branch identifier.
+     * @param region The region of a new branch; null puts it in the smallest region.
+     * @param cost   The cost associated with the branch.
+     * @return A response indicating the result of the operation.
+     */
+    public ResponseEntity<String> addBranch(String branch, String region, int cost) {
+        String existing = branch == null ? null : regionOf.get(branch);
+        if (existing != null && region != null && !region.equals(existing)) {
+            return ResponseEntity.badRequest().body("Branch " + branch + " already belongs to region " + existing + ".");
+        }
+        String target = existing != null ? existing : region != null ? region : smallestRegion();
+        ResponseEntity<String> response = transport.connect(target).addBranch(branch, cost);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            if (regionOf.putIfAbsent(branch, target) == null) {
+                regionSizes.merge(target, 1, Integer::sum);
+            }
+            changed(target);
+        }
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<String> updateBranchCosts(Map<String, Integer> costs) {
+        Map<String, Map<String, Integer>> byRegion = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : costs.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() < 0) {
+                return ResponseEntity.badRequest().body("Cost of branch " + entry.getKey() + " must not be negative.");
+            }
+            String region = regionOf.get(entry.getKey());
+            if (region == null) {
+                return ResponseEntity.badRequest().body("Branch " + entry.getKey() + " does not exist.");
+            }
+            byRegion.computeIfAbsent(region, r -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Map<String, Integer>> entry : byRegion.entrySet()) {
+            ResponseEntity<String> response = transport.connect(entry.getKey()).updateBranchCosts(entry.getValue());
+            changed(entry.getKey());
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                return response;
+            }
+        }
+        return ResponseEntity.ok("Costs of " + costs.size() + " branches updated successfully.");
+    }
+
+    @Override
+    public ResponseEntity<String> addConnections(String from, String to) {
+        String fromRegion = from == null ? null : regionOf.get(from);
+        String toRegion = to == null ? null : regionOf.get(to);
+        if (fromRegion == null || toRegion == null) {
+            return ResponseEntity.badRequest().body("Both branches must be added before adding edges.");
+        }
+        if (fromRegion.equals(toRegion)) {
+            ResponseEntity<String> response = transport.connect(fromRegion).addConnection(from, to);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                changed(fromRegion);
+            }
+            return response;
+        }
+        transport.connect(fromRegion).addCrossConnection(from, to);
+        transport.connect(toRegion).addCrossConnection(from, to);
+        changedRegions.add(fromRegion);
+        changed(toRegion);
+        return ResponseEntity.ok("Connection added successfully.");
+    }
+
+    /**
+     * Reads the payload into a standalone network of the template's kind, partitions it and replaces every
+     * region with its share.
+     */
+    @Override
+    public ImportSummary importTopology(Reader payload, ImportFormat format) throws IOException {
+        AbstractGraphPaymentService staging = engineTemplate.newInstance();
+        ImportSummary read = staging.importTopology(payload, format);
+        partition(staging.getGraphStore().snapshot(), regionAttribute);
+        ImportSummary summary = new ImportSummary(false, read.rowsRead(), read.branches(), read.edges(),
+                read.rejectedRows(), read.rejections(), version.get(), read.elapsedMillis());
+        lastImport.set(summary);
+        return summary;
+    }
+
+    @Override
+    public ImportSummary getImportProgress() {
+        return lastImport.get();
+    }
+
+    @Override
+    public ResponseEntity<String> exportSnapshot() {
+        return ResponseEntity.badRequest().body("A partitioned network is persisted by the services of its regions.");
+    }
+
+    @Override
+    public long getTopologyVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns the region a branch belongs to, or null if the branch does not exist.
+     */
+    public String regionOf(String branch) {
+        return regionOf.get(branch);
+    }
+
+    private void changed(String region) {
+        changedRegions.add(region);
+        version.incrementAndGet();
+    }
+
+    private String smallestRegion() {
+        return regionSizes.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse("region-0");
+    }
+
+    private static Map<String, String> readRegions(Path file) throws IOException {
+        Map<String, String> regions = new HashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            int comma = line.indexOf(',');
+            if (comma > 0 && !line.startsWith("#")) {
+                regions.put(line.substring(0, comma).strip(), line.substring(comma + 1).strip());
+            }
+        }
+        return regions;
+    }
+
+    private record Routed(String path, long cost, int settledNodes) {
+    }
+}
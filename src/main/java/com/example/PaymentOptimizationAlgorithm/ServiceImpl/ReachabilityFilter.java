@@ -0,0 +1,98 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.ReachabilityIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Rules out origin/destination pairs without any path before they are searched, using the
+ * {@link ReachabilityIndex} of one engine's topology. An older index is brought forward from the changes since
+ * its version; after an import it is rebuilt in the background, and pairs are searched as before until then.
+ */
+final class ReachabilityFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReachabilityFilter.class);
+
+    private final GraphStore graphStore;
+    private final BackgroundIndex<ReachabilityIndex> index =
+            new BackgroundIndex<>("building reachability index", ReachabilityIndex::version);
+    private volatile boolean enabled = true;
+
+    ReachabilityFilter(GraphStore graphStore) {
+        this.graphStore = graphStore;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            index.set(null);
+        }
+    }
+
+    /**
+     * Tells whether the index proves that no path leads from one branch of a snapshot to another.
+     *
+     * @param executor Where the index is rebuilt if it cannot answer for the snapshot.
+     */
+    boolean excludes(GraphSnapshot g, int source, int target, Executor executor) {
+        ReachabilityIndex current = indexFor(g, executor);
+        return current != null && current.excludes(source, target);
+    }
+
+    /**
+     * Returns the index for a snapshot, or null if the filter is disabled or the index cannot answer for the
+     * snapshot yet.
+     */
+    ReachabilityIndex indexFor(GraphSnapshot g, Executor executor) {
+        if (!enabled) {
+            return null;
+        }
+        ReachabilityIndex current = index.get();
+        if (current != null && current.covers(graphStore, g)) {
+            return current;
+        }
+        index.refreshInBackground(executor, this::refresh);
+        return null;
+    }
+
+    /**
+     * Brings the index up to the current topology version, building it from scratch if there is none yet or
+     * the network was replaced.
+     *
+     * @return The index, or null if the filter is disabled.
+     */
+    ReachabilityIndex refresh() {
+        if (!enabled) {
+            return null;
+        }
+        GraphSnapshot g = graphStore.snapshot();
+        ReachabilityIndex current = index.get();
+        if (current != null && current.covers(graphStore, g)) {
+            return current;
+        }
+        long started = System.nanoTime();
+        ReachabilityIndex built = ReachabilityIndex.build(g);
+        index.publish(built);
+        log.debug("Built reachability index of {} branches for topology version {} in {} ms",
+                g.nodeCount(), built.version(), (System.nanoTime() - started) / 1_000_000);
+        return built;
+    }
+
+    /**
+     * Places a write in the index right away, so that queries do not have to.
+     */
+    void advance() {
+        ReachabilityIndex current = index.get();
+        if (current != null) {
+            current.covers(graphStore, graphStore.snapshot());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteResult;
+import com.example.PaymentOptimizationAlgorithm.Pojo.TopologyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Non-blocking front of the tenants' payment services, for callers that are reactive themselves.
+ * Streamed route requests are searched on a bounded compute scheduler, never on the caller's threads, and
+ * at most {@code maxInFlight} of them are pulled from upstream ahead of the results the caller has taken,
+ * so a slow consumer slows the producer down instead of queueing searches. Topology versions are published
+ * as a stream that a caller can use to invalidate routes it has cached.
+ */
+@Service
+public class ReactiveRoutingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveRoutingService.class);
+
+    private final TenantRegistry tenants;
+    private final Scheduler scheduler;
+    private final int maxInFlight;
+    private final Duration pollInterval;
+
+    /**
+     * @param tenants            The tenants whose networks are routed on.
+     * @param scheduler          The scheduler the searches run on.
+     * @param maxInFlight        The most route requests of one stream searched or buffered at once.
+     * @param pollIntervalMillis How often topology streams look for a new version.
+     */
+    @Autowired
+    public ReactiveRoutingService(TenantRegistry tenants, @Qualifier("routingScheduler") Scheduler scheduler,
+                                  @Value("${payment.reactive.max-in-flight:64}") int maxInFlight,
+                                  @Value("${payment.reactive.topology-poll-interval-ms:100}") long pollIntervalMillis) {
+        if (maxInFlight <= 0 || pollIntervalMillis <= 0) {
+            throw new IllegalArgumentException("In-flight limit and poll interval must be positive.");
+        }
+        this.tenants = tenants;
+        this.scheduler = scheduler;
+        this.maxInFlight = maxInFlight;
+        this.pollInterval = Duration.ofMillis(pollIntervalMillis);
+    }
+
+    /**
+     * Routes a stream of payments. Results are emitted in request order. A pair that cannot be routed, because
+     * a branch is missing, its search ran out of budget or its engine failed, and a null request, yield a
+     * result with an error instead of ending the stream.
+     *
+     * @param tenant        The tenant whose network is searched; null for the default network.
+     * @param requests      The origin/destination pairs to route.
+     * @param timeoutMillis Time each search may take; 0 or less leaves only the engine's configured budget.
+     * @return One result per pair.
+     */
+    public Flux<RouteResult> route(String tenant, Flux<RouteRequest> requests, long timeoutMillis) {
+        return requests.flatMapSequential(request -> Mono.fromCallable(() -> route(tenant, request, timeoutMillis))
+                .subscribeOn(scheduler), maxInFlight, 1);
+    }
+
+    /**
+     * Streams the topology versions of a tenant: the current version first, then every version it moves to
+     * while the tenant is loaded. A subscriber that falls behind only receives the latest version.
+     *
+     * @param tenant The tenant to watch; null for the default network.
+     * @return The versions, without repeats; the stream does not complete.
+     * @throws IllegalArgumentException If the tenant id is malformed.
+     */
+    public Flux<TopologyEvent> topologyChanges(String tenant) {
+        tenants.loadedTopologyVersion(tenant);
+        String name = tenant == null || tenant.isBlank() ? TenantRegistry.DEFAULT_TENANT : tenant;
+        return Flux.interval(Duration.ZERO, pollInterval)
+                .onBackpressureDrop()
+                .map(tick -> tenants.loadedTopologyVersion(tenant))
+                .filter(version -> version >= 0)
+                .distinctUntilChanged()
+                .map(version -> new TopologyEvent(name, version))
+                .onBackpressureLatest();
+    }
+
+    private RouteResult route(String tenant, RouteRequest request, long timeoutMillis) {
+        if (request == null) {
+            return new RouteResult(null, null, null, "Route request must not be null.");
+        }
+        String origin = request.originBranch();
+        String destination = request.destinationBranch();
+        // The request's deadline is bound to this scheduler thread for the one search only.
+        SearchBudget previous = SearchBudget.enter(SearchBudget.of(timeoutMillis, 0));
+        try {
+            return new RouteResult(origin, destination,
+                    tenants.call(tenant, service -> service.processPayment(origin, destination)));
+        } catch (SearchBudgetExceededException | IllegalArgumentException e) {
+            return new RouteResult(origin, destination, null, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            // The response is already streaming, so a failure of one pair must not end it for the others.
+            log.warn("Error while routing {} to {}: {}", origin, destination, e.getMessage(), e);
+            return new RouteResult(origin, destination, null,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            SearchBudget.exit(previous);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.ShortestPathTrees;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportSummary;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RegionOverlay;
+import com.example.PaymentOptimizationAlgorithm.Service.RegionService;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One region of a partitioned network, held by an engine of its own. The engine's network contains only the
+ * region's branches and the connections between them; connections to and from other regions are kept
+ * beside it, in memory. The overlay is computed on demand with one shortest-path tree per boundary branch and
+ * kept until the region changes.
+ */
+public class RegionPartition implements RegionService {
+
+    private static final long UNREACHED = SearchContext.UNREACHED;
+
+    private final AbstractGraphPaymentService engine;
+    private final String region;
+    private final AtomicLong version = new AtomicLong();
+    // Branch -> branches of other regions it connects to.
+    private final Map<String, Set<String>> exits = new ConcurrentHashMap<>();
+    private final Set<String> boundary = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<RegionOverlay> overlay = new AtomicReference<>();
+
+    /**
+     * Creates a region on an engine, which must not be shared with anything else.
+     *
+     * @param region The region.
+     * @param engine The engine holding the region's branches and connections.
+     */
+    public RegionPartition(String region, AbstractGraphPaymentService engine) {
+        this.region = region;
+        this.engine = engine;
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns the overlay for the current version, computing it if the region has changed since the last one.
+     */
+    @Override
+    public RegionOverlay getOverlay() {
+        RegionOverlay current = overlay.get();
+        long v = version.get();
+        if (current != null && current.version() == v) {
+            return current;
+        }
+        GraphSnapshot g = engine.getGraphStore().snapshot();
+        List<String> names = new ArrayList<>(new TreeSet<>(boundary));
+        int k = names.size();
+        int[] nodes = new int[k];
+        for (int i = 0; i < k; i++) {
+            nodes[i] = g.indexOf(names.get(i));
+        }
+        int[] targets = Arrays.stream(nodes).filter(node -> node >= 0).sorted().distinct().toArray();
+        long[] distances = new long[k * k];
+        Arrays.fill(distances, UNREACHED);
+
+        SearchContext context = engine.searchContexts.acquire();
+        try {
+            for (int i = 0; i < k; i++) {
+                if (nodes[i] < 0) {
+                    continue;
+                }
+                ShortestPathTrees.grow(g, context, nodes[i], targets);
+                for (int j = 0; j < k; j++) {
+                    if (nodes[j] >= 0) {
+                        distances[i * k + j] = context.forwardDistance(nodes[j]);
+                    }
+                }
+            }
+        } finally {
+            engine.searchContexts.release(context);
+        }
+
+        List<RegionOverlay.Exit> out = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : exits.entrySet()) {
+            int from = g.indexOf(entry.getKey());
+            if (from >= 0) {
+                for (String to : entry.getValue()) {
+                    out.add(new RegionOverlay.Exit(entry.getKey(), to, g.cost(from)));
+                }
+            }
+        }
+        RegionOverlay computed = new RegionOverlay(region, v, List.copyOf(names), distances, List.copyOf(out));
+        overlay.accumulateAndGet(computed, (old, built) -> old != null && old.version() > built.version() ? old : built);
+        return computed;
+    }
+
+    @Override
+    public long[] distancesFrom(String originBranch, List<String> destinations) {
+        GraphSnapshot g = engine.getGraphStore().snapshot();
+        long[] distances = new long[destinations.size()];
+        Arrays.fill(distances, UNREACHED);
+        int source = g.indexOf(originBranch);
+        if (source < 0) {
+            return distances;
+        }
+        SearchContext context = engine.searchContexts.acquire();
+        try {
+            ShortestPathTrees.grow(g, context, source, indices(g, destinations));
+            for (int i = 0; i < distances.length; i++) {
+                int node = g.indexOf(destinations.get(i));
+                if (node >= 0) {
+                    distances[i] = context.forwardDistance(node);
+                }
+            }
+        } finally {
+            engine.searchContexts.release(context);
+        }
+        return distances;
+    }
+
+    @Override
+    public long[] distancesTo(String destinationBranch, List<String> origins) {
+        GraphSnapshot g = engine.getGraphStore().snapshot();
+        long[] distances = new long[origins.size()];
+        Arrays.fill(distances, UNREACHED);
+        int target = g.indexOf(destinationBranch);
+        if (target < 0) {
+            return distances;
+        }
+        SearchContext context = engine.searchContexts.acquire();
+        try {
+            ShortestPathTrees.growBackward(g, context, target, indices(g, origins));
+            for (int i = 0; i < distances.length; i++) {
+                int node = g.indexOf(origins.get(i));
+                if (node >= 0) {
+                    distances[i] = context.backwardDistance(node);
+                }
+            }
+        } finally {
+            engine.searchContexts.release(context);
+        }
+        return distances;
+    }
+
+    @Override
+    public String route(String originBranch, String destinationBranch) {
+        return engine.processPayment(originBranch, destinationBranch);
+    }
+
+    @Override
+    public ResponseEntity<String> addBranch(String branch, int cost) {
+        ResponseEntity<String> response = engine.addBranch(branch, cost);
+        version.incrementAndGet();
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<String> updateBranchCosts(Map<String, Integer> costs) {
+        ResponseEntity<String> response = engine.updateBranchCosts(costs);
+        version.incrementAndGet();
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<String> addConnection(String from, String to) {
+        ResponseEntity<String> response = engine.addConnections(from, to);
+        version.incrementAndGet();
+        return response;
+    }
+
+    @Override
+    public void addCrossConnection(String from, String to) {
+        GraphSnapshot g = engine.getGraphStore().snapshot();
+        if (g.indexOf(from) >= 0) {
+            exits.computeIfAbsent(from, k -> ConcurrentHashMap.newKeySet()).add(to);
+            boundary.add(from);
+        }
+        if (g.indexOf(to) >= 0) {
+            boundary.add(to);
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    public ImportSummary importTopology(Reader payload, ImportFormat format) throws IOException {
+        exits.clear();
+        boundary.clear();
+        try {
+            return engine.importTopology(payload, format);
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the engine holding the region's branches and connections.
+     */
+    public AbstractGraphPaymentService getEngine() {
+        return engine;
+    }
+
+    private static int[] indices(GraphSnapshot g, List<String> branches) {
+        return branches.stream().mapToInt(g::indexOf).filter(node -> node >= 0).sorted().distinct().toArray();
+    }
+}
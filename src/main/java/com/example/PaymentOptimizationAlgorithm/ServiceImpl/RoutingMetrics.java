@@ -0,0 +1,166 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchStatistics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routing metrics shared by the engines of every tenant, published to the actuator:
+ * <ul>
+ *     <li>{@code payment.route.latency}: latency histogram of single-payment queries, tagged by engine;</li>
+ *     <li>{@code payment.search.settled}, {@code .relaxations} and {@code .pushes}: work of the searches,
+ *     tagged by direction, and {@code payment.search.count};</li>
+ *     <li>{@code payment.search.pruned}: queries answered without a search because no path can exist;</li>
+ *     <li>{@code payment.search.coalesced}: queries that joined an identical search already running;</li>
+ *     <li>{@code payment.lock.wait}: time spent waiting for tenant locks; each engine publishes the wait for
+ *     its own topology writer lock.</li>
+ * </ul>
+ * Searches count into their own {@link SearchStatistics} and add the totals here once per query. The adders
+ * are striped per thread, so engines on many threads do not contend on them. Searches slower than
+ * {@code payment.metrics.slow-query-ms} are logged with their statistics, a sampled fraction of them.
+ */
+@Component
+public class RoutingMetrics implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingMetrics.class);
+
+    private final String engine;
+    private final long slowQueryNanos;
+    private final double slowQuerySampleRate;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder settledForward = new LongAdder();
+    private final LongAdder settledBackward = new LongAdder();
+    private final LongAdder relaxedForward = new LongAdder();
+    private final LongAdder relaxedBackward = new LongAdder();
+    private final LongAdder pushedForward = new LongAdder();
+    private final LongAdder pushedBackward = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder tenantLockAcquisitions = new LongAdder();
+    private final LongAdder tenantLockWaitNanos = new LongAdder();
+    private volatile Timer latency;
+
+    /**
+     * @param engine              The engine tag of the latency histogram.
+     * @param slowQueryMillis     The search time from which a search is logged; 0 disables the log.
+     * @param slowQuerySampleRate The fraction of slow searches that are logged.
+     */
+    @Autowired
+    public RoutingMetrics(@Value("${payment.engine:bidirectional}") String engine,
+                          @Value("${payment.metrics.slow-query-ms:100}") long slowQueryMillis,
+                          @Value("${payment.metrics.slow-query-sample-rate:0.1}") double slowQuerySampleRate) {
+        this.engine = engine;
+        this.slowQueryNanos = slowQueryMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowQueryMillis) : Long.MAX_VALUE;
+        this.slowQuerySampleRate = slowQuerySampleRate;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        latency = Timer.builder("payment.route.latency")
+                .description("Time to route one payment, including route table and hot-origin answers")
+                .tag("engine", engine)
+                .publishPercentileHistogram()
+                .register(registry);
+        FunctionCounter.builder("payment.search.count", searches, LongAdder::sum)
+                .description("Searches run").register(registry);
+        FunctionCounter.builder("payment.search.pruned", pruned, LongAdder::sum)
+                .description("Queries rejected by the reachability index without a search").register(registry);
+        FunctionCounter.builder("payment.search.coalesced", coalesced, LongAdder::sum)
+                .description("Searches saved by joining an identical search in flight").register(registry);
+        counter(registry, "payment.search.settled", "Nodes settled", "forward", settledForward);
+        counter(registry, "payment.search.settled", "Nodes settled", "backward", settledBackward);
+        counter(registry, "payment.search.relaxations", "Connections scanned from settled nodes", "forward", relaxedForward);
+        counter(registry, "payment.search.relaxations", "Connections scanned from settled nodes", "backward", relaxedBackward);
+        counter(registry, "payment.search.pushes", "Nodes queued or requeued at a lower key", "forward", pushedForward);
+        counter(registry, "payment.search.pushes", "Nodes queued or requeued at a lower key", "backward", pushedBackward);
+        FunctionTimer.builder("payment.lock.wait", this, metrics -> metrics.tenantLockAcquisitions.sum(),
+                        metrics -> metrics.tenantLockWaitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for locks; count is every acquisition")
+                .tag("lock", "tenant")
+                .register(registry);
+    }
+
+    /**
+     * Records the latency of one single-payment query.
+     */
+    public void recordQuery(long elapsedNanos) {
+        Timer timer = latency;
+        if (timer != null) {
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Adds the work of one search to the totals and logs the search if it was slow and is sampled.
+     *
+     * @param elapsedNanos The time the search took.
+     */
+    public void recordSearch(String originBranch, String destinationBranch, SearchStatistics statistics,
+                             long elapsedNanos) {
+        searches.increment();
+        settledForward.add(statistics.settledForward());
+        settledBackward.add(statistics.settledBackward());
+        relaxedForward.add(statistics.relaxedForward());
+        relaxedBackward.add(statistics.relaxedBackward());
+        pushedForward.add(statistics.pushedForward());
+        pushedBackward.add(statistics.pushedBackward());
+        if (elapsedNanos >= slowQueryNanos && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+            log.warn("Slow search from {} to {} took {} ms: {}", originBranch, destinationBranch,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), statistics);
+        }
+    }
+
+    /**
+     * Records a query that the reachability index answered without a search.
+     */
+    public void recordUnreachable() {
+        pruned.increment();
+    }
+
+    /**
+     * Records a query that received the result of an identical search instead of running its own.
+     */
+    public void recordCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * Records one acquisition of a tenant lock and how long it was waited for.
+     */
+    public void recordTenantLockWait(long waitNanos) {
+        tenantLockAcquisitions.increment();
+        tenantLockWaitNanos.add(waitNanos);
+    }
+
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    public long getPrunedCount() {
+        return pruned.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static void counter(MeterRegistry registry, String name, String description, String direction,
+                                LongAdder adder) {
+        FunctionCounter.builder(name, adder, LongAdder::sum)
+                .description(description)
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
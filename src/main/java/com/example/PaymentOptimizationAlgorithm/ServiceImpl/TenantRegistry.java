@@ -0,0 +1,463 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Payment networks of independent tenants, each served by an engine of its own: its own snapshots and
+ * write lock, search contexts, accelerators and route cache, so that writes to one tenant never wait for,
+ * or invalidate anything of, another. Requests without a tenant id go to the application's default service.
+ * <p>
+ * Tenants are created on first use, and at most {@code maxTenants} are held at once. With
+ * {@code payment.tenants.directory} set, a tenant idle for longer than the idle timeout is written to
+ * {@code <tenant>.snapshot} in that directory (or checkpointed to its {@code <tenant>.wal} when the write-ahead
+ * log is enabled) and dropped from memory; the next request for it restores it from there. Without a directory
+ * tenants stay in memory. A tenant whose network is still empty after a request, e.g. one that was only read,
+ * is dropped right away, so it leaves nothing behind and does not hold a place.
+ */
+@Service
+public class TenantRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantRegistry.class);
+
+    /**
+     * Tenant id that selects the default service, like a request without a tenant id.
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    // Tenant ids name files in the tenant directory.
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0,63}");
+
+    private final PaymentService defaultService;
+    private final AbstractGraphPaymentService engineTemplate;
+    private final Path directory;
+    private final long idleTimeoutNanos;
+    private final int maxTenants;
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    // Entries of tenants; reserved inside computeIfAbsent so that concurrent first requests cannot exceed the cap.
+    private final AtomicInteger registered = new AtomicInteger();
+    private long cacheMaximumSize;
+    private Duration cacheExpireAfterWrite = Duration.ofMinutes(10);
+    private boolean mutationLogEnabled;
+    private String fsyncPolicy = "always";
+    private RoutingMetrics routingMetrics;
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    public TenantRegistry(PaymentService defaultService, AbstractGraphPaymentService engineTemplate,
+                          @Value("${payment.tenants.directory:}") String directory,
+                          @Value("${payment.tenants.idle-timeout:30m}") Duration idleTimeout,
+                          @Value("${payment.tenants.max-tenants:1024}") int maxTenants) {
+        this(defaultService, engineTemplate,
+                directory == null || directory.isBlank() ? null : Path.of(directory), idleTimeout, maxTenants);
+    }
+
+    /**
+     * Creates a registry whose tenants run engines like a template.
+     *
+     * @param defaultService The service for requests without a tenant id.
+     * @param engineTemplate The engine whose kind and settings each tenant's engine copies.
+     * @param directory      The directory idle tenants are written to, or null to keep every tenant in memory.
+     * @param idleTimeout    How long a tenant must go unused before it is written out.
+     * @param maxTenants     The number of tenants held at once before requests for new ones are rejected.
+     */
+    public TenantRegistry(PaymentService defaultService, AbstractGraphPaymentService engineTemplate, Path directory,
+                          Duration idleTimeout, int maxTenants) {
+        this.defaultService = defaultService;
+        this.engineTemplate = engineTemplate;
+        this.directory = directory;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * Configures the route cache each tenant gets in front of its engine.
+     *
+     * @param enabled          Whether tenants get a cache.
+     * @param maximumSize      The number of routes each tenant's cache holds.
+     * @param expireAfterWrite How long a cached route is kept.
+     */
+    @Autowired
+    public void configureCache(@Value("${payment.cache.enabled:true}") boolean enabled,
+                               @Value("${payment.tenants.cache-maximum-size:10000}") long maximumSize,
+                               @Value("${payment.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cacheMaximumSize = enabled ? Math.max(0, maximumSize) : 0;
+        this.cacheExpireAfterWrite = expireAfterWrite;
+    }
+
+    /**
+     * Gives every tenant a write-ahead log in the tenant directory if the default service has one.
+     *
+     * @param path  The default service's log file; blank if the log is disabled.
+     * @param fsync When appended mutations are forced to disk: always, interval or never.
+     */
+    @Autowired
+    public void configureMutationLog(@Value("${payment.wal.path:}") String path,
+                                     @Value("${payment.wal.fsync:always}") String fsync) {
+        this.mutationLogEnabled = path != null && !path.isBlank() && directory != null;
+        this.fsyncPolicy = fsync;
+    }
+
+    /**
+     * Sets the metrics that the time requests wait for tenant locks is recorded in.
+     */
+    @Autowired(required = false)
+    public void setRoutingMetrics(RoutingMetrics routingMetrics) {
+        this.routingMetrics = routingMetrics;
+    }
+
+    /**
+     * Sets the registry each loaded tenant publishes its network metrics to, tagged with its id.
+     */
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs a call against a tenant's service, restoring the tenant first if it has been evicted. The tenant
+     * cannot be evicted while the call runs.
+     *
+     * @param tenantId The tenant; null, blank or {@value #DEFAULT_TENANT} selects the default service.
+     * @param call     The call to run.
+     * @return The call's result.
+     * @throws IllegalArgumentException If the tenant id is malformed or too many tenants exist.
+     * @throws IOException              If the call throws it.
+     */
+    public <T> T call(String tenantId, TenantCall<T> call) throws IOException {
+        if (tenantId == null || tenantId.isBlank() || tenantId.equals(DEFAULT_TENANT)) {
+            return call.apply(defaultService);
+        }
+        Tenant tenant = tenant(tenantId);
+        Lock read = tenant.lock.readLock();
+        lockForCall(read);
+        while (tenant.service == null) {
+            read.unlock();
+            if (tenant.removed) {
+                // Evicted or dropped since it was looked up; a new entry takes its place.
+                tenant = tenant(tenantId);
+                read = tenant.lock.readLock();
+            } else {
+                load(tenant);
+            }
+            lockForCall(read);
+        }
+        boolean empty;
+        try {
+            tenant.lastUsed = System.nanoTime();
+            return call.apply(tenant.service);
+        } finally {
+            empty = tenant.engine.getTopologyVersion() == 0;
+            read.unlock();
+            if (empty) {
+                dropIfEmpty(tenant);
+            }
+        }
+    }
+
+    /**
+     * Returns true if a tenant's network is currently held in memory.
+     */
+    public boolean isLoaded(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        return tenant != null && tenant.service != null;
+    }
+
+    /**
+     * Returns a tenant's topology version without loading the tenant or counting as a use of it. An evicted
+     * tenant cannot change, so it has no version to report.
+     *
+     * @param tenantId The tenant; null, blank or {@value #DEFAULT_TENANT} selects the default service.
+     * @return The version, or -1 if the tenant is not loaded or is being loaded or evicted.
+     * @throws IllegalArgumentException If the tenant id is malformed.
+     */
+    public long loadedTopologyVersion(String tenantId) {
+        if (tenantId == null || tenantId.isBlank() || tenantId.equals(DEFAULT_TENANT)) {
+            return defaultService.getTopologyVersion();
+        }
+        if (!TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+        Tenant tenant = tenants.get(tenantId);
+        if (tenant == null || !tenant.lock.readLock().tryLock()) {
+            return -1;
+        }
+        try {
+            PaymentService service = tenant.service;
+            return service == null ? -1 : service.getTopologyVersion();
+        } finally {
+            tenant.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes out and drops every tenant that has been idle for longer than the idle timeout. Tenants with a
+     * request in progress are skipped until the next run. Does nothing without a tenant directory.
+     *
+     * @return The number of tenants evicted.
+     */
+    @Scheduled(fixedDelayString = "${payment.tenants.eviction-interval-ms:60000}")
+    public int evictIdleTenants() {
+        if (directory == null) {
+            return 0;
+        }
+        int evicted = 0;
+        for (Tenant tenant : tenants.values()) {
+            if (idle(tenant) && evict(tenant)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Compacts the snapshots of the loaded tenants, as the default service does for its own.
+     */
+    @Scheduled(fixedDelayString = "${payment.graph.compaction-interval-ms:5000}")
+    public void compactTenants() {
+        forEachLoaded("compacting", AbstractGraphPaymentService::compact);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.wal.fsync-interval-ms:100}")
+    public void syncTenantMutationLogs() {
+        forEachLoaded("syncing the mutation log of", AbstractGraphPaymentService::syncMutationLog);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.wal.checkpoint-interval-ms:60000}")
+    public void checkpointTenants() {
+        forEachLoaded("checkpointing", AbstractGraphPaymentService::checkpoint);
+    }
+
+    @Scheduled(fixedDelayString = "${payment.hot-origins.interval-ms:10000}")
+    public void selectTenantHotOrigins() {
+        forEachLoaded("selecting hot origins of", AbstractGraphPaymentService::selectHotOrigins);
+    }
+
+    /**
+     * Writes out every loaded tenant and closes its mutation log.
+     */
+    @PreDestroy
+    public void close() {
+        for (Tenant tenant : tenants.values()) {
+            Lock write = tenant.lock.writeLock();
+            write.lock();
+            try {
+                if (tenant.engine != null) {
+                    tenant.engine.unload();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Error while unloading tenant {}: {}", tenant.id, e.getMessage(), e);
+            } finally {
+                write.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes a tenant's read lock, timing the wait only when a load or eviction holds the lock.
+     */
+    private void lockForCall(Lock read) {
+        if (read.tryLock()) {
+            if (routingMetrics != null) {
+                routingMetrics.recordTenantLockWait(0);
+            }
+            return;
+        }
+        long started = System.nanoTime();
+        read.lock();
+        if (routingMetrics != null) {
+            routingMetrics.recordTenantLockWait(System.nanoTime() - started);
+        }
+    }
+
+    private Tenant tenant(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        if (tenant != null) {
+            return tenant;
+        }
+        if (!TENANT_ID.matcher(tenantId).matches()) {
+            throw new IllegalArgumentException("Invalid tenant id: " + tenantId);
+        }
+        return tenants.computeIfAbsent(tenantId, id -> {
+            if (registered.incrementAndGet() > maxTenants) {
+                registered.decrementAndGet();
+                throw new IllegalArgumentException("No more than " + maxTenants + " tenants can be registered.");
+            }
+            return new Tenant(id);
+        });
+    }
+
+    /**
+     * Takes a tenant out of the registry; the caller holds its write lock and has unloaded its engine.
+     */
+    private void remove(Tenant tenant) {
+        tenant.engine = null;
+        tenant.service = null;
+        tenant.removed = true;
+        if (meterRegistry != null) {
+            tenant.meters.forEach(meterRegistry::remove);
+            tenant.meters = List.of();
+        }
+        if (tenants.remove(tenant.id, tenant)) {
+            registered.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drops a tenant that holds no network, with the empty log or snapshot files its load created. A tenant in
+     * use is left alone; the request using it checks again when it completes.
+     */
+    private void dropIfEmpty(Tenant tenant) {
+        Lock write = tenant.lock.writeLock();
+        if (!write.tryLock()) {
+            return;
+        }
+        try {
+            if (tenant.engine == null || tenant.engine.getTopologyVersion() != 0) {
+                return;
+            }
+            tenant.engine.closeMutationLog();
+            remove(tenant);
+            if (directory != null) {
+                Files.deleteIfExists(directory.resolve(tenant.id + ".wal"));
+                Files.deleteIfExists(directory.resolve(tenant.id + ".snapshot"));
+            }
+            log.debug("Dropped empty tenant {}", tenant.id);
+        } catch (IOException e) {
+            log.warn("Error while dropping empty tenant {}: {}", tenant.id, e.getMessage(), e);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private void load(Tenant tenant) {
+        Lock write = tenant.lock.writeLock();
+        write.lock();
+        try {
+            if (tenant.service != null || tenant.removed) {
+                return;
+            }
+            AbstractGraphPaymentService engine = engineTemplate.newInstance();
+            if (directory != null) {
+                Files.createDirectories(directory);
+                engine.setSnapshotPath(directory.resolve(tenant.id + ".snapshot").toString());
+                if (mutationLogEnabled) {
+                    engine.configureMutationLog(directory.resolve(tenant.id + ".wal").toString(), fsyncPolicy);
+                }
+            }
+            engine.restoreTopology();
+            if (meterRegistry != null) {
+                tenant.meters = engine.bindGraphMetrics(meterRegistry, tenant.id);
+            }
+            tenant.engine = engine;
+            tenant.service = cacheMaximumSize > 0
+                    ? new CachingPaymentService(engine, cacheMaximumSize, cacheExpireAfterWrite) : engine;
+            tenant.lastUsed = System.nanoTime();
+            log.debug("Loaded tenant {} at topology version {}", tenant.id, engine.getTopologyVersion());
+        } catch (IOException e) {
+            throw new RuntimeException("Error while loading tenant " + tenant.id + ": " + e.getMessage(), e);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private boolean evict(Tenant tenant) {
+        Lock write = tenant.lock.writeLock();
+        // A tenant that is being queried is not idle; it is looked at again on the next run.
+        if (!write.tryLock()) {
+            return false;
+        }
+        try {
+            if (tenant.engine == null || !idle(tenant)) {
+                return false;
+            }
+            tenant.engine.unload();
+            log.debug("Evicted tenant {} at topology version {}", tenant.id, tenant.engine.getTopologyVersion());
+            remove(tenant);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Error while evicting tenant {}: {}", tenant.id, e.getMessage(), e);
+            return false;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private boolean idle(Tenant tenant) {
+        return System.nanoTime() - tenant.lastUsed >= idleTimeoutNanos;
+    }
+
+    private void forEachLoaded(String task, EngineTask action) {
+        for (Tenant tenant : tenants.values()) {
+            Lock read = tenant.lock.readLock();
+            // Skip tenants that are being loaded or evicted.
+            if (!read.tryLock()) {
+                continue;
+            }
+            try {
+                if (tenant.engine != null) {
+                    action.run(tenant.engine);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Error while {} tenant {}: {}", task, tenant.id, e.getMessage(), e);
+            } finally {
+                read.unlock();
+            }
+        }
+    }
+
+    /**
+     * A call against one tenant's service.
+     */
+    @FunctionalInterface
+    public interface TenantCall<T> {
+        T apply(PaymentService service) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface EngineTask {
+        void run(AbstractGraphPaymentService engine) throws IOException;
+    }
+
+    /**
+     * One tenant's engine and cache, taken out of the registry when the tenant is evicted or dropped. Requests
+     * hold the read lock; loading, eviction and dropping hold the write lock.
+     */
+    private static final class Tenant {
+        final String id;
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Guarded by lock; null until loaded and once removed.
+        AbstractGraphPaymentService engine;
+        volatile PaymentService service;
+        // Guarded by lock; set once the tenant is evicted or dropped and no longer in the registry.
+        boolean removed;
+        // Guarded by lock; the engine's meters while it is loaded.
+        List<Meter> meters = List.of();
+        volatile long lastUsed = System.nanoTime();
+
+        Tenant(String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.BidirectionalDijkstraPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.ContractionHierarchyPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+
+/**
+ * The routing engines the benchmarks compare, by the name used in their {@code engine} parameter.
+ * A new {@link PaymentService} implementation is benchmarked by adding a case here and its name to the
+ * {@code @Param} lists. The caching decorator is deliberately absent: with a fixed query set it would only
+ * measure cache hits.
+ */
+final class BenchmarkEngines {
+
+    private BenchmarkEngines() {
+    }
+
+    static PaymentService create(String engine) {
+        switch (engine) {
+            case "bidirectional":
+                return new BidirectionalDijkstraPaymentService();
+            case "csr":
+                return new CsrPaymentService();
+            case "ch":
+                return new ContractionHierarchyPaymentService();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    /**
+     * Finishes the preprocessing an engine would otherwise do in the background after a load, so that the
+     * measurement sees the engine in its steady state.
+     */
+    static void prepare(PaymentService paymentService) {
+        if (paymentService instanceof ContractionHierarchyPaymentService hierarchyService) {
+            hierarchyService.prepareHierarchy();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Random;
+
+/**
+ * Synthetic branch network used by the routing benchmarks. Networks are generated from a fixed seed, so every
+ * run and every engine sees the same topology, and are loaded through {@link PaymentService#importTopology}
+ * as a CSV stream so that multi-million-edge networks never exist as one big string.
+ * <ul>
+ *     <li>{@code random}: uniformly random connections, five per branch on average.</li>
+ *     <li>{@code grid}: a square grid with connections both ways between neighbours; long, uniform paths.</li>
+ *     <li>{@code scale-free}: preferential attachment (Barabási–Albert), three links per new branch in both
+ *     directions; a few hub branches carry most connections.</li>
+ * </ul>
+ */
+final class BenchmarkNetwork {
+
+    private static final int SCALE_FREE_LINKS = 3;
+
+    private final int branchCount;
+    private final int[] costs;
+    private final int[] from;
+    private final int[] to;
+
+    private BenchmarkNetwork(int branchCount, int[] costs, int[] from, int[] to) {
+        this.branchCount = branchCount;
+        this.costs = costs;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Generates a network.
+     *
+     * @param shape The topology: {@code random}, {@code grid} or {@code scale-free}.
+     * @param edges The approximate number of connections.
+     * @param seed  The seed for costs and connections.
+     * @return The generated network.
+     */
+    static BenchmarkNetwork generate(String shape, int edges, long seed) {
+        Random random = new Random(seed);
+        switch (shape) {
+            case "random":
+                return random(edges, random);
+            case "grid":
+                return grid(edges, random);
+            case "scale-free":
+                return scaleFree(edges, random);
+            default:
+                throw new IllegalArgumentException("Unknown network shape: " + shape);
+        }
+    }
+
+    static String branch(int index) {
+        return "branch" + index;
+    }
+
+    int branchCount() {
+        return branchCount;
+    }
+
+    int edgeCount() {
+        return from.length;
+    }
+
+    /**
+     * Replaces the network of a service with this one.
+     */
+    void load(PaymentService paymentService) {
+        try {
+            paymentService.importTopology(new CsvReader(), ImportFormat.CSV);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error while loading benchmark network: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Picks origin/destination pairs; {@code pairs[2 * i]} is the origin of query i and {@code pairs[2 * i + 1]}
+     * its destination.
+     */
+    String[] queries(int count, long seed) {
+        Random random = new Random(seed);
+        String[] pairs = new String[count * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = branch(random.nextInt(branchCount));
+        }
+        return pairs;
+    }
+
+    private static BenchmarkNetwork random(int edges, Random random) {
+        int n = Math.max(2, edges / 5);
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            from[e] = random.nextInt(n);
+            to[e] = random.nextInt(n);
+        }
+        return new BenchmarkNetwork(n, costs(n, random), from, to);
+    }
+
+    private static BenchmarkNetwork grid(int edges, Random random) {
+        int side = Math.max(2, (int) Math.sqrt(edges / 4.0));
+        int n = side * side;
+        int[] from = new int[4 * side * (side - 1)];
+        int[] to = new int[from.length];
+        int e = 0;
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int u = row * side + col;
+                if (col + 1 < side) {
+                    from[e] = u; to[e++] = u + 1;
+                    from[e] = u + 1; to[e++] = u;
+                }
+                if (row + 1 < side) {
+                    from[e] = u; to[e++] = u + side;
+                    from[e] = u + side; to[e++] = u;
+                }
+            }
+        }
+        return new BenchmarkNetwork(n, costs(n, random), from, to);
+    }
+
+    private static BenchmarkNetwork scaleFree(int edges, Random random) {
+        int n = Math.max(SCALE_FREE_LINKS + 1, edges / (2 * SCALE_FREE_LINKS));
+        int[] from = new int[2 * SCALE_FREE_LINKS * (n - SCALE_FREE_LINKS)];
+        int[] to = new int[from.length];
+        // Every link contributes both endpoints, so sampling this array picks branches in proportion to degree.
+        int[] endpoints = new int[SCALE_FREE_LINKS + from.length];
+        int endpointCount = 0;
+        for (int u = 0; u < SCALE_FREE_LINKS; u++) {
+            endpoints[endpointCount++] = u;
+        }
+        int e = 0;
+        for (int u = SCALE_FREE_LINKS; u < n; u++) {
+            int available = endpointCount;
+            for (int k = 0; k < SCALE_FREE_LINKS; k++) {
+                int v = endpoints[random.nextInt(available)];
+                from[e] = u; to[e++] = v;
+                from[e] = v; to[e++] = u;
+                endpoints[endpointCount++] = v;
+                endpoints[endpointCount++] = u;
+            }
+        }
+        return new BenchmarkNetwork(n, costs(n, random), from, to);
+    }
+
+    private static int[] costs(int n, Random random) {
+        int[] costs = new int[n];
+        for (int i = 0; i < n; i++) {
+            costs[i] = 5 + random.nextInt(46);
+        }
+        return costs;
+    }
+
+    /**
+     * Renders the network as import rows, one row at a time.
+     */
+    private final class CsvReader extends Reader {
+        private final StringBuilder row = new StringBuilder(64);
+        private int rowPosition;
+        private int nextRow;
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int read = 0;
+            while (read < length) {
+                if (rowPosition == row.length() && !nextRow()) {
+                    break;
+                }
+                int chunk = Math.min(length - read, row.length() - rowPosition);
+                row.getChars(rowPosition, rowPosition + chunk, buffer, offset + read);
+                rowPosition += chunk;
+                read += chunk;
+            }
+            return read == 0 && length > 0 ? -1 : read;
+        }
+
+        private boolean nextRow() {
+            int i = nextRow++;
+            row.setLength(0);
+            rowPosition = 0;
+            if (i < branchCount) {
+                row.append("branch,").append(branch(i)).append(',').append(costs[i]).append('\n');
+            } else if (i < branchCount + from.length) {
+                int e = i - branchCount;
+                row.append("edge,").append(branch(from[e])).append(',').append(branch(to[e])).append('\n');
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
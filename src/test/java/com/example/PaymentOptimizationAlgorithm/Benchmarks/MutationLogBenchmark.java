@@ -0,0 +1,91 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Logged write throughput of 16 writer threads.
+ * {@code groupCommit} lets concurrent writes share one log append and fsync per published version;
+ * {@code perRequestFsync} serializes the callers so that every write pays for its own fsync.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class MutationLogBenchmark {
+
+    @Param({"always", "interval", "never"})
+    private String fsync;
+
+    @Param({"10000"})
+    private int branches;
+
+    private final Object serialWrites = new Object();
+    private Path directory;
+    private CsrPaymentService paymentService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mutation-log-benchmark");
+        paymentService = new CsrPaymentService();
+        paymentService.configureMutationLog(directory.resolve("topology.wal").toString(), fsync);
+        paymentService.initialize();
+        for (int i = 0; i < branches; i++) {
+            paymentService.addBranch("branch" + i, 5);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        paymentService.closeMutationLog();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void syncAndCheckpoint() throws IOException {
+        // Keeps the log from growing across iterations; the interval policy relies on a scheduler that is absent here.
+        paymentService.syncMutationLog();
+        paymentService.checkpoint();
+    }
+
+    @Benchmark
+    public Object groupCommit() {
+        return write();
+    }
+
+    @Benchmark
+    public Object perRequestFsync() {
+        synchronized (serialWrites) {
+            return write();
+        }
+    }
+
+    private Object write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paymentService.addBranch("branch" + random.nextInt(branches), 5 + random.nextInt(46));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MutationLogBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mutation throughput of two writer threads, one adding connections and one repricing branches, while eight
+ * reader threads keep routing. The {@code reads} figure shows what the mutations cost concurrent queries.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class MutationUnderReadBenchmark {
+
+    @Param({"bidirectional", "csr"})
+    private String engine;
+
+    @Param({"random", "grid", "scale-free"})
+    private String shape;
+
+    @Param({"1000", "100000", "5000000"})
+    private int edges;
+
+    private PaymentService paymentService;
+    private int branches;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkNetwork network = BenchmarkNetwork.generate(shape, edges, 42);
+        paymentService = BenchmarkEngines.create(engine);
+        network.load(paymentService);
+        branches = network.branchCount();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(8)
+    public String reads() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paymentService.processPayment(BenchmarkNetwork.branch(random.nextInt(branches)),
+                BenchmarkNetwork.branch(random.nextInt(branches)));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Object addConnections() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paymentService.addConnections(BenchmarkNetwork.branch(random.nextInt(branches)),
+                BenchmarkNetwork.branch(random.nextInt(branches)));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Object repriceBranch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paymentService.addBranch(BenchmarkNetwork.branch(random.nextInt(branches)), 5 + random.nextInt(46));
+    }
+}
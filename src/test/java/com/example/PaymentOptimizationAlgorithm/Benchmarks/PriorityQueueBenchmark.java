@@ -0,0 +1,150 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.BucketQueue;
+import com.example.PaymentOptimizationAlgorithm.Graph.IndexedMinHeap;
+import com.example.PaymentOptimizationAlgorithm.Graph.NodeQueue;
+import com.example.PaymentOptimizationAlgorithm.Graph.RadixHeap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the search queues on full single-source Dijkstra runs over random branch networks with costs from 5
+ * to {@code maxCost}: {@code node} is a {@link PriorityQueue} of boxed entries with lazy deletion, as in the
+ * map-based engine's {@code Node} queue, {@code binary} the {@link IndexedMinHeap}, and {@code radix} and
+ * {@code bucket} the integer queues. The bucket queue only takes {@code maxCost} up to 4096.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriorityQueueBenchmark {
+
+    private static final int AVERAGE_OUT_DEGREE = 5;
+
+    @Param({"node", "binary", "radix", "bucket"})
+    private String queue;
+
+    @Param({"100000", "1000000"})
+    private int edges;
+
+    @Param({"50"})
+    private int maxCost;
+
+    private int[] costs;
+    private int[] offsets;
+    private int[] targets;
+    private long[] dist;
+    private NodeQueue nodeQueue;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int branches = Math.max(2, edges / AVERAGE_OUT_DEGREE);
+        costs = new int[branches];
+        for (int i = 0; i < branches; i++) {
+            costs[i] = 5 + random.nextInt(maxCost - 4);
+        }
+        int[] from = new int[edges];
+        offsets = new int[branches + 1];
+        for (int i = 0; i < edges; i++) {
+            from[i] = random.nextInt(branches);
+            offsets[from[i] + 1]++;
+        }
+        for (int i = 0; i < branches; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        targets = new int[edges];
+        int[] fill = Arrays.copyOf(offsets, branches);
+        for (int i = 0; i < edges; i++) {
+            targets[fill[from[i]]++] = random.nextInt(branches);
+        }
+        dist = new long[branches];
+        nodeQueue = switch (queue) {
+            case "node" -> null;
+            case "binary" -> new IndexedMinHeap();
+            case "radix" -> new RadixHeap();
+            case "bucket" -> new BucketQueue(maxCost);
+            default -> throw new IllegalArgumentException("Unknown queue: " + queue);
+        };
+        if (nodeQueue != null) {
+            nodeQueue.ensureCapacity(branches);
+        }
+    }
+
+    @Benchmark
+    public long shortestPathTree() {
+        int source = next++ % costs.length;
+        Arrays.fill(dist, Long.MAX_VALUE);
+        dist[source] = 0;
+        return nodeQueue == null ? boxed(source) : indexed(source);
+    }
+
+    private long indexed(int source) {
+        NodeQueue q = nodeQueue;
+        q.clear();
+        q.insertOrDecrease(source, 0);
+        long farthest = 0;
+        while (!q.isEmpty()) {
+            long d = q.peekKey();
+            int u = q.poll();
+            farthest = d;
+            long nd = d + costs[u];
+            for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                int v = targets[e];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    q.insertOrDecrease(v, nd);
+                }
+            }
+        }
+        return farthest;
+    }
+
+    private long boxed(int source) {
+        PriorityQueue<Entry> q = new PriorityQueue<>();
+        q.add(new Entry(source, 0));
+        long farthest = 0;
+        while (!q.isEmpty()) {
+            Entry entry = q.poll();
+            int u = entry.node;
+            if (entry.key > dist[u]) {
+                continue;
+            }
+            farthest = entry.key;
+            long nd = entry.key + costs[u];
+            for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                int v = targets[e];
+                if (nd < dist[v]) {
+                    dist[v] = nd;
+                    q.add(new Entry(v, nd));
+                }
+            }
+        }
+        return farthest;
+    }
+
+    private record Entry(int node, long key) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(key, other.key);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PriorityQueueBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
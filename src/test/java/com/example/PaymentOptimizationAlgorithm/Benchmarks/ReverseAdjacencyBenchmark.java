@@ -0,0 +1,70 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.BidirectionalDijkstraPaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single-query latency of {@link BidirectionalDijkstraPaymentService} on random branch networks.
+ * Run it once on this revision and once on its parent to compare the reverse-index lookup with the old
+ * full-graph scan performed on every backward expansion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReverseAdjacencyBenchmark {
+
+    private static final int AVERAGE_OUT_DEGREE = 5;
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    private int edges;
+
+    private PaymentService paymentService;
+    private String[] origins;
+    private String[] destinations;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int branches = Math.max(2, edges / AVERAGE_OUT_DEGREE);
+        paymentService = new BidirectionalDijkstraPaymentService();
+        for (int i = 0; i < branches; i++) {
+            paymentService.addBranch("branch" + i, 5 + random.nextInt(46));
+        }
+        for (int i = 0; i < edges; i++) {
+            paymentService.addConnections("branch" + random.nextInt(branches), "branch" + random.nextInt(branches));
+        }
+
+        origins = new String[QUERY_COUNT];
+        destinations = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            origins[i] = "branch" + random.nextInt(branches);
+            destinations[i] = "branch" + random.nextInt(branches);
+        }
+    }
+
+    @Benchmark
+    public String processPayment() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return paymentService.processPayment(origins[i], destinations[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReverseAdjacencyBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the routing regression suite: {@link RoutingLatencyBenchmark}, {@link RoutingThroughputBenchmark} and
+ * {@link MutationUnderReadBenchmark}, with the GC profiler for allocation rates, writing JSON results to
+ * {@code target/jmh-result.json}. Started by {@code mvn -Pbenchmarks verify}; standard JMH options are accepted
+ * as arguments and take precedence, e.g. {@code -p edges=1000 -rff other.json}.
+ */
+public class RoutingBenchmarkSuite {
+
+    private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(RoutingLatencyBenchmark.class.getSimpleName())
+                    .include(RoutingThroughputBenchmark.class.getSimpleName())
+                    .include(MutationUnderReadBenchmark.class.getSimpleName());
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-query latency of one thread routing over a synthetic network, sampled so that the JSON result
+ * carries the latency percentiles rather than just the mean. Run through {@link RoutingBenchmarkSuite},
+ * which adds the GC profiler; {@code gc.alloc.rate.norm} is then the allocation per query.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingLatencyBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"bidirectional", "csr", "ch"})
+    private String engine;
+
+    @Param({"random", "grid", "scale-free"})
+    private String shape;
+
+    @Param({"1000", "100000", "5000000"})
+    private int edges;
+
+    private PaymentService paymentService;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkNetwork network = BenchmarkNetwork.generate(shape, edges, 42);
+        paymentService = BenchmarkEngines.create(engine);
+        network.load(paymentService);
+        BenchmarkEngines.prepare(paymentService);
+        queries = network.queries(QUERY_COUNT, 7);
+    }
+
+    @Benchmark
+    public String processPayment() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return paymentService.processPayment(queries[2 * i], queries[2 * i + 1]);
+    }
+}
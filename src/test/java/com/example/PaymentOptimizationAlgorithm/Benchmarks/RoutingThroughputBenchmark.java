@@ -0,0 +1,49 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only query throughput with one thread per available processor, all routing over the same network.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class RoutingThroughputBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"bidirectional", "csr", "ch"})
+    private String engine;
+
+    @Param({"random", "grid", "scale-free"})
+    private String shape;
+
+    @Param({"1000", "100000", "5000000"})
+    private int edges;
+
+    private PaymentService paymentService;
+    private String[] queries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkNetwork network = BenchmarkNetwork.generate(shape, edges, 42);
+        paymentService = BenchmarkEngines.create(engine);
+        network.load(paymentService);
+        BenchmarkEngines.prepare(paymentService);
+        queries = network.queries(QUERY_COUNT, 7);
+    }
+
+    @Benchmark
+    public String processPayment() {
+        int i = ThreadLocalRandom.current().nextInt(QUERY_COUNT);
+        return paymentService.processPayment(queries[2 * i], queries[2 * i + 1]);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.BidirectionalDijkstraPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-query allocation of the map-based engine with the pooled CSR search context.
+ * Run with the GC profiler ({@code -prof gc}, enabled by {@link #main}); for the CSR engine
+ * {@code gc.alloc.rate.norm} should match the size of the returned path string.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchAllocationBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"bidirectional", "csr"})
+    private String engine;
+
+    @Param({"100000"})
+    private int edges;
+
+    private PaymentService paymentService;
+    private String[] origins;
+    private String[] destinations;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int branches = Math.max(2, edges / 5);
+        paymentService = "csr".equals(engine) ? new CsrPaymentService() : new BidirectionalDijkstraPaymentService();
+        for (int i = 0; i < branches; i++) {
+            paymentService.addBranch("branch" + i, 5 + random.nextInt(46));
+        }
+        for (int i = 0; i < edges; i++) {
+            paymentService.addConnections("branch" + random.nextInt(branches), "branch" + random.nextInt(branches));
+        }
+        if (paymentService instanceof CsrPaymentService csr) {
+            csr.compact();
+        }
+
+        origins = new String[QUERY_COUNT];
+        destinations = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            origins[i] = "branch" + random.nextInt(branches);
+            destinations[i] = "branch" + random.nextInt(branches);
+        }
+    }
+
+    @Benchmark
+    public String processPayment() {
+        int i = next++ & (QUERY_COUNT - 1);
+        return paymentService.processPayment(origins[i], destinations[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SearchAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
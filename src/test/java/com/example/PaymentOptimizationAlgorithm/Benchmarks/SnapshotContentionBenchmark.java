@@ -0,0 +1,71 @@
+package com.example.PaymentOptimizationAlgorithm.Benchmarks;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.BidirectionalDijkstraPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query throughput of 64 reader threads while one writer streams edge inserts.
+ * Readers work on immutable snapshots, so their throughput should stay close to the read-only figure
+ * regardless of the insert rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class SnapshotContentionBenchmark {
+
+    @Param({"bidirectional", "csr"})
+    private String engine;
+
+    @Param({"20000"})
+    private int branches;
+
+    private PaymentService paymentService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        paymentService = "csr".equals(engine) ? new CsrPaymentService() : new BidirectionalDijkstraPaymentService();
+        for (int i = 0; i < branches; i++) {
+            paymentService.addBranch("branch" + i, 5 + random.nextInt(46));
+        }
+        for (int i = 0; i < branches * 5; i++) {
+            paymentService.addConnections("branch" + random.nextInt(branches), "branch" + random.nextInt(branches));
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(64)
+    public String query() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paymentService.processPayment("branch" + random.nextInt(branches), "branch" + random.nextInt(branches));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Object insertEdge() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return paymentService.addConnections("branch" + random.nextInt(branches), "branch" + random.nextInt(branches));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SnapshotContentionBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
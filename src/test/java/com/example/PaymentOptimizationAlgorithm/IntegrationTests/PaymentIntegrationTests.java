@@ -1,5 +1,7 @@
 package com.example.PaymentOptimizationAlgorithm.IntegrationTests;
 
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteResult;
 import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +10,8 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -46,4 +50,19 @@ public class PaymentIntegrationTests {
         ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/process?originBranch=A&destinationBranch=D", String.class);
         assertThat(response.getBody()).isEqualTo("A,C,E,D");
     }
+
+    @Test
+    public void testProcessPaymentBatch() {
+        String baseUrl = "http://localhost:" + port + "/payment";
+
+        List<RouteRequest> requests = List.of(
+                new RouteRequest("A", "D"),
+                new RouteRequest("A", "F"),
+                new RouteRequest("F", "A"));
+        ResponseEntity<RouteResult[]> response = restTemplate.postForEntity(baseUrl + "/process/batch", requests, RouteResult[].class);
+        assertThat(response.getBody()).containsExactly(
+                new RouteResult("A", "D", "A,C,E,D"),
+                new RouteResult("A", "F", "A,C,E,F"),
+                new RouteResult("F", "A", null));
+    }
 }
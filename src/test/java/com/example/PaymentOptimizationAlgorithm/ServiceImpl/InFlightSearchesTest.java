@@ -0,0 +1,146 @@
+package com.example.PaymentOptimizationAlgorithm.ServiceImpl;
+
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightSearchesTest {
+
+    private final InFlightSearches flights = new InFlightSearches();
+    private final RoutingMetrics metrics = new RoutingMetrics("csr", 0, 0);
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final ExecutorService pool = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task);
+        threads.add(thread);
+        return thread;
+    });
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testIdenticalQueriesShareOneSearch() throws Exception {
+        AtomicInteger searches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> search = () -> {
+            searches.incrementAndGet();
+            awaitQuietly(release);
+            return "A,C,E,D";
+        };
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            results.add(pool.submit(() -> flights.route(1, "A", "D", 10, SearchBudget.UNLIMITED, metrics, search)));
+        }
+        awaitAllWaiting(7);
+        assertEquals(1, searches.get());
+        assertEquals(1, flights.size());
+
+        // A query on a newer topology must not join the search of the older one.
+        assertEquals("A,D", flights.route(2, "A", "D", 10, SearchBudget.UNLIMITED, metrics, () -> "A,D"));
+
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("A,C,E,D", result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, searches.get());
+        assertEquals(6, metrics.getCoalescedCount());
+        assertEquals(0, flights.size());
+    }
+
+    @Test
+    void testQueriesSearchOnTheirOwnWhenCoalescingIsOffOrFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> flights.route(1, "A", "D", 1, SearchBudget.UNLIMITED, metrics,
+                () -> {
+                    awaitQuietly(release);
+                    return "A,D";
+                }));
+        awaitAllWaiting(1);
+
+        assertEquals("B,D", flights.route(1, "B", "D", 1, SearchBudget.UNLIMITED, metrics, () -> "B,D"));
+        assertEquals("own", flights.route(1, "A", "D", 0, SearchBudget.UNLIMITED, metrics, () -> "own"));
+        release.countDown();
+        assertEquals("A,D", leader.get(10, TimeUnit.SECONDS));
+        assertEquals(0, metrics.getCoalescedCount());
+    }
+
+    @Test
+    void testFollowerSearchesAgainIfLeaderRanOutOfBudget() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> flights.route(1, "A", "D", 10, SearchBudget.UNLIMITED, metrics,
+                () -> {
+                    awaitQuietly(release);
+                    throw new SearchBudgetExceededException(null, 3);
+                }));
+        awaitAllWaiting(1);
+        Future<String> follower = pool.submit(() -> flights.route(1, "A", "D", 10, SearchBudget.UNLIMITED, metrics,
+                () -> "A,C,E,D"));
+        awaitAllWaiting(2);
+
+        release.countDown();
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(SearchBudgetExceededException.class, failed.getCause());
+        assertEquals("A,C,E,D", follower.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFollowerKeepsItsOwnDeadlineAndSeesLeaderFailures() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> flights.route(1, "A", "D", 10, SearchBudget.UNLIMITED, metrics,
+                () -> {
+                    awaitQuietly(release);
+                    throw new IllegalStateException("engine failed");
+                }));
+        awaitAllWaiting(1);
+
+        assertThrows(SearchBudgetExceededException.class, () -> flights.route(1, "A", "D", 10,
+                SearchBudget.of(20, 0), metrics, () -> fail("joined the search")));
+        Future<String> follower = pool.submit(() -> flights.route(1, "A", "D", 10, SearchBudget.UNLIMITED, metrics,
+                () -> fail("joined the search")));
+        awaitAllWaiting(2);
+
+        release.countDown();
+        assertInstanceOf(IllegalStateException.class,
+                assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS)).getCause());
+        assertEquals("engine failed",
+                assertThrows(ExecutionException.class, () -> follower.get(10, TimeUnit.SECONDS)).getCause().getMessage());
+        assertEquals(0, flights.size());
+    }
+
+    /**
+     * Waits until the pool has started this many threads and all of them are blocked.
+     */
+    private void awaitAllWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (threads.size() < count || !threads.stream().allMatch(t -> t.getState() == Thread.State.WAITING
+                || t.getState() == Thread.State.TIMED_WAITING)) {
+            assertTrue(System.nanoTime() < deadline, "queries did not start");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
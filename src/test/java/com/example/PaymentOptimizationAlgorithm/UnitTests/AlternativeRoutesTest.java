@@ -0,0 +1,125 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.AlternativeRoutes;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContextPool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlternativeRoutesTest {
+
+    private final SearchContextPool contexts = new SearchContextPool();
+    private final Executor executor = Runnable::run;
+
+    /**
+     * Compares the routes found on small random networks, half of their connections in the delta overlay,
+     * with every loopless path enumerated by brute force.
+     */
+    @Test
+    void testRoutesMatchEnumeratedPaths() {
+        Random random = new Random(5);
+        for (int round = 0; round < 20; round++) {
+            GraphStore store = new GraphStore(16);
+            int branches = 9;
+            for (int i = 0; i < branches; i++) {
+                store.addBranch("N" + i, random.nextInt(10));
+            }
+            for (int i = 0; i < branches * 3; i++) {
+                store.addConnection("N" + random.nextInt(branches), "N" + random.nextInt(branches));
+            }
+            GraphSnapshot g = store.snapshot();
+            int excluded = 2 + random.nextInt(branches - 2);
+
+            List<Long> expected = new ArrayList<>();
+            enumerate(g, 0, 1, excluded, new HashSet<>(), 0, expected);
+            expected.sort(null);
+
+            AlternativeRoutes.Result result = AlternativeRoutes.find(g, contexts, executor, 0, 1, 6,
+                    new int[] {excluded}, SearchBudget.UNLIMITED);
+            assertFalse(result.exhausted());
+            assertEquals(expected.subList(0, Math.min(6, expected.size())),
+                    result.routes().stream().map(AlternativeRoutes.Route::cost).toList(), "round " + round);
+            Set<String> distinct = new HashSet<>();
+            for (AlternativeRoutes.Route route : result.routes()) {
+                int[] nodes = route.nodes();
+                assertEquals(0, nodes[0]);
+                assertEquals(1, nodes[nodes.length - 1]);
+                assertEquals(nodes.length, Arrays.stream(nodes).distinct().count());
+                assertFalse(Arrays.stream(nodes).anyMatch(node -> node == excluded));
+                assertTrue(distinct.add(Arrays.toString(nodes)));
+            }
+        }
+    }
+
+    @Test
+    void testExcludedEndpointsAndUnreachableTargetsYieldNoRoutes() {
+        GraphStore store = new GraphStore();
+        store.addBranch("A", 1);
+        store.addBranch("B", 1);
+        store.addBranch("C", 1);
+        store.addConnection("A", "B");
+        GraphSnapshot g = store.snapshot();
+
+        assertEquals(1, AlternativeRoutes.find(g, contexts, executor, 0, 1, 3, new int[0], SearchBudget.UNLIMITED)
+                .routes().size());
+        assertTrue(AlternativeRoutes.find(g, contexts, executor, 0, 1, 3, new int[] {1}, SearchBudget.UNLIMITED)
+                .routes().isEmpty());
+        assertTrue(AlternativeRoutes.find(g, contexts, executor, 0, 2, 3, new int[0], SearchBudget.UNLIMITED)
+                .routes().isEmpty());
+    }
+
+    @Test
+    void testExhaustedBudgetIsReported() {
+        GraphStore store = new GraphStore();
+        for (int i = 0; i < 10; i++) {
+            store.addBranch("N" + i, 1);
+        }
+        for (int i = 0; i < 9; i++) {
+            store.addConnection("N" + i, "N" + (i + 1));
+            store.addConnection("N0", "N" + (i + 1));
+        }
+        GraphSnapshot g = store.snapshot();
+
+        AlternativeRoutes.Result result = AlternativeRoutes.find(g, contexts, executor, 0, 9, 5, new int[0],
+                SearchBudget.of(0, 1));
+        assertTrue(result.exhausted());
+        assertEquals(List.of(0, 9), Arrays.stream(result.routes().get(0).nodes()).boxed().toList());
+    }
+
+    /**
+     * Collects the cost of every loopless path to the target that avoids one node.
+     */
+    private static void enumerate(GraphSnapshot g, int at, int target, int excluded, Set<Integer> visited, long cost,
+                                  List<Long> costs) {
+        if (at == excluded || !visited.add(at)) {
+            return;
+        }
+        if (at == target) {
+            costs.add(cost);
+        } else {
+            Set<Integer> next = new HashSet<>();
+            for (int e = g.outBegin(at); e < g.outEnd(at); e++) {
+                next.add(g.outTarget(e));
+            }
+            int[] delta = g.deltaOut(at);
+            for (int e = 0; delta != null && e < delta.length; e++) {
+                next.add(delta[e]);
+            }
+            for (int v : next) {
+                enumerate(g, v, target, excluded, visited, cost + g.cost(at), costs);
+            }
+        }
+        visited.remove(at);
+    }
+}
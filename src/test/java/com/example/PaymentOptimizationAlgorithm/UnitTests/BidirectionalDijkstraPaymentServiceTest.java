@@ -1,10 +1,12 @@
 package com.example.PaymentOptimizationAlgorithm.UnitTests;
 
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
 import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
 import com.example.PaymentOptimizationAlgorithm.ServiceImpl.BidirectionalDijkstraPaymentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -145,6 +147,57 @@ class BidirectionalDijkstraPaymentServiceTest {
         assertEquals("A,C,E", paymentService.processPayment("A", "E"));
     }
 
+    @Test
+    void testProcessPaymentReturnsCheapestRatherThanFirstMeetingPath() {
+        paymentService.addBranch("A", 9);
+        paymentService.addBranch("C", 4);
+        paymentService.addBranch("D", 7);
+        paymentService.addConnections("A", "C");
+        paymentService.addConnections("A", "D");
+        paymentService.addConnections("C", "D");
+        assertEquals("A,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testLandmarkSearchMatchesPlainSearchAndSettlesFewerNodes() {
+        BidirectionalDijkstraPaymentService plain = new BidirectionalDijkstraPaymentService();
+        BidirectionalDijkstraPaymentService goalDirected = new BidirectionalDijkstraPaymentService();
+        goalDirected.setLandmarkCount(8);
+        int side = 30;
+        Random random = new Random(7);
+        for (int i = 0; i < side * side; i++) {
+            int cost = 1 + random.nextInt(5);
+            plain.addBranch("N" + i, cost);
+            goalDirected.addBranch("N" + i, cost);
+        }
+        for (int i = 0; i < side * side; i++) {
+            for (int j : new int[]{i + 1, i + side}) {
+                if (j < side * side && (j != i + 1 || j % side != 0)) {
+                    plain.addConnections("N" + i, "N" + j);
+                    plain.addConnections("N" + j, "N" + i);
+                    goalDirected.addConnections("N" + i, "N" + j);
+                    goalDirected.addConnections("N" + j, "N" + i);
+                }
+            }
+        }
+        assertNotNull(goalDirected.refreshLandmarks());
+
+        int plainSettled = 0;
+        int goalDirectedSettled = 0;
+        for (int q = 0; q < 50; q++) {
+            String origin = "N" + random.nextInt(side * side);
+            String destination = "N" + random.nextInt(side * side);
+            RouteExplanation expected = plain.explainPayment(origin, destination);
+            RouteExplanation actual = goalDirected.explainPayment(origin, destination);
+            assertTrue(actual.goalDirected());
+            assertEquals(expected.cost(), actual.cost());
+            plainSettled += expected.settledNodes();
+            goalDirectedSettled += actual.settledNodes();
+        }
+        assertTrue(goalDirectedSettled * 2 < plainSettled,
+                "ALT settled " + goalDirectedSettled + " nodes, plain search " + plainSettled);
+    }
+
     @Test
     void testProcessPaymentPathNotFound() {
         paymentService.addBranch("A", 5);
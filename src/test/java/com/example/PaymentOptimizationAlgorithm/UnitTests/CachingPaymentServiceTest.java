@@ -0,0 +1,58 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.BidirectionalDijkstraPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CachingPaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingPaymentServiceTest {
+
+    private CachingPaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = new CachingPaymentService(new BidirectionalDijkstraPaymentService(), 100, Duration.ofMinutes(1));
+        paymentService.addBranch("A", 5);
+        paymentService.addBranch("B", 10);
+        paymentService.addBranch("C", 15);
+        paymentService.addConnections("A", "B");
+        paymentService.addConnections("B", "C");
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        assertEquals("A,B,C", paymentService.processPayment("A", "C"));
+        assertEquals("A,B,C", paymentService.processPayment("A", "C"));
+        assertEquals(1, paymentService.getCache().stats().hitCount());
+        assertEquals(1, paymentService.getCache().stats().missCount());
+    }
+
+    @Test
+    void testNoPathResultIsCached() {
+        assertNull(paymentService.processPayment("C", "A"));
+        assertNull(paymentService.processPayment("C", "A"));
+        assertEquals(1, paymentService.getCache().stats().hitCount());
+    }
+
+    @Test
+    void testTopologyChangeInvalidatesCachedPath() {
+        assertEquals("A,B,C", paymentService.processPayment("A", "C"));
+        long version = paymentService.getTopologyVersion();
+
+        paymentService.addConnections("A", "C");
+        assertTrue(paymentService.getTopologyVersion() > version);
+        assertEquals("A,C", paymentService.processPayment("A", "C"));
+        assertEquals(0, paymentService.getCache().stats().hitCount());
+    }
+
+    @Test
+    void testNewConnectionReplacesCachedNoPath() {
+        assertNull(paymentService.processPayment("C", "A"));
+        paymentService.addConnections("C", "A");
+        assertEquals("C,A", paymentService.processPayment("C", "A"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.ContractionHierarchy;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.ContractionHierarchyPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractionHierarchyPaymentServiceTest {
+
+    private ContractionHierarchyPaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        paymentService = new ContractionHierarchyPaymentService(2);
+    }
+
+    @Test
+    void testProcessPaymentDefaultNetwork() {
+        paymentService.initialize();
+        assertNotNull(paymentService.prepareHierarchy());
+
+        RouteExplanation explained = paymentService.explainPayment("A", "D");
+        assertEquals("A,C,E,D", explained.path());
+        assertEquals(Long.valueOf(35), explained.cost());
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+        assertNull(paymentService.processPayment("D", "A"));
+    }
+
+    @Test
+    void testRepricingCustomizesWithoutContracting() {
+        paymentService.initialize();
+        ContractionHierarchy contracted = paymentService.prepareHierarchy();
+
+        paymentService.updateBranchCosts(Map.of("B", 1));
+        ContractionHierarchy customized = paymentService.prepareHierarchy();
+        assertNotSame(contracted, customized);
+        assertTrue(customized.version() > contracted.version());
+        assertEquals(contracted.arcCount(), customized.arcCount());
+        assertEquals("A,B,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testNewConnectionContractsAgain() {
+        paymentService.initialize();
+        paymentService.prepareHierarchy();
+
+        paymentService.addConnections("D", "A");
+        assertNotNull(paymentService.prepareHierarchy());
+        assertEquals("D,A", paymentService.processPayment("D", "A"));
+    }
+
+    @Test
+    void testFallsBackToDijkstraBeyondArcBudget() {
+        paymentService.setMaxArcsPerConnection(0);
+        paymentService.initialize();
+        assertNull(paymentService.prepareHierarchy());
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testAgreesWithCsrEngineOnRandomNetwork() {
+        // Large enough for the nested dissection to split the network several times.
+        Random random = new Random(11);
+        int branches = 400;
+        CsrPaymentService reference = new CsrPaymentService(2);
+        paymentService.setMaxArcsPerConnection(1000);
+        for (int i = 0; i < branches; i++) {
+            int cost = random.nextInt(50);
+            paymentService.addBranch("N" + i, cost);
+            reference.addBranch("N" + i, cost);
+        }
+        for (int i = 0; i < branches * 3; i++) {
+            String from = "N" + random.nextInt(branches);
+            String to = "N" + random.nextInt(branches);
+            paymentService.addConnections(from, to);
+            reference.addConnections(from, to);
+        }
+        assertNotNull(paymentService.prepareHierarchy());
+
+        for (int q = 0; q < 200; q++) {
+            String origin = "N" + random.nextInt(branches);
+            String destination = "N" + random.nextInt(branches);
+            assertEquals(reference.explainPayment(origin, destination).cost(),
+                    paymentService.explainPayment(origin, destination).cost(), origin + " -> " + destination);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.CustomException.SearchBudgetExceededException;
+import com.example.PaymentOptimizationAlgorithm.Pojo.AlternativeRoute;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.RoutingMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsrPaymentServiceTest {
+
+    private CsrPaymentService paymentService;
+
+    @BeforeEach
+    void setUp() {
+        // A tiny threshold forces searches to cross both the compacted base and the delta overlay.
+        paymentService = new CsrPaymentService(2);
+    }
+
+    @Test
+    void testAlternativeRoutesAvoidExcludedBranches() {
+        paymentService.initialize();
+
+        List<AlternativeRoute> routes = paymentService.alternativeRoutes("A", "D", 3, Set.of());
+        assertEquals(3, routes.size());
+        assertEquals(paymentService.processPayment("A", "D"), routes.get(0).path());
+        assertEquals(paymentService.explainPayment("A", "D").cost(), Long.valueOf(routes.get(0).cost()));
+        assertTrue(routes.get(0).cost() <= routes.get(1).cost() && routes.get(1).cost() <= routes.get(2).cost());
+        assertEquals(3, routes.stream().map(AlternativeRoute::path).distinct().count());
+
+        List<AlternativeRoute> avoiding = paymentService.alternativeRoutes("A", "D", 3, Set.of("C"));
+        assertFalse(avoiding.isEmpty());
+        avoiding.forEach(route -> assertFalse(Arrays.asList(route.path().split(",")).contains("C"), route.path()));
+        assertTrue(paymentService.alternativeRoutes("A", "D", 3, Set.of("D")).isEmpty());
+        assertEquals(List.of(new AlternativeRoute("A", 0)), paymentService.alternativeRoutes("A", "A", 2, Set.of()));
+        assertThrows(IllegalArgumentException.class, () -> paymentService.alternativeRoutes("A", "D", 0, Set.of()));
+    }
+
+    @Test
+    void testSearchStopsWhenSettledNodeBudgetIsExhausted() {
+        paymentService.configureSearchBudget(0, 3);
+        for (int i = 0; i < 20; i++) {
+            paymentService.addBranch("N" + i, 1);
+            if (i > 0) {
+                paymentService.addConnections("N" + (i - 1), "N" + i);
+            }
+        }
+
+        SearchBudgetExceededException exceeded = assertThrows(SearchBudgetExceededException.class,
+                () -> paymentService.processPayment("N0", "N19"));
+        assertNull(exceeded.getBestPath());
+        assertEquals(3, exceeded.getSettledNodes());
+        assertThrows(SearchBudgetExceededException.class,
+                () -> paymentService.processPayments(List.of(new RouteRequest("N0", "N19"))));
+        assertEquals("N0,N1", paymentService.processPayment("N0", "N1"));
+    }
+
+    @Test
+    void testaddConnectionsRejectsUnknownBranches() {
+        assertEquals(400, paymentService.addConnections("A", "B").getStatusCode().value());
+    }
+
+    @Test
+    void testAddBranchRejectsNegativeCost() {
+        paymentService.initialize();
+        long version = paymentService.getTopologyVersion();
+        assertEquals(400, paymentService.addBranch("G", -1).getStatusCode().value());
+        assertEquals(400, paymentService.addBranch("C", -10).getStatusCode().value());
+        assertEquals(version, paymentService.getTopologyVersion());
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testAddBranchRejectsIdsThatCannotBeRendered() {
+        paymentService.initialize();
+        long version = paymentService.getTopologyVersion();
+        assertEquals(400, paymentService.addBranch("G,H", 1).getStatusCode().value());
+        assertEquals(400, paymentService.addBranch("", 1).getStatusCode().value());
+        assertEquals(version, paymentService.getTopologyVersion());
+        assertEquals(Long.valueOf(35), paymentService.explainPayment("A", "D").cost());
+    }
+
+    @Test
+    void testProcessPaymentWithSingleBranch() {
+        paymentService.addBranch("A", 5);
+        assertEquals("A", paymentService.processPayment("A", "A"));
+    }
+
+    @Test
+    void testProcessPaymentNoPath() {
+        paymentService.addBranch("A", 5);
+        paymentService.addBranch("B", 10);
+        assertNull(paymentService.processPayment("A", "B"));
+    }
+
+    @Test
+    void testUnreachablePairsAreRejectedWithoutSearch() {
+        RoutingMetrics metrics = new RoutingMetrics("csr", 0, 0);
+        paymentService.setRoutingMetrics(metrics);
+        paymentService.initialize();
+        paymentService.addBranch("X", 1);
+        paymentService.addBranch("Y", 1);
+        paymentService.addConnections("X", "Y");
+        assertNotNull(paymentService.refreshReachability());
+
+        assertNull(paymentService.processPayment("A", "X"));
+        assertNull(paymentService.processPayment("D", "A"));
+        assertNull(paymentService.explainPayment("Y", "X").path());
+        assertEquals(List.of(), paymentService.alternativeRoutes("A", "Y", 2, Set.of()));
+        assertEquals(0, metrics.getSearchCount());
+        assertEquals(4, metrics.getPrunedCount());
+
+        // The write places the new connection in the index, so the regions are joined at once.
+        paymentService.addConnections("F", "X");
+        assertEquals("A,C,E,F,X", paymentService.processPayment("A", "X"));
+        assertEquals(1, metrics.getSearchCount());
+        assertNull(paymentService.processPayment("X", "F"));
+        assertEquals(5, metrics.getPrunedCount());
+    }
+
+    @Test
+    void testProcessPaymentDirectPath() {
+        paymentService.addBranch("A", 5);
+        paymentService.addBranch("B", 10);
+        paymentService.addConnections("A", "B");
+        assertEquals("A,B", paymentService.processPayment("A", "B"));
+    }
+
+    @Test
+    void testProcessPaymentReversePath() {
+        paymentService.addBranch("A", 5);
+        paymentService.addBranch("B", 10);
+        paymentService.addBranch("C", 15);
+        paymentService.addConnections("A", "B");
+        paymentService.addConnections("C", "B");
+        assertNull(paymentService.processPayment("C", "A"));
+    }
+
+    @Test
+    void testProcessPaymentMultiplePaths() {
+        paymentService.addBranch("A", 5);
+        paymentService.addBranch("B", 10);
+        paymentService.addBranch("C", 15);
+        paymentService.addBranch("D", 20);
+        paymentService.addBranch("E", 25);
+        paymentService.addConnections("A", "B");
+        paymentService.addConnections("B", "C");
+        paymentService.addConnections("C", "D");
+        paymentService.addConnections("D", "E");
+        paymentService.addConnections("A", "C");
+        paymentService.addConnections("B", "D");
+        paymentService.addConnections("C", "E");
+        assertEquals("A,C,E", paymentService.processPayment("A", "E"));
+    }
+
+    @Test
+    void testProcessPaymentDefaultNetwork() {
+        paymentService.initialize();
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+        paymentService.compact();
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testRepricedBranchReroutesExistingConnections() {
+        paymentService.addBranch("A", 5);
+        paymentService.addBranch("B", 10);
+        paymentService.addBranch("C", 15);
+        paymentService.addBranch("D", 20);
+        paymentService.addConnections("A", "B");
+        paymentService.addConnections("A", "C");
+        paymentService.addConnections("B", "D");
+        paymentService.addConnections("C", "D");
+        paymentService.compact();
+        assertEquals("A,B,D", paymentService.processPayment("A", "D"));
+
+        paymentService.addBranch("B", 100);
+        assertEquals("A,C,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testExplainPaymentUsesLandmarksOnlyWhileCurrent() {
+        paymentService.setLandmarkCount(2);
+        paymentService.initialize();
+        assertNotNull(paymentService.refreshLandmarks());
+
+        RouteExplanation explained = paymentService.explainPayment("A", "D");
+        assertEquals("A,C,E,D", explained.path());
+        assertEquals(Long.valueOf(35), explained.cost());
+        assertTrue(explained.goalDirected());
+        assertTrue(explained.settledNodes() > 0);
+
+        // A write makes the landmarks stale; the search falls back to plain Dijkstra until they are rebuilt.
+        paymentService.addBranch("B", 1);
+        RouteExplanation afterWrite = paymentService.explainPayment("A", "D");
+        assertEquals("A,B,D", afterWrite.path());
+        assertEquals(Long.valueOf(6), afterWrite.cost());
+    }
+
+    @Test
+    void testRouteTableIsSkippedAboveThreshold() {
+        paymentService.setRouteTableMaxBranches(4);
+        paymentService.initialize();
+        assertNull(paymentService.refreshRouteTable());
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testUpdateBranchCostsAppliesAllCostsInOneVersion() {
+        paymentService.initialize();
+        long version = paymentService.getTopologyVersion();
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+
+        Map<String, Integer> costs = new HashMap<>();
+        costs.put("B", 1);
+        costs.put("C", 100);
+        assertEquals(200, paymentService.updateBranchCosts(costs).getStatusCode().value());
+        assertEquals(version + 1, paymentService.getTopologyVersion());
+        assertEquals("A,B,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testUpdateBranchCostsRejectsUnknownBranchAtomically() {
+        paymentService.initialize();
+        long version = paymentService.getTopologyVersion();
+        Map<String, Integer> costs = new LinkedHashMap<>();
+        costs.put("B", 1);
+        costs.put("Z", 1);
+        assertEquals(400, paymentService.updateBranchCosts(costs).getStatusCode().value());
+        assertEquals(version, paymentService.getTopologyVersion());
+        assertEquals("A,C,E,D", paymentService.processPayment("A", "D"));
+    }
+
+    @Test
+    void testProcessPaymentsAnswersInRequestOrder() {
+        paymentService.initialize();
+        List<String> paths = paymentService.processPayments(List.of(
+                new RouteRequest("A", "D"),
+                new RouteRequest("F", "A"),
+                new RouteRequest("C", "F"),
+                new RouteRequest("A", "F"),
+                new RouteRequest("B", "B")));
+        assertEquals(Arrays.asList("A,C,E,D", null, "C,E,F", "A,C,E,F", "B"), paths);
+    }
+
+    @Test
+    void testProcessPaymentsRejectsMissingBranch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> paymentService.processPayments(List.of(new RouteRequest("A", ""))));
+    }
+
+    @Test
+    void testExportSnapshotWithoutPathIsRejected() {
+        assertEquals(400, paymentService.exportSnapshot().getStatusCode().value());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.DeltaStepping;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.ShortestPathTrees;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaSteppingTest {
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Checks parallel trees against sequential Dijkstra on random networks, imported into the compacted base with
+     * a few hundred later connections in the delta overlay. Zero-cost branches make ties and zero-cost cycles likely.
+     */
+    @ParameterizedTest
+    @CsvSource({"1, 50, 0", "2, 50, 1", "3, 50, 200", "4, 3, 0", "5, 100000, 0"})
+    void testDistancesMatchSequentialDijkstra(long seed, int maxCost, long delta) throws IOException {
+        Random random = new Random(seed);
+        int branches = 20_000;
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < branches; i++) {
+            csv.append("branch,branch").append(i).append(',').append(random.nextInt(maxCost + 1)).append('\n');
+        }
+        for (int i = 0; i < branches * 4; i++) {
+            csv.append("edge,branch").append(random.nextInt(branches)).append(",branch").append(random.nextInt(branches)).append('\n');
+        }
+        TopologyImporter importer = new TopologyImporter(ImportFormat.CSV);
+        importer.read(new StringReader(csv.toString()));
+        GraphStore store = new GraphStore();
+        store.replace(importer);
+        for (int i = 0; i < 500; i++) {
+            store.addConnection("branch" + random.nextInt(branches), "branch" + random.nextInt(branches));
+        }
+        GraphSnapshot g = store.snapshot();
+        SearchContext sequential = new SearchContext();
+
+        for (int query = 0; query < 3; query++) {
+            int source = random.nextInt(branches);
+            ShortestPathTrees.grow(g, sequential, source, null);
+            DeltaStepping.Tree tree = DeltaStepping.grow(g, source, delta > 0 ? delta : DeltaStepping.defaultDelta(g),
+                    pool, SearchBudget.UNLIMITED);
+
+            assertFalse(tree.exhausted());
+            long[] dist = tree.distances();
+            int[] parents = tree.parents();
+            assertEquals(-1, parents[source]);
+            for (int v = 0; v < branches; v++) {
+                assertEquals(sequential.forwardDistance(v), dist[v], "distance of " + v);
+                if (v != source && dist[v] != SearchContext.UNREACHED) {
+                    int u = parents[v];
+                    assertTrue(u >= 0, "parent of " + v);
+                    assertEquals(dist[v], dist[u] + g.cost(u), "parent of " + v);
+                    assertPathReachesSource(parents, v, source, branches);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testTreeStopsWhenBudgetIsExhausted() {
+        GraphStore store = new GraphStore();
+        for (int i = 0; i < 2_000; i++) {
+            store.addBranch("N" + i, 1);
+            if (i > 0) {
+                store.addConnection("N" + (i - 1), "N" + i);
+            }
+        }
+        GraphSnapshot g = store.snapshot();
+
+        DeltaStepping.Tree tree = DeltaStepping.grow(g, 0, 1, pool, SearchBudget.of(0, 100));
+        assertTrue(tree.exhausted());
+        assertTrue(tree.expandedNodes() >= 100 && tree.expandedNodes() < 2_000, String.valueOf(tree.expandedNodes()));
+
+        tree = DeltaStepping.grow(g, 0, DeltaStepping.defaultDelta(g), pool, SearchBudget.UNLIMITED);
+        assertFalse(tree.exhausted());
+        assertEquals(1_999, tree.distances()[1_999]);
+        assertEquals(1_998, tree.parents()[1_999]);
+    }
+
+    private static void assertPathReachesSource(int[] parents, int v, int source, int branches) {
+        int steps = 0;
+        for (int at = v; at != source; at = parents[at]) {
+            assertTrue(at >= 0 && ++steps <= branches, "path of " + v + " does not reach the source");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.DynamicShortestPathTree;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.ShortestPathTrees;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DynamicShortestPathTreeTest {
+
+    @Test
+    void testTreeIsRepairedAcrossWrites() {
+        GraphStore store = new GraphStore(2);
+        int[] costs = {5, 50, 10, 10, 20, 5};
+        for (int i = 0; i < costs.length; i++) {
+            store.addBranch(String.valueOf((char) ('A' + i)), costs[i]);
+        }
+        for (String edge : new String[] {"AB", "AC", "CB", "BD", "CE", "DE", "ED", "DF", "EF"}) {
+            store.addConnection(edge.substring(0, 1), edge.substring(1));
+        }
+        DynamicShortestPathTree tree = new DynamicShortestPathTree("A", store.snapshot());
+        assertEquals(6, tree.lastRepairSize());
+
+        store.addBranch("C", 1);
+        assertEquals("A,C,E,D", tree.route(store, store.snapshot(), "D"));
+        store.addConnection("A", "D");
+        assertEquals("A,D", tree.route(store, store.snapshot(), "D"));
+        assertEquals("A,D,F", tree.route(store, store.snapshot(), "F"));
+        assertTrue(tree.lastRepairSize() < 6);
+
+        store.addBranch("A", 100);
+        store.addBranch("D", 100);
+        assertEquals("A,C,E", tree.route(store, store.snapshot(), "E"));
+        assertEquals("A,C,E,F", tree.route(store, store.snapshot(), "F"));
+        assertEquals(store.snapshot().version(), tree.version());
+        assertNull(tree.route(store, store.snapshot(), "G"));
+    }
+
+    /**
+     * Applies random repricings, connections and new branches one version at a time or several versions at
+     * once, and checks the repaired tree against a fresh Dijkstra.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void testRepairedTreeMatchesDijkstra(long seed) {
+        Random random = new Random(seed);
+        GraphStore store = new GraphStore(8);
+        int branches = 80;
+        for (int i = 0; i < branches; i++) {
+            store.addBranch("N" + i, random.nextInt(20));
+        }
+        for (int i = 0; i < branches * 2; i++) {
+            store.addConnection("N" + random.nextInt(branches), "N" + random.nextInt(branches));
+        }
+        DynamicShortestPathTree tree = new DynamicShortestPathTree("N0", store.snapshot());
+
+        for (int step = 0; step < 100; step++) {
+            switch (random.nextInt(3)) {
+                case 0 -> store.addBranch("N" + random.nextInt(branches), random.nextInt(20));
+                case 1 -> store.addConnection("N" + random.nextInt(branches), "N" + random.nextInt(branches));
+                default -> {
+                    store.addBranch("N" + branches, random.nextInt(20));
+                    store.addConnection("N" + random.nextInt(branches), "N" + branches);
+                    branches++;
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                assertConsistent(store, tree);
+            }
+        }
+        assertConsistent(store, tree);
+    }
+
+    @Test
+    void testTreeIsRegrownAfterImport() throws IOException {
+        GraphStore store = new GraphStore();
+        store.addBranch("A", 1);
+        store.addBranch("B", 1);
+        store.addConnection("A", "B");
+        DynamicShortestPathTree tree = new DynamicShortestPathTree("A", store.snapshot());
+        assertEquals("A,B", tree.route(store, store.snapshot(), "B"));
+
+        TopologyImporter importer = new TopologyImporter(ImportFormat.CSV);
+        importer.read(new StringReader("branch,A,1\nbranch,B,1\nbranch,C,1\nedge,A,C\nedge,C,B\n"));
+        store.replace(importer);
+        assertEquals("A,C,B", tree.route(store, store.snapshot(), "B"));
+        assertEquals(3, tree.lastRepairSize());
+    }
+
+    private static void assertConsistent(GraphStore store, DynamicShortestPathTree tree) {
+        GraphSnapshot g = store.snapshot();
+        SearchContext context = new SearchContext();
+        ShortestPathTrees.grow(g, context, g.indexOf(tree.originBranch()), null);
+        for (int t = 0; t < g.nodeCount(); t++) {
+            String path = tree.route(store, g, g.nameOf(t));
+            long expected = context.forwardDistance(t);
+            if (expected == SearchContext.UNREACHED) {
+                assertNull(path, g.nameOf(t));
+            } else {
+                assertNotNull(path, g.nameOf(t));
+                String[] nodes = path.split(",");
+                long cost = 0;
+                for (int i = 0; i + 1 < nodes.length; i++) {
+                    cost += g.cost(g.indexOf(nodes[i]));
+                }
+                assertEquals(expected, cost, path);
+            }
+        }
+        assertEquals(g.version(), tree.version());
+    }
+}
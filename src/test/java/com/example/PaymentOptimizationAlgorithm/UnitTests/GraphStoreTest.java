@@ -0,0 +1,87 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyChange;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphStoreTest {
+
+    @Test
+    void testChangesBetweenVersionsAreKeptUntilImport() throws IOException {
+        GraphStore store = new GraphStore(2);
+        store.addBranch("A", 1);
+        store.addBranch("B", 1);
+        store.addBranch("C", 1);
+        long before = store.snapshot().version();
+        store.addBranch("C", 5);
+        store.update(writer -> writer.addConnection("A", "B") && writer.addConnection("B", "C"));
+        long after = store.snapshot().version();
+
+        List<TopologyChange> changes = store.changesBetween(before, after);
+        assertEquals(2, changes.size());
+        assertEquals(before + 1, changes.get(0).version());
+        assertArrayEquals(new int[] {2}, changes.get(0).repricedBranches());
+        assertEquals(2, changes.get(1).connectionCount());
+        assertEquals(1, changes.get(1).connectionSource(1));
+        assertEquals(2, changes.get(1).connectionTarget(1));
+        assertEquals(List.of(), store.changesBetween(after, after));
+        assertNull(store.changesBetween(after, before));
+
+        TopologyImporter importer = new TopologyImporter(ImportFormat.CSV);
+        importer.read(new StringReader("branch,A,1\n"));
+        store.replace(importer);
+        assertNull(store.changesBetween(after, store.snapshot().version()));
+    }
+
+    @Test
+    void testWriterLockWaitsAreCountedPerStore() throws InterruptedException {
+        GraphStore store = new GraphStore();
+        GraphStore other = new GraphStore();
+        store.addBranch("A", 1);
+        store.update(writer -> writer.addConnection("A", "A"));
+        assertEquals(2, store.writeLockAcquisitions());
+        assertEquals(0, store.writeLockWaitNanos());
+        assertEquals(0, other.writeLockAcquisitions());
+
+        // A writer that finds the lock held is timed until the batch holding it is published.
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> store.update(writer -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        }));
+        holder.start();
+        assertTrue(holding.await(10, TimeUnit.SECONDS));
+        Thread waiter = new Thread(() -> store.addBranch("B", 1));
+        waiter.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (waiter.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() < deadline, "writer did not wait");
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+        release.countDown();
+        holder.join();
+        waiter.join();
+
+        assertEquals(4, store.writeLockAcquisitions());
+        assertTrue(store.writeLockWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(0, other.writeLockAcquisitions());
+        assertEquals(0, other.writeLockWaitNanos());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.IndexedMinHeap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedMinHeapTest {
+
+    private IndexedMinHeap heap;
+
+    @BeforeEach
+    void setUp() {
+        heap = new IndexedMinHeap();
+        heap.ensureCapacity(8);
+    }
+
+    @Test
+    void testPollsInKeyOrder() {
+        heap.insertOrDecrease(3, 30);
+        heap.insertOrDecrease(1, 10);
+        heap.insertOrDecrease(2, 20);
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(3, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void testDecreaseKeyReordersNode() {
+        heap.insertOrDecrease(1, 10);
+        heap.insertOrDecrease(2, 20);
+        assertTrue(heap.insertOrDecrease(2, 5));
+        assertFalse(heap.insertOrDecrease(1, 15));
+        assertEquals(2, heap.size());
+        assertEquals(2, heap.poll());
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    void testPolledNodeIsNotReinsertedUntilClear() {
+        heap.insertOrDecrease(4, 1);
+        heap.poll();
+        assertFalse(heap.insertOrDecrease(4, 0));
+        heap.clear();
+        assertTrue(heap.insertOrDecrease(4, 0));
+        assertTrue(heap.contains(4));
+    }
+}
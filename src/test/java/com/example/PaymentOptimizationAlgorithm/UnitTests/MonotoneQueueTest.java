@@ -0,0 +1,105 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.BucketQueue;
+import com.example.PaymentOptimizationAlgorithm.Graph.IndexedMinHeap;
+import com.example.PaymentOptimizationAlgorithm.Graph.MonotoneQueue;
+import com.example.PaymentOptimizationAlgorithm.Graph.NodeQueue;
+import com.example.PaymentOptimizationAlgorithm.Graph.RadixHeap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonotoneQueueTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 50, 4096, 1_000_000})
+    void testDijkstraDistancesMatchBinaryHeap(int maxCost) {
+        Random random = new Random(maxCost);
+        int n = 2_000;
+        int[] costs = new int[n];
+        int[][] targets = new int[n][];
+        for (int u = 0; u < n; u++) {
+            costs[u] = maxCost == 0 ? 0 : random.nextInt(maxCost + 1);
+            targets[u] = random.ints(4, 0, n).toArray();
+        }
+
+        long[] expected = distances(new IndexedMinHeap(), costs, targets);
+        MonotoneQueue queue = MonotoneQueue.forMaxStep(maxCost);
+        assertEquals(maxCost <= MonotoneQueue.BUCKET_QUEUE_MAX_STEP, queue instanceof BucketQueue);
+        assertArrayEquals(expected, distances(queue, costs, targets));
+        assertArrayEquals(expected, distances(new RadixHeap(), costs, targets));
+        // A reused queue starts over after clear().
+        assertArrayEquals(expected, distances(queue, costs, targets));
+    }
+
+    @Test
+    void testDecreaseKeyAndPolledNodes() {
+        for (MonotoneQueue queue : new MonotoneQueue[]{new BucketQueue(50), new RadixHeap()}) {
+            queue.ensureCapacity(8);
+            queue.insertOrDecrease(1, 40);
+            queue.insertOrDecrease(2, 30);
+            assertTrue(queue.insertOrDecrease(1, 10));
+            assertFalse(queue.insertOrDecrease(2, 35));
+            assertEquals(10, queue.peekKey());
+            assertEquals(1, queue.poll());
+            assertFalse(queue.contains(1));
+            assertFalse(queue.insertOrDecrease(1, 10));
+            assertTrue(queue.insertOrDecrease(3, 30));
+            assertEquals(2, queue.size());
+            assertEquals(30, queue.peekKey());
+            queue.poll();
+            queue.poll();
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    @Test
+    void testRejectsKeysOutsideTheirRange() {
+        BucketQueue buckets = new BucketQueue(50);
+        buckets.ensureCapacity(4);
+        buckets.insertOrDecrease(0, 100);
+        // Keys may still come lower until the first poll.
+        assertTrue(buckets.insertOrDecrease(1, 99));
+        assertEquals(1, buckets.poll());
+        assertThrows(IllegalArgumentException.class, () -> buckets.insertOrDecrease(2, 98));
+        assertThrows(IllegalArgumentException.class, () -> buckets.insertOrDecrease(2, 200));
+
+        RadixHeap radix = new RadixHeap();
+        radix.ensureCapacity(4);
+        radix.insertOrDecrease(0, 100);
+        assertEquals(0, radix.poll());
+        radix.insertOrDecrease(1, 150);
+        assertThrows(IllegalArgumentException.class, () -> radix.insertOrDecrease(2, 99));
+        assertThrows(IllegalArgumentException.class, () -> new BucketQueue(-1));
+    }
+
+    /**
+     * Single-source Dijkstra from node 0 where every connection costs what its source costs.
+     */
+    private static long[] distances(NodeQueue queue, int[] costs, int[][] targets) {
+        int n = costs.length;
+        long[] dist = new long[n];
+        Arrays.fill(dist, Long.MAX_VALUE);
+        queue.ensureCapacity(n);
+        queue.clear();
+        dist[0] = 0;
+        queue.insertOrDecrease(0, 0);
+        while (!queue.isEmpty()) {
+            long d = queue.peekKey();
+            int u = queue.poll();
+            assertEquals(dist[u], d);
+            for (int v : targets[u]) {
+                if (d + costs[u] < dist[v]) {
+                    dist[v] = d + costs[u];
+                    queue.insertOrDecrease(v, dist[v]);
+                }
+            }
+        }
+        return dist;
+    }
+}
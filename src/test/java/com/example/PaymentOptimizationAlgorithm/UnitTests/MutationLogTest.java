@@ -0,0 +1,112 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.MutationLog;
+import com.example.PaymentOptimizationAlgorithm.Graph.MutationLog.FsyncPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWritesAreReplayedAfterCrash() throws IOException {
+        Path logPath = tempDir.resolve("topology.wal");
+        Path snapshotPath = tempDir.resolve("topology.snapshot");
+        GraphStore store = new GraphStore(2);
+        store.recover(new MutationLog(logPath, snapshotPath, FsyncPolicy.ALWAYS));
+        store.addBranch("A", 1);
+        store.addBranch("B", 2);
+        store.update(writer -> writer.addConnection("A", "B") && writer.addConnection("B", "A"));
+        store.addBranch("A", 100);
+
+        // No close: the first log is abandoned as if the process had died.
+        GraphStore recovered = new GraphStore(2);
+        try (MutationLog log = new MutationLog(logPath, snapshotPath, FsyncPolicy.ALWAYS)) {
+            GraphSnapshot g = recovered.recover(log);
+            assertEquals(store.snapshot().version(), g.version());
+            assertEquals(2, g.nodeCount());
+            assertEquals(2, g.edgeCount());
+            assertEquals(100, g.cost(g.indexOf("A")));
+        }
+    }
+
+    @Test
+    void testTornFinalRecordIsCutOff() throws IOException {
+        Path logPath = tempDir.resolve("topology.wal");
+        Path snapshotPath = tempDir.resolve("topology.snapshot");
+        GraphStore store = new GraphStore();
+        try (MutationLog log = new MutationLog(logPath, snapshotPath, FsyncPolicy.NEVER)) {
+            store.recover(log);
+            store.addBranch("A", 1);
+            store.addBranch("B", 2);
+        }
+        long intact = Files.size(logPath);
+        Files.write(logPath, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (MutationLog log = new MutationLog(logPath, snapshotPath, FsyncPolicy.NEVER)) {
+            assertEquals(intact, log.size());
+            assertEquals(intact, Files.size(logPath));
+            GraphSnapshot g = new GraphStore().recover(log);
+            assertEquals(store.snapshot().version(), g.version());
+            assertEquals(2, g.nodeCount());
+        }
+    }
+
+    @Test
+    void testCheckpointTruncatesLogBehindSnapshot() throws IOException {
+        Path logPath = tempDir.resolve("topology.wal");
+        Path snapshotPath = tempDir.resolve("topology.snapshot");
+        GraphStore store = new GraphStore(2);
+        MutationLog log = new MutationLog(logPath, snapshotPath, FsyncPolicy.NEVER);
+        store.recover(log);
+        store.addBranch("A", 1);
+        store.addBranch("B", 1);
+        assertTrue(log.size() > 0);
+
+        GraphSnapshot checkpointed = store.snapshot();
+        assertTrue(log.checkpoint(checkpointed));
+        assertEquals(0, log.size());
+        assertFalse(log.checkpoint(checkpointed));
+
+        store.addBranch("C", 1);
+        store.addConnection("B", "C");
+        assertTrue(log.size() > 0);
+        log.close();
+
+        try (MutationLog reopened = new MutationLog(logPath, snapshotPath, FsyncPolicy.NEVER)) {
+            GraphSnapshot g = new GraphStore(2).recover(reopened);
+            assertEquals(store.snapshot().version(), g.version());
+            assertEquals(3, g.nodeCount());
+            assertEquals(1, g.edgeCount());
+        }
+    }
+
+    @Test
+    void testLogWithoutItsSnapshotIsRejected() throws IOException {
+        Path logPath = tempDir.resolve("topology.wal");
+        Path snapshotPath = tempDir.resolve("topology.snapshot");
+        GraphStore store = new GraphStore();
+        try (MutationLog log = new MutationLog(logPath, snapshotPath, FsyncPolicy.NEVER)) {
+            store.recover(log);
+            store.addBranch("A", 1);
+            log.checkpoint(store.snapshot());
+            store.addBranch("B", 1);
+        }
+        Files.delete(snapshotPath);
+
+        try (MutationLog log = new MutationLog(logPath, snapshotPath, FsyncPolicy.NEVER)) {
+            assertThrows(IOException.class, () -> new GraphStore().recover(log));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteExplanation;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.InProcessPartitionTransport;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.PartitionedPaymentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedPaymentServiceTest {
+
+    private CsrPaymentService reference;
+    private InProcessPartitionTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        reference = new CsrPaymentService(2);
+        transport = new InProcessPartitionTransport(new CsrPaymentService(2));
+    }
+
+    @Test
+    void testProcessPaymentAcrossRegions() throws IOException {
+        reference.initialize();
+        PartitionedPaymentService paymentService = new PartitionedPaymentService(transport, reference, 100);
+        paymentService.partition(reference.getGraphStore().snapshot(),
+                Map.of("A", "west", "B", "west", "C", "west", "D", "east", "E", "east", "F", "east"));
+
+        assertEquals("west", paymentService.regionOf("C"));
+        RouteExplanation explained = paymentService.explainPayment("A", "D");
+        assertEquals("A,C,E,D", explained.path());
+        assertEquals(Long.valueOf(35), explained.cost());
+        assertEquals("A,C,E,F", paymentService.processPayment("A", "F"));
+        assertNull(paymentService.processPayment("D", "A"));
+    }
+
+    @Test
+    void testWritesThroughCoordinator() throws IOException {
+        reference.initialize();
+        PartitionedPaymentService paymentService = new PartitionedPaymentService(transport, reference, 100);
+        paymentService.partition(reference.getGraphStore().snapshot(),
+                Map.of("A", "west", "B", "west", "C", "west", "D", "east", "E", "east", "F", "east"));
+        long version = paymentService.getTopologyVersion();
+
+        assertTrue(paymentService.addBranch("G", "north", 1).getStatusCode().is2xxSuccessful());
+        assertTrue(paymentService.addConnections("F", "G").getStatusCode().is2xxSuccessful());
+        assertTrue(paymentService.addConnections("G", "A").getStatusCode().is2xxSuccessful());
+        assertTrue(paymentService.getTopologyVersion() > version);
+        assertEquals("D,F,G,A", paymentService.processPayment("D", "A"));
+
+        paymentService.updateBranchCosts(Map.of("B", 1));
+        assertEquals("A,B,D", paymentService.processPayment("A", "D"));
+        assertTrue(paymentService.addConnections("A", "X").getStatusCode().is4xxClientError());
+        assertTrue(paymentService.updateBranchCosts(Map.of("X", 1)).getStatusCode().is4xxClientError());
+    }
+
+    @Test
+    void testAgreesWithCsrEngineOnRandomNetwork() throws IOException {
+        Random random = new Random(17);
+        int branches = 600;
+        for (int i = 0; i < branches; i++) {
+            reference.addBranch("N" + i, random.nextInt(50));
+        }
+        for (int i = 0; i < branches * 3; i++) {
+            // Mostly local connections, so that regions have a boundary far smaller than themselves.
+            int from = random.nextInt(branches);
+            int to = random.nextInt(10) == 0 ? random.nextInt(branches) : (from + 1 + random.nextInt(20)) % branches;
+            reference.addConnections("N" + from, "N" + to);
+        }
+        PartitionedPaymentService paymentService = new PartitionedPaymentService(transport, reference, 50);
+        paymentService.partition(reference.getGraphStore().snapshot(), Map.of());
+        assertTrue(transport.getRegions().size() >= 12);
+
+        for (int q = 0; q < 300; q++) {
+            String origin = "N" + random.nextInt(branches);
+            String destination = "N" + random.nextInt(branches);
+            RouteExplanation expected = reference.explainPayment(origin, destination);
+            RouteExplanation actual = paymentService.explainPayment(origin, destination);
+            assertEquals(expected.cost(), actual.cost(), origin + " -> " + destination);
+            if (actual.path() != null) {
+                assertEquals(expected.cost(), costOf(actual.path()), actual.path());
+            }
+        }
+    }
+
+    private long costOf(String path) {
+        GraphSnapshot g = reference.getGraphStore().snapshot();
+        String[] branches = path.split(",");
+        long total = 0;
+        for (int i = 0; i < branches.length - 1; i++) {
+            int u = g.indexOf(branches[i]);
+            int v = g.indexOf(branches[i + 1]);
+            boolean connected = false;
+            for (int e = g.outBegin(u); e < g.outEnd(u); e++) {
+                connected |= g.outTarget(e) == v;
+            }
+            int[] delta = g.deltaOut(u);
+            for (int e = 0; delta != null && e < delta.length; e++) {
+                connected |= delta[e] == v;
+            }
+            assertTrue(connected, branches[i] + " -> " + branches[i + 1]);
+            total += g.cost(u);
+        }
+        return total;
+    }
+}
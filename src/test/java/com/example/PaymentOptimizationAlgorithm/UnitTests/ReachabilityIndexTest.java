@@ -0,0 +1,172 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.ReachabilityIndex;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityIndexTest {
+
+    private static final int BRANCHES = 240;
+    private static final int REGIONS = 4;
+
+    /**
+     * Grows four regions connection by connection, some connections in batches, and checks the incrementally
+     * maintained index against reachability computed by brute force: it never excludes a connected pair, it
+     * excludes every pair across regions, and it excludes every pair whose destination reaches the origin but
+     * not the other way round, which only holds if the components stay in topological order.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void testIncrementalIndexMatchesBruteForce(long seed) {
+        Random random = new Random(seed);
+        GraphStore store = new GraphStore(16);
+        ReachabilityIndex index = ReachabilityIndex.build(store.snapshot());
+        for (int i = 0; i < BRANCHES; i++) {
+            store.addBranch("b" + i, random.nextInt(10));
+        }
+
+        for (int step = 1; step <= 600; step++) {
+            if (step % 10 == 0) {
+                store.update(writer -> {
+                    for (int j = 0; j < 8; j++) {
+                        connectWithinRegion(random, (from, to) -> writer.addConnection(from, to));
+                    }
+                    return null;
+                });
+            } else {
+                connectWithinRegion(random, store::addConnection);
+            }
+            GraphSnapshot g = store.snapshot();
+            assertTrue(index.covers(store, g));
+            assertEquals(g.version(), index.version());
+            if (step % 50 == 0) {
+                assertConsistent(g, index);
+            }
+        }
+        assertConsistent(store.snapshot(), ReachabilityIndex.build(store.snapshot()));
+    }
+
+    @Test
+    void testClosingACycleMergesComponents() {
+        GraphStore store = new GraphStore();
+        for (String branch : new String[] {"A", "B", "C", "D"}) {
+            store.addBranch(branch, 1);
+        }
+        store.addConnection("A", "B");
+        store.addConnection("B", "C");
+        store.addConnection("C", "D");
+        ReachabilityIndex index = ReachabilityIndex.build(store.snapshot());
+        GraphSnapshot g = store.snapshot();
+        assertTrue(index.excludes(g.indexOf("D"), g.indexOf("A")));
+
+        store.addConnection("D", "B");
+        assertTrue(index.covers(store, store.snapshot()));
+        assertFalse(index.excludes(g.indexOf("D"), g.indexOf("B")));
+        assertTrue(index.excludes(g.indexOf("C"), g.indexOf("A")));
+        assertEquals(3, index.lastReorderSize());
+
+        // A snapshot from before the cycle is still answered by the later index.
+        assertTrue(index.covers(store, g));
+        GraphStore other = new GraphStore();
+        other.addBranch("A", 1);
+        assertFalse(index.covers(other, other.snapshot()));
+    }
+
+    @Test
+    void testConnectionJoinsRegionsAndImportNeedsNewIndex() throws IOException {
+        GraphStore store = new GraphStore();
+        for (String branch : new String[] {"A", "B", "X", "Y"}) {
+            store.addBranch(branch, 1);
+        }
+        store.addConnection("A", "B");
+        store.addConnection("X", "Y");
+        ReachabilityIndex index = ReachabilityIndex.build(store.snapshot());
+        GraphSnapshot g = store.snapshot();
+        assertTrue(index.excludes(g.indexOf("A"), g.indexOf("Y")));
+        assertTrue(index.excludes(g.indexOf("B"), g.indexOf("A")));
+
+        // New branches and a connection between the regions are placed in the index without a rebuild.
+        store.addBranch("Z", 1);
+        store.addConnection("B", "X");
+        assertTrue(index.covers(store, store.snapshot()));
+        g = store.snapshot();
+        assertFalse(index.excludes(g.indexOf("A"), g.indexOf("Y")));
+        assertTrue(index.excludes(g.indexOf("Y"), g.indexOf("A")));
+        assertTrue(index.excludes(g.indexOf("A"), g.indexOf("Z")));
+
+        TopologyImporter importer = new TopologyImporter(ImportFormat.CSV);
+        importer.read(new StringReader("branch,A,1\nbranch,B,1\nedge,B,A\n"));
+        store.replace(importer);
+        assertFalse(index.covers(store, store.snapshot()));
+        ReachabilityIndex rebuilt = ReachabilityIndex.build(store.snapshot());
+        assertEquals(store.snapshot().version(), rebuilt.version());
+        assertTrue(rebuilt.excludes(0, 1));
+    }
+
+    private interface Connect {
+        void connect(String from, String to);
+    }
+
+    private static void connectWithinRegion(Random random, Connect connect) {
+        int region = random.nextInt(REGIONS);
+        int size = BRANCHES / REGIONS;
+        connect.connect("b" + (region * size + random.nextInt(size)), "b" + (region * size + random.nextInt(size)));
+    }
+
+    private static void assertConsistent(GraphSnapshot g, ReachabilityIndex index) {
+        int n = g.nodeCount();
+        boolean[][] reaches = new boolean[n][];
+        for (int s = 0; s < n; s++) {
+            reaches[s] = reachable(g, s);
+        }
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                boolean excluded = index.excludes(s, t);
+                if (reaches[s][t]) {
+                    assertFalse(excluded, s + " reaches " + t);
+                } else if (reaches[t][s] || s / (BRANCHES / REGIONS) != t / (BRANCHES / REGIONS)) {
+                    assertTrue(excluded, s + " cannot reach " + t);
+                }
+            }
+        }
+    }
+
+    private static boolean[] reachable(GraphSnapshot g, int source) {
+        boolean[] seen = new boolean[g.nodeCount()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[source] = true;
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int e = g.outBegin(u), end = g.outEnd(u); e < end; e++) {
+                visit(seen, queue, g.outTarget(e));
+            }
+            int[] delta = g.deltaOut(u);
+            if (delta != null) {
+                for (int v : delta) {
+                    visit(seen, queue, v);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private static void visit(boolean[] seen, ArrayDeque<Integer> queue, int v) {
+        if (!seen[v]) {
+            seen[v] = true;
+            queue.add(v);
+        }
+    }
+}
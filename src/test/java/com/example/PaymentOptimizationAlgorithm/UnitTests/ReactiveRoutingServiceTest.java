@@ -0,0 +1,140 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteRequest;
+import com.example.PaymentOptimizationAlgorithm.Pojo.RouteResult;
+import com.example.PaymentOptimizationAlgorithm.Pojo.TopologyEvent;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.ReactiveRoutingService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.TenantRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveRoutingServiceTest {
+
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private CsrPaymentService defaultService;
+    private Scheduler scheduler;
+    private ReactiveRoutingService routingService;
+
+    @BeforeEach
+    void setUp() {
+        defaultService = new CsrPaymentService(2);
+        defaultService.initialize();
+        scheduler = Schedulers.newParallel("routing-test", 2);
+        TenantRegistry tenants = new TenantRegistry(defaultService, defaultService, (Path) null, Duration.ofMinutes(30), 16);
+        routingService = new ReactiveRoutingService(tenants, scheduler, MAX_IN_FLIGHT, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.dispose();
+    }
+
+    @Test
+    void testStreamsResultsInRequestOrder() {
+        List<RouteRequest> requests = List.of(new RouteRequest("A", "D"), new RouteRequest("A", "F"),
+                new RouteRequest("", "D"), new RouteRequest("D", "A"), new RouteRequest("B", "D"));
+
+        List<RouteResult> results = routingService.route(null, Flux.fromIterable(requests), 0)
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(requests.size(), results.size());
+        assertEquals(new RouteResult("A", "D", "A,C,E,D"), results.get(0));
+        assertEquals(new RouteResult("A", "F", "A,C,E,F"), results.get(1));
+        assertNotNull(results.get(2).error());
+        assertNull(results.get(2).path());
+        assertEquals(new RouteResult("D", "A", null), results.get(3));
+        assertEquals(defaultService.processPayment("B", "D"), results.get(4).path());
+    }
+
+    @Test
+    void testEngineFailureYieldsErrorResultWithoutEndingStream() {
+        CsrPaymentService failing = new CsrPaymentService(2) {
+            @Override
+            public String processPayment(String originBranch, String destinationBranch) {
+                if (originBranch.equals("B")) {
+                    throw new IllegalStateException("Engine failed");
+                }
+                return super.processPayment(originBranch, destinationBranch);
+            }
+        };
+        failing.initialize();
+        TenantRegistry tenants = new TenantRegistry(failing, failing, (Path) null, Duration.ofMinutes(30), 16);
+        ReactiveRoutingService service = new ReactiveRoutingService(tenants, scheduler, MAX_IN_FLIGHT, 10);
+        List<RouteRequest> requests = List.of(new RouteRequest("A", "D"), new RouteRequest("B", "D"),
+                new RouteRequest("A", "F"));
+
+        List<RouteResult> results = service.route(null, Flux.fromIterable(requests), 0)
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(requests.size(), results.size());
+        assertEquals(new RouteResult("A", "D", "A,C,E,D"), results.get(0));
+        assertEquals(new RouteResult("B", "D", null, "Engine failed"), results.get(1));
+        assertEquals(new RouteResult("A", "F", "A,C,E,F"), results.get(2));
+    }
+
+    @Test
+    void testUpstreamDemandIsBoundedBySlowConsumer() throws InterruptedException {
+        AtomicLong requested = new AtomicLong();
+        Flux<RouteRequest> requests = Flux.range(0, 10_000)
+                .map(i -> new RouteRequest("A", "D"))
+                .doOnRequest(n -> requested.addAndGet(n));
+        CountDownLatch received = new CountDownLatch(2);
+
+        routingService.route(null, requests, 0).subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(2);
+            }
+
+            @Override
+            protected void hookOnNext(RouteResult value) {
+                received.countDown();
+            }
+        });
+
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertTrue(requested.get() <= 2 + MAX_IN_FLIGHT, "requested " + requested.get());
+    }
+
+    @Test
+    void testTopologyChangesStreamsNewVersions() throws InterruptedException {
+        BlockingQueue<TopologyEvent> events = new LinkedBlockingQueue<>();
+        Disposable subscription = routingService.topologyChanges(null).subscribe(events::add);
+        try {
+            TopologyEvent current = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(current);
+            assertEquals(TenantRegistry.DEFAULT_TENANT, current.tenant());
+            assertEquals(defaultService.getTopologyVersion(), current.version());
+
+            defaultService.addBranch("G", 1);
+            TopologyEvent next = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(next);
+            assertEquals(defaultService.getTopologyVersion(), next.version());
+            assertTrue(next.version() > current.version());
+        } finally {
+            subscription.dispose();
+        }
+        assertThrows(IllegalArgumentException.class, () -> routingService.topologyChanges("../bank"));
+    }
+}
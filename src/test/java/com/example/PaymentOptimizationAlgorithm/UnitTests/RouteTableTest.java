@@ -0,0 +1,164 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.RouteTable;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContextPool;
+import com.example.PaymentOptimizationAlgorithm.Graph.ShortestPathTrees;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTableTest {
+
+    private final SearchContextPool contexts = new SearchContextPool();
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testUpdateRecomputesOnlyAffectedRows() {
+        GraphStore store = new GraphStore(2);
+        int[] costs = {5, 50, 10, 10, 20, 5};
+        for (int i = 0; i < costs.length; i++) {
+            store.addBranch(String.valueOf((char) ('A' + i)), costs[i]);
+        }
+        for (String edge : new String[] {"AB", "AC", "CB", "BD", "CE", "DE", "ED", "DF", "EF"}) {
+            store.addConnection(edge.substring(0, 1), edge.substring(1));
+        }
+        RouteTable table = RouteTable.build(store.snapshot(), pool, contexts);
+        assertEquals(6, table.recomputedRows());
+        assertEquals("A,C,E,D", table.route("A", "D"));
+
+        // Only A's tree can use the new connection.
+        store.addConnection("A", "D");
+        table = table.update(store.snapshot(), pool, contexts);
+        assertEquals(1, table.recomputedRows());
+        assertEquals("A,D", table.route("A", "D"));
+
+        // Only A's and B's trees continue past D.
+        store.addBranch("D", 50);
+        table = table.update(store.snapshot(), pool, contexts);
+        assertEquals(2, table.recomputedRows());
+        assertEquals(store.snapshot().version(), table.version());
+        assertEquals("A,D", table.route("A", "D"));
+        assertEquals("A,C,E,F", table.route("A", "F"));
+        assertNull(table.route("D", "A"));
+        assertNull(table.route("A", "Z"));
+        assertEquals("B", table.route("B", "B"));
+    }
+
+    /**
+     * Applies random repricings, connections and new branches and checks every pair of the updated table
+     * against a fresh Dijkstra.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    void testUpdatedTableMatchesDijkstra(long seed) {
+        Random random = new Random(seed);
+        GraphStore store = new GraphStore(8);
+        int branches = 60;
+        for (int i = 0; i < branches; i++) {
+            store.addBranch("N" + i, random.nextInt(20));
+        }
+        for (int i = 0; i < branches * 2; i++) {
+            store.addConnection("N" + random.nextInt(branches), "N" + random.nextInt(branches));
+        }
+        RouteTable table = RouteTable.build(store.snapshot(), pool, contexts);
+        assertConsistent(store.snapshot(), table);
+
+        for (int step = 0; step < 30; step++) {
+            switch (random.nextInt(3)) {
+                case 0 -> store.addBranch("N" + random.nextInt(branches), random.nextInt(20));
+                case 1 -> store.addConnection("N" + random.nextInt(branches), "N" + random.nextInt(branches));
+                default -> {
+                    store.addBranch("N" + branches, random.nextInt(20));
+                    store.addConnection("N" + random.nextInt(branches), "N" + branches);
+                    store.addConnection("N" + branches, "N" + random.nextInt(branches));
+                    branches++;
+                }
+            }
+            GraphSnapshot g = store.snapshot();
+            table = table.update(g, pool, contexts);
+            assertTrue(table.recomputedRows() <= g.nodeCount());
+            assertConsistent(g, table);
+        }
+    }
+
+    @Test
+    void testImportedNetworkNeedsNewTable() throws IOException {
+        GraphStore store = new GraphStore();
+        store.addBranch("A", 1);
+        store.addBranch("B", 1);
+        store.addConnection("A", "B");
+        RouteTable table = RouteTable.build(store.snapshot(), pool, contexts);
+
+        TopologyImporter importer = new TopologyImporter(ImportFormat.CSV);
+        importer.read(new StringReader("branch,A,1\nbranch,B,1\nedge,B,A\n"));
+        store.replace(importer);
+        assertNull(table.update(store.snapshot(), pool, contexts));
+        assertEquals("A,B", table.route("A", "B"));
+    }
+
+    private static void assertConsistent(GraphSnapshot g, RouteTable table) {
+        assertEquals(g.version(), table.version());
+        assertEquals(g.nodeCount(), table.branchCount());
+        SearchContext context = new SearchContext();
+        for (int s = 0; s < g.nodeCount(); s++) {
+            ShortestPathTrees.grow(g, context, s, null);
+            for (int t = 0; t < g.nodeCount(); t++) {
+                String path = table.route(g.nameOf(s), g.nameOf(t));
+                long expected = context.forwardDistance(t);
+                if (expected == SearchContext.UNREACHED) {
+                    assertNull(path, s + " -> " + t);
+                } else {
+                    assertNotNull(path, s + " -> " + t);
+                    assertEquals(expected, costOf(g, path), path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sums the cost of every branch a path leaves, after checking that each step is a connection.
+     */
+    private static long costOf(GraphSnapshot g, String path) {
+        String[] branches = path.split(",");
+        long cost = 0;
+        for (int i = 0; i + 1 < branches.length; i++) {
+            int u = g.indexOf(branches[i]);
+            int v = g.indexOf(branches[i + 1]);
+            boolean connected = false;
+            for (int e = g.outBegin(u); e < g.outEnd(u) && !connected; e++) {
+                connected = g.outTarget(e) == v;
+            }
+            int[] delta = g.deltaOut(u);
+            for (int e = 0; delta != null && e < delta.length && !connected; e++) {
+                connected = delta[e] == v;
+            }
+            assertTrue(connected, path);
+            cost += g.cost(u);
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchStatistics;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.RoutingMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingMetricsTest {
+
+    @Test
+    void testRecordedWorkIsPublished() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RoutingMetrics metrics = new RoutingMetrics("csr", 0, 1.0);
+        metrics.recordQuery(1_000);
+        metrics.bindTo(registry);
+
+        SearchStatistics statistics = new SearchStatistics();
+        statistics.settled(true, 3);
+        statistics.settled(true, 1);
+        statistics.settled(false, 2);
+        statistics.pushed(true);
+        statistics.pushed(false);
+        statistics.pushed(false);
+        metrics.recordSearch("A", "D", statistics, 5_000);
+        metrics.recordSearch("A", "F", statistics, 5_000);
+        metrics.recordQuery(2_000_000);
+        metrics.recordUnreachable();
+        metrics.recordCoalesced();
+        metrics.recordCoalesced();
+
+        // Queries recorded before the registry is bound are not counted.
+        assertEquals(1, registry.get("payment.route.latency").tag("engine", "csr").timer().count());
+        assertEquals(2, metrics.getSearchCount());
+        assertEquals(2, registry.get("payment.search.count").functionCounter().count());
+        assertEquals(4, counter(registry, "payment.search.settled", "forward"));
+        assertEquals(2, counter(registry, "payment.search.settled", "backward"));
+        assertEquals(8, counter(registry, "payment.search.relaxations", "forward"));
+        assertEquals(4, counter(registry, "payment.search.relaxations", "backward"));
+        assertEquals(2, counter(registry, "payment.search.pushes", "forward"));
+        assertEquals(4, counter(registry, "payment.search.pushes", "backward"));
+        assertEquals(1, metrics.getPrunedCount());
+        assertEquals(1, registry.get("payment.search.pruned").functionCounter().count());
+        assertEquals(2, metrics.getCoalescedCount());
+        assertEquals(2, registry.get("payment.search.coalesced").functionCounter().count());
+    }
+
+    @Test
+    void testTenantLockWaitsArePublished() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RoutingMetrics metrics = new RoutingMetrics("csr", 0, 0);
+        metrics.bindTo(registry);
+        metrics.recordTenantLockWait(0);
+        metrics.recordTenantLockWait(3_000_000);
+
+        var wait = registry.get("payment.lock.wait").tag("lock", "tenant").functionTimer();
+        assertEquals(2, wait.count());
+        assertEquals(3, wait.totalTime(TimeUnit.MILLISECONDS), 1e-9);
+    }
+
+    private static double counter(SimpleMeterRegistry registry, String name, String direction) {
+        return registry.get(name).tag("direction", direction).functionCounter().count();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchBudget;
+import com.example.PaymentOptimizationAlgorithm.Graph.SearchContext;
+import com.example.PaymentOptimizationAlgorithm.Graph.ShortestPathTrees;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchBudgetTest {
+
+    @Test
+    void testWithinOnlyTightensTheBudget() {
+        assertSame(SearchBudget.UNLIMITED, SearchBudget.of(0, 0));
+        assertEquals(Long.MAX_VALUE, SearchBudget.UNLIMITED.remainingNanos());
+
+        SearchBudget budget = SearchBudget.of(60_000, 10);
+        assertSame(budget, budget.within(0, 20));
+        assertSame(budget, budget.within(120_000, 0));
+        assertFalse(budget.isExhausted(9));
+        assertTrue(budget.isExhausted(10));
+        assertTrue(budget.within(0, 5).isExhausted(5));
+        assertTrue(budget.within(1, 0).remainingNanos() <= 1_000_000);
+        assertTrue(budget.remainingNanos() > 1_000_000);
+    }
+
+    @Test
+    void testDeadlineIsCheckedEveryFewNodesOrOnDemand() {
+        SearchBudget budget = expired();
+        assertEquals(0, budget.remainingNanos());
+        assertTrue(budget.isExhausted(0));
+        assertFalse(budget.isExhausted(1));
+        assertTrue(budget.isExhausted(256));
+        assertTrue(budget.isExhaustedNow(1));
+    }
+
+    @Test
+    void testBudgetIsBoundToTheThreadUntilExit() throws InterruptedException {
+        SearchBudget outer = SearchBudget.of(0, 100);
+        SearchBudget inner = SearchBudget.of(0, 10);
+        SearchBudget previous = SearchBudget.enter(outer);
+        try {
+            SearchBudget nested = SearchBudget.enter(inner);
+            assertSame(inner, SearchBudget.current());
+            SearchBudget[] seen = new SearchBudget[1];
+            Thread other = new Thread(() -> seen[0] = SearchBudget.current());
+            other.start();
+            other.join();
+            assertSame(SearchBudget.UNLIMITED, seen[0]);
+            SearchBudget.exit(nested);
+            assertSame(outer, SearchBudget.current());
+        } finally {
+            SearchBudget.exit(previous);
+        }
+        assertSame(SearchBudget.UNLIMITED, SearchBudget.current());
+    }
+
+    @Test
+    void testSearchStopsWhenBudgetIsExhausted() {
+        GraphStore store = new GraphStore();
+        for (int i = 0; i < 20; i++) {
+            store.addBranch("N" + i, 1);
+            if (i > 0) {
+                store.addConnection("N" + (i - 1), "N" + i);
+            }
+        }
+        GraphSnapshot g = store.snapshot();
+        SearchContext context = new SearchContext();
+        int[] last = {g.indexOf("N19")};
+
+        assertFalse(ShortestPathTrees.grow(g, context, g.indexOf("N0"), last, SearchBudget.of(0, 3)));
+        assertEquals(3, context.settledCount());
+        assertEquals(SearchContext.UNREACHED, context.forwardDistance(last[0]));
+
+        // An already expired deadline stops the search before it settles anything.
+        assertFalse(ShortestPathTrees.grow(g, context, g.indexOf("N0"), last, expired()));
+        assertEquals(0, context.settledCount());
+
+        assertTrue(ShortestPathTrees.grow(g, context, g.indexOf("N0"), last, SearchBudget.of(60_000, 20)));
+        assertEquals(19, context.forwardDistance(last[0]));
+    }
+
+    private static SearchBudget expired() {
+        SearchBudget budget = SearchBudget.of(1, 0);
+        long until = System.nanoTime() + 2_000_000;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+        return budget;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.SnapshotFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes a network whose later connections are still in the delta overlay and checks that the mapped
+     * snapshot has the same branches, costs and adjacency in both directions, all in its compacted base.
+     */
+    @Test
+    void testMappedSnapshotMatchesWrittenTopology() throws IOException {
+        Random random = new Random(8);
+        GraphStore store = new GraphStore(1000);
+        for (int i = 0; i < 200; i++) {
+            store.addBranch("branch-" + i + "-é", random.nextInt(50));
+        }
+        for (int i = 0; i < 800; i++) {
+            store.addConnection("branch-" + random.nextInt(200) + "-é", "branch-" + random.nextInt(200) + "-é");
+        }
+        GraphSnapshot written = store.snapshot();
+        assertTrue(written.deltaEdgeCount() > 0);
+
+        Path path = tempDir.resolve("topology.snap");
+        SnapshotFile.write(written, path);
+        GraphSnapshot mapped = SnapshotFile.map(path);
+
+        assertEquals(written.version(), mapped.version());
+        assertEquals(written.nodeCount(), mapped.nodeCount());
+        assertEquals(written.edgeCount(), mapped.edgeCount());
+        assertEquals(0, mapped.deltaEdgeCount());
+        assertEquals(written.maxCost(), mapped.maxCost());
+        for (int u = 0; u < written.nodeCount(); u++) {
+            assertEquals(written.nameOf(u), mapped.nameOf(u));
+            assertEquals(u, mapped.indexOf(written.nameOf(u)));
+            assertEquals(written.cost(u), mapped.cost(u));
+            assertEquals(targets(written, u), targets(mapped, u));
+            assertEquals(sources(written, u), sources(mapped, u));
+        }
+        assertEquals(-1, mapped.indexOf("branch-200-é"));
+    }
+
+    @Test
+    void testWritesBuildOnMappedSnapshot() throws IOException {
+        GraphStore store = new GraphStore(2);
+        for (String branch : new String[] {"A", "B", "C"}) {
+            store.addBranch(branch, 1);
+        }
+        store.addConnection("A", "B");
+        store.addConnection("B", "C");
+        Path path = tempDir.resolve("topology.snap");
+        store.export(path);
+
+        GraphStore restored = new GraphStore(2);
+        GraphSnapshot mapped = restored.restore(path);
+        assertEquals(store.snapshot().version(), mapped.version());
+
+        // Repricing updates the copied costs; new branches and connections go to the delta and are then
+        // compacted together with the mapped adjacency.
+        restored.addBranch("A", 7);
+        restored.addBranch("D", 1);
+        restored.addConnection("C", "D");
+        restored.addConnection("A", "D");
+        restored.addConnection("D", "A");
+        restored.compact();
+        GraphSnapshot g = restored.snapshot();
+        assertEquals(0, g.deltaEdgeCount());
+        assertEquals(7, g.cost(g.indexOf("A")));
+        assertEquals(1, mapped.cost(mapped.indexOf("A")));
+        assertEquals(Set.of("B", "D"), names(g, targets(g, g.indexOf("A"))));
+        assertEquals(Set.of("A", "C"), names(g, sources(g, g.indexOf("D"))));
+
+        // A file written from the restored store maps to the same network again.
+        Path rewritten = tempDir.resolve("rewritten.snap");
+        restored.export(rewritten);
+        GraphSnapshot remapped = SnapshotFile.map(rewritten);
+        for (int u = 0; u < g.nodeCount(); u++) {
+            assertEquals(targets(g, u), targets(remapped, u));
+        }
+    }
+
+    @Test
+    void testReplacingFileKeepsMappedSnapshotReadable() throws IOException {
+        GraphStore store = new GraphStore();
+        store.addBranch("A", 1);
+        store.addBranch("B", 2);
+        store.addConnection("A", "B");
+        Path path = tempDir.resolve("topology.snap");
+        store.export(path);
+        GraphSnapshot mapped = SnapshotFile.map(path);
+
+        store.addBranch("C", 3);
+        store.addConnection("B", "C");
+        store.export(path);
+
+        assertEquals(2, mapped.nodeCount());
+        assertEquals(Set.of("B"), names(mapped, targets(mapped, mapped.indexOf("A"))));
+        assertEquals(3, SnapshotFile.map(path).nodeCount());
+    }
+
+    @Test
+    void testCorruptFilesAreRejected() throws IOException {
+        GraphStore store = new GraphStore();
+        store.addBranch("A", 1);
+        store.addBranch("B", 2);
+        store.addConnection("A", "B");
+        Path path = tempDir.resolve("topology.snap");
+        store.export(path);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = tempDir.resolve("truncated.snap");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> SnapshotFile.map(truncated));
+
+        Path foreign = tempDir.resolve("foreign.snap");
+        Files.writeString(foreign, "branch,A,1\n".repeat(10));
+        assertThrows(IOException.class, () -> SnapshotFile.map(foreign));
+    }
+
+    private static Set<Integer> targets(GraphSnapshot g, int node) {
+        Set<Integer> targets = new TreeSet<>();
+        for (int e = g.outBegin(node); e < g.outEnd(node); e++) {
+            targets.add(g.outTarget(e));
+        }
+        int[] delta = g.deltaOut(node);
+        for (int e = 0; delta != null && e < delta.length; e++) {
+            targets.add(delta[e]);
+        }
+        return targets;
+    }
+
+    private static Set<Integer> sources(GraphSnapshot g, int node) {
+        Set<Integer> sources = new TreeSet<>();
+        for (int e = g.inBegin(node); e < g.inEnd(node); e++) {
+            sources.add(g.inSource(e));
+        }
+        int[] delta = g.deltaIn(node);
+        for (int e = 0; delta != null && e < delta.length; e++) {
+            sources.add(delta[e]);
+        }
+        return sources;
+    }
+
+    private static Set<String> names(GraphSnapshot g, Set<Integer> nodes) {
+        Set<String> names = new TreeSet<>();
+        nodes.forEach(node -> names.add(g.nameOf(node)));
+        return names;
+    }
+}
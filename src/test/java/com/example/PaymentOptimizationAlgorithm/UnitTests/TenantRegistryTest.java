@@ -0,0 +1,176 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Service.PaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.CsrPaymentService;
+import com.example.PaymentOptimizationAlgorithm.ServiceImpl.TenantRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    private CsrPaymentService defaultService;
+
+    @BeforeEach
+    void setUp() {
+        defaultService = new CsrPaymentService(2);
+        defaultService.initialize();
+    }
+
+    @Test
+    void testTenantsHaveSeparateNetworks() throws IOException {
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, (Path) null, Duration.ofMinutes(30), 16);
+        long defaultVersion = defaultService.getTopologyVersion();
+
+        addNetwork(registry, "bank1", 1);
+        addNetwork(registry, "bank2", 100);
+        registry.call("bank2", service -> service.addConnections("X", "Z"));
+
+        assertEquals("X,Y,Z", registry.call("bank1", service -> service.processPayment("X", "Z")));
+        assertEquals("X,Z", registry.call("bank2", service -> service.processPayment("X", "Z")));
+        assertNull(registry.call(null, service -> service.processPayment("X", "Z")));
+        assertEquals("A,C,E,D", registry.call(TenantRegistry.DEFAULT_TENANT, service -> service.processPayment("A", "D")));
+        assertEquals(defaultVersion, defaultService.getTopologyVersion());
+    }
+
+    @Test
+    void testIdleTenantIsEvictedAndRestored() throws IOException {
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, directory, Duration.ZERO, 16);
+        addNetwork(registry, "bank1", 1);
+        long version = registry.call("bank1", PaymentService::getTopologyVersion);
+
+        assertEquals(1, registry.evictIdleTenants());
+        assertFalse(registry.isLoaded("bank1"));
+        assertTrue(Files.exists(directory.resolve("bank1.snapshot")));
+
+        assertEquals("X,Y,Z", registry.call("bank1", service -> service.processPayment("X", "Z")));
+        assertTrue(registry.isLoaded("bank1"));
+        assertEquals(Long.valueOf(version), registry.call("bank1", PaymentService::getTopologyVersion));
+    }
+
+    @Test
+    void testTenantInUseIsNotEvicted() throws IOException {
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, directory, Duration.ZERO, 16);
+        addNetwork(registry, "bank1", 1);
+
+        assertEquals(Integer.valueOf(0), registry.call("bank1", service -> registry.evictIdleTenants()));
+        assertTrue(registry.isLoaded("bank1"));
+    }
+
+    @Test
+    void testRejectsInvalidTenantIdsAndTooManyTenants() throws IOException {
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, directory, Duration.ZERO, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.call("../bank1", PaymentService::getTopologyVersion));
+        addNetwork(registry, "bank1", 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.call("bank2", PaymentService::getTopologyVersion));
+
+        // An evicted tenant gives up its place.
+        assertEquals(1, registry.evictIdleTenants());
+        addNetwork(registry, "bank2", 1);
+        assertThrows(IllegalArgumentException.class, () -> addNetwork(registry, "bank1", 1));
+    }
+
+    @Test
+    void testTenantsThatOnlyReadLeaveNothingBehind() throws IOException {
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, directory, Duration.ofMinutes(30), 1);
+        registry.configureMutationLog("payment.wal", "always");
+
+        for (int i = 0; i < 10; i++) {
+            String tenant = "reader" + i;
+            assertNull(registry.call(tenant, service -> service.processPayment("X", "Z")));
+            assertEquals(Long.valueOf(0), registry.call(tenant, PaymentService::getTopologyVersion));
+            assertFalse(registry.isLoaded(tenant));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        addNetwork(registry, "bank1", 1);
+        assertEquals("X,Y,Z", registry.call("bank1", service -> service.processPayment("X", "Z")));
+        assertTrue(registry.isLoaded("bank1"));
+    }
+
+    @Test
+    void testConcurrentFirstRequestsStayWithinTheCap() throws Exception {
+        int maxTenants = 4;
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, (Path) null, Duration.ofMinutes(30), maxTenants);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        try {
+            for (int i = 0; i < 32; i++) {
+                String tenant = "bank" + i;
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        addNetwork(registry, tenant, 1);
+                        return true;
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            for (Future<Boolean> attempt : attempts) {
+                accepted += attempt.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(maxTenants, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEachTenantPublishesItsOwnLockMetrics() throws IOException {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        TenantRegistry registry = new TenantRegistry(defaultService, defaultService, directory, Duration.ZERO, 16);
+        registry.setMeterRegistry(meters);
+        addNetwork(registry, "bank1", 1);
+        addNetwork(registry, "bank2", 1);
+        registry.call("bank2", service -> service.addBranch("W", 1));
+
+        assertEquals(5, lockAcquisitions(meters, "bank1"));
+        assertEquals(6, lockAcquisitions(meters, "bank2"));
+        assertEquals(3.0, meters.get("payment.graph.branches").tag("tenant", "bank1").gauge().value());
+
+        assertEquals(2, registry.evictIdleTenants());
+        assertNull(meters.find("payment.lock.wait").tag("tenant", "bank1").functionTimer());
+        assertNull(meters.find("payment.graph.branches").tag("tenant", "bank2").gauge());
+    }
+
+    private static long lockAcquisitions(SimpleMeterRegistry meters, String tenant) {
+        return (long) meters.get("payment.lock.wait").tag("lock", "topology-write").tag("tenant", tenant)
+                .functionTimer().count();
+    }
+
+    private static void addNetwork(TenantRegistry registry, String tenant, int cost) throws IOException {
+        registry.call(tenant, service -> {
+            service.addBranch("X", cost);
+            service.addBranch("Y", cost);
+            service.addBranch("Z", cost);
+            service.addConnections("X", "Y");
+            return service.addConnections("Y", "Z");
+        });
+    }
+}
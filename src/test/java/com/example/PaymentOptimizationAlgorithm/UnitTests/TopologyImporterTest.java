@@ -0,0 +1,93 @@
+package com.example.PaymentOptimizationAlgorithm.UnitTests;
+
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphSnapshot;
+import com.example.PaymentOptimizationAlgorithm.Graph.GraphStore;
+import com.example.PaymentOptimizationAlgorithm.Graph.TopologyImporter;
+import com.example.PaymentOptimizationAlgorithm.Pojo.ImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopologyImporterTest {
+
+    @Test
+    void testImportReplacesTopologyWithOneCompactedVersion() throws IOException {
+        GraphStore store = new GraphStore(2);
+        store.addBranch("A", 1);
+        store.addBranch("D", 1);
+        store.addConnection("A", "D");
+        long version = store.snapshot().version();
+
+        TopologyImporter importer = new TopologyImporter(ImportFormat.NDJSON);
+        importer.read(new StringReader("""
+                {"type":"branch","branch":"A","cost":5}
+                {"branch":"B","cost":10}
+                {"type":"branch","branch":"C","cost":1}
+                {"type":"edge","from":"A","to":"B"}
+                {"from":"B","to":"C"}
+                {"from":"A","to":"C"}
+                {"from":"A","to":"C"}
+                """));
+        assertEquals(7, importer.getRowsRead());
+        assertEquals(3, importer.getBranchCount());
+        assertEquals(4, importer.getEdgeRowCount());
+
+        GraphSnapshot g = store.replace(importer);
+        assertSame(g, store.snapshot());
+        assertEquals(version + 1, g.version());
+        assertEquals(3, g.nodeCount());
+        assertEquals(3, g.edgeCount());
+        assertEquals(0, g.deltaEdgeCount());
+        assertEquals(0, importer.getRejectedRows());
+        assertEquals(5, g.cost(g.indexOf("A")));
+        assertEquals(-1, g.indexOf("D"));
+        assertEquals(Set.of("B", "C"), targets(g, "A"));
+        assertEquals(Set.of("C"), targets(g, "B"));
+
+        // Writes after the import build on the imported base.
+        store.addBranch("D", 1);
+        assertTrue(store.addConnection("C", "D"));
+        assertEquals(Set.of("D"), targets(store.snapshot(), "C"));
+    }
+
+    @Test
+    void testRejectedRowsAreCountedWithReasons() throws IOException {
+        TopologyImporter importer = new TopologyImporter(ImportFormat.CSV);
+        importer.read(new StringReader("""
+                type,id,value
+                branch,A,5
+                branch,B,10
+                edge,A,B
+                edge,A,Z
+                branch,C,-1
+                not a row
+                """));
+        assertEquals(2, importer.getRejectedRows());
+
+        // The edge to the undefined branch Z is only rejected once the graph is built.
+        GraphSnapshot g = new GraphStore().replace(importer);
+        assertEquals(3, importer.getRejectedRows());
+        assertEquals(3, importer.getRejections().size());
+        assertTrue(importer.getRejections().stream().anyMatch(reason -> reason.contains("Z")), importer.getRejections()::toString);
+        assertEquals(2, g.nodeCount());
+        assertEquals(Set.of("B"), targets(g, "A"));
+    }
+
+    private static Set<String> targets(GraphSnapshot g, String branch) {
+        int node = g.indexOf(branch);
+        Set<String> targets = new TreeSet<>();
+        for (int e = g.outBegin(node); e < g.outEnd(node); e++) {
+            targets.add(g.nameOf(g.outTarget(e)));
+        }
+        int[] delta = g.deltaOut(node);
+        for (int e = 0; delta != null && e < delta.length; e++) {
+            targets.add(g.nameOf(delta[e]));
+        }
+        return targets;
+    }
+}